@@ -0,0 +1,141 @@
+package org.usfca.medicaid.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result against the checked-in baseline.
+ * Prints score and normalized allocation for each benchmark, and exits with
+ * status 1 if any benchmark regressed beyond the threshold.
+ *
+ * <p>The baseline wraps the JMH results of one run with the JDK and JVM
+ * options they were recorded with. Scores from another JDK feature release
+ * or other JVM options are not comparable, so such a run is reported and
+ * fails without a per-benchmark verdict until the baseline is recorded again
+ * on the build's JDK. A result mixing JDKs or JVM options is not recorded.
+ *
+ * <p>Usage: {@code BaselineComparator <baseline.json> <result.json> [thresholdPercent]},
+ * or {@code BaselineComparator --record <result.json> <baseline.json>} to record a baseline.</p>
+ */
+public final class BaselineComparator {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--record")) {
+            record(new File(args[1]), new File(args[2]));
+            return;
+        }
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <result.json> [thresholdPercent]");
+            System.err.println("       BaselineComparator --record <result.json> <baseline.json>");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        JsonNode baselineFile = new ObjectMapper().readTree(new File(args[0]));
+        JsonNode resultFile = new ObjectMapper().readTree(new File(args[1]));
+        String baselineJdk = baselineFile.path("jdkVersion").asText("unknown");
+        String currentJdk = resultFile.path(0).path("jdkVersion").asText("unknown");
+        JsonNode baselineJvmArgs = baselineFile.path("jvmArgs");
+        JsonNode currentJvmArgs = resultFile.path(0).path("jvmArgs");
+        boolean comparable = featureRelease(baselineJdk).equals(featureRelease(currentJdk))
+                && baselineJvmArgs.equals(currentJvmArgs);
+        if (!comparable) {
+            System.out.println("Baseline was recorded on JDK " + baselineJdk + " with JVM options " + baselineJvmArgs
+                    + " but this run used JDK " + currentJdk + " with " + currentJvmArgs
+                    + "; scores are not comparable. Record the baseline again with exec:exec@record-baseline.");
+        }
+
+        Map<String, JsonNode> baseline = load(baselineFile.path("results"));
+        Map<String, JsonNode> current = load(resultFile);
+
+        System.out.printf("%-70s %12s %12s %8s %14s %14s%n",
+                "Benchmark", "Baseline", "Current", "Delta", "Alloc base", "Alloc now");
+
+        boolean regressed = false;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+
+            double score = now.path("primaryMetric").path("score").asDouble();
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            double allocation = now.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score").asDouble(Double.NaN);
+
+            if (before == null) {
+                System.out.printf("%-70s %12s %12.3f %8s %14s %14.0f  (%s, new)%n",
+                        entry.getKey(), "-", score, "-", "-", allocation, unit);
+                continue;
+            }
+
+            double baseScore = before.path("primaryMetric").path("score").asDouble();
+            double baseAllocation = before.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score").asDouble(Double.NaN);
+            double delta = baseScore == 0 ? 0 : (score - baseScore) / baseScore * 100;
+            boolean slower = comparable && delta > threshold;
+            regressed |= slower;
+
+            System.out.printf("%-70s %12.3f %12.3f %+7.1f%% %14.0f %14.0f  (%s)%s%n",
+                    entry.getKey(), baseScore, score, delta, baseAllocation, allocation, unit,
+                    slower ? "  REGRESSION" : "");
+        }
+
+        System.exit(regressed || !comparable ? 1 : 0);
+    }
+
+    /**
+     * Write a JMH JSON result as the baseline, stamped with the JDK and JVM
+     * options it ran with.
+     */
+    private static void record(File result, File baseline) throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        JsonNode results = mapper.readTree(result);
+        for (JsonNode entry : results) {
+            if (!entry.path("jdkVersion").equals(results.path(0).path("jdkVersion"))
+                    || !entry.path("jvmArgs").equals(results.path(0).path("jvmArgs"))) {
+                System.err.println("Not recording " + result + ": " + entry.path("benchmark").asText()
+                        + " ran on another JDK or with other JVM options; record all benchmarks in one run.");
+                System.exit(1);
+            }
+        }
+        ObjectNode root = mapper.createObjectNode();
+        root.put("jdkVersion", results.path(0).path("jdkVersion").asText());
+        root.put("vmVersion", results.path(0).path("vmVersion").asText());
+        root.set("jvmArgs", results.path(0).path("jvmArgs"));
+        root.set("results", results);
+        mapper.writeValue(baseline, root);
+        System.out.println("Recorded " + results.size() + " results on JDK " + root.path("jdkVersion").asText()
+                + " as " + baseline);
+    }
+
+    /**
+     * Get the feature release of a JDK version, e.g. 21 for 21.0.1.
+     */
+    private static String featureRelease(String jdkVersion) {
+        int dot = jdkVersion.indexOf('.');
+        return dot > 0 ? jdkVersion.substring(0, dot) : jdkVersion;
+    }
+
+    /**
+     * Load JMH results keyed by benchmark name and parameters.
+     */
+    private static Map<String, JsonNode> load(JsonNode file) {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : file) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            result.path("params").fields().forEachRemaining(param ->
+                    key.append(':').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,95 @@
+package org.usfca.medicaid.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic sample text for benchmarks.
+ * Produces Medicaid-style prose with the line breaks, repeated spaces and
+ * page breaks typical of text extracted from PDFs and web pages.
+ */
+public final class BenchmarkText {
+
+    private static final String[] WORDS = {
+            "Medical", "Assistance", "MinnesotaCare", "eligibility", "income", "asset", "limit",
+            "household", "county", "waiver", "services", "coverage", "enrollee", "benefits",
+            "application", "renewal", "Department", "of", "Human", "Services", "the", "and",
+            "for", "to", "a", "in", "is", "may", "must", "with", "monthly", "annual", "percent",
+            "federal", "poverty", "guidelines", "long-term", "care", "estate", "recovery",
+            "prescription", "drug", "preferred", "list", "children", "pregnant", "adults", "65",
+            "disability", "premium", "cost-sharing", "provider", "managed", "health", "plan"
+    };
+
+    private BenchmarkText() {
+    }
+
+    /**
+     * Generate raw extracted text of roughly the given length.
+     *
+     * @param length the approximate number of characters
+     * @param seed the random seed
+     * @return raw, un-normalized text
+     */
+    public static String rawText(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(length + 64);
+        int sentenceLength = 0;
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            sentenceLength++;
+            if (sentenceLength > 8 + random.nextInt(12)) {
+                text.append('.');
+                sentenceLength = 0;
+                int breakKind = random.nextInt(10);
+                if (breakKind == 0) {
+                    text.append("\n\n\f\n");
+                } else if (breakKind < 4) {
+                    text.append("\n");
+                } else {
+                    text.append("  ");
+                }
+            } else {
+                text.append(random.nextInt(6) == 0 ? " \t " : " ");
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Generate an HTML page shaped like the mn.gov program pages: navigation,
+     * scripts and a footer around a main content section.
+     *
+     * @param mainLength the approximate number of characters of main content
+     * @param seed the random seed
+     * @return the HTML page
+     */
+    public static String htmlPage(int mainLength, long seed) {
+        Random random = new Random(seed);
+        StringBuilder html = new StringBuilder(mainLength * 2);
+        html.append("<!DOCTYPE html><html><head><title>Medical Assistance</title>")
+                .append("<style>body { font-family: sans-serif; }</style>")
+                .append("<script>window.dataLayer = window.dataLayer || [];</script></head><body>");
+        html.append("<nav><ul>");
+        for (int i = 0; i < 60; i++) {
+            html.append("<li><a href=\"/dhs/page-").append(i).append("\">")
+                    .append(WORDS[random.nextInt(WORDS.length)]).append("</a></li>");
+        }
+        html.append("</ul></nav><main>");
+        int written = 0;
+        int section = 0;
+        while (written < mainLength) {
+            String paragraph = rawText(400 + random.nextInt(400), seed + section);
+            html.append("<h2>Section ").append(section++).append("</h2><p>").append(paragraph).append("</p>");
+            if (section % 5 == 0) {
+                html.append("<table><tr><td>Household size</td><td>Monthly income</td></tr>")
+                        .append("<tr><td>1</td><td>$1,305</td></tr><tr><td>2</td><td>$1,763</td></tr></table>");
+            }
+            written += paragraph.length();
+        }
+        html.append("</main><footer>");
+        for (int i = 0; i < 20; i++) {
+            html.append("<p>").append(rawText(120, seed + 1000 + i)).append("</p>");
+        }
+        html.append("</footer><script>trackPage();</script></body></html>");
+        return html.toString();
+    }
+}
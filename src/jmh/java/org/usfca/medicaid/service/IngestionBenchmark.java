@@ -0,0 +1,84 @@
+package org.usfca.medicaid.service;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.usfca.medicaid.benchmark.BenchmarkText;
+import org.usfca.medicaid.chunking.StructuredDocumentSplitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the CPU-bound steps run on every ingested document.
+ * The PDF text defaults to ~200k characters of generated text (a 50-60 page
+ * PDF); set -Dbenchmark.pdfText=path/to/extracted.txt to use real extracted text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionBenchmark {
+
+    private String rawPdfText;
+    private Document pdfDocument;
+    private String html;
+    private DocumentSplitter splitter;
+    private DocumentSplitter structuredSplitter;
+
+    @Setup
+    public void setUp() throws IOException {
+        String pdfTextFile = System.getProperty("benchmark.pdfText");
+        rawPdfText = pdfTextFile != null
+                ? Files.readString(Path.of(pdfTextFile))
+                : BenchmarkText.rawText(200_000, 42);
+
+        Metadata metadata = new Metadata();
+        metadata.put("title", "preferred-drug-list");
+        metadata.put("source", "https://mn.gov/dhs/assets/preferred-drug-list.pdf");
+        pdfDocument = Document.from(DocumentLoaderService.normalizeWhitespace(rawPdfText), metadata);
+
+        html = BenchmarkText.htmlPage(40_000, 7);
+        splitter = DocumentSplitters.recursive(300, 50);
+        structuredSplitter = new StructuredDocumentSplitter(200, new OpenAiTokenCountEstimator("text-embedding-3-small"));
+    }
+
+    @Benchmark
+    public List<TextSegment> splitRecursive300x50() {
+        return splitter.split(pdfDocument);
+    }
+
+    @Benchmark
+    public List<TextSegment> splitStructured200Tokens() {
+        return structuredSplitter.split(pdfDocument);
+    }
+
+    @Benchmark
+    public String normalizeWhitespace() {
+        return DocumentLoaderService.normalizeWhitespace(rawPdfText);
+    }
+
+    @Benchmark
+    public String jsoupParseAndExtract() {
+        return DocumentLoaderService.extractMainText(Jsoup.parse(html));
+    }
+}
@@ -0,0 +1,109 @@
+package org.usfca.medicaid.service;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.usfca.medicaid.benchmark.BenchmarkText;
+import org.usfca.medicaid.prompt.PromptAssembler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the CPU-bound steps RagService runs on every chat turn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RagServiceBenchmark {
+
+    /**
+     * Number of unique segments in the context: one query (5) up to four queries (20).
+     */
+    @Param({"5", "20"})
+    public int segmentCount;
+
+    private RagService ragService;
+    private PromptAssembler prompts;
+    private List<TextSegment> segments;
+    private List<String> conversationHistory;
+    private String context;
+    private String rewriteResponse;
+
+    @Setup
+    public void setUp() {
+        ragService = new RagService(null, null, null, null, null, null, null, null, null);
+        prompts = new PromptAssembler();
+
+        segments = new ArrayList<>();
+        for (int i = 0; i < segmentCount; i++) {
+            Metadata metadata = new Metadata();
+            metadata.put("document_id", "https://mn.gov/dhs/people-we-serve/adults/page-" + (i % 4) + "_Medical_Assistance");
+            metadata.put("segment_index", String.valueOf(i));
+            metadata.put("title", "Medical Assistance");
+            metadata.put("source", "https://mn.gov/dhs/people-we-serve/adults/page-" + (i % 4));
+            segments.add(TextSegment.from(BenchmarkText.rawText(300, i).replaceAll("\\s+", " "), metadata));
+        }
+
+        conversationHistory = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            conversationHistory.add("User: " + BenchmarkText.rawText(80, 100 + i));
+            conversationHistory.add("Assistant: " + BenchmarkText.rawText(900, 200 + i));
+        }
+
+        context = prompts.buildContext(segments);
+        rewriteResponse = """
+                1. What are the income limits for Medical Assistance in Minnesota?
+                - Medical Assistance asset limits for adults over 65
+                * MinnesotaCare eligibility income guidelines
+                What are the income limits for Medical Assistance in Minnesota?
+                """;
+    }
+
+    @Benchmark
+    public String buildContextFromDocuments() {
+        return prompts.buildContext(segments);
+    }
+
+    @Benchmark
+    public PromptAssembler.Prompt buildPromptWithHistory() {
+        return prompts.answer(context, "Does that include children?", conversationHistory);
+    }
+
+    @Benchmark
+    public PromptAssembler.Prompt buildPromptWithoutHistory() {
+        return prompts.answer(context, "What are the income limits?", List.of());
+    }
+
+    @Benchmark
+    public PromptAssembler.Prompt buildRewritePrompt() {
+        return prompts.rewrite("Does that include children?", conversationHistory);
+    }
+
+    @Benchmark
+    public List<String> parseRewrittenQueries() {
+        return ragService.parseRewrittenQueries(rewriteResponse);
+    }
+
+    @Benchmark
+    public void buildSegmentKey(Blackhole blackhole) {
+        for (TextSegment segment : segments) {
+            blackhole.consume(ragService.buildSegmentKey(segment));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.usfca.medicaid.store;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for exact search over the local memory-mapped index at corpus
+ * scale: a few thousand 1024-dimensional segments, top-5 with the RAG minScore.
+ * The fork inherits the launcher's {@code --add-modules jdk.incubator.vector}
+ * (set by the jmh profile), so the SIMD kernel is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalSearchBenchmark {
+
+    private static final int DIMENSIONS = 1024;
+
+    @Param({"4000"})
+    private int segmentCount;
+
+    @Param({"FLOAT32", "INT8"})
+    private MappedVectorIndex.Format format;
+
+    private Path directory;
+    private MappedVectorIndex index;
+    private EmbeddingSearchRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("local-search-benchmark");
+        index = new MappedVectorIndex(directory, DIMENSIONS, format);
+
+        Random random = new Random(42);
+        List<Embedding> embeddings = new ArrayList<>();
+        List<TextSegment> segments = new ArrayList<>();
+        for (int i = 0; i < segmentCount; i++) {
+            embeddings.add(Embedding.from(randomVector(random)));
+            segments.add(TextSegment.from("segment " + i, Metadata.from("segment_index", String.valueOf(i))));
+        }
+        index.addAll(index.generateIds(segmentCount), embeddings, segments);
+
+        request = EmbeddingSearchRequest.builder()
+                .queryEmbedding(Embedding.from(randomVector(random)))
+                .maxResults(5)
+                .minScore(0.0)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        index.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public List<EmbeddingMatch<TextSegment>> exactSearch() {
+        return index.search(request).matches();
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
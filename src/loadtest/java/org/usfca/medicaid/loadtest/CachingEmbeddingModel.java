@@ -0,0 +1,68 @@
+package org.usfca.medicaid.loadtest;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embedding model decorator remembering every embedding by text, so segments
+ * shared between sweep configurations are only embedded (and paid for) once.
+ */
+class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final Map<String, Embedding> cache = new HashMap<>();
+    private long embeddedTexts;
+
+    CachingEmbeddingModel(EmbeddingModel delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        Map<String, TextSegment> uncached = new LinkedHashMap<>();
+        for (TextSegment segment : textSegments) {
+            if (!cache.containsKey(segment.text())) {
+                uncached.putIfAbsent(segment.text(), segment);
+            }
+        }
+        List<TextSegment> missing = new ArrayList<>(uncached.values());
+        TokenUsage tokenUsage = null;
+        if (!missing.isEmpty()) {
+            Response<List<Embedding>> response = delegate.embedAll(missing);
+            for (int i = 0; i < missing.size(); i++) {
+                cache.put(missing.get(i).text(), response.content().get(i));
+            }
+            embeddedTexts += missing.size();
+            tokenUsage = response.tokenUsage();
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+        for (TextSegment segment : textSegments) {
+            embeddings.add(cache.get(segment.text()));
+        }
+        return Response.from(embeddings, tokenUsage);
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    /**
+     * Get the number of texts sent to the underlying model.
+     *
+     * @return the number of cache misses
+     */
+    synchronized long embeddedTexts() {
+        return embeddedTexts;
+    }
+}
@@ -0,0 +1,293 @@
+package org.usfca.medicaid.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.Metadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Tracer;
+import org.usfca.medicaid.config.AppConfig;
+import org.usfca.medicaid.config.FaqConfig;
+import org.usfca.medicaid.config.HttpTransport;
+import org.usfca.medicaid.config.ModelConfig.ChatStage;
+import org.usfca.medicaid.metrics.RagMetrics;
+import org.usfca.medicaid.metrics.TokenUsageTracker;
+import org.usfca.medicaid.model.StageChatModels;
+import org.usfca.medicaid.service.DegradationPolicy;
+import org.usfca.medicaid.service.FaqService;
+import org.usfca.medicaid.service.QueryRouter;
+import org.usfca.medicaid.service.RagService;
+import org.usfca.medicaid.service.VectorStoreService;
+import org.usfca.medicaid.session.InMemorySessionStore;
+import org.usfca.medicaid.session.SessionStore;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test of the chat pipeline against local OpenAI and Pinecone stubs.
+ * Simulated users hold multi-turn conversations at increasing concurrency levels;
+ * for each level the harness reports throughput, end-to-end latency and the
+ * latency of each stage (rewrite, embedding, vector search, answer), and finally
+ * the level at which throughput stops scaling.
+ *
+ * <p>Run with {@code mvn -Ploadtest test-compile exec:exec@loadtest}. The stubs
+ * listen on the ports of OPENAI_BASE_URL and PINECONE_HOST. Settings are system
+ * properties:
+ * <ul>
+ *   <li>{@code loadtest.concurrency} - comma-separated levels (default 1,2,4,8,16,32,64)</li>
+ *   <li>{@code loadtest.sessions} - conversations per level (default 50)</li>
+ *   <li>{@code loadtest.turns} - questions per conversation (default 3)</li>
+ *   <li>{@code loadtest.via} - {@code rag} calls RagService directly, {@code chatview}
+ *       dispatches each turn through the common pool like ChatView (default rag)</li>
+ *   <li>{@code loadtest.chat|embed|pinecone.medianMs|p99Ms|errorRate} - stub behavior</li>
+ *   <li>{@code loadtest.report} - JSON report file (optional)</li>
+ * </ul>
+ */
+public class LoadTestHarness {
+
+    private static final double SATURATION_GAIN = 0.10;
+
+    private static final List<String> FOLLOW_UPS = List.of(
+            "What about for children?",
+            "How do I apply for that?",
+            "Are there income limits for it?",
+            "Does that include prescription drugs?",
+            "Who do I contact about it?"
+    );
+
+    private static final String[][] CORPUS = {
+            {"Medical Assistance Overview", "Medical Assistance is Minnesota's Medicaid program. Medical Assistance provides health care coverage for low-income Minnesotans including children, pregnant people, adults, people age 65 and older, and people with disabilities."},
+            {"Eligibility", "Eligibility for Medical Assistance depends on income, household size, assets, age and disability status. Children and pregnant people may qualify with higher income limits than other adults."},
+            {"Income Limits", "Income limits for Medical Assistance are based on the federal poverty guidelines and are subject to change. Adults may qualify with income up to 133 percent of the federal poverty guidelines."},
+            {"Asset Limits", "Asset limits apply to people age 65 and older and people with disabilities. Some assets such as a home and one vehicle are not counted toward the Medical Assistance asset limit."},
+            {"MinnesotaCare", "MinnesotaCare is a health care program for Minnesotans with income too high for Medical Assistance. MinnesotaCare enrollees may pay a monthly premium based on income."},
+            {"How to Apply", "You can apply for Medical Assistance or MinnesotaCare online through MNsure, by paper application, or through your county or tribal human services office."},
+            {"Covered Services", "Medical Assistance covers doctor visits, hospital care, prescription drugs, dental care, mental health services, vision care, and medical transportation."},
+            {"Long-Term Care", "Medical Assistance can pay for long-term care in a nursing home and for home and community-based services through waiver programs for eligible people."},
+            {"Waiver Programs", "Home and community-based waiver programs help people with disabilities and older adults receive services at home instead of in a facility."},
+            {"Emergency Medical Assistance", "Emergency Medical Assistance covers emergency medical conditions for people who meet income requirements but do not qualify for Medical Assistance due to immigration status."},
+            {"Estate Recovery", "Medical Assistance estate recovery allows the state to recover certain costs of care from the estate of an enrollee after death."},
+            {"Other Insurance", "You can have Medical Assistance and other health insurance. Medical Assistance pays after your other insurance has paid its share of the cost."},
+            {"Preferred Drug List", "The preferred drug list shows which prescription drugs Medical Assistance covers without prior authorization. The list is updated regularly by the Department of Human Services."},
+            {"Renewals", "Medical Assistance coverage must be renewed every year. You will receive a renewal notice from your county or MNsure before your coverage ends."},
+            {"Contact", "For questions about your Medical Assistance case, contact your county or tribal human services office or the Minnesota Department of Human Services."}
+    };
+
+    /**
+     * Result of one concurrency level.
+     *
+     * @param concurrency the number of simultaneous users
+     * @param turns the number of completed turns
+     * @param failedTurns the number of turns that threw
+     * @param seconds the wall-clock duration
+     * @param throughput completed turns per second
+     * @param stages latency summaries; "end-to-end" covers a whole turn
+     */
+    public record LevelResult(int concurrency, int turns, long failedTurns, double seconds, double throughput,
+                              Map<String, StageRecorder.Summary> stages) {
+    }
+
+    /**
+     * Run the load test.
+     *
+     * @param args ignored; settings are read from system properties
+     * @throws Exception if the stubs cannot start or the report cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        List<Integer> levels = Arrays.stream(System.getProperty("loadtest.concurrency", "1,2,4,8,16,32,64").split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .toList();
+        int sessions = Integer.getInteger("loadtest.sessions", 50);
+        int turns = Integer.getInteger("loadtest.turns", 3);
+        boolean viaChatView = "chatview".equalsIgnoreCase(System.getProperty("loadtest.via", "rag"));
+
+        StageRecorder recorder = new StageRecorder();
+
+        try (OpenAiStubServer openAi = new OpenAiStubServer(portOf("OPENAI_BASE_URL"),
+                     StubBehavior.fromProperties("loadtest.chat", 800, 3000),
+                     StubBehavior.fromProperties("loadtest.embed", 60, 250));
+             PineconeStubServer pinecone = new PineconeStubServer(portOf("PINECONE_HOST"),
+                     StubBehavior.fromProperties("loadtest.pinecone", 40, 150),
+                     StubBehavior.fromProperties("loadtest.pinecone", 40, 150));
+             HttpTransport transport = HttpTransport.fromEnvironment()) {
+
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TokenUsageTracker tokenUsage = new TokenUsageTracker(registry);
+            Tracer tracer = OpenTelemetry.noop().getTracer("loadtest");
+            VectorStoreService vectorStoreService = new VectorStoreService(
+                    new TimedEmbeddingStore(AppConfig.createPineconeEmbeddingStore(transport), recorder),
+                    new TimedEmbeddingModel(AppConfig.createEmbeddingModel(transport), recorder),
+                    tokenUsage, tracer);
+            SessionStore sessionStore = new InMemorySessionStore(AppConfig.getSessionMaxSessions(),
+                    AppConfig.getSessionMaxMessages());
+            RagMetrics metrics = new RagMetrics(registry);
+            StageChatModels chatModels = new StageChatModels(Map.of(
+                    ChatStage.REWRITE, new TimedChatModel(AppConfig.createChatModel(transport, ChatStage.REWRITE, registry), recorder),
+                    ChatStage.ANSWER, new TimedChatModel(AppConfig.createChatModel(transport, ChatStage.ANSWER, registry), recorder)));
+            RagService ragService = new RagService(vectorStoreService, chatModels,
+                    new FaqService(), sessionStore, metrics, tokenUsage, tracer,
+                    new QueryRouter(), new DegradationPolicy(metrics));
+
+            seedCorpus(vectorStoreService);
+            System.out.println("📚 Stub index holds " + pinecone.vectorCount() + " vectors.");
+
+            System.out.println("🔥 Warming up...");
+            runLevel(ragService, recorder, 2, 4, turns, viaChatView);
+
+            List<LevelResult> results = new ArrayList<>();
+            for (int concurrency : levels) {
+                LevelResult result = runLevel(ragService, recorder, concurrency, sessions, turns, viaChatView);
+                results.add(result);
+                printLevel(result);
+            }
+
+            printSummary(results);
+            System.out.println("\n🪙 Token usage (including warm-up):");
+            tokenUsage.summary(0).stages().forEach((stage, usage) -> System.out.printf(
+                    "   %-20s %7d calls %10d in %10d out%n",
+                    stage.tag(), usage.calls(), usage.inputTokens(), usage.outputTokens()));
+            writeReport(results);
+        }
+    }
+
+    /**
+     * Run a fixed number of conversations with the given number of simultaneous users.
+     */
+    private static LevelResult runLevel(RagService ragService, StageRecorder recorder, int concurrency,
+                                        int sessions, int turns, boolean viaChatView) throws Exception {
+        recorder.reset();
+        List<String> questions = FaqConfig.getCanonicalQuestions();
+        AtomicLong failedTurns = new AtomicLong();
+
+        ExecutorService users = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> conversations = new ArrayList<>();
+            for (int s = 0; s < sessions; s++) {
+                int session = s;
+                conversations.add(users.submit(() -> {
+                    String sessionId = SessionStore.newSessionId();
+                    for (int turn = 0; turn < turns; turn++) {
+                        String question = turn == 0
+                                ? questions.get(session % questions.size())
+                                : FOLLOW_UPS.get((session + turn) % FOLLOW_UPS.size());
+                        long turnStart = System.nanoTime();
+                        try {
+                            if (viaChatView) {
+                                CompletableFuture.supplyAsync(() -> ragService.generateResponse(question, sessionId))
+                                        .join();
+                            } else {
+                                ragService.generateResponse(question, sessionId);
+                            }
+                            recorder.record("end-to-end", System.nanoTime() - turnStart);
+                        } catch (RuntimeException e) {
+                            failedTurns.incrementAndGet();
+                            recorder.recordError("end-to-end");
+                        }
+                    }
+                }));
+            }
+            for (Future<?> conversation : conversations) {
+                conversation.get();
+            }
+        } finally {
+            users.shutdown();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int completed = (int) (sessions * (long) turns - failedTurns.get());
+        return new LevelResult(concurrency, completed, failedTurns.get(), seconds, completed / seconds,
+                recorder.summarize());
+    }
+
+    /**
+     * Upsert the synthetic corpus into the stub index.
+     */
+    private static void seedCorpus(VectorStoreService vectorStoreService) {
+        vectorStoreService.clearAllDocuments();
+        List<Document> documents = new ArrayList<>();
+        for (String[] entry : CORPUS) {
+            Metadata metadata = new Metadata();
+            metadata.put("title", entry[0]);
+            metadata.put("category", "web");
+            metadata.put("type", "url");
+            metadata.put("source", "loadtest");
+            documents.add(Document.from(entry[1], metadata));
+        }
+        vectorStoreService.addDocuments(documents);
+    }
+
+    private static void printLevel(LevelResult result) {
+        System.out.printf("%n👥 Concurrency %d: %d turns in %.1f s, %.2f turns/s, %d failed%n",
+                result.concurrency(), result.turns(), result.seconds(), result.throughput(), result.failedTurns());
+        System.out.printf("   %-14s %7s %7s %10s %10s %10s%n", "stage", "calls", "errors", "p50 ms", "p95 ms", "p99 ms");
+        result.stages().forEach((stage, summary) -> System.out.printf("   %-14s %7d %7d %10.1f %10.1f %10.1f%n",
+                stage, summary.count(), summary.errors(), summary.p50Millis(), summary.p95Millis(), summary.p99Millis()));
+    }
+
+    /**
+     * Print the throughput curve and the first level where adding users
+     * raised throughput by less than {@value #SATURATION_GAIN}.
+     */
+    private static void printSummary(List<LevelResult> results) {
+        System.out.println("\n📈 Throughput by concurrency:");
+        LevelResult saturation = null;
+        for (int i = 0; i < results.size(); i++) {
+            LevelResult result = results.get(i);
+            StageRecorder.Summary endToEnd = result.stages().get("end-to-end");
+            System.out.printf("   %4d users  %8.2f turns/s  p99 %8.1f ms%n", result.concurrency(), result.throughput(),
+                    endToEnd != null ? endToEnd.p99Millis() : 0);
+            if (saturation == null && i > 0
+                    && result.throughput() < results.get(i - 1).throughput() * (1 + SATURATION_GAIN)) {
+                saturation = results.get(i - 1);
+            }
+        }
+
+        if (saturation != null) {
+            System.out.printf("🧱 Throughput saturates at about %d concurrent users (%.2f turns/s).%n",
+                    saturation.concurrency(), saturation.throughput());
+        } else {
+            System.out.println("🚀 Throughput was still scaling at the highest level tested.");
+        }
+    }
+
+    private static void writeReport(List<LevelResult> results) throws Exception {
+        String report = System.getProperty("loadtest.report");
+        if (report == null || report.isBlank()) {
+            return;
+        }
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("via", System.getProperty("loadtest.via", "rag"));
+        document.put("levels", results);
+        File file = new File(report);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, document);
+        System.out.println("📝 Report written to " + file);
+    }
+
+    /**
+     * Read the local port a stub must listen on from an endpoint environment variable.
+     */
+    private static int portOf(String variable) {
+        String url = System.getenv(variable);
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException(variable + " must point at the local stub, e.g. http://127.0.0.1:18080");
+        }
+        return URI.create(url).getPort();
+    }
+}
@@ -0,0 +1,143 @@
+package org.usfca.medicaid.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Local stand-in for the OpenAI chat completions and embeddings endpoints.
+ * Rewrite prompts get three rephrased queries back, answer prompts a canned
+ * answer. Embeddings are deterministic hashed bag-of-words vectors, so texts
+ * sharing words are similar and retrieval behaves plausibly offline.
+ */
+public class OpenAiStubServer extends StubServer {
+
+    private static final String REWRITE_MARKER = "alternative semantic search queries";
+
+    /**
+     * Starts the stub on the given port.
+     *
+     * @param port the local port
+     * @param chat latency and errors of /v1/chat/completions
+     * @param embeddings latency and errors of /v1/embeddings
+     * @throws IOException if the port cannot be bound
+     */
+    public OpenAiStubServer(int port, StubBehavior chat, StubBehavior embeddings) throws IOException {
+        super(port);
+        route("/v1/chat/completions", chat, this::chatCompletion);
+        route("/v1/embeddings", embeddings, this::embeddings);
+        start();
+    }
+
+    /**
+     * Embed a text the same way the stub does.
+     *
+     * @param text the text to embed
+     * @param dimensions the vector size
+     * @return a unit-length vector
+     */
+    public static float[] embed(String text, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (word.length() < 3) {
+                continue;
+            }
+            int hash = word.hashCode();
+            vector[Math.floorMod(hash, dimensions)] += 1f;
+            vector[Math.floorMod(hash * 31 + 17, dimensions)] += (hash & 1) == 0 ? 0.5f : -0.5f;
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            vector[0] = 1f;
+            return vector;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private Object chatCompletion(JsonNode request) {
+        StringBuilder text = new StringBuilder();
+        request.path("messages").forEach(message -> text.append(message.path("content").asText()).append('\n'));
+        String prompt = text.toString();
+
+        String content;
+        if (prompt.contains(REWRITE_MARKER)) {
+            String question = extractLine(prompt, "Original question:");
+            content = question + " Minnesota Medical Assistance\n"
+                    + "Medical Assistance eligibility " + question + "\n"
+                    + "MinnesotaCare " + question;
+        } else {
+            content = "Based on the Minnesota Medicaid documentation, Medical Assistance covers eligible "
+                    + "adults, children and people with disabilities whose income and assets are under the "
+                    + "program limits. Income limits are subject to change and should be verified. Please contact "
+                    + "the Minnesota Department of Human Services for your specific situation.";
+        }
+
+        int promptTokens = prompt.length() / 4;
+        int completionTokens = content.length() / 4;
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("id", "chatcmpl-stub");
+        response.put("object", "chat.completion");
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", request.path("model").asText("gpt-3.5-turbo"));
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        choice.put("finish_reason", "stop");
+        response.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+        return response;
+    }
+
+    private Object embeddings(JsonNode request) {
+        int dimensions = request.path("dimensions").asInt(1024);
+        List<String> inputs = new ArrayList<>();
+        JsonNode input = request.path("input");
+        if (input.isArray()) {
+            input.forEach(node -> inputs.add(node.asText()));
+        } else {
+            inputs.add(input.asText());
+        }
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("object", "list");
+        response.put("model", request.path("model").asText("text-embedding-3-small"));
+        ArrayNode data = response.putArray("data");
+        int tokens = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            ObjectNode item = data.addObject();
+            item.put("object", "embedding");
+            item.put("index", i);
+            ArrayNode vector = item.putArray("embedding");
+            for (float value : embed(inputs.get(i), dimensions)) {
+                vector.add(value);
+            }
+            tokens += inputs.get(i).length() / 4;
+        }
+        response.putObject("usage").put("prompt_tokens", tokens).put("total_tokens", tokens);
+        return response;
+    }
+
+    private static String extractLine(String prompt, String prefix) {
+        return prompt.lines()
+                .map(String::trim)
+                .filter(line -> line.startsWith(prefix))
+                .map(line -> line.substring(prefix.length()).trim())
+                .findFirst()
+                .orElse("Medical Assistance");
+    }
+}
@@ -0,0 +1,177 @@
+package org.usfca.medicaid.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local stand-in for the Pinecone REST data plane: /query, /vectors/upsert
+ * and /vectors/delete, backed by an in-memory brute-force index per namespace.
+ * Query filters support $eq, $ne, $in, $nin, $and and $or on string metadata.
+ */
+public class PineconeStubServer extends StubServer {
+
+    private record StoredVector(String id, float[] values, JsonNode metadata) {
+    }
+
+    private record ScoredVector(StoredVector vector, double score) {
+    }
+
+    private final Map<String, Map<String, StoredVector>> namespaces = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the stub on the given port.
+     *
+     * @param port the local port
+     * @param query latency and errors of /query
+     * @param upsert latency and errors of /vectors/upsert and /vectors/delete
+     * @throws IOException if the port cannot be bound
+     */
+    public PineconeStubServer(int port, StubBehavior query, StubBehavior upsert) throws IOException {
+        super(port);
+        route("/query", query, this::query);
+        route("/vectors/upsert", upsert, this::upsert);
+        route("/vectors/delete", upsert, this::delete);
+        start();
+    }
+
+    /**
+     * Get the number of vectors stored across all namespaces.
+     *
+     * @return the vector count
+     */
+    public int vectorCount() {
+        return namespaces.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private Map<String, StoredVector> namespace(JsonNode request) {
+        return namespaces.computeIfAbsent(request.path("namespace").asText(""), name -> new ConcurrentHashMap<>());
+    }
+
+    private Object upsert(JsonNode request) {
+        Map<String, StoredVector> index = namespace(request);
+        int count = 0;
+        for (JsonNode vector : request.path("vectors")) {
+            JsonNode valuesNode = vector.path("values");
+            float[] values = new float[valuesNode.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (float) valuesNode.get(i).asDouble();
+            }
+            String id = vector.path("id").asText();
+            index.put(id, new StoredVector(id, values, vector.path("metadata")));
+            count++;
+        }
+        return objectMapper.createObjectNode().put("upsertedCount", count);
+    }
+
+    private Object delete(JsonNode request) {
+        Map<String, StoredVector> index = namespace(request);
+        if (request.path("deleteAll").asBoolean(false)) {
+            index.clear();
+        } else {
+            request.path("ids").forEach(id -> index.remove(id.asText()));
+        }
+        return objectMapper.createObjectNode();
+    }
+
+    private Object query(JsonNode request) {
+        JsonNode vectorNode = request.path("vector");
+        float[] query = new float[vectorNode.size()];
+        for (int i = 0; i < query.length; i++) {
+            query[i] = (float) vectorNode.get(i).asDouble();
+        }
+        int topK = request.path("topK").asInt(10);
+        boolean includeMetadata = request.path("includeMetadata").asBoolean(false);
+        JsonNode filter = request.path("filter");
+
+        List<ScoredVector> scored = new ArrayList<>();
+        for (StoredVector stored : namespace(request).values()) {
+            if (!filter.isMissingNode() && !matches(filter, stored.metadata())) {
+                continue;
+            }
+            scored.add(new ScoredVector(stored, cosine(query, stored.values())));
+        }
+        scored.sort(Comparator.comparingDouble(ScoredVector::score).reversed());
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("namespace", request.path("namespace").asText(""));
+        ArrayNode matches = response.putArray("matches");
+        for (ScoredVector match : scored.subList(0, Math.min(topK, scored.size()))) {
+            ObjectNode item = matches.addObject();
+            item.put("id", match.vector().id());
+            item.put("score", match.score());
+            if (includeMetadata && !match.vector().metadata().isMissingNode()) {
+                item.set("metadata", match.vector().metadata());
+            }
+        }
+        return response;
+    }
+
+    private static boolean matches(JsonNode filter, JsonNode metadata) {
+        for (Map.Entry<String, JsonNode> clause : filter.properties()) {
+            boolean match = switch (clause.getKey()) {
+                case "$and" -> allMatch(clause.getValue(), metadata, true);
+                case "$or" -> allMatch(clause.getValue(), metadata, false);
+                default -> fieldMatches(clause.getValue(), metadata.path(clause.getKey()).asText(null));
+            };
+            if (!match) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean allMatch(JsonNode filters, JsonNode metadata, boolean all) {
+        for (JsonNode filter : filters) {
+            if (matches(filter, metadata) != all) {
+                return !all;
+            }
+        }
+        return all;
+    }
+
+    private static boolean fieldMatches(JsonNode condition, String value) {
+        for (Map.Entry<String, JsonNode> operator : condition.properties()) {
+            JsonNode operand = operator.getValue();
+            boolean match = switch (operator.getKey()) {
+                case "$eq" -> operand.asText().equals(value);
+                case "$ne" -> !operand.asText().equals(value);
+                case "$in" -> contains(operand, value);
+                case "$nin" -> !contains(operand, value);
+                default -> throw new IllegalArgumentException("Unsupported filter operator " + operator.getKey());
+            };
+            if (!match) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(JsonNode values, String value) {
+        for (JsonNode candidate : values) {
+            if (candidate.asText().equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+    }
+}
@@ -0,0 +1,348 @@
+package org.usfca.medicaid.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Tracer;
+import org.usfca.medicaid.config.AppConfig;
+import org.usfca.medicaid.config.DocumentConfig;
+import org.usfca.medicaid.config.HttpTransport;
+import org.usfca.medicaid.config.ModelConfig;
+import org.usfca.medicaid.chunking.StructuredDocumentSplitter;
+import org.usfca.medicaid.metrics.TokenUsageTracker;
+import org.usfca.medicaid.service.DocumentLoaderService;
+import org.usfca.medicaid.service.IngestionReport;
+import org.usfca.medicaid.service.VectorStoreService;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Retrieval parameter sweep over the chunking strategy, top-k and minimum score.
+ * The corpus is loaded once, re-indexed into a local in-memory store for every
+ * chunking configuration, and searched with every question of a golden set; each
+ * configuration is scored by recall@k and MRR against the expected source
+ * documents, the size of the retrieved context, and the search latency.
+ *
+ * <p>Run with {@code mvn -Ploadtest test-compile exec:exec@sweep}. Settings are
+ * system properties:
+ * <ul>
+ *   <li>{@code sweep.golden} - golden set JSON (default src/loadtest/golden-set.json)</li>
+ *   <li>{@code sweep.sources} - comma-separated document sources (default: the configured sources)</li>
+ *   <li>{@code sweep.embeddings} - {@code openai} uses the configured embedding model,
+ *       {@code stub} the local lexical embedding of the OpenAI stub (default openai)</li>
+ *   <li>{@code sweep.chunkers} - {@code structured} (the default splitter) and/or
+ *       {@code recursive} (default structured,recursive)</li>
+ *   <li>{@code sweep.maxTokens} - structured segment sizes in tokens (default 100,200,300,400)</li>
+ *   <li>{@code sweep.chunkSizes} - recursive segment sizes in characters (default 200,300,500,800)</li>
+ *   <li>{@code sweep.overlaps} - recursive segment overlaps in characters (default 0,50,100)</li>
+ *   <li>{@code sweep.topK} - results per search (default 3,5,8)</li>
+ *   <li>{@code sweep.minScores} - relevance thresholds (default 0.0,0.6,0.65,0.7)</li>
+ *   <li>{@code sweep.report} - JSON report file (optional)</li>
+ * </ul>
+ *
+ * <p>Each question is searched as asked; query rewriting is left out so the
+ * numbers reflect the retrieval settings alone. Prompt tokens count the retrieved
+ * context, the only part of the prompt these settings change, with the answer
+ * model's tokenizer.
+ */
+public class RetrievalSweep {
+
+    private static final int STUB_DIMENSIONS = 1536;
+
+    /**
+     * A golden set question.
+     *
+     * @param question the user question
+     * @param sources the document sources a good retrieval must return
+     */
+    public record GoldenQuestion(String question, List<String> sources) {
+    }
+
+    /**
+     * Scores of one parameter combination.
+     *
+     * @param chunker the splitter, {@code structured} or {@code recursive}
+     * @param maxTokens the structured segment size in tokens, 0 for the recursive splitter
+     * @param chunkSize the recursive segment size in characters, 0 for the structured splitter
+     * @param overlap the recursive segment overlap in characters
+     * @param topK the results per search
+     * @param minScore the relevance threshold
+     * @param segments the number of vectors in the index
+     * @param recall the mean fraction of expected sources retrieved
+     * @param mrr the mean reciprocal rank of the first relevant segment
+     * @param matches the mean number of segments retrieved
+     * @param promptTokens the mean retrieved context size in tokens
+     * @param search search latency percentiles
+     */
+    public record SweepResult(String chunker, int maxTokens, int chunkSize, int overlap, int topK, double minScore, int segments,
+                              double recall, double mrr, double matches, double promptTokens,
+                              StageRecorder.Summary search) {
+    }
+
+    /**
+     * One chunking configuration of the sweep.
+     */
+    private record Chunking(String chunker, int maxTokens, int chunkSize, int overlap, DocumentSplitter splitter) {
+
+        String describe() {
+            return "structured".equals(chunker)
+                    ? "structured, " + maxTokens + " tokens"
+                    : "recursive, chunk size " + chunkSize + ", overlap " + overlap;
+        }
+    }
+
+    /**
+     * Run the sweep.
+     *
+     * @param args unused; settings are system properties
+     * @throws Exception if the corpus or golden set cannot be read
+     */
+    public static void main(String[] args) throws Exception {
+        List<GoldenQuestion> golden = new ObjectMapper().readValue(
+                new File(System.getProperty("sweep.golden", "src/loadtest/golden-set.json")),
+                new TypeReference<List<GoldenQuestion>>() {});
+        List<Chunking> chunkings = chunkings();
+        List<Integer> topKs = intList("sweep.topK", "3,5,8");
+        List<Double> minScores = Arrays.stream(System.getProperty("sweep.minScores", "0.0,0.6,0.65,0.7").split(","))
+                .map(String::trim)
+                .map(Double::parseDouble)
+                .toList();
+        boolean stubEmbeddings = "stub".equalsIgnoreCase(System.getProperty("sweep.embeddings", "openai"));
+
+        try (HttpTransport transport = HttpTransport.fromEnvironment()) {
+            CachingEmbeddingModel embeddingModel = new CachingEmbeddingModel(
+                    stubEmbeddings ? new StubEmbeddingModel() : AppConfig.createEmbeddingModel(transport));
+            TokenUsageTracker tokenUsage = new TokenUsageTracker(new SimpleMeterRegistry());
+            Tracer tracer = OpenTelemetry.noop().getTracer("sweep");
+            TokenCountEstimator promptTokenizer = promptTokenizer();
+
+            List<Document> documents = loadCorpus();
+            System.out.println("📚 Loaded " + documents.size() + " documents, " + golden.size() + " golden questions.");
+
+            List<String> questions = golden.stream().map(GoldenQuestion::question).toList();
+            Map<String, Embedding> questionEmbeddings = new VectorStoreService(
+                    new InMemoryEmbeddingStore<>(), embeddingModel, tokenUsage, tracer).embedQueries(questions);
+
+            List<SweepResult> results = new ArrayList<>();
+            for (Chunking chunking : chunkings) {
+                InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+                VectorStoreService vectorStoreService = new VectorStoreService(store, embeddingModel,
+                        tokenUsage, tracer, chunking.splitter());
+                IngestionReport report = new IngestionReport();
+                vectorStoreService.addDocuments(documents, report);
+                int segments = (int) documents.stream()
+                        .mapToLong(document -> report.source(document.metadata().getString("source")).getSegments()
+                                - report.source(document.metadata().getString("source")).getDuplicateSegments())
+                        .sum();
+                System.out.printf("🧩 Indexed %s: %d segments%n", chunking.describe(), segments);
+                questionEmbeddings.values().forEach(embedding ->
+                        vectorStoreService.searchRelevantDocuments(embedding, topKs.getFirst(), 0.0));
+
+                for (int topK : topKs) {
+                    for (double minScore : minScores) {
+                        results.add(evaluate(vectorStoreService, golden, questionEmbeddings, promptTokenizer,
+                                chunking, topK, minScore, segments));
+                    }
+                }
+            }
+
+            printTable(results);
+            System.out.println("\n🪙 Texts embedded: " + embeddingModel.embeddedTexts() + " ("
+                    + tokenUsage.summary(0).stages().values().stream().mapToLong(TokenUsageTracker.Usage::inputTokens).sum()
+                    + " tokens)");
+            writeReport(results);
+        }
+    }
+
+    /**
+     * Search every golden question with one parameter combination and score the results.
+     */
+    private static SweepResult evaluate(VectorStoreService vectorStoreService, List<GoldenQuestion> golden,
+                                        Map<String, Embedding> questionEmbeddings, TokenCountEstimator promptTokenizer,
+                                        Chunking chunking, int topK, double minScore, int segments) {
+        StageRecorder recorder = new StageRecorder();
+        double recall = 0;
+        double reciprocalRank = 0;
+        double matchCount = 0;
+        double promptTokens = 0;
+
+        for (GoldenQuestion question : golden) {
+            Embedding embedding = questionEmbeddings.get(question.question());
+            List<TextSegment> matches = recorder.time("search",
+                    () -> vectorStoreService.searchRelevantDocuments(embedding, topK, minScore));
+
+            Set<String> expected = Set.copyOf(question.sources());
+            long found = matches.stream()
+                    .map(match -> match.metadata().getString("source"))
+                    .filter(expected::contains)
+                    .distinct()
+                    .count();
+            recall += (double) found / expected.size();
+            for (int rank = 0; rank < matches.size(); rank++) {
+                if (expected.contains(matches.get(rank).metadata().getString("source"))) {
+                    reciprocalRank += 1.0 / (rank + 1);
+                    break;
+                }
+            }
+            matchCount += matches.size();
+            promptTokens += matches.stream()
+                    .mapToInt(match -> promptTokenizer.estimateTokenCountInText(match.text()))
+                    .sum();
+        }
+
+        int n = golden.size();
+        return new SweepResult(chunking.chunker(), chunking.maxTokens(), chunking.chunkSize(), chunking.overlap(), topK, minScore, segments, recall / n, reciprocalRank / n,
+                matchCount / n, promptTokens / n, recorder.summarize().get("search"));
+    }
+
+    /**
+     * The chunking configurations to index: the structured splitter at every
+     * token budget and the recursive splitter at every size and smaller overlap.
+     */
+    private static List<Chunking> chunkings() {
+        List<String> chunkers = Arrays.stream(System.getProperty("sweep.chunkers", "structured,recursive").split(","))
+                .map(String::trim)
+                .map(String::toLowerCase)
+                .toList();
+        List<Chunking> chunkings = new ArrayList<>();
+        if (chunkers.contains("structured")) {
+            TokenCountEstimator tokenizer = new OpenAiTokenCountEstimator(AppConfig.getEmbeddingModelName());
+            for (int maxTokens : intList("sweep.maxTokens", "100,200,300,400")) {
+                chunkings.add(new Chunking("structured", maxTokens, 0, 0,
+                        new StructuredDocumentSplitter(maxTokens, tokenizer)));
+            }
+        }
+        if (chunkers.contains("recursive")) {
+            List<Integer> overlaps = intList("sweep.overlaps", "0,50,100");
+            for (int chunkSize : intList("sweep.chunkSizes", "200,300,500,800")) {
+                for (int overlap : overlaps) {
+                    if (overlap < chunkSize) {
+                        chunkings.add(new Chunking("recursive", 0, chunkSize, overlap,
+                                DocumentSplitters.recursive(chunkSize, overlap)));
+                    }
+                }
+            }
+        }
+        return chunkings;
+    }
+
+    /**
+     * Tokenizer of the first answer model, or of the embedding model when jtokkit
+     * does not know the answer model.
+     */
+    private static TokenCountEstimator promptTokenizer() {
+        String model = ModelConfig.getStageSettings(ModelConfig.ChatStage.ANSWER).endpoints().getFirst().model();
+        try {
+            return new OpenAiTokenCountEstimator(model);
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️  No tokenizer for " + model + ", counting prompt tokens with "
+                    + AppConfig.getEmbeddingModelName() + "'s");
+            return new OpenAiTokenCountEstimator(AppConfig.getEmbeddingModelName());
+        }
+    }
+
+    /**
+     * Load every document source, skipping the ones that cannot be read.
+     */
+    private static List<Document> loadCorpus() {
+        String sources = System.getProperty("sweep.sources");
+        List<String> sourceList = sources == null || sources.isBlank()
+                ? DocumentConfig.getDocumentSources()
+                : Arrays.stream(sources.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+
+        DocumentLoaderService loader = new DocumentLoaderService();
+        List<Document> documents = new ArrayList<>();
+        for (String source : sourceList) {
+            try {
+                documents.add(loader.loadDocument(source));
+            } catch (Exception e) {
+                System.err.println("⚠️  Skipping " + source + ": " + e.getMessage());
+            }
+        }
+        return documents;
+    }
+
+    private static void printTable(List<SweepResult> results) {
+        System.out.println("\n📊 Retrieval sweep:");
+        System.out.printf("   %-10s %7s %6s %7s %5s %6s %8s %8s %8s %8s %10s %10s %10s%n",
+                "chunker", "max tok", "chunk", "overlap", "top-k", "min", "vectors", "recall", "MRR", "matches", "prompt tok", "p50 ms", "p95 ms");
+        SweepResult best = null;
+        for (SweepResult result : results) {
+            System.out.printf("   %-10s %7d %6d %7d %5d %6.2f %8d %8.3f %8.3f %8.1f %10.0f %10.3f %10.3f%n",
+                    result.chunker(), result.maxTokens(), result.chunkSize(), result.overlap(), result.topK(), result.minScore(), result.segments(),
+                    result.recall(), result.mrr(), result.matches(), result.promptTokens(),
+                    result.search().p50Millis(), result.search().p95Millis());
+            if (best == null || result.recall() > best.recall()
+                    || (result.recall() == best.recall() && result.promptTokens() < best.promptTokens())) {
+                best = result;
+            }
+        }
+
+        if (best != null) {
+            System.out.printf("%n🏆 Best recall with the smallest prompt: %s, top-k %d, min %.2f "
+                            + "(recall %.3f, MRR %.3f, %.0f prompt tokens)%n",
+                    new Chunking(best.chunker(), best.maxTokens(), best.chunkSize(), best.overlap(), null).describe(),
+                    best.topK(), best.minScore(),
+                    best.recall(), best.mrr(), best.promptTokens());
+        }
+    }
+
+    private static void writeReport(List<SweepResult> results) throws Exception {
+        String report = System.getProperty("sweep.report");
+        if (report == null || report.isBlank()) {
+            return;
+        }
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("embeddings", System.getProperty("sweep.embeddings", "openai"));
+        document.put("results", results);
+        File file = new File(report);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, document);
+        System.out.println("📝 Report written to " + file);
+    }
+
+    private static List<Integer> intList(String property, String defaultValue) {
+        return Arrays.stream(System.getProperty(property, defaultValue).split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .toList();
+    }
+
+    /**
+     * Offline embedding model using the OpenAI stub's lexical embedding.
+     */
+    private static class StubEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+            return Response.from(textSegments.stream()
+                    .map(segment -> Embedding.from(OpenAiStubServer.embed(segment.text(), STUB_DIMENSIONS)))
+                    .toList());
+        }
+
+        @Override
+        public int dimension() {
+            return STUB_DIMENSIONS;
+        }
+    }
+}
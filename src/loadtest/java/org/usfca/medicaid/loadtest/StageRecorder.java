@@ -0,0 +1,107 @@
+package org.usfca.medicaid.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collects latencies and failures per pipeline stage during one load level.
+ */
+public class StageRecorder {
+
+    /**
+     * Latency summary of one stage.
+     *
+     * @param count the number of calls
+     * @param errors the number of failed calls
+     * @param p50Millis the median latency
+     * @param p95Millis the 95th percentile latency
+     * @param p99Millis the 99th percentile latency
+     */
+    public record Summary(int count, long errors, double p50Millis, double p95Millis, double p99Millis) {
+    }
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    /**
+     * Time a call and record it under a stage.
+     *
+     * @param stage the stage name
+     * @param call the call to time
+     * @param <T> the result type
+     * @return the call's result
+     */
+    public <T> T time(String stage, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            errors.computeIfAbsent(stage, name -> new AtomicLong()).incrementAndGet();
+            throw e;
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record a latency for a stage.
+     *
+     * @param stage the stage name
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(String stage, long nanos) {
+        latencies.computeIfAbsent(stage, name -> new ConcurrentLinkedQueue<>()).add(nanos);
+    }
+
+    /**
+     * Record a failure for a stage without a latency.
+     *
+     * @param stage the stage name
+     */
+    public void recordError(String stage) {
+        errors.computeIfAbsent(stage, name -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Summarize all stages recorded so far.
+     *
+     * @return the summaries keyed by stage name, sorted
+     */
+    public Map<String, Summary> summarize() {
+        Map<String, Summary> summaries = new TreeMap<>();
+        for (Map.Entry<String, ConcurrentLinkedQueue<Long>> entry : latencies.entrySet()) {
+            List<Long> sorted = new ArrayList<>(entry.getValue());
+            sorted.sort(null);
+            AtomicLong failed = errors.get(entry.getKey());
+            summaries.put(entry.getKey(), new Summary(
+                    sorted.size(),
+                    failed != null ? failed.get() : 0,
+                    percentile(sorted, 0.50),
+                    percentile(sorted, 0.95),
+                    percentile(sorted, 0.99)));
+        }
+        return summaries;
+    }
+
+    /**
+     * Discard everything recorded so far.
+     */
+    public void reset() {
+        latencies.clear();
+        errors.clear();
+    }
+
+    private static double percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1))) / 1_000_000.0;
+    }
+}
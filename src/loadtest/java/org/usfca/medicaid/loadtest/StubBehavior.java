@@ -0,0 +1,56 @@
+package org.usfca.medicaid.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency distribution and error rate of a stub endpoint.
+ * Latencies follow a log-normal distribution fitted to the given median and p99.
+ *
+ * @param medianMillis the median latency
+ * @param p99Millis the 99th percentile latency
+ * @param errorRate the fraction of requests answered with HTTP 500 (0.0 to 1.0)
+ */
+public record StubBehavior(double medianMillis, double p99Millis, double errorRate) {
+
+    private static final double Z_99 = 2.326;
+
+    /**
+     * Read a behavior from system properties {@code <prefix>.medianMs},
+     * {@code <prefix>.p99Ms} and {@code <prefix>.errorRate}.
+     *
+     * @param prefix the property prefix, e.g. "loadtest.chat"
+     * @param median the default median in milliseconds
+     * @param p99 the default p99 in milliseconds
+     * @return the configured behavior
+     */
+    public static StubBehavior fromProperties(String prefix, double median, double p99) {
+        return new StubBehavior(
+                Double.parseDouble(System.getProperty(prefix + ".medianMs", String.valueOf(median))),
+                Double.parseDouble(System.getProperty(prefix + ".p99Ms", String.valueOf(p99))),
+                Double.parseDouble(System.getProperty(prefix + ".errorRate",
+                        System.getProperty("loadtest.errorRate", "0.0"))));
+    }
+
+    /**
+     * Draw a latency from the distribution.
+     *
+     * @return the latency in milliseconds
+     */
+    public long sampleMillis() {
+        if (medianMillis <= 0) {
+            return 0;
+        }
+        double sigma = p99Millis > medianMillis ? Math.log(p99Millis / medianMillis) / Z_99 : 0;
+        double z = ThreadLocalRandom.current().nextGaussian();
+        return Math.round(medianMillis * Math.exp(sigma * z));
+    }
+
+    /**
+     * Decide whether this request should fail.
+     *
+     * @return true if the stub should answer with an error
+     */
+    public boolean shouldFail() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+}
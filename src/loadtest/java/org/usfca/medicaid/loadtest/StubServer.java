@@ -0,0 +1,78 @@
+package org.usfca.medicaid.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Base class for local HTTP stubs of external APIs.
+ * Every route sleeps for a latency drawn from its {@link StubBehavior} and
+ * fails with HTTP 500 at the configured error rate.
+ */
+abstract class StubServer implements AutoCloseable {
+
+    protected final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    protected StubServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 512);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Register a JSON POST route.
+     *
+     * @param path the request path
+     * @param behavior the latency and error behavior of the route
+     * @param handler maps the request body to the response body
+     */
+    protected void route(String path, StubBehavior behavior, Function<JsonNode, Object> handler) {
+        server.createContext(path, exchange -> {
+            try (exchange) {
+                JsonNode request;
+                try (InputStream body = exchange.getRequestBody()) {
+                    request = objectMapper.readTree(body.readAllBytes());
+                }
+                Thread.sleep(behavior.sampleMillis());
+                if (behavior.shouldFail()) {
+                    respond(exchange, 500, "{\"error\":{\"message\":\"stub failure\",\"type\":\"server_error\"}}".getBytes());
+                    return;
+                }
+                respond(exchange, 200, objectMapper.writeValueAsBytes(handler.apply(request)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                respond(exchange, 400, ("{\"error\":{\"message\":\"" + e.getMessage() + "\"}}").getBytes());
+            }
+        });
+    }
+
+    void start() {
+        server.start();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.usfca.medicaid.loadtest;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+/**
+ * Chat model decorator recording query rewrites and answer generation as
+ * separate stages.
+ */
+class TimedChatModel implements ChatModel {
+
+    private static final String REWRITE_MARKER = "alternative semantic search queries";
+
+    private final ChatModel delegate;
+    private final StageRecorder recorder;
+
+    TimedChatModel(ChatModel delegate, StageRecorder recorder) {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        return recorder.time(stageOf(request), () -> delegate.chat(request));
+    }
+
+    private static String stageOf(ChatRequest request) {
+        ChatMessage first = request.messages().get(0);
+        if (first instanceof SystemMessage system && system.text().contains(REWRITE_MARKER)) {
+            return "rewrite";
+        }
+        return "answer";
+    }
+}
@@ -0,0 +1,32 @@
+package org.usfca.medicaid.loadtest;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * Embedding model decorator recording every embedding call.
+ */
+class TimedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final StageRecorder recorder;
+
+    TimedEmbeddingModel(EmbeddingModel delegate, StageRecorder recorder) {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        return recorder.time("embedding", () -> delegate.embedAll(textSegments));
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+}
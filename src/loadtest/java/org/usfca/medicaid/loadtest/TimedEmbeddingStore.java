@@ -0,0 +1,64 @@
+package org.usfca.medicaid.loadtest;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Embedding store decorator recording vector searches; writes pass straight through.
+ */
+class TimedEmbeddingStore implements EmbeddingStore<TextSegment> {
+
+    private final EmbeddingStore<TextSegment> delegate;
+    private final StageRecorder recorder;
+
+    TimedEmbeddingStore(EmbeddingStore<TextSegment> delegate, StageRecorder recorder) {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        return recorder.time("vector-search", () -> delegate.search(request));
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        return delegate.add(embedding);
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        delegate.add(id, embedding);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        return delegate.add(embedding, textSegment);
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        return delegate.addAll(embeddings);
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> embedded) {
+        delegate.addAll(ids, embeddings, embedded);
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        delegate.removeAll(ids);
+    }
+
+    @Override
+    public void removeAll() {
+        delegate.removeAll();
+    }
+}
@@ -1,5 +1,10 @@
 package org.usfca.medicaid;
 
+import org.usfca.medicaid.jfr.PipelineEvents;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * Main entry point for the Minnesota Medicaid Eligibility Chatbot application.
  */
@@ -7,11 +12,37 @@ public class Main {
     
     /**
      * Main method that starts the application.
+     * Without arguments the interactive menu is shown; with
+     * {@code --batch <questions.jsonl|questions.csv> [answers.jsonl]} the
+     * questions of the file are answered into the answer file, by default
+     * next to the question file, and the application exits.
      *
-     * @param args command line arguments (not used)
+     * @param args command line arguments
      */
     public static void main(String[] args) {
+        PipelineEvents.register();
         MedicaidApplication app = new MedicaidApplication();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            if (args.length < 2 || args.length > 3) {
+                System.err.println("Usage: --batch <questions.jsonl|questions.csv> [answers.jsonl]");
+                System.exit(2);
+            }
+            Path input = Paths.get(args[1]);
+            Path output = args.length == 3 ? Paths.get(args[2]) : defaultOutput(input);
+            System.exit(app.runBatch(input, output) ? 0 : 1);
+        }
         app.run();
     }
+    
+    /**
+     * Get the answer file next to a question file, e.g. questions-answers.jsonl.
+     *
+     * @param input the question file
+     * @return the answer file
+     */
+    private static Path defaultOutput(Path input) {
+        String name = input.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        return input.resolveSibling((extension > 0 ? name.substring(0, extension) : name) + "-answers.jsonl");
+    }
 }
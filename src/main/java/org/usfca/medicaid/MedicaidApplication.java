@@ -1,10 +1,36 @@
 package org.usfca.medicaid;
 
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.springframework.boot.LazyInitializationBeanFactoryPostProcessor;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.usfca.medicaid.chatbot.MedicaidChatbot;
+import org.usfca.medicaid.config.AppConfig;
+import org.usfca.medicaid.config.ClientConfig;
+import org.usfca.medicaid.config.ClientLifecycle;
+import org.usfca.medicaid.config.DocumentConfig;
+import org.usfca.medicaid.config.SessionConfig;
+import org.usfca.medicaid.config.StartupTimer;
+import org.usfca.medicaid.metrics.PrometheusScrapeServer;
+import org.usfca.medicaid.metrics.RagMetrics;
+import org.usfca.medicaid.metrics.TokenUsageTracker;
+import org.usfca.medicaid.service.BatchQuestionService;
+import org.usfca.medicaid.service.DegradationPolicy;
 import org.usfca.medicaid.service.DocumentLoaderService;
+import org.usfca.medicaid.service.FaqIngestionService;
+import org.usfca.medicaid.service.FaqService;
+import org.usfca.medicaid.service.IndexGenerationWatcher;
+import org.usfca.medicaid.service.IngestionReport;
+import org.usfca.medicaid.service.QueryRouter;
 import org.usfca.medicaid.service.RagService;
+import org.usfca.medicaid.service.ReindexService;
 import org.usfca.medicaid.service.VectorStoreService;
+import org.usfca.medicaid.store.IndexGeneration;
+import org.usfca.medicaid.tracing.TracingConfig;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
@@ -15,9 +41,7 @@ import java.util.Scanner;
 public class MedicaidApplication {
     
     private Scanner scanner;
-    private VectorStoreService vectorStoreService;
-    private DocumentLoaderService documentLoaderService;
-    private RagService ragService;
+    private AnnotationConfigApplicationContext context;
     private boolean running;
     
     /**
@@ -26,10 +50,73 @@ public class MedicaidApplication {
     private void initialize() {
         System.out.println("=== Minnesota Medicaid Eligibility Chatbot ===");
         scanner = new Scanner(System.in);
-        vectorStoreService = new VectorStoreService();
-        documentLoaderService = new DocumentLoaderService();
-        ragService = new RagService(vectorStoreService);
+        context = StartupTimer.time("Spring context", this::createContext);
         running = true;
+        StartupTimer.reportReady("CLI");
+    }
+    
+    /**
+     * Create the application context holding the shared clients and services.
+     * In fast-startup mode every bean is created on first use, except the
+     * metrics endpoint, which is started if MEDICAID_METRICS_PORT is set.
+     *
+     * @return a refreshed application context
+     */
+    private AnnotationConfigApplicationContext createContext() {
+        AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext();
+        if (AppConfig.isFastStartupEnabled()) {
+            applicationContext.addBeanFactoryPostProcessor(new LazyInitializationBeanFactoryPostProcessor());
+        }
+        applicationContext.register(ClientConfig.class, ClientLifecycle.class, SessionConfig.class,
+                TracingConfig.class, RagMetrics.class, TokenUsageTracker.class, VectorStoreService.class, DocumentLoaderService.class, FaqService.class,
+                QueryRouter.class, DegradationPolicy.class, RagService.class, FaqIngestionService.class, ReindexService.class,
+                IndexGenerationWatcher.class, BatchQuestionService.class);
+        applicationContext.registerBean(PrometheusMeterRegistry.class,
+                () -> new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+        if (AppConfig.getMetricsPort() > 0) {
+            applicationContext.registerBean(PrometheusScrapeServer.class,
+                    () -> new PrometheusScrapeServer(applicationContext.getBean(PrometheusMeterRegistry.class),
+                            AppConfig.getMetricsPort()),
+                    definition -> definition.setLazyInit(false));
+        }
+        applicationContext.refresh();
+        return applicationContext;
+    }
+    
+    /**
+     * Get the vector store service, creating it on first use in fast-startup mode.
+     *
+     * @return the vector store service
+     */
+    private VectorStoreService vectorStoreService() {
+        return context.getBean(VectorStoreService.class);
+    }
+    
+    /**
+     * Get the document loader service, creating it on first use in fast-startup mode.
+     *
+     * @return the document loader service
+     */
+    private DocumentLoaderService documentLoaderService() {
+        return context.getBean(DocumentLoaderService.class);
+    }
+    
+    /**
+     * Get the FAQ ingestion service, creating it on first use.
+     *
+     * @return the FAQ ingestion service
+     */
+    private FaqIngestionService faqIngestionService() {
+        return context.getBean(FaqIngestionService.class);
+    }
+    
+    /**
+     * Get the RAG service, creating it on first use in fast-startup mode.
+     *
+     * @return the RAG service
+     */
+    private RagService ragService() {
+        return context.getBean(RagService.class);
     }
     
     /**
@@ -39,6 +126,9 @@ public class MedicaidApplication {
         if (scanner != null) {
             scanner.close();
         }
+        if (context != null) {
+            context.close();
+        }
     }
     
     /**
@@ -54,7 +144,7 @@ public class MedicaidApplication {
                 
                 handleMenuChoice(choice);
                 
-                if (running && !choice.equals("2") && !choice.equals("4")) {
+                if (running && !choice.equals("2") && !choice.equals("8")) {
                     System.out.println("\nPress Enter to continue...");
                     scanner.nextLine();
                 }
@@ -73,6 +163,35 @@ public class MedicaidApplication {
         }
     }
     
+    /**
+     * Answer a file of questions without the menu, then exit.
+     * Answers are appended to the output file as they are ready, and a run
+     * started again with the same files continues where the last one stopped.
+     *
+     * @param input the JSON Lines or CSV question file
+     * @param output the JSON Lines answer file
+     * @return true if every question has been answered
+     */
+    public boolean runBatch(Path input, Path output) {
+        System.out.println("=== Minnesota Medicaid Eligibility Chatbot: batch mode ===");
+        try {
+            context = StartupTimer.time("Spring context", this::createContext);
+            StartupTimer.reportReady("Batch");
+            BatchQuestionService.Summary summary = context.getBean(BatchQuestionService.class).run(input, output);
+            return summary.failed() == 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("\n❌ Batch run interrupted; run it again to continue.");
+            return false;
+        } catch (Exception e) {
+            System.err.println("\n❌ Error running batch: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            cleanup();
+        }
+    }
+    
     /**
      * Handle user menu selection.
      *
@@ -90,10 +209,22 @@ public class MedicaidApplication {
                 clearVectorStore();
                 break;
             case "4":
+                showTokenUsage();
+                break;
+            case "5":
+                exportSnapshot();
+                break;
+            case "6":
+                restoreSnapshot();
+                break;
+            case "7":
+                deleteIndexGeneration();
+                break;
+            case "8":
                 exitApplication();
                 break;
             default:
-                System.out.println("\n❌ Invalid choice. Please enter 1, 2, 3, or 4.");
+                System.out.println("\n❌ Invalid choice. Please enter a number from 1 to 8.");
                 break;
         }
     }
@@ -108,23 +239,34 @@ public class MedicaidApplication {
         System.out.println("1. Load Documents into Vector Store");
         System.out.println("2. Start Chat with Agent");
         System.out.println("3. Clear Vector Store");
-        System.out.println("4. Exit");
+        System.out.println("4. Show Token Usage");
+        System.out.println("5. Export Corpus Snapshot");
+        System.out.println("6. Restore Corpus Snapshot");
+        System.out.println("7. Delete Previous Index Generation");
+        System.out.println("8. Exit");
         System.out.println("=".repeat(60));
-        System.out.print("Enter your choice (1-4): ");
+        System.out.print("Enter your choice (1-8): ");
     }
     
     /**
      * Load documents into the vector store.
+     * With a blue/green reindex the active index keeps answering questions until
+     * the new one is loaded and validated; otherwise the store is cleared first.
      */
     private void loadDocuments() {
         System.out.println("\n" + "=".repeat(60));
         System.out.println("Loading Documents...");
         System.out.println("=".repeat(60));
         
+        if (DocumentConfig.isBlueGreenReindexEnabled()) {
+            reindexDocuments();
+            return;
+        }
+        
         try {
             System.out.println("🗑️  Clearing existing documents from vector store...");
             try {
-                vectorStoreService.clearAllDocuments();
+                vectorStoreService().clearAllDocuments();
                 System.out.println("✅ Vector store cleared.\n");
             } catch (Exception e) {
                 System.out.println("ℹ️  Could not clear vector store (may be empty). Continuing...\n");
@@ -132,16 +274,46 @@ public class MedicaidApplication {
             
             System.out.println("Loading documents from configured sources...");
             
-            List<dev.langchain4j.data.document.Document> documents = documentLoaderService.loadDocuments();
+            IngestionReport report = new IngestionReport();
+            List<String> documentIds = new ArrayList<>();
+            documentLoaderService().loadDocuments(report,
+                    document -> vectorStoreService().addDocument(document, report).ifPresent(documentIds::add));
             
-            System.out.println("\nLoading " + documents.size() + " documents into the knowledge base...");
+            report.finish();
+            System.out.println("\n✅ Documents loaded successfully!");
+            System.out.println("📊 " + report.summaryLine());
+            System.out.println("📝 Ingestion report written to " + report.write(DocumentConfig.getIngestionReportDir()));
+            
+            System.out.println();
+            faqIngestionService().refreshAnswers(documentIds);
             
-            vectorStoreService.addDocuments(documents);
+        } catch (Exception e) {
+            System.err.println("\n❌ Error loading documents: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Load documents into a new index generation and switch to it once validated.
+     */
+    private void reindexDocuments() {
+        try {
+            IngestionReport report = new IngestionReport();
+            ReindexService.Result result = context.getBean(ReindexService.class).reindex(report);
             
+            report.finish();
+            System.out.println("📊 " + report.summaryLine());
+            System.out.println("📝 Ingestion report written to " + report.write(DocumentConfig.getIngestionReportDir()));
+            if (!result.switched()) {
+                return;
+            }
             System.out.println("\n✅ Documents loaded successfully!");
             
+            System.out.println();
+            faqIngestionService().refreshAnswers(result.documentIds());
+            
         } catch (Exception e) {
-            System.err.println("\n❌ Error loading documents: " + e.getMessage());
+            System.err.println("\n❌ Error reindexing documents: " + e.getMessage());
             e.printStackTrace();
         }
     }
@@ -156,7 +328,7 @@ public class MedicaidApplication {
         
         try {
             System.out.println("Starting the chatbot...\n");
-            MedicaidChatbot chatbot = new MedicaidChatbot(scanner, ragService);
+            MedicaidChatbot chatbot = new MedicaidChatbot(scanner, ragService());
             chatbot.start();
             
         } catch (Exception e) {
@@ -179,7 +351,8 @@ public class MedicaidApplication {
             
             if (confirmation.equals("yes") || confirmation.equals("y")) {
                 System.out.println("\n🗑️  Clearing all documents from vector store...");
-                vectorStoreService.clearAllDocuments();
+                vectorStoreService().clearAllDocuments();
+                context.getBean(FaqService.class).clear();
                 System.out.println("✅ Vector store cleared successfully!");
             } else {
                 System.out.println("❌ Operation cancelled.");
@@ -191,6 +364,128 @@ public class MedicaidApplication {
         }
     }
     
+    /**
+     * Show token usage and estimated cost per pipeline stage and for the heaviest sessions.
+     */
+    private void showTokenUsage() {
+        System.out.println("\n" + "=".repeat(60));
+        System.out.println("Token Usage");
+        System.out.println("=".repeat(60));
+
+        TokenUsageTracker.Summary summary = context.getBean(TokenUsageTracker.class).summary(5);
+
+        System.out.printf("%n%-20s %8s %12s %12s %10s%n", "Stage", "Calls", "Input", "Output", "Cost ($)");
+        summary.stages().forEach((stage, usage) -> System.out.printf("%-20s %8d %12d %12d %10.4f%n",
+                stage.tag(), usage.calls(), usage.inputTokens(), usage.outputTokens(), usage.costUsd()));
+
+        System.out.printf("%nLast %d minutes:%n", summary.windowMinutes());
+        summary.rollingStages().forEach((stage, usage) -> System.out.printf("%-20s %8d %12d %12d %10.4f%n",
+                stage.tag(), usage.calls(), usage.inputTokens(), usage.outputTokens(), usage.costUsd()));
+
+        if (!summary.topSessions().isEmpty()) {
+            System.out.println("\nTop sessions:");
+            summary.topSessions().forEach((sessionId, usage) -> System.out.printf("%-36s %10d tokens %10.4f $%n",
+                    sessionId, usage.totalTokens(), usage.costUsd()));
+        }
+    }
+    
+    /**
+     * Export the segments and embeddings in the active vector store to a snapshot file.
+     */
+    private void exportSnapshot() {
+        System.out.println("\n" + "=".repeat(60));
+        System.out.println("Export Corpus Snapshot");
+        System.out.println("=".repeat(60));
+        
+        try {
+            Path path = promptSnapshotFile();
+            long start = System.nanoTime();
+            vectorStoreService().exportSnapshot(path);
+            System.out.printf("✅ Snapshot exported in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        } catch (Exception e) {
+            System.err.println("\n❌ Error exporting snapshot: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Replace the vector store contents with a snapshot, without fetching or embedding documents.
+     * The FAQ answers of the previous corpus are dropped and computed again from the restored one.
+     */
+    private void restoreSnapshot() {
+        System.out.println("\n" + "=".repeat(60));
+        System.out.println("Restore Corpus Snapshot");
+        System.out.println("=".repeat(60));
+        
+        try {
+            Path path = promptSnapshotFile();
+            System.out.print("\n⚠️  This replaces all documents in the vector store. Continue? (yes/no): ");
+            String confirmation = scanner.nextLine().trim().toLowerCase();
+            if (!confirmation.equals("yes") && !confirmation.equals("y")) {
+                System.out.println("❌ Operation cancelled.");
+                return;
+            }
+            
+            long start = System.nanoTime();
+            List<String> documentIds = vectorStoreService().restoreSnapshot(path);
+            System.out.printf("✅ Restored %d documents in %.1f s%n", documentIds.size(), (System.nanoTime() - start) / 1e9);
+            
+            // Answers precomputed from the replaced corpus must not outlive it.
+            context.getBean(FaqService.class).clear();
+            System.out.println();
+            faqIngestionService().refreshAnswers(documentIds);
+        } catch (Exception e) {
+            System.err.println("\n❌ Error restoring snapshot: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Ask for a snapshot file, defaulting to MEDICAID_SNAPSHOT_FILE.
+     *
+     * @return the snapshot file
+     */
+    private Path promptSnapshotFile() {
+        Path defaultFile = DocumentConfig.getSnapshotFile();
+        System.out.print("Snapshot file [" + defaultFile + "]: ");
+        String input = scanner.nextLine().trim();
+        return input.isEmpty() ? defaultFile : Paths.get(input);
+    }
+    
+    /**
+     * Delete an index generation that a blue/green reindex switched away from.
+     * Other processes serving searches follow a switch within
+     * MEDICAID_INDEX_POINTER_POLL_SECONDS, so a generation is only deleted when
+     * the operator confirms they no longer use it.
+     */
+    private void deleteIndexGeneration() {
+        System.out.println("\n" + "=".repeat(60));
+        System.out.println("Delete Previous Index Generation");
+        System.out.println("=".repeat(60));
+        
+        try {
+            String active = IndexGeneration.readActive(AppConfig.getIndexPointerFile());
+            System.out.println("Active index generation: " + (active.isEmpty() ? "default" : active));
+            System.out.print("Generation to delete (\"default\" for the original index): ");
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                System.out.println("❌ Operation cancelled.");
+                return;
+            }
+            String generation = input.equalsIgnoreCase("default") ? IndexGeneration.LEGACY : input;
+            
+            System.out.print("\n⚠️  Every process must have switched away from " + input
+                    + ". Delete its segments? (yes/no): ");
+            String confirmation = scanner.nextLine().trim().toLowerCase();
+            if (!confirmation.equals("yes") && !confirmation.equals("y")) {
+                System.out.println("❌ Operation cancelled.");
+                return;
+            }
+            context.getBean(ReindexService.class).delete(generation);
+        } catch (Exception e) {
+            System.err.println("\n❌ Error deleting index generation: " + e.getMessage());
+        }
+    }
+    
     /**
      * Exit the application.
      */
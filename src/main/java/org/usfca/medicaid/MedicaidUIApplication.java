@@ -2,12 +2,23 @@ package org.usfca.medicaid;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.usfca.medicaid.config.AppConfig;
+import org.usfca.medicaid.config.StartupTimer;
+import org.usfca.medicaid.jfr.PipelineEvents;
+
+import java.util.Map;
 
 @SpringBootApplication
 public class MedicaidUIApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(MedicaidUIApplication.class, args);
+        PipelineEvents.register();
+        SpringApplication application = new SpringApplication(MedicaidUIApplication.class);
+        application.setLazyInitialization(AppConfig.isFastStartupEnabled());
+        application.setDefaultProperties(Map.of(
+                "management.endpoints.web.exposure.include", "health,prometheus"));
+        StartupTimer.time("Spring context", () -> application.run(args));
+        StartupTimer.reportReady("Web UI");
     }
 }
 
@@ -1,9 +1,8 @@
 package org.usfca.medicaid.chatbot;
 
 import org.usfca.medicaid.service.RagService;
+import org.usfca.medicaid.session.SessionStore;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -14,7 +13,7 @@ public class MedicaidChatbot {
     private final RagService ragService;
     private final Scanner scanner;
     private boolean isRunning;
-    private final List<String> conversationHistory;
+    private final String sessionId;
 
     /**
      * Constructs a new MedicaidChatbot with the specified scanner and RAG service.
@@ -26,7 +25,7 @@ public class MedicaidChatbot {
         this.scanner = scanner;
         this.ragService = ragService;
         this.isRunning = false;
-        this.conversationHistory = new ArrayList<>();
+        this.sessionId = SessionStore.newSessionId();
     }
     
     /**
@@ -55,11 +54,7 @@ public class MedicaidChatbot {
                     continue;
                 }
 
-                conversationHistory.add("User: " + userInput);
- 
-                String response = ragService.generateResponse(userInput, conversationHistory);
- 
-                conversationHistory.add("Assistant: " + response);
+                String response = ragService.generateResponse(userInput, sessionId);
                 
                 System.out.println("Medicaid Assistant: " + response);
                 
@@ -0,0 +1,250 @@
+package org.usfca.medicaid.chunking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * MinHash index for finding near-duplicate segments, such as the navigation,
+ * footer and disclaimer blocks repeated across pages of one site.
+ *
+ * <p>Each text is reduced to lower-cased word 3-shingles, and its signature
+ * is the minimum of {@value #HASHES} seeded hashes over the shingles; the
+ * share of equal signature positions estimates the Jaccard similarity of two
+ * texts. Signatures are split into {@value #BANDS} bands that are hashed into
+ * buckets (locality-sensitive hashing), so a lookup only compares the texts
+ * sharing at least one band instead of every text in the index.
+ */
+public class NearDuplicateIndex {
+
+    private static final int HASHES = 128;
+    private static final int BANDS = 16;
+    private static final int ROWS = HASHES / BANDS;
+    private static final int SHINGLE_WORDS = 3;
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < HASHES; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private final double threshold;
+    private final List<String> ids = new ArrayList<>();
+    private final List<int[]> signatures = new ArrayList<>();
+    private final Map<Long, int[]> buckets = new HashMap<>();
+
+    /**
+     * A near-duplicate found in the index.
+     *
+     * @param id the ID the matching text was added under
+     * @param similarity the estimated Jaccard similarity (0.0 to 1.0)
+     */
+    public record Match(String id, double similarity) {
+    }
+
+    /**
+     * Constructs a new NearDuplicateIndex.
+     *
+     * @param threshold the estimated Jaccard similarity at which texts count as duplicates
+     */
+    public NearDuplicateIndex(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Look up the closest near-duplicate of a text without adding it.
+     *
+     * @param text the text to look up
+     * @return the best match at or above the threshold, or empty if there is none
+     */
+    public synchronized Optional<Match> find(String text) {
+        return find(signature(text));
+    }
+
+    /**
+     * Look up the closest near-duplicate of a text, adding the text to the
+     * index if there is none.
+     *
+     * @param id the ID to add the text under, e.g. document ID and segment index
+     * @param text the text to look up
+     * @return the best match at or above the threshold, or empty if the text was added
+     */
+    public synchronized Optional<Match> findOrAdd(String id, String text) {
+        int[] signature = signature(text);
+        Optional<Match> match = find(signature);
+        if (match.isEmpty()) {
+            add(id, signature);
+        }
+        return match;
+    }
+
+    /**
+     * Add every text of another index, e.g. the segments of one document once
+     * they are stored, without comparing them to the texts already here.
+     *
+     * @param other the index to copy the texts from
+     */
+    public void addAll(NearDuplicateIndex other) {
+        List<String> otherIds;
+        List<int[]> otherSignatures;
+        synchronized (other) {
+            otherIds = List.copyOf(other.ids);
+            otherSignatures = List.copyOf(other.signatures);
+        }
+        synchronized (this) {
+            for (int i = 0; i < otherIds.size(); i++) {
+                add(otherIds.get(i), otherSignatures.get(i));
+            }
+        }
+    }
+
+    /**
+     * Get the similarity threshold of the index.
+     *
+     * @return the estimated Jaccard similarity at which texts count as duplicates
+     */
+    public double threshold() {
+        return threshold;
+    }
+
+    private Optional<Match> find(int[] signature) {
+        Match best = null;
+        int[] seen = new int[0];
+        for (int band = 0; band < BANDS; band++) {
+            int[] bucket = buckets.get(bandKey(signature, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (int candidate : bucket) {
+                if (Arrays.binarySearch(seen, candidate) >= 0) {
+                    continue;
+                }
+                seen = insertSorted(seen, candidate);
+                double similarity = similarity(signature, signatures.get(candidate));
+                if (similarity >= threshold && (best == null || similarity > best.similarity())) {
+                    best = new Match(ids.get(candidate), similarity);
+                }
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private void add(String id, int[] signature) {
+        int row = ids.size();
+        ids.add(id);
+        signatures.add(signature);
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, band);
+            int[] bucket = buckets.get(key);
+            if (bucket == null) {
+                buckets.put(key, new int[]{row});
+            } else {
+                int[] grown = Arrays.copyOf(bucket, bucket.length + 1);
+                grown[bucket.length] = row;
+                buckets.put(key, grown);
+            }
+        }
+    }
+
+    /**
+     * Get the number of texts in the index.
+     *
+     * @return the number of distinct texts added
+     */
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * Remove every text from the index.
+     */
+    public synchronized void clear() {
+        ids.clear();
+        signatures.clear();
+        buckets.clear();
+    }
+
+    /**
+     * Compute the MinHash signature of a text without copying it: word hashes
+     * are computed in one pass and combined into shingle hashes.
+     */
+    static int[] signature(String text) {
+        long[] words = new long[16];
+        int wordCount = 0;
+        long hash = 0;
+        boolean inWord = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? Character.toLowerCase(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                hash = (inWord ? hash : 0xcbf29ce484222325L) ^ c;
+                hash *= 0x100000001b3L;
+                inWord = true;
+            } else if (inWord) {
+                if (wordCount == words.length) {
+                    words = Arrays.copyOf(words, wordCount * 2);
+                }
+                words[wordCount++] = hash;
+                inWord = false;
+            }
+        }
+
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int shingles = Math.max(1, wordCount - SHINGLE_WORDS + 1);
+        for (int s = 0; s < shingles; s++) {
+            long shingle = 0;
+            for (int w = s; w < Math.min(wordCount, s + SHINGLE_WORDS); w++) {
+                shingle = mix(shingle * 31 + words[w]);
+            }
+            for (int h = 0; h < HASHES; h++) {
+                int value = (int) (mix(shingle ^ SEEDS[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            key = mix(key * 31 + signature[i]);
+        }
+        return key;
+    }
+
+    private static int[] insertSorted(int[] values, int value) {
+        int position = -Arrays.binarySearch(values, value) - 1;
+        int[] result = new int[values.length + 1];
+        System.arraycopy(values, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(values, position, result, position + 1, values.length - position);
+        return result;
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,311 @@
+package org.usfca.medicaid.chunking;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits documents along the structure kept by {@code DocumentLoaderService}:
+ * blocks separated by blank lines, headings marked with a leading {@code #},
+ * and pages separated by form feeds. Consecutive blocks of one section are
+ * packed into chunks of up to {@code maxTokens} tokens; a heading always starts
+ * a new chunk, and blocks longer than the limit are split at sentence ends.
+ *
+ * <p>Chunks are offset ranges into the document text. Token counts are taken
+ * once per sentence and summed, and segment text is only copied out of the
+ * document when {@link #split(Document)} builds the segments.
+ */
+public class StructuredDocumentSplitter implements DocumentSplitter {
+
+    private static final char PAGE_BREAK = '\f';
+
+    private final int maxTokens;
+    private final TokenCountEstimator tokenizer;
+
+    /**
+     * A chunk of a document's text.
+     *
+     * @param start the offset of the first character
+     * @param end the offset after the last character
+     * @param tokens the number of tokens in the chunk
+     * @param page the 1-based page the chunk starts on
+     * @param sectionStart the offset of the enclosing heading text, or -1 if none
+     * @param sectionEnd the offset after the enclosing heading text, or -1 if none
+     */
+    public record Chunk(int start, int end, int tokens, int page, int sectionStart, int sectionEnd) {
+
+        /**
+         * Copy the chunk's text out of the document text.
+         *
+         * @param text the document text the chunk was made from
+         * @return the chunk text
+         */
+        public String text(String text) {
+            return text.substring(start, end);
+        }
+
+        /**
+         * Copy the enclosing heading out of the document text.
+         *
+         * @param text the document text the chunk was made from
+         * @return the heading text, or null if the chunk precedes every heading
+         */
+        public String section(String text) {
+            return sectionStart < 0 ? null : text.substring(sectionStart, sectionEnd);
+        }
+    }
+
+    /**
+     * Constructs a new StructuredDocumentSplitter.
+     *
+     * @param maxTokens the maximum number of tokens per chunk
+     * @param tokenizer the tokenizer used to size chunks
+     */
+    public StructuredDocumentSplitter(int maxTokens, TokenCountEstimator tokenizer) {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("maxTokens must be positive");
+        }
+        this.maxTokens = maxTokens;
+        this.tokenizer = tokenizer;
+    }
+
+    @Override
+    public List<TextSegment> split(Document document) {
+        String text = document.text();
+        boolean paged = text.indexOf(PAGE_BREAK) >= 0;
+        List<Chunk> chunks = chunk(text);
+        List<TextSegment> segments = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            Metadata metadata = document.metadata().copy();
+            metadata.put("index", String.valueOf(i));
+            String section = chunk.section(text);
+            if (section != null) {
+                metadata.put("section", section);
+            }
+            if (paged) {
+                metadata.put("page", String.valueOf(chunk.page()));
+            }
+            segments.add(TextSegment.from(chunk.text(text), metadata));
+        }
+        return segments;
+    }
+
+    /**
+     * Split text into chunks without copying it.
+     *
+     * @param text the structured document text
+     * @return the chunks, in document order
+     */
+    public List<Chunk> chunk(String text) {
+        Packer packer = new Packer(text);
+        int page = 1;
+        int position = 0;
+        while (position < text.length()) {
+            int end = blockEnd(text, position);
+            int start = skipSpace(text, position, end);
+            int trimmedEnd = trimEnd(text, start, end);
+            if (start < trimmedEnd) {
+                packer.block(start, trimmedEnd, page);
+            }
+
+            position = end;
+            while (position < text.length() && (Character.isWhitespace(text.charAt(position)))) {
+                if (text.charAt(position) == PAGE_BREAK) {
+                    page++;
+                    packer.pageBreak();
+                }
+                position++;
+            }
+        }
+        packer.flush();
+        return packer.chunks;
+    }
+
+    /**
+     * Find the end of the block starting at an offset: the next blank line or page break.
+     */
+    private static int blockEnd(String text, int from) {
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == PAGE_BREAK || (c == '\n' && i + 1 < text.length() && text.charAt(i + 1) == '\n')) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    private static int skipSpace(String text, int from, int to) {
+        while (from < to && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(String text, int from, int to) {
+        while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Packs consecutive blocks into chunks.
+     */
+    private final class Packer {
+
+        private final String text;
+        private final List<Chunk> chunks = new ArrayList<>();
+        private int start = -1;
+        private int end;
+        private int tokens;
+        private int page;
+        private int sectionStart = -1;
+        private int sectionEnd = -1;
+        private int[] sentenceEnds = new int[16];
+        private int[] sentenceTokens = new int[16];
+
+        Packer(String text) {
+            this.text = text;
+        }
+
+        void block(int blockStart, int blockEnd, int blockPage) {
+            if (text.charAt(blockStart) == '#') {
+                flush();
+                int headingStart = blockStart;
+                while (headingStart < blockEnd && text.charAt(headingStart) == '#') {
+                    headingStart++;
+                }
+                sectionStart = skipSpace(text, headingStart, blockEnd);
+                sectionEnd = blockEnd;
+            }
+
+            int sentences = countSentences(blockStart, blockEnd);
+            int blockTokens = 0;
+            for (int i = 0; i < sentences; i++) {
+                blockTokens += sentenceTokens[i];
+            }
+            if (blockTokens > maxTokens) {
+                flush();
+                packSentences(blockStart, sentences, blockPage);
+                return;
+            }
+            if (start >= 0 && tokens + blockTokens > maxTokens) {
+                flush();
+            }
+            append(blockStart, blockEnd, blockTokens, blockPage);
+        }
+
+        /**
+         * Close the chunk at a page break once it holds a reasonable amount of text,
+         * so chunks rarely span pages without leaving scraps of a few tokens.
+         */
+        void pageBreak() {
+            if (tokens >= maxTokens / 4) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (start >= 0) {
+                chunks.add(new Chunk(start, end, tokens, page, sectionStart, sectionEnd));
+                start = -1;
+                tokens = 0;
+            }
+        }
+
+        private void append(int blockStart, int blockEnd, int blockTokens, int blockPage) {
+            if (start < 0) {
+                start = blockStart;
+                page = blockPage;
+            }
+            end = blockEnd;
+            tokens += blockTokens;
+        }
+
+        /**
+         * Find the sentences of a block and count their tokens, so every
+         * character is tokenized once. A sentence that is too long for one
+         * chunk is cut at the last space that keeps it under the limit.
+         *
+         * @return the number of sentences, stored in sentenceEnds and sentenceTokens
+         */
+        private int countSentences(int blockStart, int blockEnd) {
+            int count = 0;
+            int sentenceStart = blockStart;
+            while (sentenceStart < blockEnd) {
+                int sentenceEnd = sentenceEnd(sentenceStart, blockEnd);
+                int sentenceTokens = tokenizer.estimateTokenCountInText(text.substring(sentenceStart, sentenceEnd));
+                if (sentenceTokens > maxTokens) {
+                    sentenceEnd = fitWords(sentenceStart, sentenceEnd);
+                    sentenceTokens = tokenizer.estimateTokenCountInText(text.substring(sentenceStart, sentenceEnd));
+                }
+                if (count == sentenceEnds.length) {
+                    sentenceEnds = Arrays.copyOf(sentenceEnds, count * 2);
+                    this.sentenceTokens = Arrays.copyOf(this.sentenceTokens, count * 2);
+                }
+                sentenceEnds[count] = trimEnd(text, sentenceStart, sentenceEnd);
+                this.sentenceTokens[count] = sentenceTokens;
+                count++;
+                sentenceStart = skipSpace(text, sentenceEnd, blockEnd);
+            }
+            return count;
+        }
+
+        /**
+         * Pack the sentences of an oversized block into chunks.
+         */
+        private void packSentences(int blockStart, int sentences, int blockPage) {
+            int sentenceStart = blockStart;
+            for (int i = 0; i < sentences; i++) {
+                if (start >= 0 && tokens + sentenceTokens[i] > maxTokens) {
+                    flush();
+                }
+                append(sentenceStart, sentenceEnds[i], sentenceTokens[i], blockPage);
+                sentenceStart = skipSpace(text, sentenceEnds[i], text.length());
+            }
+            flush();
+        }
+
+        private int sentenceEnd(int from, int to) {
+            for (int i = from; i < to - 1; i++) {
+                char c = text.charAt(i);
+                if ((c == '.' || c == '?' || c == '!') && Character.isWhitespace(text.charAt(i + 1))) {
+                    return i + 1;
+                }
+            }
+            return to;
+        }
+
+        /**
+         * Find the longest prefix ending at a space that fits in one chunk,
+         * by binary search over the space positions.
+         */
+        private int fitWords(int from, int to) {
+            int low = from + 1;
+            int high = to;
+            int best = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cut = text.lastIndexOf(' ', mid);
+                if (cut <= from) {
+                    low = mid + 1;
+                    continue;
+                }
+                if (tokenizer.estimateTokenCountInText(text.substring(from, cut)) <= maxTokens) {
+                    best = cut;
+                    low = mid + 1;
+                } else {
+                    high = cut - 1;
+                }
+            }
+            return best > from ? best : Math.min(to, from + maxTokens);
+        }
+    }
+}
@@ -1,11 +1,29 @@
 package org.usfca.medicaid.config;
 
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
-import dev.langchain4j.store.embedding.pinecone.PineconeEmbeddingStore;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.usfca.medicaid.config.ModelConfig.ChatStage;
+import org.usfca.medicaid.model.RoutingChatModel;
+import org.usfca.medicaid.model.StageChatModels;
+import org.usfca.medicaid.store.IndexGeneration;
+import org.usfca.medicaid.store.MappedVectorIndex;
+import org.usfca.medicaid.store.PineconeRestEmbeddingStore;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Configuration class for the application.
@@ -16,75 +34,624 @@ public class AppConfig {
     private static final String PINECONE_API_KEY = System.getenv("PINECONE_API_KEY");
     private static final String PINECONE_ENVIRONMENT = System.getenv().getOrDefault("PINECONE_ENVIRONMENT", "us-east-1-aws");
     private static final String PINECONE_INDEX_NAME = System.getenv().getOrDefault("PINECONE_INDEX_NAME", "medicaid-v1");
+    private static final String PINECONE_HOST = System.getenv("PINECONE_HOST");
+    private static String resolvedPineconeHost;
+    private static final String OPENAI_BASE_URL = System.getenv("OPENAI_BASE_URL");
     
-    private static final String openaiChatModel = "gpt-3.5-turbo";
     private static final String openaiEmbeddingModel = "text-embedding-3-small";
-    private static final boolean DEBUG_LOGGING = Boolean.parseBoolean(
-            System.getenv().getOrDefault("MEDICAID_AGENT_DEBUG", "true")
+    private static final int EMBEDDING_DIMENSIONS = 1024;
+    private static final boolean FAST_STARTUP = Boolean.parseBoolean(
+            System.getenv().getOrDefault("MEDICAID_FAST_STARTUP", "false")
+    );
+
+    private static final int TRANSCRIPT_LIMIT = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_UI_MAX_MESSAGES", "200")
+    );
+
+    private static final String SESSION_STORE = System.getenv().getOrDefault("MEDICAID_SESSION_STORE", "memory");
+    private static final String SESSION_FILE = System.getenv().getOrDefault("MEDICAID_SESSION_FILE", "data/sessions.dat");
+    private static final int SESSION_MAX_SESSIONS = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_SESSION_MAX_SESSIONS", "4096")
+    );
+    private static final int SESSION_MAX_MESSAGES = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_SESSION_MAX_MESSAGES", "20")
+    );
+    private static final int SESSION_SLOT_BYTES = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_SESSION_SLOT_BYTES", "16384")
+    );
+    private static final long SESSION_MIN_IDLE_MINUTES = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_SESSION_MIN_IDLE_MINUTES", "30")
+    );
+
+    private static final long HTTP_CONNECT_TIMEOUT_SECONDS = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_HTTP_CONNECT_TIMEOUT_SECONDS", "10")
+    );
+    private static final long EMBEDDING_TIMEOUT_SECONDS = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_EMBEDDING_TIMEOUT_SECONDS", "30")
+    );
+    private static final long PINECONE_TIMEOUT_SECONDS = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_PINECONE_TIMEOUT_SECONDS", "10")
+    );
+
+    private static final int METRICS_PORT = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_METRICS_PORT", "0")
+    );
+
+    private static final long SESSION_TOKEN_BUDGET = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_SESSION_TOKEN_BUDGET", "0")
+    );
+    private static final int TOKEN_WINDOW_MINUTES = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_TOKEN_WINDOW_MINUTES", "60")
+    );
+    private static final double CHAT_INPUT_PRICE = Double.parseDouble(
+            System.getenv().getOrDefault("MEDICAID_PRICE_CHAT_INPUT_PER_MTOK", "0.50")
+    );
+    private static final double CHAT_OUTPUT_PRICE = Double.parseDouble(
+            System.getenv().getOrDefault("MEDICAID_PRICE_CHAT_OUTPUT_PER_MTOK", "1.50")
+    );
+    private static final double EMBEDDING_PRICE = Double.parseDouble(
+            System.getenv().getOrDefault("MEDICAID_PRICE_EMBEDDING_PER_MTOK", "0.02")
+    );
+
+    private static final String TRACING_EXPORTERS = System.getenv().getOrDefault("MEDICAID_TRACING_EXPORTERS", "none");
+    private static final int TRACING_MEMORY_SPANS = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_TRACING_MEMORY_SPANS", "2000")
+    );
+    private static final String OTLP_ENDPOINT = System.getenv().getOrDefault("OTEL_EXPORTER_OTLP_ENDPOINT", "http://localhost:4318");
+
+    private static final int RETRIEVAL_TOP_K = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_RETRIEVAL_TOP_K", "5")
+    );
+    private static final double RETRIEVAL_MIN_SCORE = Double.parseDouble(
+            System.getenv().getOrDefault("MEDICAID_RETRIEVAL_MIN_SCORE", "0.65")
+    );
+
+    private static final long REQUEST_BUDGET_MILLIS = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_REQUEST_BUDGET_MILLIS", "8000")
+    );
+    private static final int MAX_IN_FLIGHT_QUESTIONS = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_MAX_IN_FLIGHT_QUESTIONS", "16")
+    );
+    private static final int DEGRADED_MAX_QUERIES = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_DEGRADED_MAX_QUERIES", "2")
+    );
+    private static final int DEGRADED_TOP_K = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_DEGRADED_TOP_K", "3")
+    );
+    private static final int DEGRADED_CONTEXT_CHARS = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_DEGRADED_CONTEXT_CHARS", "6000")
+    );
+    private static final long DEGRADATION_HALF_LIFE_SECONDS = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_DEGRADATION_HALF_LIFE_SECONDS", "60")
+    );
+    private static final double DEGRADATION_PROBE_RATE = Double.parseDouble(
+            System.getenv().getOrDefault("MEDICAID_DEGRADATION_PROBE_RATE", "0.02")
+    );
+
+    private static final int BATCH_CONCURRENCY = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_BATCH_CONCURRENCY", "8")
+    );
+    private static final int BATCH_EMBEDDING_SIZE = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_BATCH_EMBEDDING_SIZE", "64")
+    );
+
+    private static final String VECTOR_STORE = System.getenv().getOrDefault("MEDICAID_VECTOR_STORE", "pinecone");
+    private static final String LOCAL_INDEX_DIR = System.getenv().getOrDefault("MEDICAID_LOCAL_INDEX_DIR", "data/vector-index");
+    private static final String LOCAL_INDEX_FORMAT = System.getenv().getOrDefault("MEDICAID_LOCAL_INDEX_FORMAT", "float32");
+    private static final String INDEX_POINTER_FILE = System.getenv().getOrDefault("MEDICAID_INDEX_POINTER_FILE", "data/active-index");
+    private static final long INDEX_POINTER_POLL_SECONDS = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_INDEX_POINTER_POLL_SECONDS", "10")
     );
 
     /**
-     * Create and configure an OpenAI chat model.
+     * Create the chat models of the rewrite and answer stages, and of the
+     * fast answer stage if it is configured.
      *
-     * @return configured OpenAI chat model instance
-     * @throws IllegalStateException if OPENAI_API_KEY is not set
+     * @param transport the shared HTTP transport
+     * @param registry the registry publishing per-model call timers
+     * @return the chat model of each stage
+     * @throws IllegalStateException if OPENAI_API_KEY is needed but not set
      */
-    public static OpenAiChatModel createChatModel() {
-        if (OPENAI_API_KEY == null || OPENAI_API_KEY.isEmpty()) {
+    public static StageChatModels createStageChatModels(HttpTransport transport, MeterRegistry registry) {
+        Map<ChatStage, ChatModel> models = new EnumMap<>(ChatStage.class);
+        for (ChatStage stage : ChatStage.values()) {
+            if (ModelConfig.isStageConfigured(stage)) {
+                models.put(stage, createChatModel(transport, stage, registry));
+            }
+        }
+        return new StageChatModels(models);
+    }
+
+    /**
+     * Create the chat model of a pipeline stage: a router over the stage's
+     * configured models (see {@link ModelConfig}), each on the shared HTTP transport.
+     *
+     * @param transport the shared HTTP transport
+     * @param stage the pipeline stage
+     * @param registry the registry publishing per-model call timers
+     * @return the stage's chat model
+     * @throws IllegalStateException if OPENAI_API_KEY is needed but not set
+     */
+    public static RoutingChatModel createChatModel(HttpTransport transport, ChatStage stage, MeterRegistry registry) {
+        ModelConfig.StageSettings settings = ModelConfig.getStageSettings(stage);
+        List<RoutingChatModel.Candidate> candidates = settings.endpoints().stream()
+                .map(endpoint -> new RoutingChatModel.Candidate(endpoint.name(),
+                        createChatModel(transport, endpoint, settings)))
+                .toList();
+        return new RoutingChatModel(stage.tag(), candidates, ModelConfig.getRoutingExploreRate(),
+                ModelConfig.getRoutingCooldown(), registry);
+    }
+
+    private static OpenAiChatModel createChatModel(HttpTransport transport, ModelConfig.Endpoint endpoint,
+                                                   ModelConfig.StageSettings settings) {
+        boolean openAi = endpoint.baseUrl() == null || endpoint.baseUrl().equals(OPENAI_BASE_URL);
+        if (openAi && (endpoint.apiKey() == null || endpoint.apiKey().isEmpty())) {
             throw new IllegalStateException("OPENAI_API_KEY environment variable is required");
         }
         
         return OpenAiChatModel.builder()
-                .apiKey(OPENAI_API_KEY)
-                .modelName(openaiChatModel)
-                .temperature(0.1)
-                .timeout(Duration.ofSeconds(60))
+                .apiKey(endpoint.apiKey())
+                .baseUrl(endpoint.baseUrl())
+                .modelName(endpoint.model())
+                .temperature(settings.temperature())
+                .maxTokens(settings.maxTokens() > 0 ? settings.maxTokens() : null)
+                .httpClientBuilder(transport.clientBuilder())
+                .timeout(settings.timeout())
                 .build();
     }
     
     /**
-     * Create and configure an OpenAI embedding model.
+     * Create and configure an OpenAI embedding model on the shared HTTP transport.
      *
+     * @param transport the shared HTTP transport
      * @return configured OpenAI embedding model instance
      * @throws IllegalStateException if OPENAI_API_KEY is not set
      */
-    public static EmbeddingModel createEmbeddingModel() {
+    public static EmbeddingModel createEmbeddingModel(HttpTransport transport) {
         if (OPENAI_API_KEY == null || OPENAI_API_KEY.isEmpty()) {
             throw new IllegalStateException("OPENAI_API_KEY environment variable is required");
         }
         
         return OpenAiEmbeddingModel.builder()
                 .apiKey(OPENAI_API_KEY)
+                .baseUrl(OPENAI_BASE_URL)
                 .modelName(openaiEmbeddingModel)
-                .dimensions(1024)
-                .timeout(Duration.ofSeconds(60))
+                .dimensions(EMBEDDING_DIMENSIONS)
+                .httpClientBuilder(transport.clientBuilder())
+                .timeout(Duration.ofSeconds(EMBEDDING_TIMEOUT_SECONDS))
                 .build();
     }
     
+    /**
+     * Create the configured embedding store (MEDICAID_VECTOR_STORE) for an
+     * index generation.
+     *
+     * @param transport the shared HTTP transport
+     * @param generation the index generation, or {@link IndexGeneration#LEGACY}
+     * @return the embedding store holding the generation's segments
+     */
+    public static EmbeddingStore<TextSegment> createEmbeddingStore(HttpTransport transport, String generation) {
+        if ("local".equalsIgnoreCase(VECTOR_STORE)) {
+            return createLocalEmbeddingStore(generation);
+        }
+        return createPineconeEmbeddingStore(transport, generation);
+    }
+
     /**
      * Create and configure a Pinecone embedding store.
+     * The index host is called directly over the REST data-plane API on the
+     * shared HTTP transport. It is PINECONE_HOST if set, and otherwise looked
+     * up by index name once, also over the shared transport.
      *
+     * @param transport the shared HTTP transport
      * @return configured Pinecone embedding store instance
      * @throws IllegalStateException if PINECONE_API_KEY is not set
      */
-    public static PineconeEmbeddingStore createPineconeEmbeddingStore() {
+    public static EmbeddingStore<TextSegment> createPineconeEmbeddingStore(HttpTransport transport) {
+        return createPineconeEmbeddingStore(transport, IndexGeneration.LEGACY);
+    }
+
+    /**
+     * Create a Pinecone embedding store reading and writing the namespace of
+     * an index generation.
+     *
+     * @param transport the shared HTTP transport
+     * @param generation the index generation, used as the namespace
+     * @return configured Pinecone embedding store instance
+     * @throws IllegalStateException if PINECONE_API_KEY is not set
+     */
+    public static EmbeddingStore<TextSegment> createPineconeEmbeddingStore(HttpTransport transport, String generation) {
         if (PINECONE_API_KEY == null || PINECONE_API_KEY.isEmpty()) {
             throw new IllegalStateException("PINECONE_API_KEY environment variable is required");
         }
         
-        return PineconeEmbeddingStore.builder()
-                .apiKey(PINECONE_API_KEY)
-                .index(PINECONE_INDEX_NAME)
-                .build();
+        return new PineconeRestEmbeddingStore(
+                transport.httpClient(),
+                getPineconeHost(transport),
+                PINECONE_API_KEY,
+                generation,
+                Duration.ofSeconds(PINECONE_TIMEOUT_SECONDS));
+    }
+
+    /**
+     * Get the host of the Pinecone index: PINECONE_HOST, or else the host
+     * looked up for PINECONE_INDEX_NAME on first use.
+     *
+     * @param transport the shared HTTP transport
+     * @return the index host URL
+     */
+    private static synchronized String getPineconeHost(HttpTransport transport) {
+        if (resolvedPineconeHost == null) {
+            resolvedPineconeHost = PINECONE_HOST != null && !PINECONE_HOST.isEmpty()
+                    ? PINECONE_HOST
+                    : PineconeRestEmbeddingStore.resolveHost(transport.httpClient(), PINECONE_API_KEY,
+                            PINECONE_INDEX_NAME, Duration.ofSeconds(PINECONE_TIMEOUT_SECONDS));
+        }
+        return resolvedPineconeHost;
+    }
+
+    /**
+     * Create the local exact-search embedding store.
+     * Segment embeddings are kept in a memory-mapped matrix under
+     * MEDICAID_LOCAL_INDEX_DIR, as float32 or int8 (MEDICAID_LOCAL_INDEX_FORMAT).
+     *
+     * @return the local embedding store
+     * @throws UncheckedIOException if the index files cannot be opened
+     */
+    public static MappedVectorIndex createLocalEmbeddingStore() {
+        return createLocalEmbeddingStore(IndexGeneration.LEGACY);
+    }
+
+    /**
+     * Create the local exact-search embedding store of an index generation,
+     * kept in a subdirectory of MEDICAID_LOCAL_INDEX_DIR.
+     *
+     * @param generation the index generation
+     * @return the local embedding store
+     * @throws UncheckedIOException if the index files cannot be opened
+     */
+    public static MappedVectorIndex createLocalEmbeddingStore(String generation) {
+        MappedVectorIndex.Format format = MappedVectorIndex.Format.valueOf(LOCAL_INDEX_FORMAT.toUpperCase(Locale.ROOT));
+        Path directory = getLocalIndexDirectory(generation);
+        try {
+            return new MappedVectorIndex(directory, EMBEDDING_DIMENSIONS, format);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open local vector index in " + directory, e);
+        }
+    }
+
+    /**
+     * Get the directory holding the local index of a generation.
+     *
+     * @param generation the index generation
+     * @return the index directory
+     */
+    public static Path getLocalIndexDirectory(String generation) {
+        Path root = Paths.get(LOCAL_INDEX_DIR);
+        return generation.isEmpty() ? root : root.resolve(generation);
+    }
+
+    /**
+     * Get the file recording the index generation that serves queries.
+     *
+     * @return the index pointer file
+     */
+    public static Path getIndexPointerFile() {
+        return Paths.get(INDEX_POINTER_FILE);
+    }
+
+    /**
+     * Get how often a running application reads the index pointer file to
+     * follow a blue/green switch made by another process. All processes must
+     * see the same pointer file, e.g. on a shared volume.
+     *
+     * @return the poll interval in seconds, or 0 to never switch
+     */
+    public static long getIndexPointerPollSeconds() {
+        return INDEX_POINTER_POLL_SECONDS;
+    }
+
+    /**
+     * Get the vector store backing retrieval: "pinecone" or "local".
+     *
+     * @return the vector store type
+     */
+    public static String getVectorStoreType() {
+        return VECTOR_STORE;
+    }
+
+    /**
+     * Get the name of the embedding model.
+     *
+     * @return the embedding model name
+     */
+    public static String getEmbeddingModelName() {
+        return openaiEmbeddingModel;
+    }
+
+    /**
+     * Get the number of dimensions of the document and query embeddings.
+     *
+     * @return the embedding dimensions
+     */
+    public static int getEmbeddingDimensions() {
+        return EMBEDDING_DIMENSIONS;
+    }
+
+    /**
+     * Indicates whether fast-startup mode is enabled.
+     * In this mode every bean, including the model and store clients, is created
+     * on first use instead of at startup.
+     *
+     * @return true if fast-startup mode is enabled, false otherwise
+     */
+    public static boolean isFastStartupEnabled() {
+        return FAST_STARTUP;
+    }
+
+    /**
+     * Get the maximum number of messages kept in a chat view's transcript.
+     *
+     * @return the transcript size limit
+     */
+    public static int getTranscriptLimit() {
+        return TRANSCRIPT_LIMIT;
+    }
+
+    /**
+     * Get the session store backend, "memory" or "mmap".
+     *
+     * @return the session store type
+     */
+    public static String getSessionStoreType() {
+        return SESSION_STORE;
+    }
+
+    /**
+     * Get the file backing the memory-mapped session store.
+     *
+     * @return the session file path
+     */
+    public static Path getSessionFile() {
+        return Paths.get(SESSION_FILE);
+    }
+
+    /**
+     * Get the maximum number of sessions kept by the session store.
+     *
+     * @return the session limit
+     */
+    public static int getSessionMaxSessions() {
+        return SESSION_MAX_SESSIONS;
+    }
+
+    /**
+     * Get the maximum number of messages kept per session.
+     *
+     * @return the message limit
+     */
+    public static int getSessionMaxMessages() {
+        return SESSION_MAX_MESSAGES;
+    }
+
+    /**
+     * Get the size of one session slot in the memory-mapped session store.
+     *
+     * @return the slot size in bytes
+     */
+    public static int getSessionSlotBytes() {
+        return SESSION_SLOT_BYTES;
+    }
+
+    /**
+     * Get how long a session in the session file must be idle before a new
+     * session may take its slot.
+     *
+     * @return the minimum idle time
+     */
+    public static Duration getSessionMinIdle() {
+        return Duration.ofMinutes(SESSION_MIN_IDLE_MINUTES);
+    }
+
+    /**
+     * Get the HTTP connect timeout shared by all endpoints.
+     *
+     * @return the connect timeout
+     */
+    public static Duration getHttpConnectTimeout() {
+        return Duration.ofSeconds(HTTP_CONNECT_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Get the port the CLI serves Prometheus metrics on.
+     * The web UI exposes them at /actuator/prometheus instead.
+     *
+     * @return the metrics port, or 0 if the CLI should not serve metrics
+     */
+    public static int getMetricsPort() {
+        return METRICS_PORT;
+    }
+
+    /**
+     * Get the maximum number of tokens one session may use.
+     *
+     * @return the per-session token budget, or 0 for no limit
+     */
+    public static long getSessionTokenBudget() {
+        return SESSION_TOKEN_BUDGET;
+    }
+
+    /**
+     * Get the length of the rolling token usage window.
+     *
+     * @return the window length in minutes
+     */
+    public static int getTokenWindowMinutes() {
+        return TOKEN_WINDOW_MINUTES;
+    }
+
+    /**
+     * Get the chat model price for prompt tokens.
+     *
+     * @return US dollars per million input tokens
+     */
+    public static double getChatInputPricePerMillionTokens() {
+        return CHAT_INPUT_PRICE;
+    }
+
+    /**
+     * Get the chat model price for completion tokens.
+     *
+     * @return US dollars per million output tokens
+     */
+    public static double getChatOutputPricePerMillionTokens() {
+        return CHAT_OUTPUT_PRICE;
+    }
+
+    /**
+     * Get the embedding model price.
+     *
+     * @return US dollars per million input tokens
+     */
+    public static double getEmbeddingPricePerMillionTokens() {
+        return EMBEDDING_PRICE;
+    }
+
+    /**
+     * Get the span exporters to enable ("memory", "otlp" or "none"). Defaults
+     * to none, so production pays only for spans it ships somewhere; tests and
+     * local profiling opt into "memory".
+     *
+     * @return the exporter names
+     */
+    public static List<String> getTracingExporters() {
+        return Arrays.stream(TRACING_EXPORTERS.split(","))
+                .map(String::trim)
+                .map(String::toLowerCase)
+                .filter(name -> !name.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Get the number of recent spans kept by the in-memory exporter.
+     *
+     * @return the span capacity
+     */
+    public static int getTracingMemorySpans() {
+        return TRACING_MEMORY_SPANS;
+    }
+
+    /**
+     * Get the base URL of the OTLP/HTTP collector.
+     *
+     * @return the OTLP endpoint without the signal path
+     */
+    public static String getOtlpEndpoint() {
+        return OTLP_ENDPOINT.endsWith("/") ? OTLP_ENDPOINT.substring(0, OTLP_ENDPOINT.length() - 1) : OTLP_ENDPOINT;
+    }
+
+    /**
+     * Get the number of segments retrieved per search query.
+     *
+     * @return the top-k of each vector search
+     */
+    public static int getRetrievalTopK() {
+        return RETRIEVAL_TOP_K;
+    }
+
+    /**
+     * Get the minimum relevance score of a retrieved segment.
+     *
+     * @return the score threshold (0.0 to 1.0)
+     */
+    public static double getRetrievalMinScore() {
+        return RETRIEVAL_MIN_SCORE;
+    }
+
+    /**
+     * Get the time budget of one question. The pipeline is degraded when the
+     * remaining stages would not fit in it.
+     *
+     * @return the budget, or zero for none
+     */
+    public static Duration getRequestBudget() {
+        return Duration.ofMillis(REQUEST_BUDGET_MILLIS);
+    }
+
+    /**
+     * Get the number of questions answered at once before every further
+     * question is degraded.
+     *
+     * @return the in-flight limit, or 0 for no limit
+     */
+    public static int getMaxInFlightQuestions() {
+        return MAX_IN_FLIGHT_QUESTIONS;
+    }
+
+    /**
+     * Get the number of search queries, including the original question,
+     * kept when a question is degraded to fewer queries.
+     *
+     * @return the degraded query count
+     */
+    public static int getDegradedMaxQueries() {
+        return DEGRADED_MAX_QUERIES;
+    }
+
+    /**
+     * Get the top-k of each vector search when a question is degraded to a smaller context.
+     *
+     * @return the degraded top-k
+     */
+    public static int getDegradedTopK() {
+        return DEGRADED_TOP_K;
+    }
+
+    /**
+     * Get the maximum context length when a question is degraded to a smaller context.
+     *
+     * @return the context limit in characters
+     */
+    public static int getDegradedContextChars() {
+        return DEGRADED_CONTEXT_CHARS;
+    }
+
+    /**
+     * Get the time after which a stage latency that has not been sampled
+     * again counts for half as much when planning a budget.
+     *
+     * @return the half-life, or zero to never forget a sample
+     */
+    public static Duration getDegradationHalfLife() {
+        return Duration.ofSeconds(DEGRADATION_HALF_LIFE_SECONDS);
+    }
+
+    /**
+     * Get the share of questions that run the full pipeline regardless of
+     * their budget, keeping the latencies of the undegraded stages current.
+     *
+     * @return the probe rate (0.0 to 1.0)
+     */
+    public static double getDegradationProbeRate() {
+        return DEGRADATION_PROBE_RATE;
+    }
+
+    /**
+     * Get the number of questions a batch run answers at once.
+     *
+     * @return the batch concurrency
+     */
+    public static int getBatchConcurrency() {
+        return BATCH_CONCURRENCY;
     }
 
     /**
-     * Indicates whether debug logging is enabled for the application.
+     * Get the number of batch questions embedded together in one call.
      *
-     * @return true if debug logging is enabled, false otherwise
+     * @return the embedding batch size
      */
-    public static boolean isDebugLoggingEnabled() {
-        return DEBUG_LOGGING;
+    public static int getBatchEmbeddingSize() {
+        return BATCH_EMBEDDING_SIZE;
     }
 
 }
@@ -4,12 +4,15 @@ import com.vaadin.flow.component.page.AppShellConfigurator;
 import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.shared.communication.PushMode;
 import com.vaadin.flow.shared.ui.Transport;
+import com.vaadin.flow.theme.Theme;
 
 /**
  * Application shell configuration for Vaadin.
- * Configures push mode for async UI updates.
+ * Configures push mode for async UI updates and the application theme,
+ * which delivers the static chat styles once per page load.
  */
 @Push(value = PushMode.AUTOMATIC, transport = Transport.WEBSOCKET_XHR)
+@Theme("medicaid")
 public class AppShell implements AppShellConfigurator {
 }
 
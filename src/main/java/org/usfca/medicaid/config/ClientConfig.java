@@ -0,0 +1,94 @@
+package org.usfca.medicaid.config;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.trace.Tracer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.usfca.medicaid.model.StageChatModels;
+import org.usfca.medicaid.store.ActiveIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Spring configuration for the model and vector store clients.
+ * Every client is a singleton bean built on one shared {@link HttpTransport},
+ * used by both the Vaadin application and the CLI.
+ */
+@Configuration
+public class ClientConfig {
+
+    /**
+     * Shared HTTP transport for all OpenAI and Pinecone REST clients.
+     *
+     * @param tracer the tracer recording outbound requests
+     * @return the shared transport
+     */
+    @Bean(destroyMethod = "close")
+    public HttpTransport httpTransport(Tracer tracer) {
+        return StartupTimer.time("HTTP transport", () -> HttpTransport.fromEnvironment(tracer));
+    }
+
+    /**
+     * Chat models of the pipeline stages: query rewriting, answers and, if
+     * configured, fast answers for degraded questions. Each routes its calls
+     * among the stage's configured models.
+     *
+     * @param httpTransport the shared HTTP transport
+     * @param meterRegistry the registry publishing per-model call timers
+     * @return the chat model of each stage
+     */
+    @Bean
+    public StageChatModels chatModels(HttpTransport httpTransport, MeterRegistry meterRegistry) {
+        return StartupTimer.time("Chat models", () -> AppConfig.createStageChatModels(httpTransport, meterRegistry));
+    }
+
+    /**
+     * Embedding model used for ingestion and query embedding.
+     *
+     * @param httpTransport the shared HTTP transport
+     * @return the embedding model
+     */
+    @Bean
+    public EmbeddingModel embeddingModel(HttpTransport httpTransport) {
+        return StartupTimer.time("Embedding model", () -> AppConfig.createEmbeddingModel(httpTransport));
+    }
+
+    /**
+     * The index generation serving searches, as named in the index pointer file.
+     *
+     * @return the active index generation
+     */
+    @Bean
+    public ActiveIndex activeIndex() {
+        return new ActiveIndex(AppConfig.getIndexPointerFile());
+    }
+
+    /**
+     * Embedding store, created once and shared: Pinecone, or the local
+     * exact-search index if MEDICAID_VECTOR_STORE is "local". The store holds
+     * the index generation named in the index pointer file, i.e. the one the
+     * last blue/green reindex switched to; later switches are followed by
+     * promoting a new store in the vector store service.
+     *
+     * @param httpTransport the shared HTTP transport
+     * @param activeIndex the active index generation
+     * @return the embedding store
+     */
+    @Bean
+    public EmbeddingStore<TextSegment> embeddingStore(HttpTransport httpTransport, ActiveIndex activeIndex) {
+        String generation;
+        try {
+            generation = activeIndex.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read index pointer " + AppConfig.getIndexPointerFile(), e);
+        }
+        if ("local".equalsIgnoreCase(AppConfig.getVectorStoreType())) {
+            return StartupTimer.time("Local vector index", () -> AppConfig.createLocalEmbeddingStore(generation));
+        }
+        return StartupTimer.time("Pinecone store", () -> AppConfig.createPineconeEmbeddingStore(httpTransport, generation));
+    }
+}
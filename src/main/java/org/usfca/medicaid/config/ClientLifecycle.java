@@ -0,0 +1,72 @@
+package org.usfca.medicaid.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ties the shared HTTP transport to the Spring lifecycle.
+ * When {@code org.crac} is on the classpath Spring stops every lifecycle bean
+ * before a CRaC checkpoint and starts it again after restore, so pooled
+ * connections are closed before the snapshot and reopened afterwards.
+ * A checkpoint at startup can be requested with
+ * {@code -Dspring.context.checkpoint=onRefresh}.
+ *
+ * <p>Lifecycle beans are created at startup even in fast-startup mode, so the
+ * transport is only looked up here, never created: a transport that does not
+ * exist yet has no connections to close and is opened when first used.
+ */
+@Component
+public class ClientLifecycle implements SmartLifecycle {
+
+    private final ObjectProvider<HttpTransport> httpTransport;
+    private final ConfigurableListableBeanFactory beanFactory;
+    private volatile boolean running;
+
+    /**
+     * Constructs a new ClientLifecycle for the shared transport.
+     *
+     * @param httpTransport the shared HTTP transport, resolved only once it exists
+     * @param beanFactory the bean factory, used to check whether the transport exists
+     */
+    public ClientLifecycle(ObjectProvider<HttpTransport> httpTransport, ConfigurableListableBeanFactory beanFactory) {
+        this.httpTransport = httpTransport;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (isTransportCreated()) {
+            httpTransport.getObject().resume();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (isTransportCreated()) {
+            httpTransport.getObject().suspend();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Check whether the transport has been created, without creating it.
+     *
+     * @return true if a transport instance exists
+     */
+    private boolean isTransportCreated() {
+        for (String name : beanFactory.getBeanNamesForType(HttpTransport.class, false, false)) {
+            if (beanFactory.containsSingleton(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,12 @@
 package org.usfca.medicaid.config;
 
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import org.usfca.medicaid.chunking.StructuredDocumentSplitter;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 
@@ -10,6 +17,85 @@ import java.util.List;
  */
 public class DocumentConfig {
     
+    private static final String INGESTION_REPORT_DIR =
+            System.getenv().getOrDefault("MEDICAID_INGESTION_REPORT_DIR", "data/ingestion-reports");
+    private static final String SNAPSHOT_FILE =
+            System.getenv().getOrDefault("MEDICAID_SNAPSHOT_FILE", "data/corpus.snapshot");
+    private static final boolean QUERY_ROUTING = Boolean.parseBoolean(
+            System.getenv().getOrDefault("MEDICAID_QUERY_ROUTING", "true")
+    );
+    private static final double ROUTING_MIN_CONFIDENCE = Double.parseDouble(
+            System.getenv().getOrDefault("MEDICAID_ROUTING_MIN_CONFIDENCE", "0.7")
+    );
+    private static final boolean DEDUPLICATION = Boolean.parseBoolean(
+            System.getenv().getOrDefault("MEDICAID_DEDUP", "true")
+    );
+    private static final double DEDUPLICATION_THRESHOLD = Double.parseDouble(
+            System.getenv().getOrDefault("MEDICAID_DEDUP_THRESHOLD", "0.85")
+    );
+    private static final int CRAWL_MAX_DEPTH = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_CRAWL_MAX_DEPTH", "2")
+    );
+    private static final int CRAWL_MAX_PAGES = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_CRAWL_MAX_PAGES", "500")
+    );
+    private static final int CRAWL_CONCURRENCY = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_CRAWL_CONCURRENCY", "8")
+    );
+    private static final long CRAWL_HOST_DELAY_MILLIS = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_CRAWL_HOST_DELAY_MILLIS", "1000")
+    );
+    private static final String CRAWL_USER_AGENT = System.getenv().getOrDefault("MEDICAID_CRAWL_USER_AGENT", "MedicaidChatbot");
+    private static final String CRAWL_ALLOW = System.getenv().getOrDefault("MEDICAID_CRAWL_ALLOW",
+            "https://mn.gov/dhs/people-we-serve/adults/health-care/,"
+                    + "https://mn.gov/dhs/people-we-serve/children-and-families/health-care/,"
+                    + "https://mn.gov/dhs/people-we-serve/seniors/health-care/,"
+                    + "https://mn.gov/dhs/people-we-serve/people-with-disabilities/health-care/,"
+                    + "https://mn.gov/dhs/assets/,"
+                    + "https://www.mnsure.org/financial-help/,"
+                    + "https://edocs.dhs.state.mn.us/lfserver/Public/");
+    private static final String TIKA_MODE = System.getenv().getOrDefault("MEDICAID_TIKA_MODE", "fork");
+    private static final int TIKA_WORKERS = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_TIKA_WORKERS",
+                    String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)))
+    );
+    private static final long TIKA_TIMEOUT_SECONDS = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_TIKA_TIMEOUT_SECONDS", "60")
+    );
+    private static final int TIKA_WORKER_HEAP_MB = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_TIKA_WORKER_HEAP_MB", "512")
+    );
+    private static final int TIKA_MAX_PARSES_PER_WORKER = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_TIKA_MAX_PARSES_PER_WORKER", "200")
+    );
+    private static final String LOAD_MODE = System.getenv().getOrDefault("MEDICAID_LOAD_MODE", "blue-green");
+    private static final double REINDEX_MIN_SEGMENT_RATIO = Double.parseDouble(
+            System.getenv().getOrDefault("MEDICAID_REINDEX_MIN_SEGMENT_RATIO", "0.8")
+    );
+    private static final String REINDEX_SMOKE_QUERIES = System.getenv().getOrDefault("MEDICAID_REINDEX_SMOKE_QUERIES",
+            "Who is eligible for Medical Assistance?|What are the income limits for MinnesotaCare?"
+                    + "|How do I apply for long-term care?");
+    private static final String CHUNKER = System.getenv().getOrDefault("MEDICAID_CHUNKER", "structured");
+    private static final int CHUNK_MAX_TOKENS = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_CHUNK_MAX_TOKENS", "200")
+    );
+    private static final int CHUNK_SIZE = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_CHUNK_SIZE", "300")
+    );
+    private static final int CHUNK_OVERLAP = Integer.parseInt(
+            System.getenv().getOrDefault("MEDICAID_CHUNK_OVERLAP", "50")
+    );
+    
+    /**
+     * A subset of the document sources that answers one kind of question.
+     *
+     * @param name the route name, e.g. "drugs"
+     * @param keywords lower-case words and phrases that signal the route
+     * @param sources the document sources to search for the route
+     */
+    public record SourceRoute(String name, List<String> keywords, List<String> sources) {
+    }
+    
     /**
      * Get all document sources for the RAG system.
      * This includes URLs to Minnesota Medicaid documentation and related resources.
@@ -38,4 +124,286 @@ public class DocumentConfig {
                 "documents/Medicaid Matters.pdf"
         );
     }
+
+    /**
+     * Get the routes mapping question topics to the sources that cover them.
+     * Questions matching no route, or several routes equally, search every source.
+     *
+     * @return the source routes
+     */
+    public static List<SourceRoute> getSourceRoutes() {
+        return List.of(
+                new SourceRoute("drugs",
+                        List.of("drug", "drugs", "medication", "medications", "medicine", "prescription",
+                                "prescriptions", "pharmacy", "formulary", "preferred drug", "generic", "brand name"),
+                        List.of("https://mn.gov/dhs/assets/preferred-drug-list-2025-01-01_tcm1053-662387.pdf",
+                                "https://www.mnsure.org/shop-compare/right-plan/drug-lists.jsp")),
+                new SourceRoute("estate-recovery",
+                        List.of("estate", "estate recovery", "lien", "liens", "after death", "after i die",
+                                "inherit", "inheritance", "heirs", "probate"),
+                        List.of("https://mn.gov/dhs/people-we-serve/adults/health-care/health-care-programs/programs-and-services/estate-recovery.jsp")),
+                new SourceRoute("income-limits",
+                        List.of("income", "income limit", "income limits", "asset", "assets", "asset limit",
+                                "poverty", "fpl", "how much can i earn", "guidelines"),
+                        List.of("https://mn.gov/dhs/people-we-serve/adults/health-care/health-care-programs/programs-and-services/income-asset-limits.jsp",
+                                "https://www.mnsure.org/financial-help/income-guidelines/index.jsp",
+                                "https://www.mnsure.org/financial-help/ma-mncare/")),
+                new SourceRoute("emergency",
+                        List.of("emergency medical assistance", "ema", "undocumented", "immigrant", "immigrants",
+                                "immigration", "immigration status"),
+                        List.of("https://mn.gov/dhs/people-we-serve/adults/health-care/health-care-programs/programs-and-services/ema.jsp")),
+                new SourceRoute("long-term-care",
+                        List.of("waiver", "waivers", "long-term care", "long term care", "ltss", "nursing home",
+                                "home care", "personal care", "home and community"),
+                        List.of("https://mn.gov/dhs/people-we-serve/adults/health-care/health-care-programs/programs-and-services/ma-waiver-programs.jsp",
+                                "https://www.kff.org/medicaid/health-policy-101-medicaid/?entry=table-of-contents-what-long-term-services-and-supports-ltss-are-covered-by-medicaid")),
+                new SourceRoute("other-insurance",
+                        List.of("other insurance", "medicare", "private insurance", "employer insurance",
+                                "employer coverage", "cobra"),
+                        List.of("https://mn.gov/dhs/people-we-serve/children-and-families/health-care/health-care-programs/programs-and-services/other-insurance.jsp"))
+        );
+    }
+
+    /**
+     * Indicates whether searches are routed to a subset of the sources by question topic.
+     *
+     * @return true if query routing is enabled, false otherwise
+     */
+    public static boolean isQueryRoutingEnabled() {
+        return QUERY_ROUTING;
+    }
+
+    /**
+     * Get the share of keyword hits the best route needs before searches are
+     * restricted to its sources.
+     *
+     * @return the minimum routing confidence (0.0 to 1.0)
+     */
+    public static double getRoutingMinConfidence() {
+        return ROUTING_MIN_CONFIDENCE;
+    }
+
+    /**
+     * Get the directory where a JSON report of each ingestion run is written.
+     *
+     * @return the ingestion report directory
+     */
+    public static Path getIngestionReportDir() {
+        return Paths.get(INGESTION_REPORT_DIR);
+    }
+
+    /**
+     * Get the default corpus snapshot file for export and restore.
+     *
+     * @return the snapshot file
+     */
+    public static Path getSnapshotFile() {
+        return Paths.get(SNAPSHOT_FILE);
+    }
+
+    /**
+     * Get the maximum number of links followed from a configured URL source.
+     * 0 loads only the configured sources.
+     *
+     * @return the maximum crawl depth
+     */
+    public static int getCrawlMaxDepth() {
+        return CRAWL_MAX_DEPTH;
+    }
+
+    /**
+     * Get the maximum number of URLs fetched in one crawl.
+     *
+     * @return the page limit
+     */
+    public static int getCrawlMaxPages() {
+        return CRAWL_MAX_PAGES;
+    }
+
+    /**
+     * Get the number of URLs fetched at once across all hosts.
+     *
+     * @return the crawl concurrency
+     */
+    public static int getCrawlConcurrency() {
+        return CRAWL_CONCURRENCY;
+    }
+
+    /**
+     * Get the minimum time between requests to one host. A longer
+     * Crawl-delay in the host's robots.txt takes precedence.
+     *
+     * @return the politeness delay in milliseconds
+     */
+    public static long getCrawlHostDelayMillis() {
+        return CRAWL_HOST_DELAY_MILLIS;
+    }
+
+    /**
+     * Get the user agent sent with every crawl request, including robots.txt,
+     * and matched against robots.txt user-agent groups.
+     *
+     * @return the crawler's user agent token
+     */
+    public static String getCrawlUserAgent() {
+        return CRAWL_USER_AGENT;
+    }
+
+    /**
+     * Get the URL prefixes the crawler may follow links into.
+     *
+     * @return the allowed URL prefixes, in normalized form
+     */
+    public static List<String> getCrawlAllowedPrefixes() {
+        return Arrays.stream(CRAWL_ALLOW.split(","))
+                .map(String::trim)
+                .filter(prefix -> !prefix.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Indicates whether documents are parsed in forked worker JVMs
+     * (MEDICAID_TIKA_MODE=fork) rather than in the application's JVM
+     * (MEDICAID_TIKA_MODE=in-process).
+     *
+     * @return true if parsing is isolated in worker JVMs, false otherwise
+     */
+    public static boolean isTikaForkEnabled() {
+        return !"in-process".equalsIgnoreCase(TIKA_MODE);
+    }
+
+    /**
+     * Get the number of documents parsed at once in worker JVMs.
+     *
+     * @return the number of Tika workers
+     */
+    public static int getTikaWorkers() {
+        return TIKA_WORKERS;
+    }
+
+    /**
+     * Get the wall-clock limit for parsing one document, after which its
+     * worker is killed and the document skipped.
+     *
+     * @return the parse timeout in seconds
+     */
+    public static long getTikaTimeoutSeconds() {
+        return TIKA_TIMEOUT_SECONDS;
+    }
+
+    /**
+     * Get the maximum heap of each Tika worker JVM.
+     *
+     * @return the worker heap in megabytes
+     */
+    public static int getTikaWorkerHeapMegabytes() {
+        return TIKA_WORKER_HEAP_MB;
+    }
+
+    /**
+     * Get the number of documents a Tika worker parses before it is replaced,
+     * bounding the effect of parser memory leaks.
+     *
+     * @return the parses per worker
+     */
+    public static int getTikaMaxParsesPerWorker() {
+        return TIKA_MAX_PARSES_PER_WORKER;
+    }
+
+    /**
+     * Indicates whether loading documents builds a new index generation and
+     * switches to it once validated (MEDICAID_LOAD_MODE=blue-green), instead
+     * of clearing the active store first (MEDICAID_LOAD_MODE=replace).
+     *
+     * @return true if loads use a blue/green reindex, false otherwise
+     */
+    public static boolean isBlueGreenReindexEnabled() {
+        return !"replace".equalsIgnoreCase(LOAD_MODE);
+    }
+
+    /**
+     * Get the smallest share of the active store's segment count a new index
+     * generation must reach before it is switched to.
+     *
+     * @return the minimum segment ratio (0.0 to 1.0)
+     */
+    public static double getReindexMinSegmentRatio() {
+        return REINDEX_MIN_SEGMENT_RATIO;
+    }
+
+    /**
+     * Get the questions that must each retrieve at least one segment from a
+     * new index generation before it is switched to.
+     *
+     * @return the smoke queries
+     */
+    public static List<String> getReindexSmokeQueries() {
+        return Arrays.stream(REINDEX_SMOKE_QUERIES.split("\\|"))
+                .map(String::trim)
+                .filter(query -> !query.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Create the splitter turning documents into segments. The default
+     * structured chunker packs paragraphs of one section into segments of up
+     * to MEDICAID_CHUNK_MAX_TOKENS tokens; MEDICAID_CHUNKER=recursive selects
+     * the character-based splitter sized by MEDICAID_CHUNK_SIZE and
+     * MEDICAID_CHUNK_OVERLAP.
+     *
+     * @return the document splitter
+     */
+    public static DocumentSplitter createDocumentSplitter() {
+        if ("recursive".equalsIgnoreCase(CHUNKER)) {
+            return DocumentSplitters.recursive(CHUNK_SIZE, CHUNK_OVERLAP);
+        }
+        return new StructuredDocumentSplitter(CHUNK_MAX_TOKENS,
+                new OpenAiTokenCountEstimator(AppConfig.getEmbeddingModelName()));
+    }
+
+    /**
+     * Get the maximum number of tokens in a segment of the structured chunker.
+     *
+     * @return the segment size in tokens
+     */
+    public static int getChunkMaxTokens() {
+        return CHUNK_MAX_TOKENS;
+    }
+
+    /**
+     * Indicates whether near-duplicate segments are dropped before embedding.
+     *
+     * @return true if deduplication is enabled, false otherwise
+     */
+    public static boolean isDeduplicationEnabled() {
+        return DEDUPLICATION;
+    }
+
+    /**
+     * Get the estimated Jaccard similarity of word shingles at which two
+     * segments count as near-duplicates.
+     *
+     * @return the deduplication threshold (0.0 to 1.0)
+     */
+    public static double getDeduplicationThreshold() {
+        return DEDUPLICATION_THRESHOLD;
+    }
+
+    /**
+     * Get the maximum size of a document segment for the recursive splitter.
+     *
+     * @return the segment size in characters
+     */
+    public static int getChunkSize() {
+        return CHUNK_SIZE;
+    }
+
+    /**
+     * Get the overlap between consecutive document segments.
+     *
+     * @return the overlap in characters
+     */
+    public static int getChunkOverlap() {
+        return CHUNK_OVERLAP;
+    }
 }
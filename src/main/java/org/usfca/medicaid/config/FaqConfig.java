@@ -0,0 +1,83 @@
+package org.usfca.medicaid.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuration class for the precomputed FAQ answer tier.
+ * Contains the canonical questions that are answered at ingestion time
+ * and served without calling the language model.
+ */
+public class FaqConfig {
+
+    private static final String FAQ_QUESTIONS_FILE = System.getenv("MEDICAID_FAQ_QUESTIONS_FILE");
+    private static final String FAQ_STORE_FILE = System.getenv().getOrDefault("MEDICAID_FAQ_STORE_FILE", "data/faq-answers.json");
+    private static final double FAQ_MIN_SCORE = Double.parseDouble(
+            System.getenv().getOrDefault("MEDICAID_FAQ_MIN_SCORE", "0.92")
+    );
+
+    /**
+     * Get the canonical questions to precompute answers for.
+     * If MEDICAID_FAQ_QUESTIONS_FILE is set, questions are read from that file,
+     * one per line; otherwise the built-in list is used.
+     *
+     * @return a list of canonical questions
+     */
+    public static List<String> getCanonicalQuestions() {
+        if (FAQ_QUESTIONS_FILE != null && !FAQ_QUESTIONS_FILE.isBlank()) {
+            try {
+                return Files.readAllLines(Paths.get(FAQ_QUESTIONS_FILE)).stream()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .distinct()
+                        .toList();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read FAQ questions file: " + FAQ_QUESTIONS_FILE, e);
+            }
+        }
+
+        return Arrays.asList(
+                "What is Medical Assistance in Minnesota?",
+                "Who is eligible for Medical Assistance in Minnesota?",
+                "What are the income limits for Medical Assistance?",
+                "What are the asset limits for Medical Assistance?",
+                "What is MinnesotaCare?",
+                "What is the difference between Medical Assistance and MinnesotaCare?",
+                "How do I apply for Medical Assistance?",
+                "What services does Medical Assistance cover?",
+                "Does Medical Assistance cover long-term care?",
+                "What are Medical Assistance waiver programs?",
+                "What is Emergency Medical Assistance?",
+                "What is Medical Assistance estate recovery?",
+                "Can children get Medical Assistance?",
+                "Can I have Medical Assistance if I have other health insurance?",
+                "Which prescription drugs are covered by Medical Assistance?",
+                "Where can I find the preferred drug list?",
+                "How do I renew my Medical Assistance coverage?",
+                "Who do I contact with questions about my Medical Assistance case?"
+        );
+    }
+
+    /**
+     * Get the file where precomputed FAQ answers are stored.
+     *
+     * @return the FAQ store path
+     */
+    public static Path getFaqStorePath() {
+        return Paths.get(FAQ_STORE_FILE);
+    }
+
+    /**
+     * Get the minimum cosine similarity for serving a precomputed answer.
+     *
+     * @return the similarity threshold (0.0 to 1.0)
+     */
+    public static double getFaqMinScore() {
+        return FAQ_MIN_SCORE;
+    }
+}
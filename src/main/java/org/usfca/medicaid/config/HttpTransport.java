@@ -0,0 +1,344 @@
+package org.usfca.medicaid.config;
+
+import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.jdk.JdkHttpClientBuilder;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.usfca.medicaid.tracing.Traced;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.InetAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Shared HTTP transport for all outbound model and vector store calls.
+ * Owns a single JDK HTTP client with HTTP/2 multiplexing and a pooled set of
+ * keep-alive connections, so every chat, embedding and Pinecone client reuses
+ * the same sockets and TLS sessions instead of opening its own.
+ * Every request is recorded as a client span.
+ *
+ * <p>The JDK's pool settings are JVM-wide system properties read once, when
+ * the first client of the JVM is created, so they are launcher options
+ * rather than settings of this class (see {@code http.jvm.args} in the pom):
+ * {@code jdk.httpclient.connectionPoolSize} caps the idle HTTP/1.1
+ * connections, {@code jdk.httpclient.keepalive.timeout} and
+ * {@code jdk.httpclient.keepalive.timeout.h2} set how long idle HTTP/1.1 and
+ * HTTP/2 connections stay open. HTTP/2 hosts use one multiplexed connection.
+ */
+public class HttpTransport implements AutoCloseable {
+
+    private final Duration connectTimeout;
+    private final Tracer tracer;
+    private final HttpClient sharedClient;
+    private volatile HttpClient delegate;
+
+    /**
+     * Constructs a new HttpTransport.
+     *
+     * @param connectTimeout the TCP/TLS connect timeout
+     * @param tracer the tracer recording a span per request
+     */
+    public HttpTransport(Duration connectTimeout, Tracer tracer) {
+        this.connectTimeout = connectTimeout;
+        this.tracer = tracer;
+        this.delegate = newClient();
+        this.sharedClient = new ReopenableHttpClient();
+    }
+
+    /**
+     * Create an untraced transport using the settings from {@link AppConfig}.
+     *
+     * @return a configured HttpTransport
+     */
+    public static HttpTransport fromEnvironment() {
+        return fromEnvironment(OpenTelemetry.noop().getTracer("org.usfca.medicaid"));
+    }
+
+    /**
+     * Create a transport using the settings from {@link AppConfig}.
+     *
+     * @param tracer the tracer recording a span per request
+     * @return a configured HttpTransport
+     */
+    public static HttpTransport fromEnvironment(Tracer tracer) {
+        return new HttpTransport(
+                AppConfig.getHttpConnectTimeout(),
+                tracer);
+    }
+
+    /**
+     * Create a LangChain4j client builder backed by the shared connection pool.
+     * Read timeouts remain per endpoint and are set by the model builder.
+     *
+     * @return an HTTP client builder that reuses this transport
+     */
+    public HttpClientBuilder clientBuilder() {
+        return new JdkHttpClientBuilder()
+                .httpClientBuilder(new SharedClientBuilder(sharedClient))
+                .connectTimeout(connectTimeout);
+    }
+
+    /**
+     * Get the shared JDK HTTP client.
+     * The returned instance stays valid across {@link #suspend()} and {@link #resume()}.
+     *
+     * @return the shared HTTP client
+     */
+    public HttpClient httpClient() {
+        return sharedClient;
+    }
+
+    /**
+     * Close every pooled connection, e.g. before a CRaC checkpoint.
+     * Requests issued while suspended fail until {@link #resume()} is called.
+     */
+    public synchronized void suspend() {
+        HttpClient current = delegate;
+        if (current != null) {
+            current.close();
+            delegate = null;
+        }
+    }
+
+    /**
+     * Open a fresh connection pool after {@link #suspend()}.
+     */
+    public synchronized void resume() {
+        if (delegate == null) {
+            delegate = newClient();
+        }
+    }
+
+    /**
+     * Check whether the transport currently has an open connection pool.
+     *
+     * @return true if requests can be sent, false if suspended
+     */
+    public boolean isOpen() {
+        return delegate != null;
+    }
+
+    /**
+     * Close the shared client and release its pooled connections.
+     */
+    @Override
+    public void close() {
+        suspend();
+    }
+
+    private HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    private HttpClient current() {
+        HttpClient current = delegate;
+        if (current == null) {
+            throw new IllegalStateException("HTTP transport is suspended");
+        }
+        return current;
+    }
+
+    /**
+     * Start a client span for an outbound request.
+     *
+     * @param request the request
+     * @return the started span
+     */
+    private Span startSpan(HttpRequest request) {
+        return tracer.spanBuilder(request.method() + " " + request.uri().getHost())
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute("http.request.method", request.method())
+                .setAttribute("server.address", request.uri().getHost())
+                .setAttribute("url.path", request.uri().getPath())
+                .startSpan();
+    }
+
+    /**
+     * HttpClient that forwards to the current pool, so model clients built once
+     * keep working after the pool is closed and reopened.
+     */
+    private final class ReopenableHttpClient extends HttpClient {
+
+        @Override
+        public Optional<CookieHandler> cookieHandler() {
+            return current().cookieHandler();
+        }
+
+        @Override
+        public Optional<Duration> connectTimeout() {
+            return current().connectTimeout();
+        }
+
+        @Override
+        public Redirect followRedirects() {
+            return current().followRedirects();
+        }
+
+        @Override
+        public Optional<ProxySelector> proxy() {
+            return current().proxy();
+        }
+
+        @Override
+        public SSLContext sslContext() {
+            return current().sslContext();
+        }
+
+        @Override
+        public SSLParameters sslParameters() {
+            return current().sslParameters();
+        }
+
+        @Override
+        public Optional<Authenticator> authenticator() {
+            return current().authenticator();
+        }
+
+        @Override
+        public Version version() {
+            return current().version();
+        }
+
+        @Override
+        public Optional<Executor> executor() {
+            return current().executor();
+        }
+
+        @Override
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+                throws IOException, InterruptedException {
+            Span span = startSpan(request);
+            try (Scope ignored = span.makeCurrent()) {
+                HttpResponse<T> response = current().send(request, responseBodyHandler);
+                span.setAttribute("http.response.status_code", response.statusCode());
+                return response;
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                Traced.recordFailure(span, e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> responseBodyHandler) {
+            return sendAsync(request, responseBodyHandler, null);
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                                HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+            Span span = startSpan(request);
+            CompletableFuture<HttpResponse<T>> future;
+            try (Scope ignored = span.makeCurrent()) {
+                future = current().sendAsync(request, responseBodyHandler, pushPromiseHandler);
+            } catch (RuntimeException e) {
+                Traced.recordFailure(span, e);
+                span.end();
+                throw e;
+            }
+            return future.whenComplete((response, error) -> {
+                if (error != null) {
+                    Traced.recordFailure(span, error);
+                } else {
+                    span.setAttribute("http.response.status_code", response.statusCode());
+                }
+                span.end();
+            });
+        }
+    }
+
+    /**
+     * HttpClient.Builder that always hands back the shared client.
+     * LangChain4j calls {@code build()} for every model it creates; returning the
+     * same instance keeps every model on one connection pool.
+     */
+    private static final class SharedClientBuilder implements HttpClient.Builder {
+
+        private final HttpClient shared;
+
+        private SharedClientBuilder(HttpClient shared) {
+            this.shared = shared;
+        }
+
+        @Override
+        public HttpClient.Builder cookieHandler(CookieHandler cookieHandler) {
+            return this;
+        }
+
+        @Override
+        public HttpClient.Builder connectTimeout(Duration duration) {
+            return this;
+        }
+
+        @Override
+        public HttpClient.Builder sslContext(SSLContext sslContext) {
+            return this;
+        }
+
+        @Override
+        public HttpClient.Builder sslParameters(SSLParameters sslParameters) {
+            return this;
+        }
+
+        @Override
+        public HttpClient.Builder executor(Executor executor) {
+            return this;
+        }
+
+        @Override
+        public HttpClient.Builder followRedirects(HttpClient.Redirect policy) {
+            return this;
+        }
+
+        @Override
+        public HttpClient.Builder version(HttpClient.Version version) {
+            return this;
+        }
+
+        @Override
+        public HttpClient.Builder priority(int priority) {
+            return this;
+        }
+
+        @Override
+        public HttpClient.Builder proxy(ProxySelector proxySelector) {
+            return this;
+        }
+
+        @Override
+        public HttpClient.Builder authenticator(Authenticator authenticator) {
+            return this;
+        }
+
+        @Override
+        public HttpClient.Builder localAddress(InetAddress localAddr) {
+            return this;
+        }
+
+        @Override
+        public HttpClient build() {
+            return shared;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.usfca.medicaid.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration class for the chat models of each pipeline stage.
+ * Every stage has its own models, output limit, timeout and temperature,
+ * read from MEDICAID_{STAGE}_MODELS, _MAX_TOKENS, _TIMEOUT_SECONDS and
+ * _TEMPERATURE. A stage may list several models; calls are then routed among
+ * them by their live latency and error rate. The rewrite stage uses the
+ * answer stage's models unless it has its own.
+ *
+ * <p>A model is given as its name, optionally followed by {@code @} and the
+ * base URL of an OpenAI-compatible server, e.g.
+ * {@code llama3.1:8b@http://localhost:11434/v1}. Models without a base URL
+ * use OPENAI_BASE_URL (or the OpenAI API) and OPENAI_API_KEY; models with one
+ * use the stage's MEDICAID_{STAGE}_API_KEY, if any, so the OpenAI key is
+ * never sent to other servers.
+ */
+public class ModelConfig {
+
+    private static final String OPENAI_API_KEY = System.getenv("OPENAI_API_KEY");
+    private static final String OPENAI_BASE_URL = System.getenv("OPENAI_BASE_URL");
+
+    private static final String DEFAULT_CHAT_MODEL = "gpt-3.5-turbo";
+    private static final long CHAT_TIMEOUT_SECONDS = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_CHAT_TIMEOUT_SECONDS", "60")
+    );
+    private static final double ROUTING_EXPLORE_RATE = Double.parseDouble(
+            System.getenv().getOrDefault("MEDICAID_MODEL_EXPLORE_RATE", "0.05")
+    );
+    private static final long ROUTING_COOLDOWN_SECONDS = Long.parseLong(
+            System.getenv().getOrDefault("MEDICAID_MODEL_COOLDOWN_SECONDS", "30")
+    );
+
+    private static final Map<ChatStage, StageSettings> STAGES = new EnumMap<>(ChatStage.class);
+
+    static {
+        String answerModels = System.getenv().getOrDefault(ChatStage.ANSWER.prefix() + "_MODELS", DEFAULT_CHAT_MODEL);
+        StageSettings answer = readStage(ChatStage.ANSWER, answerModels, 0, CHAT_TIMEOUT_SECONDS, 0.1);
+        STAGES.put(ChatStage.ANSWER, answer);
+        // Three short queries, one per line; a tight timeout since a failed rewrite only costs recall.
+        STAGES.put(ChatStage.REWRITE, readStage(ChatStage.REWRITE, answerModels, 150, 15, 0.1));
+        if (System.getenv(ChatStage.FAST_ANSWER.prefix() + "_MODELS") != null) {
+            STAGES.put(ChatStage.FAST_ANSWER, readStage(ChatStage.FAST_ANSWER, answerModels,
+                    answer.maxTokens(), answer.timeout().toSeconds(), answer.temperature()));
+        }
+    }
+
+    /**
+     * Pipeline stages calling a chat model.
+     */
+    public enum ChatStage {
+        REWRITE("rewrite", "MEDICAID_REWRITE"),
+        ANSWER("answer", "MEDICAID_ANSWER"),
+        FAST_ANSWER("fast_answer", "MEDICAID_FAST_ANSWER");
+
+        private final String tag;
+        private final String prefix;
+
+        ChatStage(String tag, String prefix) {
+            this.tag = tag;
+            this.prefix = prefix;
+        }
+
+        /**
+         * Get the value of the stage tag.
+         *
+         * @return the tag value
+         */
+        public String tag() {
+            return tag;
+        }
+
+        /**
+         * Get the prefix of the stage's environment variables.
+         *
+         * @return the variable prefix
+         */
+        public String prefix() {
+            return prefix;
+        }
+    }
+
+    /**
+     * A chat model on an OpenAI-compatible endpoint.
+     *
+     * @param model the model name
+     * @param baseUrl the base URL of the endpoint, or null for OpenAI
+     * @param apiKey the API key, or null for servers that need none
+     */
+    public record Endpoint(String model, String baseUrl, String apiKey) {
+
+        /**
+         * Get the name the endpoint is reported under.
+         *
+         * @return the model name, with the base URL if it is not the default one
+         */
+        public String name() {
+            return baseUrl == null || baseUrl.equals(OPENAI_BASE_URL) ? model : model + "@" + baseUrl;
+        }
+    }
+
+    /**
+     * The chat model settings of one stage.
+     *
+     * @param endpoints the models to route calls among, preferred first
+     * @param maxTokens the maximum output tokens, or 0 for the model's default
+     * @param timeout the timeout of one call
+     * @param temperature the sampling temperature
+     */
+    public record StageSettings(List<Endpoint> endpoints, int maxTokens, Duration timeout, double temperature) {
+    }
+
+    /**
+     * Get the chat model settings of a stage.
+     *
+     * @param stage the pipeline stage
+     * @return the stage's settings
+     * @throws IllegalStateException if the stage is not configured
+     */
+    public static StageSettings getStageSettings(ChatStage stage) {
+        StageSettings settings = STAGES.get(stage);
+        if (settings == null) {
+            throw new IllegalStateException(stage.prefix() + "_MODELS environment variable is required");
+        }
+        return settings;
+    }
+
+    /**
+     * Check whether a stage has its own models. The fast answer stage is
+     * only configured if MEDICAID_FAST_ANSWER_MODELS is set.
+     *
+     * @param stage the pipeline stage
+     * @return true if the stage has models
+     */
+    public static boolean isStageConfigured(ChatStage stage) {
+        return STAGES.containsKey(stage);
+    }
+
+    /**
+     * Get the share of calls sent to a model other than the best one, so that
+     * the statistics of every model stay current.
+     *
+     * @return the exploration rate (0.0 to 1.0)
+     */
+    public static double getRoutingExploreRate() {
+        return ROUTING_EXPLORE_RATE;
+    }
+
+    /**
+     * Get how long a model that failed a call is only used if every other model fails too.
+     *
+     * @return the cool-down period
+     */
+    public static Duration getRoutingCooldown() {
+        return Duration.ofSeconds(ROUTING_COOLDOWN_SECONDS);
+    }
+
+    private static StageSettings readStage(ChatStage stage, String defaultModels, int defaultMaxTokens,
+                                           long defaultTimeoutSeconds, double defaultTemperature) {
+        String prefix = stage.prefix();
+        List<Endpoint> endpoints = Arrays.stream(
+                        System.getenv().getOrDefault(prefix + "_MODELS", defaultModels).split(","))
+                .map(String::trim)
+                .filter(entry -> !entry.isEmpty())
+                .map(entry -> parseEndpoint(entry, System.getenv(prefix + "_API_KEY")))
+                .toList();
+        if (endpoints.isEmpty()) {
+            throw new IllegalStateException(prefix + "_MODELS lists no models");
+        }
+        return new StageSettings(
+                endpoints,
+                Integer.parseInt(System.getenv().getOrDefault(prefix + "_MAX_TOKENS", String.valueOf(defaultMaxTokens))),
+                Duration.ofSeconds(Long.parseLong(
+                        System.getenv().getOrDefault(prefix + "_TIMEOUT_SECONDS", String.valueOf(defaultTimeoutSeconds)))),
+                Double.parseDouble(System.getenv().getOrDefault(prefix + "_TEMPERATURE", String.valueOf(defaultTemperature))));
+    }
+
+    private static Endpoint parseEndpoint(String entry, String stageApiKey) {
+        int at = entry.indexOf("@http");
+        if (at < 0) {
+            return new Endpoint(entry, OPENAI_BASE_URL, OPENAI_API_KEY);
+        }
+        return new Endpoint(entry.substring(0, at), entry.substring(at + 1), stageApiKey);
+    }
+}
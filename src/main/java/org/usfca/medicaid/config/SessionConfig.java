@@ -0,0 +1,50 @@
+package org.usfca.medicaid.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.usfca.medicaid.session.InMemorySessionStore;
+import org.usfca.medicaid.session.MappedFileSessionStore;
+import org.usfca.medicaid.session.SessionStore;
+
+import java.io.IOException;
+
+/**
+ * Spring configuration for the conversation session store.
+ * MEDICAID_SESSION_STORE selects the backend: "memory" (default) or "mmap".
+ */
+@Configuration
+public class SessionConfig {
+
+    /**
+     * Session store holding conversation history for every chat front end.
+     * The evictions of the session file are published as a counter.
+     *
+     * @param meterRegistry the registry publishing the eviction counter
+     * @return the configured session store
+     * @throws IOException if the session file cannot be opened
+     */
+    @Bean
+    public SessionStore sessionStore(MeterRegistry meterRegistry) throws IOException {
+        return switch (AppConfig.getSessionStoreType()) {
+            case "memory" -> new InMemorySessionStore(
+                    AppConfig.getSessionMaxSessions(),
+                    AppConfig.getSessionMaxMessages());
+            case "mmap" -> {
+                MappedFileSessionStore store = new MappedFileSessionStore(
+                        AppConfig.getSessionFile(),
+                        AppConfig.getSessionMaxSessions(),
+                        AppConfig.getSessionSlotBytes(),
+                        AppConfig.getSessionMaxMessages(),
+                        AppConfig.getSessionMinIdle());
+                FunctionCounter.builder("medicaid.session.evictions", store, MappedFileSessionStore::getEvictionCount)
+                        .description("Idle sessions evicted from the session file to make room for new ones")
+                        .register(meterRegistry);
+                yield store;
+            }
+            default -> throw new IllegalStateException(
+                    "Unknown MEDICAID_SESSION_STORE: " + AppConfig.getSessionStoreType());
+        };
+    }
+}
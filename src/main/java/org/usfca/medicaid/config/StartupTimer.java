@@ -0,0 +1,43 @@
+package org.usfca.medicaid.config;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Reports how long each startup step takes.
+ * Steps that run lazily are reported when they first execute.
+ */
+public final class StartupTimer {
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Run a startup step and report its duration.
+     *
+     * @param step a short name for the step
+     * @param action the work to perform
+     * @param <T> the result type
+     * @return the result of the action
+     */
+    public static <T> T time(String step, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("⏱️  " + step + ": " + elapsedMillis + " ms");
+        }
+    }
+
+    /**
+     * Report the total time since JVM start.
+     *
+     * @param label what finished starting, e.g. "CLI" or "Web UI"
+     */
+    public static void reportReady(String label) {
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.out.println("⏱️  " + label + " ready " + uptimeMillis + " ms after JVM start"
+                + (AppConfig.isFastStartupEnabled() ? " (fast-startup mode)" : ""));
+    }
+}
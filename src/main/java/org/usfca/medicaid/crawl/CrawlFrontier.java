@@ -0,0 +1,208 @@
+package org.usfca.medicaid.crawl;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The URLs waiting to be crawled, queued per host so that requests to one
+ * host are spaced by its politeness delay while other hosts are crawled in
+ * the meantime. URLs are deduplicated by their normalized form for the whole
+ * crawl, and the frontier tracks URLs being fetched, so workers know the
+ * crawl is finished only when nothing is queued or in flight.
+ */
+public class CrawlFrontier {
+
+    private final int maxDepth;
+    private final int maxPages;
+    private final long defaultDelayMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, Host> hosts = new LinkedHashMap<>();
+    private final Set<String> seen = new HashSet<>();
+    private int queued;
+    private int inFlight;
+    private int taken;
+    private boolean closed;
+
+    /**
+     * A URL to crawl.
+     *
+     * @param url the URL to fetch
+     * @param depth the number of links followed from a seed to reach it
+     * @param seed the seed URL it was reached from
+     */
+    public record Entry(String url, int depth, String seed) {
+    }
+
+    private static final class Host {
+        private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+        private long delayMillis;
+        private long nextFetchNanos;
+
+        Host(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+    }
+
+    /**
+     * Constructs a new CrawlFrontier.
+     *
+     * @param maxDepth the maximum number of links followed from a seed
+     * @param maxPages the maximum number of URLs handed out
+     * @param defaultDelayMillis the minimum time between requests to one host
+     */
+    public CrawlFrontier(int maxDepth, int maxPages, long defaultDelayMillis) {
+        this.maxDepth = maxDepth;
+        this.maxPages = maxPages;
+        this.defaultDelayMillis = defaultDelayMillis;
+    }
+
+    /**
+     * Queue a URL unless its normalized form has been seen before or it is too deep.
+     *
+     * @param url the URL, fetched as given
+     * @param depth the number of links followed from a seed to reach it
+     * @param seed the seed URL it was reached from
+     * @return true if the URL was queued
+     */
+    public boolean offer(String url, int depth, String seed) {
+        if (depth > maxDepth) {
+            return false;
+        }
+        lock.lock();
+        try {
+            String key = UrlNormalizer.normalize(url).orElse(url);
+            if (closed || !seen.add(key)) {
+                return false;
+            }
+            hosts.computeIfAbsent(UrlNormalizer.origin(key), origin -> new Host(defaultDelayMillis))
+                    .queue.add(new Entry(url, depth, seed));
+            queued++;
+            changed.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark a URL as seen without queueing it, e.g. the target of a redirect.
+     *
+     * @param url the normalized URL
+     * @return true if the URL had not been seen before
+     */
+    public boolean markSeen(String url) {
+        lock.lock();
+        try {
+            return seen.add(url);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Raise the delay between requests to a host, e.g. to its robots.txt crawl delay.
+     *
+     * @param origin the host's origin, as returned by {@link UrlNormalizer#origin(String)}
+     * @param delayMillis the requested delay
+     */
+    public void setDelay(String origin, long delayMillis) {
+        lock.lock();
+        try {
+            Host host = hosts.computeIfAbsent(origin, key -> new Host(defaultDelayMillis));
+            host.delayMillis = Math.max(defaultDelayMillis, delayMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the next URL whose host may be requested now, waiting for a host's
+     * delay to pass or for URLs to be queued. Every URL taken must be
+     * released with {@link #done()} once its links have been offered.
+     *
+     * @return the next URL, or null once the crawl is finished
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Entry take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (closed || taken >= maxPages || (queued == 0 && inFlight == 0)) {
+                    changed.signalAll();
+                    return null;
+                }
+                long now = System.nanoTime();
+                long wait = Long.MAX_VALUE;
+                // Hosts are few (one per site), so a scan is cheaper than keeping them ordered by due time.
+                for (Host host : hosts.values()) {
+                    if (host.queue.isEmpty()) {
+                        continue;
+                    }
+                    long due = host.nextFetchNanos - now;
+                    if (due <= 0) {
+                        host.nextFetchNanos = now + TimeUnit.MILLISECONDS.toNanos(host.delayMillis);
+                        queued--;
+                        inFlight++;
+                        taken++;
+                        return host.queue.poll();
+                    }
+                    wait = Math.min(wait, due);
+                }
+                if (wait == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(wait);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release a URL returned by {@link #take()}.
+     */
+    public void done() {
+        lock.lock();
+        try {
+            inFlight--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop handing out URLs, waking every waiting worker.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of distinct URLs seen so far.
+     *
+     * @return the seen-set size
+     */
+    public int getSeenCount() {
+        lock.lock();
+        try {
+            return seen.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
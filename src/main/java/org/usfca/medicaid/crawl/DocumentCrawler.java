@@ -0,0 +1,275 @@
+package org.usfca.medicaid.crawl;
+
+import dev.langchain4j.data.document.Document;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.usfca.medicaid.service.IngestionReport;
+import org.usfca.medicaid.service.SourceSkippedException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Link-following crawler expanding a list of seed URLs into a corpus.
+ * Pages are fetched by a pool of workers from a {@link CrawlFrontier}, which
+ * spaces requests to each host by its politeness delay; every host's
+ * robots.txt is fetched once and obeyed. Links are followed up to a maximum
+ * depth from their seed and only into allow-listed URL prefixes.
+ *
+ * <p>Documents are handed to the caller's sink on the calling thread as soon
+ * as they are fetched, through a bounded queue, so ingestion overlaps with
+ * crawling and a slow sink throttles the workers.
+ */
+public class DocumentCrawler {
+
+    private static final int ROBOTS_TIMEOUT_MILLIS = 10000;
+
+    private final PageFetcher fetcher;
+    private final List<String> allowedPrefixes;
+    private final String userAgent;
+    private final int concurrency;
+    private final int maxDepth;
+    private final int maxPages;
+    private final long hostDelayMillis;
+    private final Map<String, RobotsRules> robots = new ConcurrentHashMap<>();
+
+    /**
+     * A fetched page or file.
+     *
+     * @param document the loaded document
+     * @param url the URL the content was served from, after redirects
+     * @param links the absolute URLs the page links to, empty for non-HTML content
+     */
+    public record Page(Document document, String url, List<String> links) {
+    }
+
+    /**
+     * Fetches and parses one URL.
+     */
+    @FunctionalInterface
+    public interface PageFetcher {
+
+        /**
+         * Fetch and parse a URL.
+         *
+         * @param url the URL to fetch
+         * @param report the report entry for the URL
+         * @return the fetched page
+         * @throws SourceSkippedException if the URL has no usable content
+         * @throws Exception if the URL cannot be fetched or parsed
+         */
+        Page fetch(String url, IngestionReport.SourceReport report) throws Exception;
+    }
+
+    /**
+     * Counts of one crawl.
+     *
+     * @param documents the number of documents handed to the sink
+     * @param failed the number of URLs that failed or were skipped
+     * @param robotsBlocked the number of URLs disallowed by robots.txt
+     * @param outsideAllowList the number of links not under an allowed prefix
+     * @param seen the number of distinct URLs discovered
+     */
+    public record Stats(int documents, int failed, int robotsBlocked, int outsideAllowList, int seen) {
+    }
+
+    /**
+     * Constructs a new DocumentCrawler.
+     *
+     * @param fetcher the fetcher loading each URL
+     * @param allowedPrefixes the URL prefixes links may be followed into
+     * @param userAgent the user agent robots.txt is fetched with and whose groups apply
+     * @param concurrency the number of URLs fetched at once
+     * @param maxDepth the maximum number of links followed from a seed
+     * @param maxPages the maximum number of URLs fetched
+     * @param hostDelayMillis the minimum time between requests to one host
+     */
+    public DocumentCrawler(PageFetcher fetcher, List<String> allowedPrefixes, String userAgent,
+                           int concurrency, int maxDepth, int maxPages, long hostDelayMillis) {
+        this.fetcher = fetcher;
+        this.allowedPrefixes = allowedPrefixes;
+        this.userAgent = userAgent;
+        this.concurrency = concurrency;
+        this.maxDepth = maxDepth;
+        this.maxPages = maxPages;
+        this.hostDelayMillis = hostDelayMillis;
+    }
+
+    /**
+     * Crawl from seed URLs, handing each document to a sink as it is fetched.
+     * Seeds are fetched even if they are outside the allow-list.
+     *
+     * @param seeds the URLs to start from
+     * @param report the report of the current ingestion run
+     * @param sink receives the documents, on the calling thread
+     * @return the crawl counts
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public Stats crawl(List<String> seeds, IngestionReport report, Consumer<Document> sink) throws InterruptedException {
+        CrawlFrontier frontier = new CrawlFrontier(maxDepth, maxPages, hostDelayMillis);
+        for (String seed : seeds) {
+            frontier.offer(seed, 0, seed);
+        }
+
+        BlockingQueue<Document> handoff = new ArrayBlockingQueue<>(concurrency * 2);
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger robotsBlocked = new AtomicInteger();
+        AtomicInteger outsideAllowList = new AtomicInteger();
+        AtomicInteger workerId = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "crawler-" + workerId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int documents = 0;
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                workers.execute(() -> {
+                    try {
+                        CrawlFrontier.Entry entry;
+                        while ((entry = frontier.take()) != null) {
+                            try {
+                                crawl(entry, frontier, report, handoff, failed, robotsBlocked, outsideAllowList);
+                            } finally {
+                                frontier.done();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }
+
+            while (finished.getCount() > 0 || !handoff.isEmpty()) {
+                Document document = handoff.poll(100, TimeUnit.MILLISECONDS);
+                if (document != null) {
+                    sink.accept(document);
+                    documents++;
+                }
+            }
+        } finally {
+            frontier.close();
+            workers.shutdownNow();
+        }
+
+        Stats stats = new Stats(documents, failed.get(), robotsBlocked.get(), outsideAllowList.get(),
+                frontier.getSeenCount());
+        System.out.println("🕸️  Crawled " + stats.documents() + " documents from " + stats.seen() + " URLs ("
+                + stats.failed() + " failed or skipped, " + stats.robotsBlocked() + " disallowed by robots.txt, "
+                + stats.outsideAllowList() + " links outside the allow-list)");
+        return stats;
+    }
+
+    /**
+     * Fetch one URL, queue its allow-listed links and hand its document over.
+     */
+    private void crawl(CrawlFrontier.Entry entry, CrawlFrontier frontier, IngestionReport report,
+                       BlockingQueue<Document> handoff, AtomicInteger failed, AtomicInteger robotsBlocked,
+                       AtomicInteger outsideAllowList) throws InterruptedException {
+        String url = entry.url();
+        String key = UrlNormalizer.normalize(url).orElse(url);
+        String origin = UrlNormalizer.origin(key);
+        RobotsRules rules = robots.computeIfAbsent(origin, this::fetchRobots);
+        frontier.setDelay(origin, rules.getCrawlDelayMillis());
+        if (!rules.isAllowed(UrlNormalizer.pathAndQuery(key))) {
+            robotsBlocked.incrementAndGet();
+            if (entry.depth() == 0) {
+                report.source(url).skipped("Disallowed by robots.txt");
+                System.out.println("⚠️  Skipped " + url + ": disallowed by robots.txt");
+            }
+            return;
+        }
+
+        IngestionReport.SourceReport sourceReport = report.source(url);
+        Page page;
+        try {
+            page = fetcher.fetch(url, sourceReport);
+        } catch (SourceSkippedException e) {
+            failed.incrementAndGet();
+            sourceReport.skipped(e.getMessage());
+            System.out.println("⚠️  Skipped " + url + ": " + e.getMessage());
+            return;
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            sourceReport.failed("load", e);
+            System.err.println("❌ Error loading " + url + ": " + e.getMessage());
+            return;
+        }
+
+        String finalUrl = UrlNormalizer.normalize(page.url()).orElse(key);
+        if (!finalUrl.equals(key) && !frontier.markSeen(finalUrl)) {
+            failed.incrementAndGet();
+            sourceReport.skipped("Redirects to " + finalUrl + ", which was already crawled");
+            return;
+        }
+
+        if (entry.depth() < maxDepth) {
+            for (String link : page.links()) {
+                UrlNormalizer.normalize(link).ifPresent(normalized -> {
+                    if (isAllowed(normalized)) {
+                        frontier.offer(normalized, entry.depth() + 1, entry.seed());
+                    } else {
+                        outsideAllowList.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        Document document = page.document();
+        document.metadata().put("seed", entry.seed());
+        document.metadata().put("crawl_depth", String.valueOf(entry.depth()));
+        handoff.put(document);
+        System.out.println("✅ Successfully loaded: " + url + (entry.depth() > 0 ? " (depth " + entry.depth() + ")" : ""));
+    }
+
+    private boolean isAllowed(String url) {
+        for (String prefix : allowedPrefixes) {
+            if (url.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fetch a host's robots.txt. A missing file (4xx) allows everything; a
+     * server error or unreachable host disallows everything, as RFC 9309 asks.
+     */
+    private RobotsRules fetchRobots(String origin) {
+        try {
+            Connection.Response response = Jsoup.connect(origin + "/robots.txt")
+                    .userAgent(userAgent)
+                    .ignoreContentType(true)
+                    .ignoreHttpErrors(true)
+                    .followRedirects(true)
+                    .timeout(ROBOTS_TIMEOUT_MILLIS)
+                    .execute();
+            int status = response.statusCode();
+            if (status >= 200 && status < 300) {
+                return RobotsRules.parse(response.body(), userAgent);
+            }
+            if (status >= 400 && status < 500) {
+                return RobotsRules.ALLOW_ALL;
+            }
+            System.err.println("⚠️  robots.txt of " + origin + " returned HTTP " + status + "; not crawling the host");
+        } catch (IOException e) {
+            System.err.println("⚠️  Could not fetch robots.txt of " + origin + ": " + e.getMessage()
+                    + "; not crawling the host");
+        }
+        return RobotsRules.DISALLOW_ALL;
+    }
+}
@@ -0,0 +1,173 @@
+package org.usfca.medicaid.crawl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The rules of a robots.txt file (RFC 9309) that apply to one crawler.
+ * The group naming the crawler's product token is used if there is one,
+ * otherwise the {@code *} group. The longest matching Allow or Disallow
+ * pattern decides, with Allow winning ties; patterns support {@code *} and a
+ * trailing {@code $}. The non-standard Crawl-delay line is honoured as well.
+ */
+public final class RobotsRules {
+
+    /**
+     * Rules allowing every path, used when a host has no robots.txt.
+     */
+    public static final RobotsRules ALLOW_ALL = new RobotsRules(List.of(), 0);
+
+    /**
+     * Rules disallowing every path, used when a host's robots.txt cannot be fetched.
+     */
+    public static final RobotsRules DISALLOW_ALL = new RobotsRules(List.of(new Rule("/", false)), 0);
+
+    private final List<Rule> rules;
+    private final long crawlDelayMillis;
+
+    private record Rule(String pattern, boolean allow) {
+    }
+
+    private RobotsRules(List<Rule> rules, long crawlDelayMillis) {
+        this.rules = rules;
+        this.crawlDelayMillis = crawlDelayMillis;
+    }
+
+    /**
+     * Parse a robots.txt file.
+     *
+     * @param content the file content
+     * @param userAgent the crawler's product token, e.g. MedicaidChatbot
+     * @return the rules for the crawler
+     */
+    public static RobotsRules parse(String content, String userAgent) {
+        String agent = userAgent.toLowerCase(Locale.ROOT);
+        List<Rule> specific = new ArrayList<>();
+        List<Rule> wildcard = new ArrayList<>();
+        long specificDelay = 0;
+        long wildcardDelay = 0;
+        boolean foundSpecific = false;
+
+        boolean inSpecific = false;
+        boolean inWildcard = false;
+        boolean groupHasRules = false;
+        for (String rawLine : content.split("\r?\n|\r")) {
+            int comment = rawLine.indexOf('#');
+            String line = (comment >= 0 ? rawLine.substring(0, comment) : rawLine).trim();
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String field = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+
+            if (field.equals("user-agent")) {
+                if (groupHasRules) {
+                    inSpecific = false;
+                    inWildcard = false;
+                    groupHasRules = false;
+                }
+                String token = value.toLowerCase(Locale.ROOT);
+                if (token.equals("*")) {
+                    inWildcard = true;
+                } else if (!token.isEmpty() && agent.startsWith(token)) {
+                    inSpecific = true;
+                    foundSpecific = true;
+                }
+            } else if (field.equals("allow") || field.equals("disallow")) {
+                groupHasRules = true;
+                if (value.isEmpty()) {
+                    continue;
+                }
+                Rule rule = new Rule(value, field.equals("allow"));
+                if (inSpecific) {
+                    specific.add(rule);
+                }
+                if (inWildcard) {
+                    wildcard.add(rule);
+                }
+            } else if (field.equals("crawl-delay")) {
+                groupHasRules = true;
+                long delay;
+                try {
+                    delay = (long) (Double.parseDouble(value) * 1000);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (inSpecific) {
+                    specificDelay = delay;
+                }
+                if (inWildcard) {
+                    wildcardDelay = delay;
+                }
+            }
+        }
+        return foundSpecific
+                ? new RobotsRules(List.copyOf(specific), specificDelay)
+                : new RobotsRules(List.copyOf(wildcard), wildcardDelay);
+    }
+
+    /**
+     * Check whether the crawler may fetch a path.
+     *
+     * @param pathAndQuery the path and query of the URL, starting with {@code /}
+     * @return true if the path may be fetched
+     */
+    public boolean isAllowed(String pathAndQuery) {
+        if (pathAndQuery.equals("/robots.txt")) {
+            return true;
+        }
+        int bestLength = -1;
+        boolean allowed = true;
+        for (Rule rule : rules) {
+            if (matches(rule.pattern(), pathAndQuery)) {
+                int length = rule.pattern().length();
+                if (length > bestLength || (length == bestLength && rule.allow())) {
+                    bestLength = length;
+                    allowed = rule.allow();
+                }
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * Get the delay the file asks for between requests.
+     *
+     * @return the crawl delay in milliseconds, or 0 if none
+     */
+    public long getCrawlDelayMillis() {
+        return crawlDelayMillis;
+    }
+
+    /**
+     * Match a robots.txt pattern against a path, with {@code *} matching any
+     * run of characters and a trailing {@code $} anchoring the end.
+     */
+    private static boolean matches(String pattern, String path) {
+        boolean anchored = pattern.endsWith("$");
+        String body = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+        return matches(body, 0, path, 0, anchored);
+    }
+
+    private static boolean matches(String pattern, int p, String path, int s, boolean anchored) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            if (c == '*') {
+                for (int from = s; from <= path.length(); from++) {
+                    if (matches(pattern, p + 1, path, from, anchored)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (s >= path.length() || path.charAt(s) != c) {
+                return false;
+            }
+            p++;
+            s++;
+        }
+        return !anchored || s == path.length();
+    }
+}
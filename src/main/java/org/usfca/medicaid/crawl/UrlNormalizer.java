@@ -0,0 +1,95 @@
+package org.usfca.medicaid.crawl;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reduces URLs to one canonical form, so that links written differently but
+ * naming the same page are crawled once: the scheme and host are lower-cased,
+ * default ports, fragments and tracking parameters are dropped, dot segments
+ * are resolved and an empty path becomes {@code /}.
+ */
+public final class UrlNormalizer {
+
+    private static final Set<String> SKIPPED_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "svg", "webp", "ico", "css", "js", "zip", "mp3", "mp4", "mov", "avi", "xml", "rss");
+
+    private UrlNormalizer() {
+    }
+
+    /**
+     * Normalize an absolute URL.
+     *
+     * @param url the URL, e.g. a link resolved against its page
+     * @return the canonical URL, or empty if it is not an http(s) URL of a
+     *         page or document (e.g. mailto:, javascript: or an image)
+     */
+    public static Optional<String> normalize(String url) {
+        URI uri;
+        try {
+            uri = new URI(url.trim().replace(" ", "%20")).normalize();
+        } catch (URISyntaxException e) {
+            return Optional.empty();
+        }
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        if ((!scheme.equals("http") && !scheme.equals("https")) || uri.getHost() == null) {
+            return Optional.empty();
+        }
+
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        while (path.startsWith("/../")) {
+            path = path.substring(3);
+        }
+        int dot = path.lastIndexOf('.');
+        if (dot > path.lastIndexOf('/') && SKIPPED_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+            return Optional.empty();
+        }
+
+        StringBuilder normalized = new StringBuilder(url.length());
+        normalized.append(scheme).append("://").append(uri.getHost().toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && !(scheme.equals("http") && port == 80) && !(scheme.equals("https") && port == 443)) {
+            normalized.append(':').append(port);
+        }
+        normalized.append(path);
+
+        String query = uri.getRawQuery();
+        if (query != null) {
+            char separator = '?';
+            for (String parameter : query.split("&")) {
+                String name = parameter.contains("=") ? parameter.substring(0, parameter.indexOf('=')) : parameter;
+                if (parameter.isEmpty() || name.startsWith("utm_") || name.equals("fbclid") || name.equals("gclid")) {
+                    continue;
+                }
+                normalized.append(separator).append(parameter);
+                separator = '&';
+            }
+        }
+        return Optional.of(normalized.toString());
+    }
+
+    /**
+     * Get the origin of a normalized URL, e.g. {@code https://mn.gov}.
+     *
+     * @param url a URL returned by {@link #normalize(String)}
+     * @return the scheme, host and port
+     */
+    public static String origin(String url) {
+        int pathStart = url.indexOf('/', url.indexOf("://") + 3);
+        return pathStart < 0 ? url : url.substring(0, pathStart);
+    }
+
+    /**
+     * Get the path and query of a normalized URL, as matched by robots.txt rules.
+     *
+     * @param url a URL returned by {@link #normalize(String)}
+     * @return the path and query, starting with {@code /}
+     */
+    public static String pathAndQuery(String url) {
+        int pathStart = url.indexOf('/', url.indexOf("://") + 3);
+        return pathStart < 0 ? "/" : url.substring(pathStart);
+    }
+}
@@ -0,0 +1,47 @@
+package org.usfca.medicaid.jfr;
+
+import dev.langchain4j.model.output.TokenUsage;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Generation of the answer by the chat model.
+ */
+@Name("org.usfca.medicaid.Answer")
+@Label("LLM Answer")
+@Category({"Medicaid", "RAG"})
+@Description("Chat model call generating the answer")
+@Enabled(false)
+@StackTrace(false)
+public class AnswerEvent extends Event {
+
+    @Label("Prompt Characters")
+    private int promptChars;
+
+    @Label("Input Tokens")
+    private long inputTokens;
+
+    @Label("Output Tokens")
+    private long outputTokens;
+
+    /**
+     * End the event and commit it if it is enabled and above its threshold.
+     *
+     * @param promptChars the prompt length
+     * @param tokenUsage the token usage reported by the model, or null
+     */
+    public void finish(int promptChars, TokenUsage tokenUsage) {
+        end();
+        if (shouldCommit()) {
+            this.promptChars = promptChars;
+            this.inputTokens = PipelineEvents.inputTokens(tokenUsage);
+            this.outputTokens = PipelineEvents.outputTokens(tokenUsage);
+            commit();
+        }
+    }
+}
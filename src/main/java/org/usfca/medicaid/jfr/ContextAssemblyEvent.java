@@ -0,0 +1,42 @@
+package org.usfca.medicaid.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Assembly of the answer prompt from retrieved segments.
+ */
+@Name("org.usfca.medicaid.ContextAssembly")
+@Label("Context Assembly")
+@Category({"Medicaid", "RAG"})
+@Description("Building the answer prompt from the retrieved segments and history")
+@Enabled(false)
+@StackTrace(false)
+public class ContextAssemblyEvent extends Event {
+
+    @Label("Segment Count")
+    private int segmentCount;
+
+    @Label("Prompt Characters")
+    private int promptChars;
+
+    /**
+     * End the event and commit it if it is enabled and above its threshold.
+     *
+     * @param segmentCount the number of segments in the context
+     * @param promptChars the assembled prompt length
+     */
+    public void finish(int segmentCount, int promptChars) {
+        end();
+        if (shouldCommit()) {
+            this.segmentCount = segmentCount;
+            this.promptChars = promptChars;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.usfca.medicaid.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Fetch of one document source over HTTP or from disk.
+ */
+@Name("org.usfca.medicaid.DocumentFetch")
+@Label("Document Fetch")
+@Category({"Medicaid", "Ingestion"})
+@Description("Download or file read of one document source")
+@Enabled(false)
+@StackTrace(false)
+public class DocumentFetchEvent extends Event {
+
+    @Label("Source")
+    private String source;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * End the event and commit it if it is enabled and above its threshold.
+     *
+     * @param source the source URL or path
+     * @param bytes the body size
+     */
+    public void finish(String source, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.source = source;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.usfca.medicaid.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Text extraction from one fetched document.
+ */
+@Name("org.usfca.medicaid.DocumentParse")
+@Label("Document Parse")
+@Category({"Medicaid", "Ingestion"})
+@Description("Text extraction from one fetched document with Tika or jsoup")
+@Enabled(false)
+@StackTrace(false)
+public class DocumentParseEvent extends Event {
+
+    @Label("Source")
+    private String source;
+
+    @Label("Content Type")
+    private String contentType;
+
+    @Label("Characters")
+    private long characters;
+
+    /**
+     * End the event and commit it if it is enabled and above its threshold.
+     *
+     * @param source the source URL or path
+     * @param contentType the detected content type
+     * @param characters the number of characters extracted
+     */
+    public void finish(String source, String contentType, long characters) {
+        end();
+        if (shouldCommit()) {
+            this.source = source;
+            this.contentType = contentType;
+            this.characters = characters;
+            commit();
+        }
+    }
+}
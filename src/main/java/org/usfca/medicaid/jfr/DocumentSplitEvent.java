@@ -0,0 +1,42 @@
+package org.usfca.medicaid.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Splitting of one document into segments.
+ */
+@Name("org.usfca.medicaid.DocumentSplit")
+@Label("Document Split")
+@Category({"Medicaid", "Ingestion"})
+@Description("Splitting one document into segments")
+@Enabled(false)
+@StackTrace(false)
+public class DocumentSplitEvent extends Event {
+
+    @Label("Source")
+    private String source;
+
+    @Label("Segment Count")
+    private int segmentCount;
+
+    /**
+     * End the event and commit it if it is enabled and above its threshold.
+     *
+     * @param source the source URL or path
+     * @param segmentCount the number of segments produced
+     */
+    public void finish(String source, int segmentCount) {
+        end();
+        if (shouldCommit()) {
+            this.source = source;
+            this.segmentCount = segmentCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.usfca.medicaid.jfr;
+
+import dev.langchain4j.model.output.TokenUsage;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Embedding of the segments of one document.
+ */
+@Name("org.usfca.medicaid.EmbeddingBatch")
+@Label("Embedding Batch")
+@Category({"Medicaid", "Ingestion"})
+@Description("Batched embedding of the segments of one document")
+@Enabled(false)
+@StackTrace(false)
+public class EmbeddingBatchEvent extends Event {
+
+    @Label("Source")
+    private String source;
+
+    @Label("Segment Count")
+    private int segmentCount;
+
+    @Label("Tokens")
+    private long tokens;
+
+    /**
+     * End the event and commit it if it is enabled and above its threshold.
+     *
+     * @param source the source URL or path
+     * @param segmentCount the number of segments embedded
+     * @param tokenUsage the token usage reported by the model, or null
+     */
+    public void finish(String source, int segmentCount, TokenUsage tokenUsage) {
+        end();
+        if (shouldCommit()) {
+            this.source = source;
+            this.segmentCount = segmentCount;
+            this.tokens = PipelineEvents.inputTokens(tokenUsage);
+            commit();
+        }
+    }
+}
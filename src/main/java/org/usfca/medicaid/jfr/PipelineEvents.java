@@ -0,0 +1,52 @@
+package org.usfca.medicaid.jfr;
+
+import dev.langchain4j.model.output.TokenUsage;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+
+import java.util.List;
+
+/**
+ * Java Flight Recorder events for the RAG and ingestion pipeline stages.
+ * The events are disabled by default, so they cost next to nothing unless a
+ * recording enables them with the bundled profile, which can be combined with
+ * the JDK's own settings:
+ *
+ * <pre>
+ * java -XX:StartFlightRecording=settings=default,settings=src/main/jfr/medicaid.jfc,filename=medicaid.jfr ...
+ * </pre>
+ */
+public final class PipelineEvents {
+
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            QueryRewriteEvent.class,
+            QueryEmbeddingEvent.class,
+            VectorSearchEvent.class,
+            ContextAssemblyEvent.class,
+            AnswerEvent.class,
+            DocumentFetchEvent.class,
+            DocumentParseEvent.class,
+            DocumentSplitEvent.class,
+            EmbeddingBatchEvent.class,
+            UpsertEvent.class
+    );
+
+    private PipelineEvents() {
+    }
+
+    /**
+     * Register the event types with the flight recorder, so they are listed in
+     * recordings and tools even before the first event is committed.
+     */
+    public static void register() {
+        EVENTS.forEach(FlightRecorder::register);
+    }
+
+    static long inputTokens(TokenUsage tokenUsage) {
+        return tokenUsage != null && tokenUsage.inputTokenCount() != null ? tokenUsage.inputTokenCount() : 0;
+    }
+
+    static long outputTokens(TokenUsage tokenUsage) {
+        return tokenUsage != null && tokenUsage.outputTokenCount() != null ? tokenUsage.outputTokenCount() : 0;
+    }
+}
@@ -0,0 +1,43 @@
+package org.usfca.medicaid.jfr;
+
+import dev.langchain4j.model.output.TokenUsage;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Embedding of a batch of search queries.
+ */
+@Name("org.usfca.medicaid.QueryEmbedding")
+@Label("Query Embedding")
+@Category({"Medicaid", "RAG"})
+@Description("Batched embedding of the search queries of a turn")
+@Enabled(false)
+@StackTrace(false)
+public class QueryEmbeddingEvent extends Event {
+
+    @Label("Query Count")
+    private int queryCount;
+
+    @Label("Tokens")
+    private long tokens;
+
+    /**
+     * End the event and commit it if it is enabled and above its threshold.
+     *
+     * @param queryCount the number of queries embedded
+     * @param tokenUsage the token usage reported by the model, or null
+     */
+    public void finish(int queryCount, TokenUsage tokenUsage) {
+        end();
+        if (shouldCommit()) {
+            this.queryCount = queryCount;
+            this.tokens = PipelineEvents.inputTokens(tokenUsage);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.usfca.medicaid.jfr;
+
+import dev.langchain4j.model.output.TokenUsage;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Rewriting of a user question into standalone search queries.
+ */
+@Name("org.usfca.medicaid.QueryRewrite")
+@Label("Query Rewrite")
+@Category({"Medicaid", "RAG"})
+@Description("Chat model call turning the user question into search queries")
+@Enabled(false)
+@StackTrace(false)
+public class QueryRewriteEvent extends Event {
+
+    @Label("Query Count")
+    private int queryCount;
+
+    @Label("Prompt Characters")
+    private int promptChars;
+
+    @Label("Input Tokens")
+    private long inputTokens;
+
+    @Label("Output Tokens")
+    private long outputTokens;
+
+    /**
+     * End the event and commit it if it is enabled and above its threshold.
+     *
+     * @param queryCount the number of search queries, including the original question
+     * @param promptChars the rewrite prompt length
+     * @param tokenUsage the token usage reported by the model, or null
+     */
+    public void finish(int queryCount, int promptChars, TokenUsage tokenUsage) {
+        end();
+        if (shouldCommit()) {
+            this.queryCount = queryCount;
+            this.promptChars = promptChars;
+            this.inputTokens = PipelineEvents.inputTokens(tokenUsage);
+            this.outputTokens = PipelineEvents.outputTokens(tokenUsage);
+            commit();
+        }
+    }
+}
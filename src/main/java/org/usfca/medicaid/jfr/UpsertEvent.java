@@ -0,0 +1,42 @@
+package org.usfca.medicaid.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Upsert of the embedded segments of one document.
+ */
+@Name("org.usfca.medicaid.Upsert")
+@Label("Vector Upsert")
+@Category({"Medicaid", "Ingestion"})
+@Description("Upsert of the embedded segments of one document into the vector store")
+@Enabled(false)
+@StackTrace(false)
+public class UpsertEvent extends Event {
+
+    @Label("Source")
+    private String source;
+
+    @Label("Segment Count")
+    private int segmentCount;
+
+    /**
+     * End the event and commit it if it is enabled and above its threshold.
+     *
+     * @param source the source URL or path
+     * @param segmentCount the number of vectors written
+     */
+    public void finish(String source, int segmentCount) {
+        end();
+        if (shouldCommit()) {
+            this.source = source;
+            this.segmentCount = segmentCount;
+            commit();
+        }
+    }
+}
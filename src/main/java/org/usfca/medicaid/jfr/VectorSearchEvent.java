@@ -0,0 +1,47 @@
+package org.usfca.medicaid.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One vector store search.
+ */
+@Name("org.usfca.medicaid.VectorSearch")
+@Label("Vector Search")
+@Category({"Medicaid", "RAG"})
+@Description("Nearest-neighbour search of the vector store for one query")
+@Enabled(false)
+@StackTrace(false)
+public class VectorSearchEvent extends Event {
+
+    @Label("Max Results")
+    private int maxResults;
+
+    @Label("Min Score")
+    private double minScore;
+
+    @Label("Match Count")
+    private int matchCount;
+
+    /**
+     * End the event and commit it if it is enabled and above its threshold.
+     *
+     * @param maxResults the requested top-k
+     * @param minScore the relevance threshold
+     * @param matchCount the number of segments returned
+     */
+    public void finish(int maxResults, double minScore, int matchCount) {
+        end();
+        if (shouldCommit()) {
+            this.maxResults = maxResults;
+            this.minScore = minScore;
+            this.matchCount = matchCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.usfca.medicaid.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal Prometheus scrape endpoint for the command-line application, which
+ * has no web server of its own. Serves {@code GET /metrics} on the given port.
+ */
+public class PrometheusScrapeServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    /**
+     * Starts serving the registry's metrics.
+     *
+     * @param registry the registry to scrape
+     * @param port the port to listen on
+     */
+    public PrometheusScrapeServer(PrometheusMeterRegistry registry, int port) {
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start metrics endpoint on port " + port, e);
+        }
+        server.createContext("/metrics", exchange -> {
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        System.out.println("📊 Prometheus metrics at http://localhost:" + port + "/metrics");
+    }
+
+    /**
+     * Stop serving metrics.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
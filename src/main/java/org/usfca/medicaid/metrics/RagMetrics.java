@@ -0,0 +1,179 @@
+package org.usfca.medicaid.metrics;
+
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.Gauge;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation for the RAG pipeline.
+ * Each stage gets a timer with a percentile histogram, tagged by stage name,
+ * so latency distributions can be aggregated across instances by Prometheus.
+ */
+@Component
+public class RagMetrics {
+
+    /**
+     * Timed stages of a chat turn.
+     */
+    public enum Stage {
+        FAQ_LOOKUP("faq_lookup"),
+        REWRITE("rewrite"),
+        EMBEDDING("embedding"),
+        VECTOR_SEARCH("vector_search"),
+        CONTEXT("context"),
+        ANSWER("answer");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * Get the value of the stage tag.
+         *
+         * @return the tag value
+         */
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Counter matchesFound;
+    private final Counter fallbackAnswers;
+    private final Counter faqAnswers;
+
+    /**
+     * Constructs a new RagMetrics and registers its meters.
+     *
+     * @param registry the registry to publish to
+     */
+    public RagMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("medicaid.rag.stage")
+                    .description("Latency of one RAG pipeline stage")
+                    .tag("stage", stage.tag())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.matchesFound = Counter.builder("medicaid.rag.matches")
+                .description("Segments returned by vector searches")
+                .register(registry);
+        this.fallbackAnswers = Counter.builder("medicaid.rag.fallback.answers")
+                .description("Questions answered with the fallback message because nothing relevant was found")
+                .register(registry);
+        this.faqAnswers = Counter.builder("medicaid.rag.faq.answers")
+                .description("Questions answered from the precomputed FAQ tier")
+                .register(registry);
+    }
+
+    /**
+     * Time a stage.
+     *
+     * @param stage the stage being run
+     * @param call the work of the stage
+     * @param <T> the result type
+     * @return the result of the call
+     */
+    public <T> T time(Stage stage, Supplier<T> call) {
+        return stageTimers.get(stage).record(call);
+    }
+
+    /**
+     * Count the segments returned by one vector search.
+     *
+     * @param count the number of matches
+     */
+    public void recordMatches(int count) {
+        matchesFound.increment(count);
+    }
+
+    /**
+     * Count a fallback answer.
+     */
+    public void recordFallback() {
+        fallbackAnswers.increment();
+    }
+
+    /**
+     * Count an answer served from the FAQ tier.
+     */
+    public void recordFaqAnswer() {
+        faqAnswers.increment();
+    }
+
+    /**
+     * Count a step by which a question's pipeline was degraded.
+     *
+     * @param step the degradation step, e.g. skip_rewrite
+     * @param reason why it was taken, e.g. budget
+     */
+    public void recordDegradation(String step, String reason) {
+        Counter.builder("medicaid.rag.degradations")
+                .description("Questions answered with a degraded pipeline, by step and reason")
+                .tag("step", step)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Publish the number of questions being answered.
+     *
+     * @param inFlight the in-flight count
+     */
+    public void gaugeInFlight(AtomicInteger inFlight) {
+        Gauge.builder("medicaid.rag.in_flight", inFlight, AtomicInteger::get)
+                .description("Questions currently being answered")
+                .register(registry);
+    }
+
+    /**
+     * Record the size of a chat model prompt: its length, the prompt tokens
+     * the provider counted and how many of those it read from its prompt cache.
+     *
+     * @param stage the pipeline stage making the call, e.g. rewrite
+     * @param chars the prompt length in characters
+     * @param usage the token usage reported by the model, or null
+     * @return the number of cached prompt tokens, or 0 if the provider reports none
+     */
+    public long recordPrompt(String stage, int chars, TokenUsage usage) {
+        DistributionSummary.builder("medicaid.rag.prompt.chars")
+                .description("Length of chat model prompts")
+                .baseUnit("characters")
+                .tag("stage", stage)
+                .register(registry)
+                .record(chars);
+        if (usage == null || usage.inputTokenCount() == null) {
+            return 0;
+        }
+        DistributionSummary.builder("medicaid.rag.prompt.tokens")
+                .description("Prompt tokens of chat model calls")
+                .baseUnit("tokens")
+                .tag("stage", stage)
+                .register(registry)
+                .record(usage.inputTokenCount());
+        long cached = usage instanceof OpenAiTokenUsage openAiUsage && openAiUsage.inputTokensDetails() != null
+                && openAiUsage.inputTokensDetails().cachedTokens() != null
+                ? openAiUsage.inputTokensDetails().cachedTokens() : 0;
+        Counter.builder("medicaid.rag.prompt.cached.tokens")
+                .description("Prompt tokens the provider read from its prompt cache")
+                .tag("stage", stage)
+                .register(registry)
+                .increment(cached);
+        return cached;
+    }
+}
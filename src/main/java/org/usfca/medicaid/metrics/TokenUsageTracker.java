@@ -0,0 +1,302 @@
+package org.usfca.medicaid.metrics;
+
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.usfca.medicaid.config.AppConfig;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Accounts for the tokens, and their estimated cost, of every model call.
+ * Usage is kept per pipeline stage (lifetime totals and a rolling window) and
+ * per session, exported as Micrometer meters, and used to enforce the
+ * per-session token budget.
+ */
+@Component
+public class TokenUsageTracker {
+
+    /**
+     * Pipeline stages that consume tokens.
+     */
+    public enum Stage {
+        REWRITE("rewrite", false),
+        ANSWER("answer", false),
+        QUERY_EMBEDDING("query_embedding", true),
+        INGESTION_EMBEDDING("ingestion_embedding", true);
+
+        private final String tag;
+        private final boolean embedding;
+
+        Stage(String tag, boolean embedding) {
+            this.tag = tag;
+            this.embedding = embedding;
+        }
+
+        /**
+         * Get the value of the stage tag.
+         *
+         * @return the tag value
+         */
+        public String tag() {
+            return tag;
+        }
+    }
+
+    /**
+     * Token counts and estimated cost.
+     *
+     * @param calls the number of model calls
+     * @param inputTokens the prompt tokens
+     * @param outputTokens the completion tokens
+     * @param costUsd the estimated cost in US dollars
+     */
+    public record Usage(long calls, long inputTokens, long outputTokens, double costUsd) {
+
+        static final Usage NONE = new Usage(0, 0, 0, 0);
+
+        /**
+         * Get the total number of tokens.
+         *
+         * @return input plus output tokens
+         */
+        public long totalTokens() {
+            return inputTokens + outputTokens;
+        }
+
+        Usage plus(long input, long output, double cost) {
+            return new Usage(calls + 1, inputTokens + input, outputTokens + output, costUsd + cost);
+        }
+    }
+
+    /**
+     * Snapshot of the accounting.
+     *
+     * @param stages lifetime usage per stage
+     * @param rollingStages usage per stage within the rolling window
+     * @param windowMinutes the length of the rolling window
+     * @param topSessions the sessions with the most tokens, highest first
+     */
+    public record Summary(Map<Stage, Usage> stages, Map<Stage, Usage> rollingStages, int windowMinutes,
+                          Map<String, Usage> topSessions) {
+    }
+
+    private final Map<Stage, Usage> totals = new EnumMap<>(Stage.class);
+    private final Map<Stage, RollingWindow> windows = new EnumMap<>(Stage.class);
+    private final Map<Stage, Counter> inputCounters = new EnumMap<>(Stage.class);
+    private final Map<Stage, Counter> outputCounters = new EnumMap<>(Stage.class);
+    private final Map<Stage, Counter> costCounters = new EnumMap<>(Stage.class);
+    private final Map<String, Usage> sessions;
+    private final Counter budgetRejections;
+    private final long sessionBudget;
+    private final int windowMinutes;
+
+    /**
+     * Constructs a new TokenUsageTracker and registers its meters.
+     *
+     * @param registry the registry to publish to
+     */
+    public TokenUsageTracker(MeterRegistry registry) {
+        this.sessionBudget = AppConfig.getSessionTokenBudget();
+        this.windowMinutes = AppConfig.getTokenWindowMinutes();
+        int maxSessions = AppConfig.getSessionMaxSessions();
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Usage> eldest) {
+                return size() > maxSessions;
+            }
+        };
+
+        for (Stage stage : Stage.values()) {
+            totals.put(stage, Usage.NONE);
+            RollingWindow window = new RollingWindow(stage, windowMinutes);
+            windows.put(stage, window);
+            inputCounters.put(stage, Counter.builder("medicaid.tokens")
+                    .description("Tokens sent to and received from OpenAI")
+                    .tag("stage", stage.tag()).tag("direction", "input")
+                    .register(registry));
+            outputCounters.put(stage, Counter.builder("medicaid.tokens")
+                    .description("Tokens sent to and received from OpenAI")
+                    .tag("stage", stage.tag()).tag("direction", "output")
+                    .register(registry));
+            costCounters.put(stage, Counter.builder("medicaid.tokens.cost")
+                    .description("Estimated OpenAI cost in US dollars")
+                    .baseUnit("usd")
+                    .tag("stage", stage.tag())
+                    .register(registry));
+            Gauge.builder("medicaid.tokens.rolling", window, RollingWindow::totalTokens)
+                    .description("Tokens used within the rolling window")
+                    .tag("stage", stage.tag())
+                    .register(registry);
+        }
+        this.budgetRejections = Counter.builder("medicaid.tokens.budget.rejections")
+                .description("Questions refused because the session exhausted its token budget")
+                .register(registry);
+        Gauge.builder("medicaid.tokens.sessions", this, tracker -> tracker.trackedSessions())
+                .description("Sessions with recorded token usage")
+                .register(registry);
+    }
+
+    /**
+     * Record the usage of one model call.
+     *
+     * @param stage the pipeline stage that made the call
+     * @param sessionId the session the call was made for, or null if none
+     * @param tokenUsage the usage reported by the provider, or null if none was reported
+     */
+    public void record(Stage stage, String sessionId, TokenUsage tokenUsage) {
+        if (tokenUsage == null) {
+            return;
+        }
+        long input = tokenUsage.inputTokenCount() != null ? tokenUsage.inputTokenCount() : 0;
+        long output = tokenUsage.outputTokenCount() != null ? tokenUsage.outputTokenCount() : 0;
+        double cost = cost(stage, input, output);
+
+        inputCounters.get(stage).increment(input);
+        outputCounters.get(stage).increment(output);
+        costCounters.get(stage).increment(cost);
+        windows.get(stage).add(input, output);
+
+        synchronized (this) {
+            totals.merge(stage, Usage.NONE, (current, ignored) -> current.plus(input, output, cost));
+            if (sessionId != null) {
+                sessions.put(sessionId, sessions.getOrDefault(sessionId, Usage.NONE).plus(input, output, cost));
+            }
+        }
+    }
+
+    /**
+     * Check whether a session has used up its token budget.
+     * Counts a rejection when it has.
+     *
+     * @param sessionId the session ID
+     * @return true if further questions in this session should be refused
+     */
+    public boolean isOverBudget(String sessionId) {
+        if (sessionBudget <= 0) {
+            return false;
+        }
+        boolean over = sessionUsage(sessionId).totalTokens() >= sessionBudget;
+        if (over) {
+            budgetRejections.increment();
+        }
+        return over;
+    }
+
+    /**
+     * Get the usage of one session.
+     *
+     * @param sessionId the session ID
+     * @return the session's usage, or zero usage if it made no calls
+     */
+    public synchronized Usage sessionUsage(String sessionId) {
+        return Optional.ofNullable(sessions.get(sessionId)).orElse(Usage.NONE);
+    }
+
+    /**
+     * Take a snapshot of the accounting.
+     *
+     * @param topSessionCount the number of heaviest sessions to include
+     * @return the usage summary
+     */
+    public Summary summary(int topSessionCount) {
+        Map<Stage, Usage> rolling = new EnumMap<>(Stage.class);
+        windows.forEach((stage, window) -> rolling.put(stage, window.usage()));
+
+        Map<Stage, Usage> stageTotals;
+        List<Map.Entry<String, Usage>> sessionEntries;
+        synchronized (this) {
+            stageTotals = new EnumMap<>(totals);
+            sessionEntries = new ArrayList<>(sessions.entrySet());
+        }
+
+        Map<String, Usage> top = new LinkedHashMap<>();
+        sessionEntries.stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Usage> entry) -> entry.getValue().totalTokens())
+                        .reversed())
+                .limit(topSessionCount)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+
+        return new Summary(stageTotals, rolling, windowMinutes, top);
+    }
+
+    private synchronized int trackedSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Estimate the cost of a call from the configured per-million-token prices.
+     */
+    private static double cost(Stage stage, long input, long output) {
+        if (stage.embedding) {
+            return input * AppConfig.getEmbeddingPricePerMillionTokens() / 1_000_000.0;
+        }
+        return (input * AppConfig.getChatInputPricePerMillionTokens()
+                + output * AppConfig.getChatOutputPricePerMillionTokens()) / 1_000_000.0;
+    }
+
+    /**
+     * Token counts over the last few minutes, kept in one bucket per minute.
+     */
+    private static final class RollingWindow {
+
+        private final Stage stage;
+        private final long[] minutes;
+        private final long[] calls;
+        private final long[] inputTokens;
+        private final long[] outputTokens;
+
+        RollingWindow(Stage stage, int size) {
+            this.stage = stage;
+            this.minutes = new long[size];
+            this.calls = new long[size];
+            this.inputTokens = new long[size];
+            this.outputTokens = new long[size];
+        }
+
+        synchronized void add(long input, long output) {
+            long minute = currentMinute();
+            int bucket = (int) (minute % minutes.length);
+            if (minutes[bucket] != minute) {
+                minutes[bucket] = minute;
+                calls[bucket] = 0;
+                inputTokens[bucket] = 0;
+                outputTokens[bucket] = 0;
+            }
+            calls[bucket]++;
+            inputTokens[bucket] += input;
+            outputTokens[bucket] += output;
+        }
+
+        synchronized Usage usage() {
+            long oldest = currentMinute() - minutes.length;
+            long callCount = 0;
+            long input = 0;
+            long output = 0;
+            for (int i = 0; i < minutes.length; i++) {
+                if (minutes[i] > oldest) {
+                    callCount += calls[i];
+                    input += inputTokens[i];
+                    output += outputTokens[i];
+                }
+            }
+            return new Usage(callCount, input, output, cost(stage, input, output));
+        }
+
+        double totalTokens() {
+            return usage().totalTokens();
+        }
+
+        private static long currentMinute() {
+            return System.currentTimeMillis() / 60_000;
+        }
+    }
+}
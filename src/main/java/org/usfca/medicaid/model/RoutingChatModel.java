@@ -0,0 +1,198 @@
+package org.usfca.medicaid.model;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat model spreading the calls of one pipeline stage over several candidate
+ * models or endpoints. Each call goes to the candidate with the lowest
+ * expected latency, inflated by its recent error rate; a small share of
+ * calls goes to another candidate so that every candidate's statistics stay
+ * current. A failed call is retried once on the next candidate, and a
+ * candidate that failed is only tried first again after a cool-down.
+ *
+ * <p>Candidates without any calls yet are tried first, so a new endpoint is
+ * measured as soon as it is configured. With a single candidate, calls go
+ * straight to it and are only timed.
+ */
+public class RoutingChatModel implements ChatModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingChatModel.class);
+
+    private static final double SMOOTHING = 0.2;
+    // A failed call costs its own latency plus the retry, so errors weigh more than their rate alone.
+    private static final double ERROR_PENALTY = 4.0;
+    private static final int MAX_ATTEMPTS = 2;
+
+    private final String stage;
+    private final List<Route> routes;
+    private final double exploreRate;
+    private final long cooldownNanos;
+
+    /**
+     * A model calls can be routed to.
+     *
+     * @param name the name the model is reported under
+     * @param model the model
+     */
+    public record Candidate(String name, ChatModel model) {
+    }
+
+    /**
+     * The live statistics of a candidate.
+     *
+     * @param name the candidate's name
+     * @param calls the number of calls made
+     * @param latency the moving average latency of successful calls
+     * @param errorRate the moving average share of failed calls
+     */
+    public record Stats(String name, long calls, Duration latency, double errorRate) {
+    }
+
+    private static final class Route {
+        private final Candidate candidate;
+        private final Timer succeeded;
+        private final Timer failed;
+        private long calls;
+        private double latencyNanos;
+        private double errorRate;
+        private long cooldownUntilNanos;
+
+        Route(Candidate candidate, Timer succeeded, Timer failed) {
+            this.candidate = candidate;
+            this.succeeded = succeeded;
+            this.failed = failed;
+        }
+
+        synchronized void succeeded(long nanos) {
+            latencyNanos = calls == 0 ? nanos : latencyNanos + SMOOTHING * (nanos - latencyNanos);
+            errorRate -= SMOOTHING * errorRate;
+            calls++;
+            succeeded.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        synchronized void failed(long nanos, long cooldownNanos) {
+            errorRate += SMOOTHING * (1 - errorRate);
+            calls++;
+            cooldownUntilNanos = System.nanoTime() + cooldownNanos;
+            failed.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        synchronized double score(long now) {
+            if (now < cooldownUntilNanos) {
+                return Double.MAX_VALUE;
+            }
+            return calls == 0 ? 0 : latencyNanos * (1 + ERROR_PENALTY * errorRate);
+        }
+
+        synchronized Stats stats() {
+            return new Stats(candidate.name(), calls, Duration.ofNanos((long) latencyNanos), errorRate);
+        }
+    }
+
+    /**
+     * Constructs a new RoutingChatModel.
+     *
+     * @param stage the pipeline stage the calls belong to, used as a metric tag
+     * @param candidates the models to route calls among, preferred first
+     * @param exploreRate the share of calls sent to a candidate other than the best one
+     * @param cooldown how long a candidate that failed is only tried after the others
+     * @param registry the registry publishing per-candidate call timers
+     */
+    public RoutingChatModel(String stage, List<Candidate> candidates, double exploreRate, Duration cooldown,
+                            MeterRegistry registry) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("At least one candidate model is required");
+        }
+        this.stage = stage;
+        this.exploreRate = exploreRate;
+        this.cooldownNanos = cooldown.toNanos();
+        this.routes = candidates.stream()
+                .map(candidate -> new Route(candidate,
+                        timer(registry, stage, candidate.name(), "success"),
+                        timer(registry, stage, candidate.name(), "error")))
+                .toList();
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        List<Route> order = rank();
+        RuntimeException failure = null;
+        for (int attempt = 0; attempt < Math.min(MAX_ATTEMPTS, order.size()); attempt++) {
+            Route route = order.get(attempt);
+            long start = System.nanoTime();
+            try {
+                ChatResponse response = route.candidate.model().chat(request);
+                route.succeeded(System.nanoTime() - start);
+                return response;
+            } catch (RuntimeException e) {
+                route.failed(System.nanoTime() - start, cooldownNanos);
+                logger.warn("{} call to {} failed: {}", stage, route.candidate.name(), e.getMessage());
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Get the live statistics of every candidate.
+     *
+     * @return the statistics, in configured order
+     */
+    public List<Stats> getStats() {
+        return routes.stream().map(Route::stats).toList();
+    }
+
+    /**
+     * Order the candidates for one call: best score first, ties in configured
+     * order, occasionally with a random other candidate moved to the front.
+     * Candidates in cooldown sort last and are never explored.
+     */
+    private List<Route> rank() {
+        if (routes.size() == 1) {
+            return routes;
+        }
+        long now = System.nanoTime();
+        Map<Route, Double> scores = new IdentityHashMap<>();
+        for (Route route : routes) {
+            scores.put(route, route.score(now));
+        }
+        List<Route> ranked = new ArrayList<>(routes);
+        ranked.sort(Comparator.comparingDouble(scores::get));
+        int available = (int) ranked.stream().filter(route -> scores.get(route) < Double.MAX_VALUE).count();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (available > 1 && random.nextDouble() < exploreRate) {
+            Collections.swap(ranked, 0, 1 + random.nextInt(available - 1));
+        }
+        return ranked;
+    }
+
+    private static Timer timer(MeterRegistry registry, String stage, String model, String outcome) {
+        return Timer.builder("medicaid.llm.calls")
+                .description("Latency of chat model calls, per stage, model and outcome")
+                .tag("stage", stage)
+                .tag("model", model)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
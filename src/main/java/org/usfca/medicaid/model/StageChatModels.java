@@ -0,0 +1,50 @@
+package org.usfca.medicaid.model;
+
+import dev.langchain4j.model.chat.ChatModel;
+import org.usfca.medicaid.config.ModelConfig.ChatStage;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The chat model of each pipeline stage, so that e.g. the short query rewrite
+ * can run on a cheaper or local model than the answer. The fast answer stage
+ * falls back to the answer model when it has none of its own.
+ */
+public class StageChatModels {
+
+    private final Map<ChatStage, ChatModel> models;
+
+    /**
+     * Constructs a new StageChatModels.
+     *
+     * @param models the model of each stage; the rewrite and answer stages are required
+     */
+    public StageChatModels(Map<ChatStage, ? extends ChatModel> models) {
+        if (!models.containsKey(ChatStage.REWRITE) || !models.containsKey(ChatStage.ANSWER)) {
+            throw new IllegalArgumentException("The rewrite and answer stages need a chat model");
+        }
+        this.models = new EnumMap<>(models);
+    }
+
+    /**
+     * Get the chat model of a stage.
+     *
+     * @param stage the pipeline stage
+     * @return the stage's model
+     */
+    public ChatModel get(ChatStage stage) {
+        ChatModel model = models.get(stage);
+        return model != null ? model : models.get(ChatStage.ANSWER);
+    }
+
+    /**
+     * Check whether a stage has a model of its own.
+     *
+     * @param stage the pipeline stage
+     * @return true if the stage does not fall back to another stage's model
+     */
+    public boolean has(ChatStage stage) {
+        return models.containsKey(stage);
+    }
+}
@@ -0,0 +1,114 @@
+package org.usfca.medicaid.parsing;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Pool of child JVMs parsing documents with Tika, so a pathological file can
+ * neither pin the application's cores nor exhaust its heap. Each worker runs
+ * with its own heap cap and is killed if a single parse exceeds the
+ * wall-clock timeout; a replacement is started for the next parse. Workers
+ * stay warm between documents, since starting one and loading the parsers
+ * into it takes seconds.
+ *
+ * <p>At most {@code workers} documents are parsed at once; further callers
+ * wait for a free worker. The parser classes are served to the children by
+ * this JVM's class loader, so no separate Tika installation is needed.
+ */
+public class TikaWorkerPool implements AutoCloseable {
+
+    private final ForkParser parser;
+    private final Semaphore slots;
+    private final int workers;
+    private final long timeoutMillis;
+
+    /**
+     * Constructs a new TikaWorkerPool. No worker is started until the first parse.
+     *
+     * @param workers the maximum number of documents parsed at once
+     * @param timeoutMillis the wall-clock limit for one parse
+     * @param heapMegabytes the maximum heap of each worker
+     * @param maxParsesPerWorker the number of documents after which a worker is replaced
+     */
+    public TikaWorkerPool(int workers, long timeoutMillis, int heapMegabytes, int maxParsesPerWorker) {
+        if (workers <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("workers and timeoutMillis must be positive");
+        }
+        this.workers = workers;
+        this.timeoutMillis = timeoutMillis;
+        this.slots = new Semaphore(workers, true);
+        this.parser = new ForkParser(TikaWorkerPool.class.getClassLoader(), new AutoDetectParser());
+        parser.setJavaCommand(List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx" + heapMegabytes + "m",
+                "-XX:+ExitOnOutOfMemoryError"));
+        parser.setPoolSize(workers);
+        parser.setServerParseTimeoutMillis(timeoutMillis);
+        parser.setMaxFilesProcessedPerServer(maxParsesPerWorker);
+    }
+
+    /**
+     * Parse a document in a worker, sending the XHTML SAX events to a handler
+     * in this JVM. Blocks while every worker is busy.
+     *
+     * @param stream the document content
+     * @param handler the handler receiving the parsed content
+     * @throws IOException if the stream cannot be read
+     * @throws SAXException if the handler fails
+     * @throws TikaException if the document cannot be parsed, or the worker
+     *         timed out or ran out of memory
+     */
+    public void parse(InputStream stream, ContentHandler handler) throws IOException, SAXException, TikaException {
+        // Callers queue here rather than inside ForkParser, which does not wake
+        // its waiting callers when it discards a crashed or timed-out worker.
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a Tika worker");
+        }
+        try {
+            parser.parse(stream, handler, new Metadata(), new ParseContext());
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Get the maximum number of documents parsed at once.
+     *
+     * @return the pool width
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Get the wall-clock limit for one parse.
+     *
+     * @return the timeout in milliseconds
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Stop every worker.
+     */
+    @Override
+    public void close() {
+        parser.close();
+    }
+}
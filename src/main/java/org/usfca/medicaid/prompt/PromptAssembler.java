@@ -0,0 +1,161 @@
+package org.usfca.medicaid.prompt;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assembles the chat messages of the query rewrite and answer calls.
+ * Every prompt starts with a system message holding the fixed instructions,
+ * identical for every question, followed by the conversation so far and only
+ * then the retrieved context and question, so that providers caching prompt
+ * prefixes can reuse the instructions across questions and the conversation
+ * across the turns of a session.
+ *
+ * <p>The variable parts are rendered from templates compiled once, into
+ * builders sized up front.
+ */
+public class PromptAssembler {
+
+    private static final String CONTEXT_SEPARATOR = "\n\n---\n\n";
+    private static final String USER_PREFIX = "User: ";
+    private static final String ASSISTANT_PREFIX = "Assistant: ";
+    private static final int HISTORY_MESSAGES = 5;
+
+    private static final SystemMessage ANSWER_INSTRUCTIONS = SystemMessage.from("""
+            You are a helpful assistant specializing in Minnesota Medicaid eligibility and benefits information.
+            Answer the user's question using the context from official Minnesota Medicaid documentation given with it.
+
+            Instructions:
+            1. Answer based ONLY on the provided context
+            2. If the context doesn't contain enough information to fully answer the question, say so
+            3. Consider the earlier conversation to understand follow-up questions: if the question refers to something mentioned earlier (like "Is there a specific program"), use the conversation to understand what they're asking about
+            4. Be specific about eligibility requirements, benefits, and processes
+            5. Include relevant contact information or next steps when appropriate
+            6. If discussing income limits, mention that they are subject to change and should be verified
+            7. Always remind users that this is general information and they should contact the Minnesota Department of Human Services for their specific situation""");
+
+    private static final PromptTemplate ANSWER_REQUEST = PromptTemplate.compile("""
+            Context:
+            {context}
+
+            User Question: {question}""", "context", "question");
+
+    private static final SystemMessage REWRITE_INSTRUCTIONS = SystemMessage.from("""
+            You are assisting with retrieval for a Minnesota Medicaid knowledge base.
+            Generate up to three alternative semantic search queries that would help retrieve context for answering the user.
+            Focus on transforming follow-up questions into standalone queries and expand acronyms where appropriate.
+
+            Output Format:
+            - Return only the new search queries, one per line.
+            - Do not number the queries or add explanations.
+            - If the original question is already clear, return a single identical line.""");
+
+    private static final PromptTemplate REWRITE_REQUEST = PromptTemplate.compile("""
+            Recent conversation context:
+            {history}
+
+            Original question: {question}""", "history", "question");
+
+    /**
+     * The messages of one model call and their sizes.
+     *
+     * @param messages the messages, instructions first
+     * @param instructionChars the length of the fixed instructions
+     * @param historyChars the length of the conversation turns
+     * @param requestChars the length of the final message with the context and question
+     */
+    public record Prompt(List<ChatMessage> messages, int instructionChars, int historyChars, int requestChars) {
+
+        /**
+         * Get the total length of the prompt.
+         *
+         * @return the length in characters
+         */
+        public int chars() {
+            return instructionChars + historyChars + requestChars;
+        }
+    }
+
+    /**
+     * Assemble the prompt of the answer call.
+     *
+     * @param context the context built from the retrieved segments
+     * @param question the user's question
+     * @param conversationHistory the conversation so far, possibly ending with the question itself
+     * @return the answer prompt
+     */
+    public Prompt answer(String context, String question, List<String> conversationHistory) {
+        List<String> turns = priorTurns(conversationHistory, question);
+        List<ChatMessage> messages = new ArrayList<>(turns.size() + 2);
+        messages.add(ANSWER_INSTRUCTIONS);
+        int historyChars = 0;
+        for (String turn : turns) {
+            if (turn.startsWith(ASSISTANT_PREFIX)) {
+                messages.add(AiMessage.from(turn.substring(ASSISTANT_PREFIX.length())));
+            } else {
+                messages.add(UserMessage.from(turn.startsWith(USER_PREFIX) ? turn.substring(USER_PREFIX.length()) : turn));
+            }
+            historyChars += turn.length();
+        }
+        String request = ANSWER_REQUEST.render(context, question);
+        messages.add(UserMessage.from(request));
+        return new Prompt(messages, ANSWER_INSTRUCTIONS.text().length(), historyChars, request.length());
+    }
+
+    /**
+     * Assemble the prompt of the query rewrite call.
+     *
+     * @param question the user's question
+     * @param conversationHistory the conversation so far, possibly ending with the question itself
+     * @return the rewrite prompt
+     */
+    public Prompt rewrite(String question, List<String> conversationHistory) {
+        List<String> turns = priorTurns(conversationHistory, question);
+        String history = turns.isEmpty() ? "None provided." : String.join("\n", turns);
+        String request = REWRITE_REQUEST.render(history, question);
+        return new Prompt(List.of(REWRITE_INSTRUCTIONS, UserMessage.from(request)),
+                REWRITE_INSTRUCTIONS.text().length(), 0, request.length());
+    }
+
+    /**
+     * Join the texts of the retrieved segments into the context of the answer prompt.
+     *
+     * @param segments the retrieved segments
+     * @return the segment texts separated by dividers
+     */
+    public String buildContext(List<TextSegment> segments) {
+        if (segments.isEmpty()) {
+            return "";
+        }
+        int length = CONTEXT_SEPARATOR.length() * (segments.size() - 1);
+        for (TextSegment segment : segments) {
+            length += segment.text().length();
+        }
+        StringBuilder context = new StringBuilder(length);
+        context.append(segments.get(0).text());
+        for (int i = 1; i < segments.size(); i++) {
+            context.append(CONTEXT_SEPARATOR).append(segments.get(i).text());
+        }
+        return context.toString();
+    }
+
+    /**
+     * Get the most recent turns before the current question.
+     */
+    private List<String> priorTurns(List<String> conversationHistory, String question) {
+        if (conversationHistory == null || conversationHistory.isEmpty()) {
+            return List.of();
+        }
+        int end = conversationHistory.size();
+        if (conversationHistory.get(end - 1).equals(USER_PREFIX + question)) {
+            end--;
+        }
+        return conversationHistory.subList(Math.max(0, end - HISTORY_MESSAGES), end);
+    }
+}
@@ -0,0 +1,82 @@
+package org.usfca.medicaid.prompt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A prompt text with named {@code {slot}} placeholders, split into literal
+ * fragments once when it is compiled. Rendering appends the fragments and
+ * values into a builder sized exactly up front, so no format string is parsed
+ * and no buffer is grown per request.
+ */
+public final class PromptTemplate {
+
+    private final String[] literals;
+    private final int[] slots;
+    private final int slotCount;
+    private final int literalLength;
+
+    private PromptTemplate(String[] literals, int[] slots, int slotCount) {
+        this.literals = literals;
+        this.slots = slots;
+        this.slotCount = slotCount;
+        this.literalLength = Arrays.stream(literals).mapToInt(String::length).sum();
+    }
+
+    /**
+     * Compile a template. Braces not naming one of the slots are kept as text.
+     *
+     * @param text the template text
+     * @param slotNames the names of the slots, in the order their values are passed to {@link #render}
+     * @return the compiled template
+     */
+    public static PromptTemplate compile(String text, String... slotNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < text.length()) {
+            int slot = -1;
+            int end = -1;
+            if (text.charAt(position) == '{') {
+                end = text.indexOf('}', position);
+                if (end > 0) {
+                    slot = Arrays.asList(slotNames).indexOf(text.substring(position + 1, end));
+                }
+            }
+            if (slot < 0) {
+                literal.append(text.charAt(position++));
+                continue;
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            slots.add(slot);
+            position = end + 1;
+        }
+        literals.add(literal.toString());
+        return new PromptTemplate(literals.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray(), slotNames.length);
+    }
+
+    /**
+     * Render the template.
+     *
+     * @param values the slot values, in the order the slots were named
+     * @return the rendered text
+     */
+    public String render(String... values) {
+        if (values.length != slotCount) {
+            throw new IllegalArgumentException("Expected " + slotCount + " values, got " + values.length);
+        }
+        int length = literalLength;
+        for (int slot : slots) {
+            length += values[slot].length();
+        }
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < slots.length; i++) {
+            text.append(literals[i]).append(values[slots[i]]);
+        }
+        return text.append(literals[slots.length]).toString();
+    }
+}
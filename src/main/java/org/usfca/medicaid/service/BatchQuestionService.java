@@ -0,0 +1,404 @@
+package org.usfca.medicaid.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.embedding.Embedding;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.usfca.medicaid.config.AppConfig;
+import org.usfca.medicaid.metrics.RagMetrics.Stage;
+import org.usfca.medicaid.service.DegradationPolicy.Budget;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers a file of questions without a user at the console, e.g. to draft
+ * FAQ answers or review answer quality in bulk.
+ *
+ * <p>Questions are read from a JSON Lines file, one {@code {"id": ..., "question": ...}}
+ * object per line, or from a CSV file with a {@code question} column and an
+ * optional {@code id} column. Without an ID, a question is identified by its
+ * line or row number. Several questions are answered at once, and the
+ * questions are embedded in batches shared across them, the next batch while
+ * the previous one is still being answered.
+ *
+ * <p>Each answer is appended to a JSON Lines output file as soon as it is
+ * ready, with its source document IDs and stage timings, and flushed. The
+ * output file is the checkpoint: a run started again with the same files
+ * skips every question already answered and retries those that failed.
+ */
+@Service
+@Lazy
+public class BatchQuestionService {
+
+    private static final int PROGRESS_INTERVAL = 50;
+
+    private final RagService ragService;
+    private final VectorStoreService vectorStoreService;
+    private final DegradationPolicy degradationPolicy;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * A question to answer.
+     *
+     * @param id the question's ID, unique in its file
+     * @param text the question
+     */
+    public record Question(String id, String text) {
+    }
+
+    /**
+     * The counts of one batch run.
+     *
+     * @param total the number of questions in the input file
+     * @param skipped the number already answered by an earlier run
+     * @param answered the number answered in this run
+     * @param failed the number that failed in this run
+     * @param elapsed the duration of this run
+     */
+    public record Summary(int total, int skipped, int answered, int failed, Duration elapsed) {
+    }
+
+    /**
+     * Constructs a new BatchQuestionService.
+     *
+     * @param ragService the RAG service used to generate answers
+     * @param vectorStoreService the vector store service used to embed questions
+     * @param degradationPolicy the policy handing out the budgets that time each stage
+     */
+    public BatchQuestionService(RagService ragService, VectorStoreService vectorStoreService,
+                                DegradationPolicy degradationPolicy) {
+        this.ragService = ragService;
+        this.vectorStoreService = vectorStoreService;
+        this.degradationPolicy = degradationPolicy;
+    }
+
+    /**
+     * Answer the questions of an input file that the output file has no answer
+     * for yet, appending the answers to the output file. Questions go through
+     * the full pipeline without the FAQ tier and without a time budget, so
+     * every answer is generated fresh at full quality.
+     *
+     * @param input the JSON Lines or CSV question file
+     * @param output the JSON Lines answer file, created if missing
+     * @return the run counts
+     * @throws IOException if a file cannot be read or written
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public Summary run(Path input, Path output) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        List<Question> questions = readQuestions(input);
+        Set<String> completed = readCompleted(output);
+        List<Question> pending = questions.stream()
+                .filter(question -> !completed.contains(question.id()))
+                .toList();
+
+        int concurrency = Math.max(1, AppConfig.getBatchConcurrency());
+        int embeddingSize = Math.max(1, AppConfig.getBatchEmbeddingSize());
+        System.out.println("📋 " + questions.size() + " questions, " + (questions.size() - pending.size())
+                + " already answered; answering " + pending.size() + " with concurrency " + concurrency);
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        AtomicInteger answered = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Semaphore slots = new Semaphore(concurrency);
+        AtomicInteger workerId = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "batch-" + workerId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            try {
+                for (int from = 0; from < pending.size(); from += embeddingSize) {
+                    List<Question> batch = pending.subList(from, Math.min(pending.size(), from + embeddingSize));
+                    Map<String, Embedding> embeddings = embedQuestions(batch);
+                    for (Question question : batch) {
+                        slots.acquire();
+                        workers.execute(() -> {
+                            try {
+                                Map<String, Object> record = answer(question, embeddings.get(question.text()));
+                                (record.containsKey("error") ? failed : answered).incrementAndGet();
+                                write(writer, record);
+                                reportProgress(answered.get() + failed.get(), pending.size(), start);
+                            } finally {
+                                slots.release();
+                            }
+                        });
+                    }
+                }
+                slots.acquire(concurrency);
+            } finally {
+                workers.shutdownNow();
+                workers.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        }
+
+        Summary summary = new Summary(questions.size(), questions.size() - pending.size(), answered.get(),
+                failed.get(), Duration.ofNanos(System.nanoTime() - start));
+        System.out.printf("✅ Answered %d questions in %.1f s (%d failed, %d skipped); answers in %s%n",
+                summary.answered(), summary.elapsed().toMillis() / 1000.0, summary.failed(), summary.skipped(), output);
+        return summary;
+    }
+
+    /**
+     * Read the questions of a file, as CSV if its name ends in .csv and as
+     * JSON Lines otherwise.
+     *
+     * @param input the question file
+     * @return the questions, in file order
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a question has no text or two questions share an ID
+     */
+    public List<Question> readQuestions(Path input) throws IOException {
+        String content = Files.readString(input, StandardCharsets.UTF_8);
+        List<Question> questions = input.getFileName().toString().toLowerCase().endsWith(".csv")
+                ? parseCsvQuestions(content)
+                : parseJsonLinesQuestions(content);
+
+        Set<String> ids = new HashSet<>();
+        for (Question question : questions) {
+            if (!ids.add(question.id())) {
+                throw new IllegalArgumentException("Duplicate question ID in " + input + ": " + question.id());
+            }
+        }
+        return questions;
+    }
+
+    /**
+     * Answer one question, turning a failure into an error record.
+     *
+     * @param question the question
+     * @param embedding the question's embedding, or null if its batch could not be embedded
+     * @return the output record
+     */
+    private Map<String, Object> answer(Question question, Embedding embedding) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", question.id());
+        record.put("question", question.text());
+        long start = System.nanoTime();
+        try (Budget budget = degradationPolicy.unlimited()) {
+            try {
+                RagService.Answer answer = ragService.generateAnswer(question.text(), embedding, budget);
+                record.put("answer", answer.text());
+                record.put("sources", answer.sourceDocumentIds());
+            } catch (Exception e) {
+                System.err.println("❌ Error answering question " + question.id() + ": " + e.getMessage());
+                record.put("error", String.valueOf(e.getMessage()));
+            }
+            record.put("millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            Map<String, Long> stages = new LinkedHashMap<>();
+            for (Map.Entry<Stage, Duration> stage : budget.getStageTimes().entrySet()) {
+                stages.put(stage.getKey().tag(), stage.getValue().toMillis());
+            }
+            record.put("stages", stages);
+        }
+        return record;
+    }
+
+    /**
+     * Embed the distinct questions of a batch in one call.
+     * On failure every question of the batch is embedded by its own pipeline instead.
+     *
+     * @param batch the questions
+     * @return the embeddings keyed by question text
+     */
+    private Map<String, Embedding> embedQuestions(List<Question> batch) {
+        List<String> texts = batch.stream().map(Question::text).distinct().toList();
+        try {
+            return vectorStoreService.embedQueries(texts);
+        } catch (Exception e) {
+            System.err.println("⚠️  Could not embed " + texts.size() + " questions together: " + e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Append a record to the output file and flush it, so the answer survives
+     * the run being interrupted.
+     */
+    private void write(Writer writer, Map<String, Object> record) {
+        try {
+            String line = objectMapper.writeValueAsString(record) + "\n";
+            synchronized (writer) {
+                writer.write(line);
+                writer.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error writing answer for question " + record.get("id") + ": " + e.getMessage());
+        }
+    }
+
+    private void reportProgress(int done, int total, long startNanos) {
+        if (done % PROGRESS_INTERVAL == 0 || done == total) {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            System.out.printf("⏳ %d/%d questions done (%.1f per second)%n", done, total, done / seconds);
+        }
+    }
+
+    /**
+     * Get the IDs of the questions an output file holds an answer for. A last
+     * line cut short by an interrupted run is removed from the file, so that
+     * the next record starts on a line of its own.
+     *
+     * @param output the answer file
+     * @return the IDs of answered questions; failed questions are not included
+     * @throws IOException if the file cannot be read or repaired
+     */
+    Set<String> readCompleted(Path output) throws IOException {
+        Set<String> completed = new HashSet<>();
+        if (!Files.exists(output)) {
+            return completed;
+        }
+
+        byte[] bytes = Files.readAllBytes(output);
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        if (end < bytes.length) {
+            System.out.println("⚠️  Removing an incomplete last answer from " + output);
+            try (FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+                channel.truncate(end);
+            }
+        }
+
+        for (String line : new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode record = objectMapper.readTree(line);
+            if (!record.has("error")) {
+                completed.add(record.path("id").asText());
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Parse questions from JSON Lines, skipping blank lines.
+     *
+     * @param content the file content
+     * @return the questions
+     * @throws IOException if a line is not valid JSON
+     */
+    List<Question> parseJsonLinesQuestions(String content) throws IOException {
+        List<Question> questions = new ArrayList<>();
+        String[] lines = content.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].isBlank()) {
+                continue;
+            }
+            JsonNode record = objectMapper.readTree(lines[i]);
+            String lineNumber = String.valueOf(i + 1);
+            questions.add(question(record.path("id").asText(lineNumber), record.path("question").asText(""),
+                    "line " + lineNumber));
+        }
+        return questions;
+    }
+
+    /**
+     * Parse questions from CSV. If the first row names a {@code question}
+     * column it is read as the header; otherwise every row is a question in
+     * its first column.
+     *
+     * @param content the file content
+     * @return the questions
+     */
+    List<Question> parseCsvQuestions(String content) {
+        List<List<String>> rows = parseCsv(content);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> header = rows.get(0).stream().map(column -> column.trim().toLowerCase()).toList();
+        int questionColumn = header.indexOf("question");
+        int idColumn = header.indexOf("id");
+        int firstRow = questionColumn >= 0 ? 1 : 0;
+        questionColumn = Math.max(questionColumn, 0);
+
+        List<Question> questions = new ArrayList<>();
+        for (int i = firstRow; i < rows.size(); i++) {
+            List<String> row = rows.get(i);
+            if (row.size() == 1 && row.get(0).isBlank()) {
+                continue;
+            }
+            String rowNumber = String.valueOf(i + 1);
+            String id = idColumn >= 0 && idColumn < row.size() && !row.get(idColumn).isBlank()
+                    ? row.get(idColumn).trim() : rowNumber;
+            questions.add(question(id, questionColumn < row.size() ? row.get(questionColumn) : "", "row " + rowNumber));
+        }
+        return questions;
+    }
+
+    private static Question question(String id, String text, String location) {
+        if (text.isBlank()) {
+            throw new IllegalArgumentException("No question text on " + location);
+        }
+        return new Question(id, text.trim());
+    }
+
+    /**
+     * Split CSV content into rows of fields. Fields may be quoted, with
+     * doubled quotes for a quote, and quoted fields may span lines.
+     *
+     * @param content the CSV content
+     * @return the rows
+     */
+    static List<List<String>> parseCsv(String content) {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < content.length() && content.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                row.add(field.toString());
+                field.setLength(0);
+                rows.add(row);
+                row = new ArrayList<>();
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        if (field.length() > 0 || !row.isEmpty()) {
+            row.add(field.toString());
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,431 @@
+package org.usfca.medicaid.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.usfca.medicaid.config.AppConfig;
+import org.usfca.medicaid.config.ModelConfig;
+import org.usfca.medicaid.config.ModelConfig.ChatStage;
+import org.usfca.medicaid.metrics.RagMetrics;
+import org.usfca.medicaid.metrics.RagMetrics.Stage;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Decides how much of the RAG pipeline a question can afford. Every question
+ * gets a time budget; before each stage the time left is compared with the
+ * recent latency of the stages still to run, and if it falls short the
+ * pipeline degrades one step at a time, mildest first: skip the query
+ * rewrite, search fewer queries, retrieve a smaller context, answer with the
+ * fast model. Steps are also taken up front when more questions are in flight
+ * than the configured limit, so an overloaded instance answers every question
+ * a little worse instead of timing out on some.
+ *
+ * <p>Latencies are exponentially weighted averages over all questions. A
+ * stage without samples is assumed to be free, so nothing is degraded until
+ * the provider has actually been slow. Since a degraded question no longer
+ * runs the stages it skipped, their averages would never improve; so an
+ * average fades toward unknown with the time since its last sample, and a
+ * small share of questions (probes) run the full pipeline regardless of the
+ * budget. Either way the full path is tried again once the provider recovers.
+ */
+@Service
+public class DegradationPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(DegradationPolicy.class);
+
+    private static final double SMOOTHING = 0.2;
+    private static final int MAX_QUERIES = 4;
+
+    /**
+     * Degradation steps, mildest first.
+     */
+    public enum Step {
+        SKIP_REWRITE("skip_rewrite"),
+        FEWER_QUERIES("fewer_queries"),
+        SMALLER_CONTEXT("smaller_context"),
+        FAST_MODEL("fast_model");
+
+        private final String tag;
+
+        Step(String tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * Get the value of the step tag.
+         *
+         * @return the tag value
+         */
+        public String tag() {
+            return tag;
+        }
+    }
+
+    /**
+     * Why a step was taken.
+     */
+    public enum Reason {
+        /** The time left in the question's budget is too short for the remaining stages. */
+        BUDGET("budget"),
+        /** The remaining stages alone take longer than a whole budget. */
+        LATENCY("latency"),
+        /** More questions are in flight than the configured limit. */
+        QUEUE("queue");
+
+        private final String tag;
+
+        Reason(String tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * Get the value of the reason tag.
+         *
+         * @return the tag value
+         */
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private final RagMetrics metrics;
+    private final long budgetNanos;
+    private final int maxInFlight;
+    private final int degradedMaxQueries;
+    private final int degradedTopK;
+    private final int degradedContextChars;
+    private final boolean fastModel;
+    private final double probeRate;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Stage, Average> latencies = new EnumMap<>(Stage.class);
+    // Answer latency per combination of SMALLER_CONTEXT (bit 0) and FAST_MODEL (bit 1).
+    private final Average[] answerLatencies = new Average[4];
+
+    /**
+     * Constructs a new DegradationPolicy with the configured budget, limits and fast model.
+     *
+     * @param metrics the pipeline instrumentation
+     */
+    public DegradationPolicy(RagMetrics metrics) {
+        this(metrics, AppConfig.getRequestBudget().toMillis(), AppConfig.getMaxInFlightQuestions(),
+                AppConfig.getDegradedMaxQueries(), AppConfig.getDegradedTopK(),
+                AppConfig.getDegradedContextChars(), ModelConfig.isStageConfigured(ChatStage.FAST_ANSWER),
+                AppConfig.getDegradationHalfLife(), AppConfig.getDegradationProbeRate());
+    }
+
+    /**
+     * Constructs a new DegradationPolicy.
+     *
+     * @param metrics the pipeline instrumentation
+     * @param budgetMillis the time budget of one question, or 0 for none
+     * @param maxInFlight the number of questions answered at once before degrading, or 0 for no limit
+     * @param degradedMaxQueries the number of search queries kept by {@link Step#FEWER_QUERIES}
+     * @param degradedTopK the top-k of each search under {@link Step#SMALLER_CONTEXT}
+     * @param degradedContextChars the context size under {@link Step#SMALLER_CONTEXT}
+     * @param fastModel whether a faster chat model is available for {@link Step#FAST_MODEL}
+     * @param halfLife the time after which an average not sampled again counts half, or zero to keep it
+     * @param probeRate the share of questions that run the full pipeline regardless of the budget
+     */
+    public DegradationPolicy(RagMetrics metrics, long budgetMillis, int maxInFlight, int degradedMaxQueries,
+                             int degradedTopK, int degradedContextChars, boolean fastModel,
+                             Duration halfLife, double probeRate) {
+        this.metrics = metrics;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.maxInFlight = maxInFlight;
+        this.degradedMaxQueries = Math.max(1, degradedMaxQueries);
+        this.degradedTopK = Math.max(1, degradedTopK);
+        this.degradedContextChars = degradedContextChars;
+        this.fastModel = fastModel;
+        this.probeRate = probeRate;
+        long halfLifeNanos = halfLife.toNanos();
+        for (Stage stage : Stage.values()) {
+            latencies.put(stage, new Average(halfLifeNanos));
+        }
+        for (int i = 0; i < answerLatencies.length; i++) {
+            answerLatencies[i] = new Average(halfLifeNanos);
+        }
+        metrics.gaugeInFlight(inFlight);
+    }
+
+    /**
+     * Start answering a question within the configured budget. The returned
+     * budget counts as in flight until it is closed. A probe question keeps
+     * its deadline but is only degraded for the queue, not for latency.
+     *
+     * @return the question's budget
+     */
+    public Budget begin() {
+        int questions = inFlight.incrementAndGet();
+        boolean probe = probeRate > 0 && ThreadLocalRandom.current().nextDouble() < probeRate;
+        Budget budget = new Budget(budgetNanos > 0 ? System.nanoTime() + budgetNanos : Long.MAX_VALUE, true, probe);
+        if (maxInFlight > 0 && questions > maxInFlight) {
+            // One step over the limit, and one more for each further half of it.
+            budget.degradeForQueue(1 + (questions - maxInFlight - 1) * 2 / maxInFlight);
+        }
+        return budget;
+    }
+
+    /**
+     * Start answering a question without a deadline, e.g. to precompute an
+     * answer. The pipeline is never degraded, but its latencies are still observed.
+     *
+     * @return a budget that never runs out
+     */
+    public Budget unlimited() {
+        return new Budget(Long.MAX_VALUE, false, false);
+    }
+
+    /**
+     * Get the number of questions currently being answered.
+     *
+     * @return the in-flight count
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * The time budget of one question and the steps it has been degraded by.
+     * A budget is used by a single thread.
+     */
+    public final class Budget implements AutoCloseable {
+
+        private final long deadlineNanos;
+        private final boolean counted;
+        private final boolean probe;
+        private final EnumSet<Step> steps = EnumSet.noneOf(Step.class);
+        private final Map<Stage, Duration> stageTimes = new EnumMap<>(Stage.class);
+        private int plannedQueries = -1;
+        private boolean closed;
+
+        private Budget(long deadlineNanos, boolean counted, boolean probe) {
+            this.deadlineNanos = deadlineNanos;
+            this.counted = counted;
+            this.probe = probe;
+        }
+
+        /**
+         * Decide whether the query rewrite fits in the budget. Call before rewriting.
+         *
+         * @return true if the question should be rewritten
+         */
+        public boolean allowRewrite() {
+            degrade(Step.SKIP_REWRITE);
+            return !steps.contains(Step.SKIP_REWRITE);
+        }
+
+        /**
+         * Decide how many search queries fit in the budget, and whether the
+         * context must be smaller. Call before searching.
+         *
+         * @param queries the number of queries available, the original question first
+         * @return the number of queries to search
+         */
+        public int limitQueries(int queries) {
+            plannedQueries = queries;
+            degrade(Step.FEWER_QUERIES);
+            return steps.contains(Step.FEWER_QUERIES) ? Math.min(queries, degradedMaxQueries) : queries;
+        }
+
+        /**
+         * Get the top-k of each search.
+         *
+         * @param topK the configured top-k
+         * @return the top-k to search with
+         */
+        public int limitTopK(int topK) {
+            return steps.contains(Step.SMALLER_CONTEXT) ? Math.min(topK, degradedTopK) : topK;
+        }
+
+        /**
+         * Decide how much context, and which model, the answer can afford.
+         * Call before building the answer prompt.
+         *
+         * @return the maximum context length in characters
+         */
+        public int limitContextChars() {
+            degrade(Step.SMALLER_CONTEXT);
+            return steps.contains(Step.SMALLER_CONTEXT) ? degradedContextChars : Integer.MAX_VALUE;
+        }
+
+        /**
+         * Check whether the answer should come from the fast model.
+         *
+         * @return true if degraded to the fast model
+         */
+        public boolean useFastModel() {
+            return steps.contains(Step.FAST_MODEL);
+        }
+
+        /**
+         * Time a stage, recording its latency both in the pipeline metrics and
+         * in the averages later budgets are planned with.
+         *
+         * @param stage the stage being run
+         * @param call the work of the stage
+         * @param <T> the result type
+         * @return the result of the call
+         */
+        public <T> T time(Stage stage, Supplier<T> call) {
+            Average average = stage == Stage.ANSWER ? answerLatencies[answerVariant()] : latencies.get(stage);
+            long start = System.nanoTime();
+            try {
+                return metrics.time(stage, call);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                average.add(nanos);
+                stageTimes.merge(stage, Duration.ofNanos(nanos), Duration::plus);
+            }
+        }
+
+        /**
+         * Get the time the question has spent in each stage so far.
+         *
+         * @return the total time of each stage that ran, in pipeline order
+         */
+        public Map<Stage, Duration> getStageTimes() {
+            return Collections.unmodifiableMap(stageTimes);
+        }
+
+        /**
+         * Get the steps the question has been degraded by.
+         *
+         * @return the steps taken, mildest first
+         */
+        public List<Step> getSteps() {
+            return List.copyOf(steps);
+        }
+
+        /**
+         * Stop counting the question as in flight.
+         */
+        @Override
+        public void close() {
+            if (counted && !closed) {
+                closed = true;
+                inFlight.decrementAndGet();
+            }
+        }
+
+        private void degradeForQueue(int count) {
+            for (Step step : Step.values()) {
+                if (count == 0) {
+                    return;
+                }
+                if (isApplicable(step)) {
+                    apply(step, Reason.QUEUE);
+                    count--;
+                }
+            }
+        }
+
+        /**
+         * Take steps, starting at the given one, until the estimated time of
+         * the remaining stages fits in the time left.
+         */
+        private void degrade(Step first) {
+            if (deadlineNanos == Long.MAX_VALUE || probe) {
+                return;
+            }
+            for (Step step : Step.values()) {
+                if (step.ordinal() < first.ordinal() || !isApplicable(step)) {
+                    continue;
+                }
+                long estimate = estimateRemaining(first);
+                if (estimate <= deadlineNanos - System.nanoTime()) {
+                    return;
+                }
+                apply(step, estimate > budgetNanos ? Reason.LATENCY : Reason.BUDGET);
+            }
+        }
+
+        private boolean isApplicable(Step step) {
+            if (steps.contains(step)) {
+                return false;
+            }
+            return switch (step) {
+                case SKIP_REWRITE -> plannedQueries < 0;
+                case FEWER_QUERIES -> effectiveQueries() > degradedMaxQueries;
+                case SMALLER_CONTEXT -> true;
+                case FAST_MODEL -> fastModel;
+            };
+        }
+
+        private void apply(Step step, Reason reason) {
+            steps.add(step);
+            metrics.recordDegradation(step.tag(), reason.tag());
+            logger.debug("Degrading question: {} ({})", step.tag(), reason.tag());
+        }
+
+        /**
+         * Estimate the time of the stages from the given checkpoint on, with the steps taken so far.
+         */
+        private long estimateRemaining(Step checkpoint) {
+            double estimate = 0;
+            if (checkpoint == Step.SKIP_REWRITE) {
+                if (!steps.contains(Step.SKIP_REWRITE)) {
+                    estimate += latencies.get(Stage.REWRITE).get();
+                }
+                estimate += latencies.get(Stage.EMBEDDING).get();
+            }
+            if (checkpoint.ordinal() <= Step.FEWER_QUERIES.ordinal()) {
+                estimate += latencies.get(Stage.VECTOR_SEARCH).get() * effectiveQueries();
+            }
+            estimate += answerLatencies[answerVariant()].get();
+            return (long) estimate;
+        }
+
+        private int effectiveQueries() {
+            int queries = plannedQueries >= 0 ? plannedQueries
+                    : steps.contains(Step.SKIP_REWRITE) ? 1 : MAX_QUERIES;
+            return steps.contains(Step.FEWER_QUERIES) ? Math.min(queries, degradedMaxQueries) : queries;
+        }
+
+        private int answerVariant() {
+            return (steps.contains(Step.SMALLER_CONTEXT) ? 1 : 0) | (steps.contains(Step.FAST_MODEL) ? 2 : 0);
+        }
+    }
+
+    /**
+     * Exponentially weighted moving average of a stage's latency that fades
+     * toward unknown (zero) with the time since its last sample. A new sample
+     * is weighted against the faded average, so the first one after a long
+     * gap replaces it instead of being smoothed away.
+     */
+    private static final class Average {
+        private final long halfLifeNanos;
+        private double nanos;
+        private long sampledAt;
+        private boolean sampled;
+
+        Average(long halfLifeNanos) {
+            this.halfLifeNanos = halfLifeNanos;
+        }
+
+        synchronized void add(long sample) {
+            long now = System.nanoTime();
+            double weight = sampled ? (1 - SMOOTHING) * confidence(now) : 0;
+            nanos = sample + weight * (nanos - sample);
+            sampledAt = now;
+            sampled = true;
+        }
+
+        synchronized double get() {
+            return sampled ? nanos * confidence(System.nanoTime()) : 0;
+        }
+
+        private double confidence(long now) {
+            return halfLifeNanos > 0 ? Math.pow(0.5, (double) (now - sampledAt) / halfLifeNanos) : 1;
+        }
+    }
+}
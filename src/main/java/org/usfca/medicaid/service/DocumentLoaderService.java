@@ -4,50 +4,68 @@ import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.Metadata;
 import org.apache.tika.Tika;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.ToXMLContentHandler;
+import org.apache.tika.sax.WriteOutContentHandler;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
 import org.jsoup.select.Elements;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.usfca.medicaid.config.DocumentConfig;
+import org.usfca.medicaid.config.StartupTimer;
+import org.usfca.medicaid.crawl.DocumentCrawler;
+import org.usfca.medicaid.jfr.DocumentFetchEvent;
+import org.usfca.medicaid.jfr.DocumentParseEvent;
+import org.usfca.medicaid.parsing.TikaWorkerPool;
+import org.xml.sax.SAXException;
 
 import java.io.ByteArrayInputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Service for loading documents from various sources including URLs, PDFs,
  * text files, and other file types.
+ * Created lazily, since chat-only instances never ingest documents.
  */
 @Service
-public class DocumentLoaderService {
+@Lazy
+public class DocumentLoaderService implements AutoCloseable {
     
-    private final Tika tika;
-    private final Random random;
+    private volatile Tika tika;
+    private volatile TikaWorkerPool workerPool;
     private final Map<String, String> cookies;
-    private final String[] userAgents;
     
     /**
-     * Constructs a new DocumentLoaderService with an initialized Tika instance.
+     * Constructs a new DocumentLoaderService.
+     * The Tika instance is created on first parse, as loading the parser
+     * registry is the most expensive part of startup.
      */
     public DocumentLoaderService() {
-        this.tika = new Tika();
-        this.random = new Random();
-        this.cookies = new HashMap<>();
-        this.userAgents = new String[]{
-            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
-            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
-            "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
-            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.1 Safari/605.1.15"
-        };
+        this.cookies = new ConcurrentHashMap<>();
     }
 
     /**
@@ -56,26 +74,137 @@ public class DocumentLoaderService {
      * @return a list of loaded documents
      */
     public List<Document> loadDocuments() {
+        return loadDocuments(new IngestionReport());
+    }
+
+    /**
+     * Load all documents from DocumentConfig, recording fetch and parse
+     * statistics and any skipped or failed sources in the report.
+     *
+     * @param report the report of the current ingestion run
+     * @return a list of loaded documents
+     */
+    public List<Document> loadDocuments(IngestionReport report) {
+        List<Document> documents = new ArrayList<>();
+        loadDocuments(report, documents::add);
+        return documents;
+    }
+
+    /**
+     * Load all documents from DocumentConfig, handing each one to a sink as
+     * soon as it is loaded, so it can be embedded while further sources are
+     * fetched. Local files are loaded first, up to MEDICAID_TIKA_WORKERS at
+     * once; URL sources seed a crawl that follows allow-listed links up to
+     * MEDICAID_CRAWL_MAX_DEPTH.
+     *
+     * @param report the report of the current ingestion run
+     * @param sink receives the loaded documents, on the calling thread
+     */
+    public void loadDocuments(IngestionReport report, Consumer<Document> sink) {
         List<String> sources = DocumentConfig.getDocumentSources();
+        List<String> files = new ArrayList<>();
+        List<String> urls = new ArrayList<>();
         
         System.out.println("📚 Loading " + sources.size() + " documents from various sources...");
         
-        List<Document> documents = new ArrayList<>();
+        for (String source : sources) {
+            if (source.startsWith("http://") || source.startsWith("https://")) {
+                urls.add(source);
+            } else {
+                files.add(source);
+            }
+        }
+        loadFiles(files, report, sink);
         
-        for (int i = 0; i < sources.size(); i++) {
-            String source = sources.get(i);
+        if (!urls.isEmpty()) {
+            DocumentCrawler crawler = new DocumentCrawler(this::fetchPage, DocumentConfig.getCrawlAllowedPrefixes(),
+                    DocumentConfig.getCrawlUserAgent(), DocumentConfig.getCrawlConcurrency(),
+                    DocumentConfig.getCrawlMaxDepth(), DocumentConfig.getCrawlMaxPages(),
+                    DocumentConfig.getCrawlHostDelayMillis());
             try {
-                Document document = loadDocument(source);
-                if (document != null) {
-                    documents.add(document);
-                    System.out.println("✅ Successfully loaded: " + source);
+                crawler.crawl(urls, report, sink);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println("❌ Crawl interrupted");
+            }
+        }
+    }
+    
+    /**
+     * Load local files in up to MEDICAID_TIKA_WORKERS threads, handing each
+     * document to the sink on the calling thread once it is parsed. At most
+     * that many files are being parsed or waiting for the sink at once, so a
+     * slow sink throttles parsing.
+     */
+    private void loadFiles(List<String> files, IngestionReport report, Consumer<Document> sink) {
+        if (files.isEmpty()) {
+            return;
+        }
+        int width = Math.min(DocumentConfig.getTikaWorkers(), files.size());
+        AtomicInteger loaderId = new AtomicInteger();
+        ExecutorService loaders = Executors.newFixedThreadPool(width, runnable -> {
+            Thread thread = new Thread(runnable, "document-loader-" + loaderId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Document> loaded = new ExecutorCompletionService<>(loaders);
+        int pending = 0;
+        try {
+            for (String source : files) {
+                if (pending == width) {
+                    handOver(loaded.take(), sink);
+                    pending--;
                 }
-            } catch (Exception e) {
-                System.err.println("❌ Error loading " + source + ": " + e.getMessage());
+                IngestionReport.SourceReport sourceReport = report.source(source);
+                loaded.submit(() -> loadFile(source, sourceReport));
+                pending++;
             }
+            for (; pending > 0; pending--) {
+                handOver(loaded.take(), sink);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Loading documents interrupted");
+        } finally {
+            loaders.shutdownNow();
+        }
+    }
+
+    /**
+     * Load one local file, recording a skip or failure in its report entry.
+     *
+     * @return the document, or null if the file was skipped or failed
+     */
+    private Document loadFile(String source, IngestionReport.SourceReport sourceReport) {
+        try {
+            Document document = loadDocument(source, sourceReport);
+            if (document != null) {
+                System.out.println("✅ Successfully loaded: " + source);
+            }
+            return document;
+        } catch (SourceSkippedException e) {
+            sourceReport.skipped(e.getMessage());
+            System.out.println("⚠️  Skipped " + source + ": " + e.getMessage());
+        } catch (Exception e) {
+            sourceReport.failed("load", e);
+            System.err.println("❌ Error loading " + source + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Hand a loaded file's document, if any, to the sink.
+     */
+    private static void handOver(Future<Document> file, Consumer<Document> sink) throws InterruptedException {
+        Document document;
+        try {
+            document = file.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not load document: " + e.getCause().getMessage(), e.getCause());
+        }
+        if (document != null) {
+            sink.accept(document);
         }
-        
-        return documents;
     }
     
     /**
@@ -88,14 +217,28 @@ public class DocumentLoaderService {
      * @throws TikaException if document parsing fails
      */
     public Document loadDocument(String source) throws IOException, TikaException {
+        return loadDocument(source, new IngestionReport().source(source));
+    }
+
+    /**
+     * Load a single document, recording fetch and parse statistics.
+     *
+     * @param source the source path or URL
+     * @param report the report entry for this source
+     * @return the loaded document
+     * @throws SourceSkippedException if the source has no usable content
+     * @throws IOException if an I/O error occurs
+     * @throws TikaException if document parsing fails
+     */
+    public Document loadDocument(String source, IngestionReport.SourceReport report) throws IOException, TikaException {
         if (source.startsWith("http://") || source.startsWith("https://")) {
-            return loadFromUrl(source);
+            return loadFromUrl(source, report);
         } else if (source.toLowerCase().endsWith(".pdf")) {
-            return loadFromPdfFile(source);
+            return loadFromPdfFile(source, report);
         } else if (source.toLowerCase().endsWith(".txt")) {
-            return loadFromTextFile(source);
+            return loadFromTextFile(source, report);
         } else {
-            return loadFromFile(source);
+            return loadFromFile(source, report);
         }
     }
     
@@ -103,28 +246,36 @@ public class DocumentLoaderService {
      * Load content from a URL using JSoup.
      *
      * @param url the URL to load content from
+     * @param report the report entry for this source
      * @return a document containing the web page content
      * @throws IOException if the URL cannot be accessed or parsed
      */
-    private Document loadFromUrl(String url) throws IOException {
-        System.out.println("🌐 Loading content from URL: " + url);
+    private Document loadFromUrl(String url, IngestionReport.SourceReport report) throws IOException {
+        return fetchPage(url, report).document();
+    }
 
-        String randomUserAgent = userAgents[random.nextInt(userAgents.length)];
+    /**
+     * Load content from a URL along with the links of an HTML page, for crawling.
+     * Requests identify the crawler with MEDICAID_CRAWL_USER_AGENT, the same
+     * token its robots.txt rules are matched against.
+     *
+     * @param url the URL to load content from
+     * @param report the report entry for this source
+     * @return the page's document, its URL after redirects and its links
+     * @throws IOException if the URL cannot be accessed or parsed
+     */
+    public DocumentCrawler.Page fetchPage(String url, IngestionReport.SourceReport report) throws IOException {
+        System.out.println("🌐 Loading content from URL: " + url);
 
+        long fetchStart = System.nanoTime();
+        DocumentFetchEvent fetchEvent = new DocumentFetchEvent();
+        fetchEvent.begin();
         org.jsoup.Connection.Response response = Jsoup.connect(url)
-                .userAgent(randomUserAgent)
-                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,application/pdf;q=0.9,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.7")
+                .userAgent(DocumentConfig.getCrawlUserAgent())
+                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,application/pdf;q=0.9,*/*;q=0.8")
                 .header("Accept-Language", "en-US,en;q=0.9")
-                .header("Accept-Encoding", "gzip, deflate, br")
+                .header("Accept-Encoding", "gzip, deflate")
                 .header("Connection", "keep-alive")
-                .header("Upgrade-Insecure-Requests", "1")
-                .header("Sec-Fetch-Dest", "document")
-                .header("Sec-Fetch-Mode", "navigate")
-                .header("Sec-Fetch-Site", "none")
-                .header("Sec-Fetch-User", "?1")
-                .header("Cache-Control", "max-age=0")
-                .header("DNT", "1")
-                .referrer("https://www.google.com/")
                 .ignoreContentType(true)
                 .cookies(cookies)
                 .timeout(60000)
@@ -133,20 +284,26 @@ public class DocumentLoaderService {
                 .execute();
 
         cookies.putAll(response.cookies());
+        byte[] body = response.bodyAsBytes();
+        report.addFetch(System.nanoTime() - fetchStart, body.length);
+        fetchEvent.finish(url, body.length);
         
         String contentType = response.contentType() != null ? response.contentType().toLowerCase() : "";
 
+        long parseStart = System.nanoTime();
+        DocumentParseEvent parseEvent = new DocumentParseEvent();
+        parseEvent.begin();
         if (contentType.contains("pdf") || url.toLowerCase().endsWith(".pdf")) {
-            try (InputStream pdfStream = new ByteArrayInputStream(response.bodyAsBytes())) {
-                String pdfContent = tika.parseToString(pdfStream);
+            try (InputStream pdfStream = new ByteArrayInputStream(body)) {
+                String pdfContent = parseStructured(pdfStream);
 
                 if (pdfContent == null || pdfContent.trim().isEmpty()) {
-                    throw new IOException("No content extracted from PDF");
+                    throw new SourceSkippedException("No content extracted from PDF");
                 }
 
-                String cleanPdfContent = pdfContent
-                        .replaceAll("\\s+", " ")
-                        .trim();
+                String cleanPdfContent = normalizeWhitespace(pdfContent);
+                report.addParse(System.nanoTime() - parseStart, cleanPdfContent.length(), "application/pdf");
+                parseEvent.finish(report.getSource(), "application/pdf", cleanPdfContent.length());
 
                 String title = response.header("Content-Disposition");
                 if (title != null && title.contains("filename=")) {
@@ -158,13 +315,12 @@ public class DocumentLoaderService {
                     }
                 }
 
-                return createDocument(title, cleanPdfContent, "pdf", "url", url);
-            } catch (TikaException e) {
-                throw new IOException("Failed to parse PDF content: " + e.getMessage(), e);
+                return new DocumentCrawler.Page(createDocument(title, cleanPdfContent, "pdf", "url", url),
+                        response.url().toString(), List.of());
             }
         }
 
-        org.jsoup.nodes.Document doc = response.parse();
+        org.jsoup.nodes.Document doc = Jsoup.parse(new ByteArrayInputStream(body), response.charset(), url);
 
         String title = doc.title();
         if (title == null || title.isEmpty()) {
@@ -173,32 +329,149 @@ public class DocumentLoaderService {
 
         if (isBotProtectionPage(doc, title)) {
             System.out.println("⚠️  Bot protection detected, skipping: " + url);
-            throw new IOException("Bot protection page detected - cannot load content");
+            throw new SourceSkippedException("Bot protection page detected - cannot load content");
         }
 
+        List<String> links = doc.select("a[href]").eachAttr("abs:href");
+        String cleanContent = normalizeWhitespace(extractMainText(doc));
+        report.addParse(System.nanoTime() - parseStart, cleanContent.length(), "text/html");
+        parseEvent.finish(report.getSource(), "text/html", cleanContent.length());
+        
+        if (cleanContent.isEmpty()) {
+            throw new SourceSkippedException("No content found on the webpage");
+        }
+        
+        return new DocumentCrawler.Page(createDocument(title, cleanContent, "web", "url", url),
+                response.url().toString(), links);
+    }
+    
+    /**
+     * Extract the main text of a web page, preferring main/article content
+     * over the full body. Removes script and style elements from the document.
+     * Block elements are kept as paragraphs separated by blank lines, headings
+     * are prefixed with one {@code #} per level, and table rows become lines
+     * of cells separated by {@code |}.
+     *
+     * @param doc the JSoup document
+     * @return the extracted text, with whitespace not yet normalized
+     */
+    static String extractMainText(org.jsoup.nodes.Document doc) {
         doc.select("script, style").remove();
 
-        StringBuilder content = new StringBuilder();
-
         Elements mainContent = doc.select("main, article, .content, .main-content, #content, #main");
-        if (!mainContent.isEmpty()) {
-            content.append(mainContent.text());
-        } else {
+        if (mainContent.isEmpty()) {
             Element body = doc.body();
-            if (body != null) {
-                content.append(body.text());
+            return body != null ? structuredText(body) : "";
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (Element element : mainContent) {
+            if (element.parents().stream().noneMatch(mainContent::contains)) {
+                appendStructuredText(element, text);
             }
         }
-        
-        String cleanContent = content.toString()
-                .replaceAll("\\s+", " ")
-                .trim();
-        
-        if (cleanContent.isEmpty()) {
-            throw new IOException("No content found on the webpage");
+        return text.toString();
+    }
+
+    /**
+     * Extract the text of an XHTML document produced by Tika, with each
+     * {@code <div class="page">} of a PDF separated by a form feed.
+     *
+     * @param doc the JSoup document parsed from Tika's XHTML output
+     * @return the extracted text, with whitespace not yet normalized
+     */
+    static String extractPagedText(org.jsoup.nodes.Document doc) {
+        Elements pages = doc.select("div.page");
+        if (pages.isEmpty()) {
+            Element body = doc.body();
+            return body != null ? structuredText(body) : "";
         }
-        
-        return createDocument(title, cleanContent, "web", "url", url);
+
+        StringBuilder text = new StringBuilder();
+        for (Element page : pages) {
+            appendStructuredText(page, text);
+            text.append('\f');
+        }
+        return text.toString();
+    }
+
+    private static String structuredText(Element root) {
+        StringBuilder text = new StringBuilder();
+        appendStructuredText(root, text);
+        return text.toString();
+    }
+
+    private static void appendStructuredText(Element root, StringBuilder text) {
+        NodeTraversor.traverse(new NodeVisitor() {
+            @Override
+            public void head(Node node, int depth) {
+                if (node instanceof TextNode textNode) {
+                    text.append(textNode.getWholeText());
+                } else if (node instanceof Element element) {
+                    String tag = element.normalName();
+                    if (tag.length() == 2 && tag.charAt(0) == 'h' && Character.isDigit(tag.charAt(1))) {
+                        text.append("\n\n").append("#".repeat(tag.charAt(1) - '0')).append(' ');
+                    } else if (tag.equals("td") || tag.equals("th")) {
+                        if (element.elementSiblingIndex() > 0) {
+                            text.append(" | ");
+                        }
+                    } else if (tag.equals("br")) {
+                        text.append('\n');
+                    } else if (element.isBlock()) {
+                        text.append("\n\n");
+                    }
+                }
+            }
+
+            @Override
+            public void tail(Node node, int depth) {
+                if (node instanceof Element element && element.isBlock()
+                        && !element.normalName().equals("td") && !element.normalName().equals("th")) {
+                    text.append("\n\n");
+                }
+            }
+        }, root);
+    }
+    
+    /**
+     * Normalize whitespace while keeping the document structure: runs of
+     * spaces, tabs and single line breaks become one space, blank lines
+     * become one paragraph break ({@code "\n\n"}) and form feeds one page
+     * break ({@code "\f"}). Leading and trailing whitespace is removed.
+     *
+     * @param content the raw extracted text
+     * @return the normalized text
+     */
+    static String normalizeWhitespace(String content) {
+        StringBuilder normalized = new StringBuilder(content.length());
+        int newlines = 0;
+        boolean pageBreak = false;
+        boolean space = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '\f') {
+                pageBreak = true;
+            } else if (c == '\n') {
+                newlines++;
+            } else if (Character.isWhitespace(c) || c == '\u00A0') {
+                space = true;
+            } else {
+                if (!normalized.isEmpty()) {
+                    if (pageBreak) {
+                        normalized.append('\f');
+                    } else if (newlines >= 2) {
+                        normalized.append("\n\n");
+                    } else if (newlines == 1 || space) {
+                        normalized.append(' ');
+                    }
+                }
+                pageBreak = false;
+                newlines = 0;
+                space = false;
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
     }
     
     /**
@@ -234,11 +507,12 @@ public class DocumentLoaderService {
      * Load content from a PDF file using Apache Tika.
      *
      * @param filePath the path to the PDF file
+     * @param report the report entry for this source
      * @return a document containing the PDF content
      * @throws IOException if the file cannot be read
      * @throws TikaException if PDF parsing fails
      */
-    private Document loadFromPdfFile(String filePath) throws IOException, TikaException {
+    private Document loadFromPdfFile(String filePath, IngestionReport.SourceReport report) throws IOException, TikaException {
         System.out.println("📄 Loading PDF file: " + filePath);
         
         Path path = Paths.get(filePath);
@@ -246,16 +520,20 @@ public class DocumentLoaderService {
             throw new IOException("PDF file does not exist: " + filePath);
         }
         
-        try (InputStream inputStream = new FileInputStream(filePath)) {
-            String content = tika.parseToString(inputStream);
+        byte[] bytes = readFile(path, report);
+        long parseStart = System.nanoTime();
+        DocumentParseEvent parseEvent = new DocumentParseEvent();
+        parseEvent.begin();
+        try (InputStream inputStream = new ByteArrayInputStream(bytes)) {
+            String content = parseStructured(inputStream);
             
             if (content == null || content.trim().isEmpty()) {
-                throw new IOException("No content extracted from PDF");
+                throw new SourceSkippedException("No content extracted from PDF");
             }
             
-            String cleanContent = content
-                    .replaceAll("\\s+", " ")
-                    .trim();
+            String cleanContent = normalizeWhitespace(content);
+            report.addParse(System.nanoTime() - parseStart, cleanContent.length(), "application/pdf");
+            parseEvent.finish(report.getSource(), "application/pdf", cleanContent.length());
             
             String fileName = path.getFileName().toString();
             String title = fileName.replace(".pdf", "");
@@ -268,10 +546,11 @@ public class DocumentLoaderService {
      * Load content from a text file.
      *
      * @param filePath the path to the text file
+     * @param report the report entry for this source
      * @return a document containing the text file content
      * @throws IOException if the file cannot be read
      */
-    private Document loadFromTextFile(String filePath) throws IOException {
+    private Document loadFromTextFile(String filePath, IngestionReport.SourceReport report) throws IOException {
         System.out.println("📝 Loading text file: " + filePath);
         
         Path path = Paths.get(filePath);
@@ -279,7 +558,13 @@ public class DocumentLoaderService {
             throw new IOException("Text file does not exist: " + filePath);
         }
         
-        String content = Files.readString(path);
+        byte[] bytes = readFile(path, report);
+        long parseStart = System.nanoTime();
+        DocumentParseEvent parseEvent = new DocumentParseEvent();
+        parseEvent.begin();
+        String content = normalizeWhitespace(new String(bytes, StandardCharsets.UTF_8));
+        report.addParse(System.nanoTime() - parseStart, content.length(), "text/plain");
+        parseEvent.finish(report.getSource(), "text/plain", content.length());
         String fileName = path.getFileName().toString();
         String title = fileName.replace(".txt", "");
         
@@ -290,11 +575,12 @@ public class DocumentLoaderService {
      * Load content from any file with automatic type detection using Apache Tika.
      *
      * @param filePath the path to the file
+     * @param report the report entry for this source
      * @return a document containing the file content
      * @throws IOException if the file cannot be read
      * @throws TikaException if content extraction fails
      */
-    private Document loadFromFile(String filePath) throws IOException, TikaException {
+    private Document loadFromFile(String filePath, IngestionReport.SourceReport report) throws IOException, TikaException {
         System.out.println("📁 Loading file (auto-detect): " + filePath);
         
         Path path = Paths.get(filePath);
@@ -302,24 +588,139 @@ public class DocumentLoaderService {
             throw new IOException("File does not exist: " + filePath);
         }
         
-        try (InputStream inputStream = new FileInputStream(filePath)) {
-            String content = tika.parseToString(inputStream);
+        byte[] bytes = readFile(path, report);
+        long parseStart = System.nanoTime();
+        DocumentParseEvent parseEvent = new DocumentParseEvent();
+        parseEvent.begin();
+        try (InputStream inputStream = new ByteArrayInputStream(bytes)) {
+            String content = parseStructured(inputStream);
             
             if (content == null || content.trim().isEmpty()) {
-                throw new IOException("No content extracted from file");
+                throw new SourceSkippedException("No content extracted from file");
             }
             
-            String cleanContent = content
-                    .replaceAll("\\s+", " ")
-                    .trim();
+            String cleanContent = normalizeWhitespace(content);
             
             String fileName = path.getFileName().toString();
-            String fileType = tika.detect(path.toFile());
+            String fileType = tika().detect(bytes, fileName);
+            report.addParse(System.nanoTime() - parseStart, cleanContent.length(), fileType);
+            parseEvent.finish(report.getSource(), fileType, cleanContent.length());
             
             return createDocument(fileName, cleanContent, fileType, "file", filePath);
         }
     }
     
+    /**
+     * Read a local file, recording it as the fetch step.
+     *
+     * @param path the file to read
+     * @param report the report entry for this source
+     * @return the file contents
+     * @throws IOException if the file cannot be read
+     */
+    private byte[] readFile(Path path, IngestionReport.SourceReport report) throws IOException {
+        DocumentFetchEvent event = new DocumentFetchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        byte[] bytes = Files.readAllBytes(path);
+        report.addFetch(System.nanoTime() - start, bytes.length);
+        event.finish(report.getSource(), bytes.length);
+        return bytes;
+    }
+    
+    /**
+     * Parse a document with Tika into structured text: paragraphs separated by
+     * blank lines and, for PDFs, pages separated by form feeds. Extraction stops
+     * at Tika's default maximum string length, like {@link Tika#parseToString(InputStream)}.
+     * Unless MEDICAID_TIKA_MODE is "in-process", the document is parsed in a
+     * forked worker JVM with a time limit and heap cap.
+     *
+     * @param stream the document content
+     * @return the extracted text, with whitespace not yet normalized
+     * @throws SourceSkippedException if the document cannot be parsed or its worker
+     *         timed out or ran out of memory
+     * @throws IOException if the stream cannot be read
+     */
+    private String parseStructured(InputStream stream) throws IOException {
+        Tika parser = tika();
+        ToXMLContentHandler xhtml = new ToXMLContentHandler();
+        WriteOutContentHandler handler = new WriteOutContentHandler(xhtml, parser.getMaxStringLength());
+        try {
+            TikaWorkerPool pool = workerPool();
+            if (pool != null) {
+                pool.parse(stream, handler);
+            } else {
+                ParseContext context = new ParseContext();
+                context.set(Parser.class, parser.getParser());
+                parser.getParser().parse(stream, handler, new org.apache.tika.metadata.Metadata(), context);
+            }
+        } catch (SAXException e) {
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                throw new SourceSkippedException("Could not parse document: unexpected SAX processing failure");
+            }
+        } catch (TikaException e) {
+            throw new SourceSkippedException("Could not parse document: " + e.getMessage());
+        }
+        return extractPagedText(Jsoup.parse(xhtml.toString()));
+    }
+    
+    /**
+     * Get the pool of forked parser JVMs, creating it on first use.
+     *
+     * @return the worker pool, or null if documents are parsed in-process
+     */
+    private TikaWorkerPool workerPool() {
+        if (!DocumentConfig.isTikaForkEnabled()) {
+            return null;
+        }
+        TikaWorkerPool result = workerPool;
+        if (result == null) {
+            synchronized (this) {
+                result = workerPool;
+                if (result == null) {
+                    result = new TikaWorkerPool(DocumentConfig.getTikaWorkers(),
+                            DocumentConfig.getTikaTimeoutSeconds() * 1000, DocumentConfig.getTikaWorkerHeapMegabytes(),
+                            DocumentConfig.getTikaMaxParsesPerWorker());
+                    System.out.println("🧰 Parsing documents in up to " + result.getWorkers()
+                            + " forked Tika workers (" + DocumentConfig.getTikaWorkerHeapMegabytes() + " MB heap, "
+                            + DocumentConfig.getTikaTimeoutSeconds() + "s limit)");
+                    workerPool = result;
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Stop the forked parser workers, if any were started.
+     */
+    @Override
+    public void close() {
+        TikaWorkerPool pool = workerPool;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+    
+    /**
+     * Get the Tika instance, creating it on first use.
+     *
+     * @return the shared Tika instance
+     */
+    private Tika tika() {
+        Tika result = tika;
+        if (result == null) {
+            synchronized (this) {
+                result = tika;
+                if (result == null) {
+                    result = StartupTimer.time("Tika", Tika::new);
+                    tika = result;
+                }
+            }
+        }
+        return result;
+    }
+    
     /**
      * Create a document with metadata.
      *
@@ -0,0 +1,92 @@
+package org.usfca.medicaid.service;
+
+import dev.langchain4j.data.embedding.Embedding;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.usfca.medicaid.config.FaqConfig;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ingestion step that precomputes answers to the canonical FAQ questions.
+ * Runs each question through the RAG pipeline and stores the answer with its
+ * question embedding and source document IDs.
+ */
+@Service
+@Lazy
+public class FaqIngestionService {
+
+    private final RagService ragService;
+    private final VectorStoreService vectorStoreService;
+    private final FaqService faqService;
+
+    /**
+     * Constructs a new FaqIngestionService.
+     *
+     * @param ragService the RAG service used to generate answers
+     * @param vectorStoreService the vector store service used to embed questions
+     * @param faqService the store for precomputed answers
+     */
+    public FaqIngestionService(RagService ragService, VectorStoreService vectorStoreService, FaqService faqService) {
+        this.ragService = ragService;
+        this.vectorStoreService = vectorStoreService;
+        this.faqService = faqService;
+    }
+
+    /**
+     * Recompute answers whose source documents were re-ingested, plus any
+     * canonical questions that have no answer yet.
+     *
+     * @param reingestedDocumentIds IDs of the documents added in this ingestion run
+     * @return the number of answers recomputed
+     * @throws IOException if the answers cannot be stored
+     */
+    public int refreshAnswers(Collection<String> reingestedDocumentIds) throws IOException {
+        List<String> questions = FaqConfig.getCanonicalQuestions();
+
+        System.out.println("❓ Precomputing answers for " + questions.size() + " canonical questions...");
+
+        List<String> stale = questions.stream()
+                .filter(question -> faqService.isStale(question, reingestedDocumentIds))
+                .toList();
+
+        Map<String, Embedding> embeddings = stale.isEmpty() ? Map.of() : vectorStoreService.embedQueries(stale);
+        Map<String, FaqService.FaqEntry> updated = new LinkedHashMap<>();
+        int recomputed = 0;
+
+        for (String question : questions) {
+            if (!stale.contains(question)) {
+                faqService.getEntry(question).ifPresent(entry -> updated.put(question, entry));
+                continue;
+            }
+
+            try {
+                RagService.Answer answer = ragService.generateAnswer(question);
+                if (answer.sourceDocumentIds().isEmpty()) {
+                    System.out.println("⚠️  No sources found, not caching: " + question);
+                    continue;
+                }
+                updated.put(question, new FaqService.FaqEntry(
+                        question,
+                        answer.text(),
+                        embeddings.get(question).vector(),
+                        answer.sourceDocumentIds(),
+                        Instant.now().toString()));
+                recomputed++;
+                System.out.println("✅ Precomputed answer: " + question);
+            } catch (Exception e) {
+                System.err.println("❌ Error precomputing answer for \"" + question + "\": " + e.getMessage());
+            }
+        }
+
+        faqService.replaceAll(updated);
+
+        System.out.println("✅ FAQ tier holds " + faqService.size() + " answers (" + recomputed + " recomputed).");
+        return recomputed;
+    }
+}
@@ -0,0 +1,159 @@
+package org.usfca.medicaid.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.store.embedding.CosineSimilarity;
+import org.springframework.stereotype.Service;
+import org.usfca.medicaid.config.FaqConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service holding precomputed answers to canonical questions.
+ * Answers are built at ingestion time and served to any user question whose
+ * embedding is close enough to a canonical question, with no language model call.
+ */
+@Service
+public class FaqService {
+
+    private final ObjectMapper objectMapper;
+    private final Path storePath;
+    private final double minScore;
+    private volatile Map<String, FaqEntry> entries;
+
+    /**
+     * Constructs a new FaqService and loads any previously stored answers.
+     */
+    public FaqService() {
+        this.objectMapper = new ObjectMapper();
+        this.storePath = FaqConfig.getFaqStorePath();
+        this.minScore = FaqConfig.getFaqMinScore();
+        this.entries = load();
+    }
+
+    /**
+     * A precomputed answer to a canonical question.
+     *
+     * @param question the canonical question
+     * @param answer the generated answer
+     * @param embedding the question embedding
+     * @param sourceDocumentIds IDs of the documents the answer was built from
+     * @param createdAt when the answer was generated (ISO-8601)
+     */
+    public record FaqEntry(String question, String answer, float[] embedding,
+                           List<String> sourceDocumentIds, String createdAt) {
+    }
+
+    /**
+     * Find the precomputed answer closest to a question embedding.
+     *
+     * @param questionEmbedding the embedding of the user's standalone question
+     * @return the best matching entry if its similarity meets the threshold
+     */
+    public Optional<FaqEntry> findAnswer(Embedding questionEmbedding) {
+        FaqEntry best = null;
+        double bestScore = minScore;
+
+        for (FaqEntry entry : entries.values()) {
+            double score = CosineSimilarity.between(questionEmbedding, Embedding.from(entry.embedding()));
+            if (score >= bestScore) {
+                best = entry;
+                bestScore = score;
+            }
+        }
+
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * Check whether an entry must be recomputed.
+     * An entry is stale if it does not exist, has no sources, or was built
+     * from any of the re-ingested documents.
+     *
+     * @param question the canonical question
+     * @param reingestedDocumentIds IDs of documents re-ingested in this run
+     * @return true if the answer should be regenerated
+     */
+    public boolean isStale(String question, Collection<String> reingestedDocumentIds) {
+        FaqEntry entry = entries.get(question);
+        if (entry == null || entry.sourceDocumentIds().isEmpty()) {
+            return true;
+        }
+        return entry.sourceDocumentIds().stream().anyMatch(reingestedDocumentIds::contains);
+    }
+
+    /**
+     * Replace the stored entries, dropping questions that are no longer canonical,
+     * and persist them.
+     *
+     * @param updated the entries to store, keyed by question
+     * @throws IOException if the store file cannot be written
+     */
+    public synchronized void replaceAll(Map<String, FaqEntry> updated) throws IOException {
+        Map<String, FaqEntry> copy = new LinkedHashMap<>(updated);
+        Path parent = storePath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(storePath.toFile(), copy.values());
+        entries = copy;
+    }
+
+    /**
+     * Remove all precomputed answers, e.g. after the vector store is cleared.
+     *
+     * @throws IOException if the store file cannot be written
+     */
+    public void clear() throws IOException {
+        replaceAll(Map.of());
+    }
+
+    /**
+     * Get the stored entry for a canonical question.
+     *
+     * @param question the canonical question
+     * @return the stored entry, if any
+     */
+    public Optional<FaqEntry> getEntry(String question) {
+        return Optional.ofNullable(entries.get(question));
+    }
+
+    /**
+     * Get the number of precomputed answers.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Load stored entries from disk.
+     *
+     * @return the stored entries keyed by question, or an empty map if none exist
+     */
+    private Map<String, FaqEntry> load() {
+        Map<String, FaqEntry> loaded = new LinkedHashMap<>();
+        if (!Files.exists(storePath)) {
+            return loaded;
+        }
+
+        try {
+            List<FaqEntry> stored = objectMapper.readValue(storePath.toFile(), new TypeReference<List<FaqEntry>>() {});
+            for (FaqEntry entry : stored) {
+                loaded.put(entry.question(), entry);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️  Could not read FAQ answers from " + storePath + ": " + e.getMessage());
+        }
+        return loaded;
+    }
+}
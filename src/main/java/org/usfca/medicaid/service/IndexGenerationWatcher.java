@@ -0,0 +1,153 @@
+package org.usfca.medicaid.service;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.usfca.medicaid.config.AppConfig;
+import org.usfca.medicaid.config.HttpTransport;
+import org.usfca.medicaid.store.ActiveIndex;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows blue/green switches made by other processes, e.g. a reindex run from
+ * the CLI while the web UI answers questions. Every
+ * MEDICAID_INDEX_POINTER_POLL_SECONDS the index pointer file is read and, if it
+ * names another generation, that generation is opened and promoted in the
+ * vector store service.
+ *
+ * <p>A store replaced by a switch is closed once searches that started against
+ * it have had time to finish. Its segments are kept: a generation is only
+ * deleted when the operator asks for it, see {@link ReindexService#delete}.
+ *
+ * <p>Like {@link org.usfca.medicaid.config.ClientLifecycle}, this lifecycle
+ * bean is created at startup even in fast-startup mode, so the vector store
+ * service and transport are only looked up when a switch is followed; before
+ * the embedding store has been opened there is nothing to follow.
+ */
+@Service
+public class IndexGenerationWatcher implements SmartLifecycle, AutoCloseable {
+
+    private static final long RETIRE_DELAY_SECONDS = 60;
+
+    private final ActiveIndex activeIndex;
+    private final ObjectProvider<VectorStoreService> vectorStoreService;
+    private final ObjectProvider<HttpTransport> httpTransport;
+    private final ScheduledExecutorService executor;
+    private final Set<AutoCloseable> retiring = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledFuture<?> polling;
+    private volatile EmbeddingStore<TextSegment> followed;
+
+    /**
+     * Constructs a new IndexGenerationWatcher.
+     *
+     * @param activeIndex the active index generation of this process
+     * @param vectorStoreService the vector store service serving searches, resolved only on a switch
+     * @param httpTransport the shared HTTP transport for new Pinecone stores, resolved only on a switch
+     */
+    public IndexGenerationWatcher(ActiveIndex activeIndex, ObjectProvider<VectorStoreService> vectorStoreService,
+                                  ObjectProvider<HttpTransport> httpTransport) {
+        this.activeIndex = activeIndex;
+        this.vectorStoreService = vectorStoreService;
+        this.httpTransport = httpTransport;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "index-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public synchronized void start() {
+        long interval = AppConfig.getIndexPointerPollSeconds();
+        if (polling == null && interval > 0) {
+            polling = executor.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (polling != null) {
+            polling.cancel(false);
+            polling = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return polling != null;
+    }
+
+    /**
+     * Close a store that no longer serves searches after a delay, so searches
+     * already running against it can finish. The store's segments are kept.
+     *
+     * @param store the replaced store
+     */
+    public void retire(EmbeddingStore<TextSegment> store) {
+        if (!(store instanceof AutoCloseable closeable)) {
+            return;
+        }
+        retiring.add(closeable);
+        if (!executor.isShutdown()) {
+            executor.schedule(() -> {
+                if (retiring.remove(closeable)) {
+                    close(closeable);
+                }
+            }, RETIRE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Promote the generation the pointer file names if another process has
+     * switched to it.
+     */
+    private void poll() {
+        try {
+            activeIndex.follow(this::promote);
+        } catch (Exception e) {
+            System.err.println("⚠️  Could not follow the index pointer: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Open a generation and switch searches in this process to it.
+     */
+    private void promote(String generation) {
+        EmbeddingStore<TextSegment> store = AppConfig.createEmbeddingStore(httpTransport.getObject(), generation);
+        VectorStoreService service = vectorStoreService.getObject();
+        EmbeddingStore<TextSegment> previous = service.promote(service.staging(store));
+        followed = store;
+        retire(previous);
+        System.out.println("🔀 Followed the switch to index generation " + (generation.isEmpty() ? "default" : generation));
+    }
+
+    private static void close(AutoCloseable store) {
+        try {
+            store.close();
+        } catch (Exception e) {
+            System.err.println("⚠️  Could not close a replaced vector store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop polling and close the replaced stores still waiting to be closed,
+     * and the store opened by the last switch followed.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        retiring.forEach(IndexGenerationWatcher::close);
+        retiring.clear();
+        if (followed instanceof AutoCloseable closeable) {
+            close(closeable);
+        }
+    }
+}
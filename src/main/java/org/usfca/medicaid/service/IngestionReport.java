@@ -0,0 +1,356 @@
+package org.usfca.medicaid.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Machine-readable record of one ingestion run.
+ * Collects per-source timings for each step (fetch, parse, split, embed, upsert),
+ * sizes, segment and embedding statistics, and the reason any source was skipped
+ * or failed, and writes them with run totals as a JSON file.
+ */
+public class IngestionReport {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+    private static final int RANKING_SIZE = 5;
+
+    /**
+     * Outcome of one source.
+     */
+    public enum Status {
+        LOADED, SKIPPED, FAILED
+    }
+
+    private final Instant startedAt;
+    private final long startNanos;
+    private final Map<String, SourceReport> sources = new LinkedHashMap<>();
+    private Instant finishedAt;
+    private long elapsedNanos;
+
+    /**
+     * Starts a new report.
+     */
+    public IngestionReport() {
+        this.startedAt = Instant.now();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Get the entry for a source, creating it on first use.
+     *
+     * @param source the source URL or path
+     * @return the source's entry
+     */
+    public synchronized SourceReport source(String source) {
+        return sources.computeIfAbsent(source, SourceReport::new);
+    }
+
+    /**
+     * Mark the run as finished.
+     */
+    public synchronized void finish() {
+        finishedAt = Instant.now();
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Build the report document: run totals, the slowest and most expensive
+     * sources, and every source entry.
+     *
+     * @return the report as a JSON-serializable map
+     */
+    public synchronized Map<String, Object> toMap() {
+        List<SourceReport> entries = new ArrayList<>(sources.values());
+        long elapsed = finishedAt != null ? elapsedNanos : System.nanoTime() - startNanos;
+        double seconds = elapsed / 1e9;
+
+        long loaded = entries.stream().filter(entry -> entry.getStatus() == Status.LOADED).count();
+        long segments = entries.stream().mapToLong(SourceReport::getSegments).sum();
+
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("sources", entries.size());
+        totals.put("loaded", loaded);
+        totals.put("skipped", entries.stream().filter(entry -> entry.getStatus() == Status.SKIPPED).count());
+        totals.put("failed", entries.stream().filter(entry -> entry.getStatus() == Status.FAILED).count());
+        totals.put("elapsedMillis", elapsed / 1_000_000);
+        totals.put("fetchMillis", entries.stream().mapToLong(SourceReport::getFetchMillis).sum());
+        totals.put("parseMillis", entries.stream().mapToLong(SourceReport::getParseMillis).sum());
+        totals.put("splitMillis", entries.stream().mapToLong(SourceReport::getSplitMillis).sum());
+        totals.put("embedMillis", entries.stream().mapToLong(SourceReport::getEmbedMillis).sum());
+        totals.put("upsertMillis", entries.stream().mapToLong(SourceReport::getUpsertMillis).sum());
+        totals.put("bytesDownloaded", entries.stream().mapToLong(SourceReport::getBytesDownloaded).sum());
+        totals.put("charactersExtracted", entries.stream().mapToLong(SourceReport::getCharactersExtracted).sum());
+        totals.put("segments", segments);
+        totals.put("duplicateSegments", entries.stream().mapToLong(SourceReport::getDuplicateSegments).sum());
+        totals.put("embeddingCalls", entries.stream().mapToLong(SourceReport::getEmbeddingCalls).sum());
+        totals.put("embeddingTokens", entries.stream().mapToLong(SourceReport::getEmbeddingTokens).sum());
+        totals.put("documentsPerSecond", seconds > 0 ? loaded / seconds : 0);
+        totals.put("segmentsPerSecond", seconds > 0 ? segments / seconds : 0);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+        report.put("totals", totals);
+        report.put("slowestSources", rank(entries, Comparator.comparingLong(SourceReport::getTotalMillis)));
+        report.put("mostExpensiveSources", rank(entries, Comparator.comparingLong(SourceReport::getEmbeddingTokens)));
+        report.put("sources", entries);
+        return report;
+    }
+
+    /**
+     * Write the report as JSON into a directory.
+     *
+     * @param directory the report directory, created if missing
+     * @return the written file
+     * @throws IOException if the report cannot be written
+     */
+    public Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("ingestion-" + FILE_TIMESTAMP.format(startedAt) + ".json");
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), toMap());
+        return file;
+    }
+
+    /**
+     * Get a one-line summary of the run for the console.
+     *
+     * @return the summary
+     */
+    @SuppressWarnings("unchecked")
+    public String summaryLine() {
+        Map<String, Object> totals = (Map<String, Object>) toMap().get("totals");
+        return String.format("%s loaded, %s skipped, %s failed; %s segments, %s embedding tokens; %.2f docs/s, %.2f segments/s",
+                totals.get("loaded"), totals.get("skipped"), totals.get("failed"), totals.get("segments"),
+                totals.get("embeddingTokens"), (double) totals.get("documentsPerSecond"),
+                (double) totals.get("segmentsPerSecond"));
+    }
+
+    private static List<String> rank(List<SourceReport> entries, Comparator<SourceReport> comparator) {
+        return entries.stream()
+                .sorted(comparator.reversed())
+                .limit(RANKING_SIZE)
+                .map(SourceReport::getSource)
+                .toList();
+    }
+
+    /**
+     * A segment that was not embedded because a near-duplicate was already stored.
+     *
+     * @param segmentIndex the index of the dropped segment in its document
+     * @param duplicateOf the document ID and segment index of the kept segment
+     * @param similarity the estimated similarity of the two segments
+     */
+    public record Duplicate(int segmentIndex, String duplicateOf, double similarity) {
+    }
+
+    /**
+     * Measurements for one source. Times are reported in milliseconds.
+     */
+    public static final class SourceReport {
+
+        private final String source;
+        private Status status = Status.LOADED;
+        private String reason;
+        private String documentId;
+        private String contentType;
+        private long fetchNanos;
+        private long parseNanos;
+        private long splitNanos;
+        private long embedNanos;
+        private long upsertNanos;
+        private long bytesDownloaded;
+        private long charactersExtracted;
+        private long segments;
+        private final List<Duplicate> duplicates = new ArrayList<>();
+        private long embeddingCalls;
+        private long embeddingTokens;
+
+        SourceReport(String source) {
+            this.source = source;
+        }
+
+        /**
+         * Record that the source was skipped, e.g. because of bot protection.
+         *
+         * @param reason why the source was skipped
+         */
+        public synchronized void skipped(String reason) {
+            this.status = Status.SKIPPED;
+            this.reason = reason;
+        }
+
+        /**
+         * Record that the source failed.
+         *
+         * @param step the step that failed, e.g. "fetch" or "embed"
+         * @param error the error
+         */
+        public synchronized void failed(String step, Exception error) {
+            this.status = Status.FAILED;
+            this.reason = step + ": " + error.getMessage();
+        }
+
+        /**
+         * Record downloading or reading the raw content.
+         *
+         * @param nanos the time taken
+         * @param bytes the number of bytes received
+         */
+        public synchronized void addFetch(long nanos, long bytes) {
+            fetchNanos += nanos;
+            bytesDownloaded += bytes;
+        }
+
+        /**
+         * Record extracting and normalizing the text.
+         *
+         * @param nanos the time taken
+         * @param characters the number of characters extracted
+         * @param type the detected content type
+         */
+        public synchronized void addParse(long nanos, long characters, String type) {
+            parseNanos += nanos;
+            charactersExtracted += characters;
+            contentType = type;
+        }
+
+        /**
+         * Record splitting the document into segments.
+         *
+         * @param nanos the time taken
+         * @param segmentCount the number of segments produced
+         */
+        public synchronized void addSplit(long nanos, int segmentCount) {
+            splitNanos += nanos;
+            segments += segmentCount;
+        }
+
+        /**
+         * Record a segment dropped as a near-duplicate of a stored segment.
+         *
+         * @param segmentIndex the index of the dropped segment in this document
+         * @param duplicateOf the document ID and segment index of the kept segment
+         * @param similarity the estimated similarity of the two segments
+         */
+        public synchronized void addDuplicate(int segmentIndex, String duplicateOf, double similarity) {
+            duplicates.add(new Duplicate(segmentIndex, duplicateOf, similarity));
+        }
+
+        /**
+         * Record one embedding call.
+         *
+         * @param nanos the time taken
+         * @param tokens the tokens reported by the provider
+         */
+        public synchronized void addEmbedding(long nanos, long tokens) {
+            embedNanos += nanos;
+            embeddingCalls++;
+            embeddingTokens += tokens;
+        }
+
+        /**
+         * Record writing the segments to the vector store.
+         *
+         * @param nanos the time taken
+         */
+        public synchronized void addUpsert(long nanos) {
+            upsertNanos += nanos;
+        }
+
+        /**
+         * Record the ID the document was stored under.
+         *
+         * @param documentId the document ID
+         */
+        public synchronized void setDocumentId(String documentId) {
+            this.documentId = documentId;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public synchronized Status getStatus() {
+            return status;
+        }
+
+        public synchronized String getReason() {
+            return reason;
+        }
+
+        public synchronized String getDocumentId() {
+            return documentId;
+        }
+
+        public synchronized String getContentType() {
+            return contentType;
+        }
+
+        public synchronized long getFetchMillis() {
+            return fetchNanos / 1_000_000;
+        }
+
+        public synchronized long getParseMillis() {
+            return parseNanos / 1_000_000;
+        }
+
+        public synchronized long getSplitMillis() {
+            return splitNanos / 1_000_000;
+        }
+
+        public synchronized long getEmbedMillis() {
+            return embedNanos / 1_000_000;
+        }
+
+        public synchronized long getUpsertMillis() {
+            return upsertNanos / 1_000_000;
+        }
+
+        public synchronized long getTotalMillis() {
+            return (fetchNanos + parseNanos + splitNanos + embedNanos + upsertNanos) / 1_000_000;
+        }
+
+        public synchronized long getBytesDownloaded() {
+            return bytesDownloaded;
+        }
+
+        public synchronized long getCharactersExtracted() {
+            return charactersExtracted;
+        }
+
+        public synchronized long getSegments() {
+            return segments;
+        }
+
+        public synchronized long getDuplicateSegments() {
+            return duplicates.size();
+        }
+
+        public synchronized List<Duplicate> getDuplicates() {
+            return List.copyOf(duplicates);
+        }
+
+        public synchronized long getEmbeddingCalls() {
+            return embeddingCalls;
+        }
+
+        public synchronized long getEmbeddingTokens() {
+            return embeddingTokens;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.usfca.medicaid.service;
+
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.MetadataFilterBuilder;
+import org.springframework.stereotype.Service;
+import org.usfca.medicaid.config.DocumentConfig;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Local, model-free router mapping a question to the document sources that
+ * cover its topic. Each route scores one point per keyword found in the
+ * queries; a route is chosen only if it holds at least the configured share of
+ * all hits, otherwise the caller searches every source. A route covers its
+ * sources and the pages crawled from them.
+ */
+@Service
+public class QueryRouter {
+
+    private final List<DocumentConfig.SourceRoute> routes;
+    private final double minConfidence;
+
+    /**
+     * A routing decision.
+     *
+     * @param name the chosen route
+     * @param sources the sources to search
+     * @param filter the metadata filter restricting a search to the sources
+     * @param confidence the route's share of all keyword hits
+     */
+    public record Route(String name, List<String> sources, Filter filter, double confidence) {
+    }
+
+    /**
+     * Constructs a new QueryRouter with the configured routes and confidence threshold.
+     */
+    public QueryRouter() {
+        this(DocumentConfig.isQueryRoutingEnabled() ? DocumentConfig.getSourceRoutes() : List.of(),
+                DocumentConfig.getRoutingMinConfidence());
+    }
+
+    /**
+     * Constructs a new QueryRouter with specific routes.
+     *
+     * @param routes the routes to choose from
+     * @param minConfidence the share of keyword hits the best route needs (0.0 to 1.0)
+     */
+    public QueryRouter(List<DocumentConfig.SourceRoute> routes, double minConfidence) {
+        this.routes = routes;
+        this.minConfidence = minConfidence;
+    }
+
+    /**
+     * Route a question, given as its original and rewritten search queries.
+     *
+     * @param queries the search queries for one question
+     * @return the chosen route, or empty if no route is confident enough
+     */
+    public Optional<Route> route(Collection<String> queries) {
+        if (routes.isEmpty() || queries.isEmpty()) {
+            return Optional.empty();
+        }
+        String text = " " + String.join(" ", queries).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", " ") + " ";
+
+        DocumentConfig.SourceRoute best = null;
+        int bestHits = 0;
+        int totalHits = 0;
+        boolean tied = false;
+        for (DocumentConfig.SourceRoute route : routes) {
+            int hits = 0;
+            for (String keyword : route.keywords()) {
+                if (text.contains(" " + keyword.replaceAll("[^a-z0-9]+", " ") + " ")) {
+                    hits++;
+                }
+            }
+            totalHits += hits;
+            if (hits > bestHits) {
+                best = route;
+                bestHits = hits;
+                tied = false;
+            } else if (hits > 0 && hits == bestHits) {
+                tied = true;
+            }
+        }
+
+        if (best == null || tied) {
+            return Optional.empty();
+        }
+        double confidence = (double) bestHits / totalHits;
+        if (confidence < minConfidence) {
+            return Optional.empty();
+        }
+        Filter filter = MetadataFilterBuilder.metadataKey("source").isIn(best.sources())
+                .or(MetadataFilterBuilder.metadataKey("seed").isIn(best.sources()));
+        return Optional.of(new Route(best.name(), best.sources(), filter, confidence));
+    }
+}
@@ -1,14 +1,37 @@
 package org.usfca.medicaid.service;
 
+import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.usfca.medicaid.config.AppConfig;
+import org.usfca.medicaid.config.ModelConfig.ChatStage;
+import org.usfca.medicaid.jfr.AnswerEvent;
+import org.usfca.medicaid.jfr.ContextAssemblyEvent;
+import org.usfca.medicaid.jfr.QueryRewriteEvent;
+import org.usfca.medicaid.metrics.RagMetrics;
+import org.usfca.medicaid.metrics.RagMetrics.Stage;
+import org.usfca.medicaid.metrics.TokenUsageTracker;
+import org.usfca.medicaid.model.StageChatModels;
+import org.usfca.medicaid.prompt.PromptAssembler;
+import org.usfca.medicaid.prompt.PromptAssembler.Prompt;
+import org.usfca.medicaid.service.DegradationPolicy.Budget;
+import org.usfca.medicaid.session.SessionStore;
+import org.usfca.medicaid.tracing.Traced;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -17,216 +40,459 @@ import java.util.stream.Collectors;
 @Service
 public class RagService {
 
+    private static final Logger logger = LoggerFactory.getLogger(RagService.class);
+
+    private static final String FALLBACK_ANSWER =
+            "I'm sorry, I couldn't find relevant information about your query in the Minnesota Medicaid documentation. " +
+            "Please try rephrasing your question or contact the Minnesota Department of Human Services for assistance.";
+
+    private static final String BUDGET_EXCEEDED_ANSWER =
+            "This conversation has reached its usage limit. Please start a new conversation, " +
+            "or contact the Minnesota Department of Human Services for further assistance.";
+
     private final VectorStoreService vectorStoreService;
-    private final ChatModel chatModel;
+    private final StageChatModels chatModels;
+    private final FaqService faqService;
+    private final SessionStore sessionStore;
+    private final RagMetrics metrics;
+    private final TokenUsageTracker tokenUsage;
+    private final Tracer tracer;
+    private final QueryRouter queryRouter;
+    private final DegradationPolicy degradationPolicy;
+    private final PromptAssembler prompts = new PromptAssembler();
 
     /**
-     * Constructs a new RagService with the provided vector store service.
+     * An answer together with the documents it was built from.
+     *
+     * @param text the answer text
+     * @param sourceDocumentIds IDs of the documents used as context
+     */
+    public record Answer(String text, List<String> sourceDocumentIds) {
+    }
+
+    /**
+     * Constructs a new RagService with the provided vector store service, chat models,
+     * precomputed FAQ answers, session store, metrics, token accounting, tracer, query router
+     * and degradation policy.
      *
      * @param vectorStoreService the vector store service for document retrieval
+     * @param chatModels the chat models for query rewriting, answers and degraded answers
+     * @param faqService the precomputed answers for canonical questions
+     * @param sessionStore the store holding conversation history
+     * @param metrics the pipeline instrumentation
+     * @param tokenUsage the accounting for model tokens and session budgets
+     * @param tracer the tracer recording pipeline spans
+     * @param queryRouter the router restricting searches to the sources of a question's topic
+     * @param degradationPolicy the policy shedding pipeline work to keep questions within their time budget
      */
-    public RagService(VectorStoreService vectorStoreService) {
+    public RagService(VectorStoreService vectorStoreService, StageChatModels chatModels,
+                      FaqService faqService, SessionStore sessionStore, RagMetrics metrics,
+                      TokenUsageTracker tokenUsage, Tracer tracer, QueryRouter queryRouter,
+                      DegradationPolicy degradationPolicy) {
         this.vectorStoreService = vectorStoreService;
-        this.chatModel = AppConfig.createChatModel();
+        this.chatModels = chatModels;
+        this.faqService = faqService;
+        this.sessionStore = sessionStore;
+        this.metrics = metrics;
+        this.tokenUsage = tokenUsage;
+        this.tracer = tracer;
+        this.queryRouter = queryRouter;
+        this.degradationPolicy = degradationPolicy;
     }
 
     /**
      * Generate a response using RAG with conversation history for context-aware responses.
-     * Retrieves relevant documents and uses them as context for the language model.
+     * The history is read from and written to the session store, so any instance
+     * can serve any turn of a conversation. The question and its answer are stored
+     * together once the answer is ready, so a failed turn leaves no trace in the history.
+     * Questions close enough to a canonical question are answered from the FAQ tier;
+     * otherwise relevant documents are retrieved and used as context for the language model.
+     * Sessions that have used up their token budget get a fixed reply without any model call.
+     * Under load, or when the model is slow, the pipeline is degraded to answer within the
+     * configured time budget (see {@link DegradationPolicy}).
      *
      * @param userQuery the user's question or query
-     * @param conversationHistory the previous conversation messages for context
+     * @param sessionId the ID of the conversation this question belongs to
      * @return a generated response based on the retrieved context and conversation history
      */
-    public String generateResponse(String userQuery, List<String> conversationHistory) {
-        log("------------------------------------------------------------");
-        log(String.format("🤔 Thinking... received question: \"%s\"", userQuery));
+    public String generateResponse(String userQuery, String sessionId) {
+        return Traced.call(tracer, "RagService.generateResponse", span -> {
+            span.setAttribute("medicaid.session.id", sessionId);
+            span.setAttribute("medicaid.question.chars", userQuery.length());
+
+            if (tokenUsage.isOverBudget(sessionId)) {
+                logger.warn("Session {} exceeded its token budget", sessionId);
+                span.setAttribute("medicaid.answer.source", "budget");
+                return BUDGET_EXCEEDED_ANSWER;
+            }
 
-        List<TextSegment> relevantDocuments = retrieveRelevantDocuments(userQuery, conversationHistory);
+            List<String> conversationHistory = new ArrayList<>(sessionStore.getHistory(sessionId));
+            conversationHistory.add("User: " + userQuery);
 
-        if (relevantDocuments.isEmpty()) {
-            log("⚠️  No relevant documents found. Returning fallback message.");
-            return "I'm sorry, I couldn't find relevant information about your query in the Minnesota Medicaid documentation. " +
-                    "Please try rephrasing your question or contact the Minnesota Department of Human Services for assistance.";
+            String response;
+            try (Budget budget = degradationPolicy.begin()) {
+                response = answer(userQuery, conversationHistory, new LinkedHashMap<>(), true, sessionId, budget).text();
+                span.setAttribute("medicaid.degradation", budget.getSteps().isEmpty() ? "none"
+                        : budget.getSteps().stream().map(DegradationPolicy.Step::tag).collect(Collectors.joining(",")));
+            }
+
+            sessionStore.appendAll(sessionId, List.of("User: " + userQuery, "Assistant: " + response));
+            return response;
+        });
+    }
+
+    /**
+     * Generate an answer through the full RAG pipeline, bypassing the FAQ tier.
+     * Used to precompute the FAQ answers themselves.
+     *
+     * @param question the question to answer
+     * @return the answer and the IDs of its source documents
+     */
+    public Answer generateAnswer(String question) {
+        try (Budget budget = degradationPolicy.unlimited()) {
+            return generateAnswer(question, null, budget);
         }
+    }
 
-        String context = buildContextFromDocuments(relevantDocuments);
+    /**
+     * Generate an answer through the full RAG pipeline, bypassing the FAQ tier,
+     * for a question whose embedding may have been computed beforehand, e.g.
+     * in one batched call together with other questions.
+     *
+     * @param question the question to answer
+     * @param questionEmbedding the embedding of the question, or null to embed it here
+     * @param budget the time budget deciding which stages are degraded, and timing each stage
+     * @return the answer and the IDs of its source documents
+     */
+    public Answer generateAnswer(String question, Embedding questionEmbedding, Budget budget) {
+        Map<String, Embedding> queryEmbeddings = new LinkedHashMap<>();
+        if (questionEmbedding != null) {
+            queryEmbeddings.put(question, questionEmbedding);
+        }
+        return answer(question, List.of(), queryEmbeddings, false, null, budget);
+    }
 
-        log(String.format("📚 Compiled %d document segments into context.", relevantDocuments.size()));
+    /**
+     * Run the RAG pipeline for a question.
+     * Query, match and prompt sizes are added to the current span.
+     *
+     * @param userQuery the user's question or query
+     * @param conversationHistory the previous conversation messages for context
+     * @param queryEmbeddings cache of query embeddings, possibly holding some already
+     * @param useFaq whether precomputed answers may be served
+     * @param sessionId the session to attribute token usage to, or null if none
+     * @param budget the time budget deciding which stages are degraded
+     * @return the answer and the IDs of its source documents
+     */
+    private Answer answer(String userQuery, List<String> conversationHistory, Map<String, Embedding> queryEmbeddings,
+                          boolean useFaq, String sessionId, Budget budget) {
+        logger.debug("Received question: \"{}\"", userQuery);
+
+        Span span = Span.current();
+        boolean followUp = hasPriorTurns(conversationHistory);
+
+        if (useFaq && !followUp) {
+            Optional<Answer> faqAnswer = findFaqAnswer(List.of(userQuery), queryEmbeddings, sessionId, budget);
+            if (faqAnswer.isPresent()) {
+                span.setAttribute("medicaid.answer.source", "faq");
+                return faqAnswer.get();
+            }
+        }
+
+        List<String> searchQueries = generateSearchQueries(userQuery, conversationHistory, sessionId, budget);
+        searchQueries = searchQueries.subList(0, budget.limitQueries(searchQueries.size()));
+        span.setAttribute("medicaid.query.count", searchQueries.size());
+        embedQueries(searchQueries, queryEmbeddings, sessionId, budget);
+
+        if (useFaq && followUp && searchQueries.size() > 1) {
+            Optional<Answer> faqAnswer = findFaqAnswer(searchQueries.subList(1, searchQueries.size()),
+                    queryEmbeddings, sessionId, budget);
+            if (faqAnswer.isPresent()) {
+                span.setAttribute("medicaid.answer.source", "faq");
+                return faqAnswer.get();
+            }
+        }
+
+        List<TextSegment> matches = retrieveRelevantDocuments(searchQueries, queryEmbeddings, budget);
+        span.setAttribute("medicaid.match.count", matches.size());
 
-        String prompt = buildPromptWithHistory(context, userQuery, conversationHistory);
+        if (matches.isEmpty()) {
+            logger.debug("No relevant documents found, returning fallback message");
+            metrics.recordFallback();
+            span.setAttribute("medicaid.answer.source", "fallback");
+            return new Answer(FALLBACK_ANSWER, List.of());
+        }
 
-        log("💬 Calling language model for final response...");
-        String answer = chatModel.chat(prompt);
-        log("✅ Language model returned an answer.");
-        return answer;
+        List<TextSegment> relevantDocuments = limitContext(matches, budget.limitContextChars());
+        ChatModel answerModel = chatModels.get(budget.useFastModel() ? ChatStage.FAST_ANSWER : ChatStage.ANSWER);
+
+        ContextAssemblyEvent contextEvent = new ContextAssemblyEvent();
+        contextEvent.begin();
+        Prompt prompt = budget.time(Stage.CONTEXT, () -> prompts.answer(
+                prompts.buildContext(relevantDocuments), userQuery, conversationHistory));
+        contextEvent.finish(relevantDocuments.size(), prompt.chars());
+
+        span.setAttribute("medicaid.answer.source", "model");
+
+        logger.debug("Compiled {} document segments into context, calling language model", relevantDocuments.size());
+        AnswerEvent answerEvent = new AnswerEvent();
+        answerEvent.begin();
+        ChatResponse answer = budget.time(Stage.ANSWER,
+                () -> chat(answerModel, prompt, TokenUsageTracker.Stage.ANSWER, sessionId));
+        answerEvent.finish(prompt.chars(), answer.tokenUsage());
+        logger.debug("Language model returned an answer");
+        return new Answer(answer.aiMessage().text(), collectSourceDocumentIds(relevantDocuments));
     }
 
     /**
-     * Build context string from retrieved documents.
+     * Look up precomputed answers for standalone forms of the user's question.
      *
-     * @param documents the list of retrieved document segments
-     * @return a formatted string containing all document text separated by dividers
+     * @param standaloneQueries questions that can be understood without the conversation
+     * @param queryEmbeddings cache of query embeddings, filled in as needed
+     * @param sessionId the session to attribute token usage to, or null if none
+     * @param budget the time budget timing each stage
+     * @return the precomputed answer if one is close enough
      */
-    private String buildContextFromDocuments(List<TextSegment> documents) {
-        return documents.stream()
-                .map(TextSegment::text)
-                .collect(Collectors.joining("\n\n---\n\n"));
+    private Optional<Answer> findFaqAnswer(List<String> standaloneQueries, Map<String, Embedding> queryEmbeddings,
+                                           String sessionId, Budget budget) {
+        if (faqService.size() == 0) {
+            return Optional.empty();
+        }
+
+        embedQueries(standaloneQueries, queryEmbeddings, sessionId, budget);
+        for (String query : standaloneQueries) {
+            Embedding embedding = queryEmbeddings.get(query);
+            if (embedding == null) {
+                continue;
+            }
+            Optional<FaqService.FaqEntry> entry = budget.time(Stage.FAQ_LOOKUP, () -> faqService.findAnswer(embedding));
+            if (entry.isPresent()) {
+                logger.debug("Serving precomputed answer for canonical question: \"{}\"", entry.get().question());
+                metrics.recordFaqAnswer();
+                return Optional.of(new Answer(entry.get().answer(), entry.get().sourceDocumentIds()));
+            }
+        }
+        return Optional.empty();
     }
 
     /**
-     * Build the prompt for the chat model with context and instructions.
+     * Embed any queries not yet in the cache with a single batched call.
+     * Failures are logged; the affected queries are embedded again at search time.
      *
-     * @param context the context from retrieved documents
-     * @param userQuery the user's question
-     * @return a formatted prompt for the language model
+     * @param queries the queries to embed
+     * @param queryEmbeddings cache of query embeddings
+     * @param sessionId the session to attribute token usage to, or null if none
+     * @param budget the time budget timing each stage
      */
-    private String buildPrompt(String context, String userQuery) {
-        return String.format("""
-            You are a helpful assistant specializing in Minnesota Medicaid eligibility and benefits information. 
-            Use the following context from official Minnesota Medicaid documentation to answer the user's question.
-            
-            Context:
-            %s
-            
-            User Question: %s
-            
-            Instructions:
-            1. Answer based ONLY on the provided context
-            2. If the context doesn't contain enough information to fully answer the question, say so
-            3. Be specific about eligibility requirements, benefits, and processes
-            4. Include relevant contact information or next steps when appropriate
-            5. If discussing income limits, mention that they are subject to change and should be verified
-            6. Always remind users that this is general information and they should contact the Minnesota Department of Human Services for their specific situation
-            
-            Answer:""", context, userQuery);
+    private void embedQueries(List<String> queries, Map<String, Embedding> queryEmbeddings, String sessionId,
+                              Budget budget) {
+        List<String> missing = queries.stream()
+                .filter(query -> !queryEmbeddings.containsKey(query))
+                .toList();
+        try {
+            queryEmbeddings.putAll(budget.time(Stage.EMBEDDING, () -> vectorStoreService.embedQueries(missing, sessionId)));
+        } catch (Exception ex) {
+            logger.warn("Query embedding failed: {}", ex.getMessage());
+        }
     }
 
     /**
-     * Build the prompt with conversation history for context-aware responses.
+     * Send a prompt to a chat model and account for its token usage.
+     * The prompt size and the prompt tokens the provider read from its cache
+     * are added to the current span.
      *
-     * @param context the context from retrieved documents
-     * @param userQuery the user's question
-     * @param conversationHistory the previous conversation messages
-     * @return a formatted prompt for the language model
+     * @param model the chat model
+     * @param prompt the prompt
+     * @param stage the pipeline stage making the call
+     * @param sessionId the session to attribute token usage to, or null if none
+     * @return the model's response
      */
-    private String buildPromptWithHistory(String context, String userQuery, List<String> conversationHistory) {
-        if (conversationHistory == null || conversationHistory.isEmpty()) {
-            return buildPrompt(context, userQuery);
+    private ChatResponse chat(ChatModel model, Prompt prompt, TokenUsageTracker.Stage stage, String sessionId) {
+        ChatResponse response = model.chat(ChatRequest.builder()
+                .messages(prompt.messages())
+                .build());
+        tokenUsage.record(stage, sessionId, response.tokenUsage());
+        long cachedTokens = metrics.recordPrompt(stage.tag(), prompt.chars(), response.tokenUsage());
+
+        Span span = Span.current();
+        span.setAttribute("medicaid.prompt.chars", prompt.chars());
+        span.setAttribute("medicaid.prompt.instruction_chars", prompt.instructionChars());
+        span.setAttribute("medicaid.prompt.history_chars", prompt.historyChars());
+        if (response.tokenUsage() != null && response.tokenUsage().inputTokenCount() != null) {
+            span.setAttribute("medicaid.prompt.tokens", response.tokenUsage().inputTokenCount());
+            span.setAttribute("medicaid.prompt.cached_tokens", cachedTokens);
         }
+        return response;
+    }
 
-        String historyText = getRecentConversationHistory(conversationHistory);
-
-        return String.format("""
-            You are a helpful assistant specializing in Minnesota Medicaid eligibility and benefits information. 
-            Use the following context from official Minnesota Medicaid documentation to answer the user's question.
-            
-            Context:
-            %s
-            
-            Previous Conversation:
-            %s
-            
-            Current User Question: %s
-            
-            Instructions:
-            1. Answer based ONLY on the provided context
-            2. Consider the conversation history to understand follow-up questions
-            3. If the question refers to something mentioned earlier (like "Is there a specific program"), use the conversation history to understand what they're asking about
-            4. Be specific about eligibility requirements, benefits, and processes
-            5. Include relevant contact information or next steps when appropriate
-            6. If discussing income limits, mention that they are subject to change and should be verified
-            7. Always remind users that this is general information and they should contact the Minnesota Department of Human Services for their specific situation
-            
-            Answer:""", context, historyText, userQuery);
+    /**
+     * Collect the distinct document IDs of the segments used as context.
+     *
+     * @param segments the retrieved segments
+     * @return the source document IDs, in retrieval order
+     */
+    private List<String> collectSourceDocumentIds(List<TextSegment> segments) {
+        return segments.stream()
+                .map(segment -> segment.metadata().getString("document_id"))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Keep the leading segments that fit in a context limit, and at least the first.
+     *
+     * @param segments the retrieved segments, most relevant first
+     * @param maxChars the maximum total length of the segment texts
+     * @return the segments to build the context from
+     */
+    List<TextSegment> limitContext(List<TextSegment> segments, int maxChars) {
+        int chars = 0;
+        int count = 0;
+        for (TextSegment segment : segments) {
+            chars += segment.text().length();
+            if (count > 0 && chars > maxChars) {
+                break;
+            }
+            count++;
+        }
+        if (count < segments.size()) {
+            logger.debug("Trimmed context from {} to {} segments", segments.size(), count);
+        }
+        return segments.subList(0, count);
+    }
+
+    /**
+     * Check whether the conversation has turns before the current question.
+     * The current question is already part of the history when this is called.
+     *
+     * @param conversationHistory the conversation history
+     * @return true if earlier messages exist
+     */
+    private boolean hasPriorTurns(List<String> conversationHistory) {
+        return conversationHistory != null && conversationHistory.size() > 1;
     }
 
     /**
-     * Retrieve relevant documents for the user's query after generating improved search queries.
+     * Retrieve relevant documents for the generated search queries.
+     * If the router maps the question to a subset of the sources, only those
+     * are searched; a routed search that finds nothing is repeated over all sources.
      *
-     * @param userQuery the user's original query
-     * @param conversationHistory previous conversation messages
+     * @param searchQueries the original and rewritten search queries
+     * @param queryEmbeddings precomputed query embeddings, where available
+     * @param budget the time budget deciding the top-k of each search
      * @return a list of relevant text segments
      */
-    private List<TextSegment> retrieveRelevantDocuments(String userQuery, List<String> conversationHistory) {
-        List<String> searchQueries = generateSearchQueries(userQuery, conversationHistory);
+    private List<TextSegment> retrieveRelevantDocuments(List<String> searchQueries, Map<String, Embedding> queryEmbeddings,
+                                                        Budget budget) {
+        Span span = Span.current();
+        Optional<QueryRouter.Route> route = queryRouter.route(searchQueries);
+        if (route.isPresent()) {
+            logger.debug("Routing question to {} ({} sources, confidence {})",
+                    route.get().name(), route.get().sources().size(), route.get().confidence());
+            span.setAttribute("medicaid.route", route.get().name());
+            List<TextSegment> routed = retrieveRelevantDocuments(searchQueries, queryEmbeddings, route.get().filter(), budget);
+            if (!routed.isEmpty()) {
+                return routed;
+            }
+            logger.debug("Routed search for {} found nothing, searching all sources", route.get().name());
+        }
+        span.setAttribute("medicaid.route", route.isPresent() ? "fallback" : "all");
+        return retrieveRelevantDocuments(searchQueries, queryEmbeddings, null, budget);
+    }
 
+    /**
+     * Retrieve relevant documents for the generated search queries among the
+     * segments matching a metadata filter.
+     *
+     * @param searchQueries the original and rewritten search queries
+     * @param queryEmbeddings precomputed query embeddings, where available
+     * @param filter the metadata filter, or null to search all segments
+     * @param budget the time budget deciding the top-k of each search
+     * @return a list of relevant text segments
+     */
+    private List<TextSegment> retrieveRelevantDocuments(List<String> searchQueries, Map<String, Embedding> queryEmbeddings,
+                                                        Filter filter, Budget budget) {
         Map<String, TextSegment> uniqueMatches = new LinkedHashMap<>();
+        int topK = budget.limitTopK(AppConfig.getRetrievalTopK());
 
         for (String query : searchQueries) {
-            log(String.format("🔎 Searching Pinecone with query: \"%s\"", query));
             try {
-                List<TextSegment> matches = vectorStoreService.searchRelevantDocuments(query, 5, 0.65);
-                log(String.format("   ↳ Retrieved %d matches.", matches.size()));
+                Embedding queryEmbedding = queryEmbeddings.get(query);
+                List<TextSegment> matches = queryEmbedding != null
+                        ? budget.time(Stage.VECTOR_SEARCH,
+                                () -> vectorStoreService.searchRelevantDocuments(queryEmbedding,
+                                        topK, AppConfig.getRetrievalMinScore(), filter))
+                        : budget.time(Stage.VECTOR_SEARCH,
+                                () -> vectorStoreService.searchRelevantDocuments(vectorStoreService.embedQuery(query),
+                                        topK, AppConfig.getRetrievalMinScore(), filter));
+                metrics.recordMatches(matches.size());
+                logger.debug("Retrieved {} matches for query: \"{}\"", matches.size(), query);
                 for (TextSegment match : matches) {
                     String key = buildSegmentKey(match);
                     uniqueMatches.putIfAbsent(key, match);
                 }
             } catch (Exception ex) {
-                log(String.format("⚠️ Vector search failed for query '%s': %s", query, ex.getMessage()));
+                logger.warn("Vector search failed for query '{}': {}", query, ex.getMessage());
             }
         }
 
-        log(String.format("📦 Total unique segments accumulated: %d", uniqueMatches.size()));
+        logger.debug("Total unique segments accumulated: {}", uniqueMatches.size());
 
         return new ArrayList<>(uniqueMatches.values());
     }
 
     /**
      * Generate a set of optimized search queries using a query rewriting prompt.
+     * If the rewrite does not fit in the time budget, only the original query is used.
      *
      * @param userQuery the original user query
      * @param conversationHistory the recent conversation history for context
+     * @param sessionId the session to attribute token usage to, or null if none
+     * @param budget the time budget deciding whether to rewrite
      * @return a list of unique search queries to execute against the vector store
      */
-    private List<String> generateSearchQueries(String userQuery, List<String> conversationHistory) {
-        List<String> queries = new ArrayList<>();
-        queries.add(userQuery);
-
-        String historyText = getRecentConversationHistory(conversationHistory);
-
-        log("🛠️  Generating rewritten search queries...");
-
-        String rewritePrompt = String.format("""
-            You are assisting with retrieval for a Minnesota Medicaid knowledge base.
-            Generate up to three alternative semantic search queries that would help retrieve context for answering the user.
-            Focus on transforming follow-up questions into standalone queries and expand acronyms where appropriate.
-
-            Original question: %s
-
-            Recent conversation context:
-            %s
-
-            Output Format:
-            - Return only the new search queries, one per line.
-            - Do not number the queries or add explanations.
-            - If the original question is already clear, return a single identical line.
-            """,
-                userQuery,
-                historyText.isEmpty() ? "None provided." : historyText
-        );
+    private List<String> generateSearchQueries(String userQuery, List<String> conversationHistory, String sessionId,
+                                               Budget budget) {
+        return Traced.call(tracer, "RagService.generateSearchQueries", span -> {
+            List<String> queries = new ArrayList<>();
+            queries.add(userQuery);
+
+            if (!budget.allowRewrite()) {
+                logger.debug("Skipping query rewriting to stay within the time budget");
+                span.setAttribute("medicaid.query.count", 1);
+                return queries;
+            }
 
-        try {
-            String rewriteResponse = chatModel.chat(rewritePrompt);
-            List<String> rewrittenQueries = parseRewrittenQueries(rewriteResponse);
+            Prompt rewritePrompt = prompts.rewrite(userQuery, conversationHistory);
 
-            for (String rewritten : rewrittenQueries) {
-                if (!rewritten.equalsIgnoreCase(userQuery) && !queries.contains(rewritten)) {
-                    queries.add(rewritten);
+            try {
+                QueryRewriteEvent event = new QueryRewriteEvent();
+                event.begin();
+                ChatResponse rewriteResponse = budget.time(Stage.REWRITE,
+                        () -> chat(chatModels.get(ChatStage.REWRITE), rewritePrompt, TokenUsageTracker.Stage.REWRITE, sessionId));
+                List<String> rewrittenQueries = parseRewrittenQueries(rewriteResponse.aiMessage().text());
+
+                for (String rewritten : rewrittenQueries) {
+                    if (!rewritten.equalsIgnoreCase(userQuery) && !queries.contains(rewritten)) {
+                        queries.add(rewritten);
+                    }
                 }
-            }
 
-            log(String.format("   ↳ Generated %d rewritten queries.", queries.size() - 1));
-            rewrittenQueries.forEach(q -> log(String.format("      • %s", q)));
-        } catch (Exception ex) {
-            log(String.format("⚠️ Query rewriting failed: %s", ex.getMessage()));
-        }
+                event.finish(queries.size(), rewritePrompt.chars(), rewriteResponse.tokenUsage());
+                logger.debug("Generated {} rewritten queries: {}", queries.size() - 1, rewrittenQueries);
+            } catch (Exception ex) {
+                logger.warn("Query rewriting failed: {}", ex.getMessage());
+                Traced.recordFailure(span, ex);
+            }
 
-        if (queries.size() == 1) {
-            log("   ↳ No alternative queries generated; using original question only.");
-        }
+            if (queries.size() == 1) {
+                logger.debug("No alternative queries generated; using original question only");
+            }
 
-        return queries;
+            span.setAttribute("medicaid.query.count", queries.size());
+            return queries;
+        });
     }
 
     /**
@@ -235,7 +501,7 @@ public class RagService {
      * @param response the raw response text from the language model
      * @return a list of parsed queries
      */
-    private List<String> parseRewrittenQueries(String response) {
+    List<String> parseRewrittenQueries(String response) {
         if (response == null || response.isBlank()) {
             return List.of();
         }
@@ -255,7 +521,7 @@ public class RagService {
      * @param segment the text segment returned from the vector search
      * @return a stable key representing the segment
      */
-    private String buildSegmentKey(TextSegment segment) {
+    String buildSegmentKey(TextSegment segment) {
         if (segment == null) {
             return "null-segment";
         }
@@ -266,27 +532,4 @@ public class RagService {
 
         return documentId + "::" + segmentIndex;
     }
-
-    /**
-     * Extract recent conversation history for prompts.
-     *
-     * @param conversationHistory the full conversation history
-     * @return a string with the most recent exchanges
-     */
-    private String getRecentConversationHistory(List<String> conversationHistory) {
-        if (conversationHistory == null || conversationHistory.isEmpty()) {
-            return "";
-        }
-
-        int startIndex = Math.max(0, conversationHistory.size() - 6);
-        List<String> recentHistory = conversationHistory.subList(startIndex, conversationHistory.size());
-
-        return String.join("\n", recentHistory);
-    }
-
-    private void log(String message) {
-        if (AppConfig.isDebugLoggingEnabled()) {
-            System.out.println("[DEBUG] " + message);
-        }
-    }
 }
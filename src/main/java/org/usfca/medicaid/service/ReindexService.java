@@ -0,0 +1,231 @@
+package org.usfca.medicaid.service;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.usfca.medicaid.config.AppConfig;
+import org.usfca.medicaid.config.DocumentConfig;
+import org.usfca.medicaid.config.HttpTransport;
+import org.usfca.medicaid.store.ActiveIndex;
+import org.usfca.medicaid.store.IndexGeneration;
+import org.usfca.medicaid.store.MappedVectorIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+/**
+ * Blue/green reindexing: documents are loaded into a new index generation (a
+ * Pinecone namespace or local index directory) while the active generation
+ * keeps answering questions. The new generation is checked against the
+ * number of vectors in the active store and a set of smoke queries, then searches switch to it
+ * atomically. Other processes follow the switch through the index pointer file
+ * (see {@link IndexGenerationWatcher}), so the previous generation is kept
+ * until the operator deletes it.
+ */
+@Service
+@Lazy
+public class ReindexService implements AutoCloseable {
+
+    private static final int SMOKE_QUERY_ATTEMPTS = 5;
+    private static final long SMOKE_QUERY_RETRY_MILLIS = 2000;
+
+    private final VectorStoreService vectorStoreService;
+    private final DocumentLoaderService documentLoaderService;
+    private final HttpTransport httpTransport;
+    private final ActiveIndex activeIndex;
+    private final IndexGenerationWatcher watcher;
+    private volatile EmbeddingStore<TextSegment> promoted;
+
+    /**
+     * The outcome of a reindex.
+     *
+     * @param generation the index generation that was built
+     * @param switched true if searches now use the new generation
+     * @param documentIds the IDs of the documents in the new generation
+     * @param segments the number of segments in the new generation
+     * @param problems the validation failures that prevented the switch
+     */
+    public record Result(String generation, boolean switched, List<String> documentIds, long segments,
+                         List<String> problems) {
+    }
+
+    /**
+     * Constructs a new ReindexService.
+     *
+     * @param vectorStoreService the vector store service serving searches
+     * @param documentLoaderService the loader for the configured document sources
+     * @param httpTransport the shared HTTP transport for new Pinecone stores
+     * @param activeIndex the active index generation of this process
+     * @param watcher the watcher closing stores replaced by a switch
+     */
+    public ReindexService(VectorStoreService vectorStoreService, DocumentLoaderService documentLoaderService,
+                          HttpTransport httpTransport, ActiveIndex activeIndex, IndexGenerationWatcher watcher) {
+        this.vectorStoreService = vectorStoreService;
+        this.documentLoaderService = documentLoaderService;
+        this.httpTransport = httpTransport;
+        this.activeIndex = activeIndex;
+        this.watcher = watcher;
+    }
+
+    /**
+     * Load the configured documents into a new index generation and switch
+     * searches to it if it passes validation. A generation that fails
+     * validation is deleted and the active one is kept.
+     *
+     * @param report the report of the current ingestion run
+     * @return the outcome of the reindex
+     * @throws IOException if the index pointer cannot be read or written
+     */
+    public synchronized Result reindex(IngestionReport report) throws IOException {
+        String previous = IndexGeneration.readActive(AppConfig.getIndexPointerFile());
+        String generation = IndexGeneration.newName();
+        System.out.println("🔷 Building index generation " + generation + " (active: "
+                + name(previous) + ")");
+
+        EmbeddingStore<TextSegment> store = AppConfig.createEmbeddingStore(httpTransport, generation);
+        VectorStoreService staging = vectorStoreService.staging(store);
+
+        System.out.println("Loading documents into " + generation + "...");
+        List<String> documentIds = new ArrayList<>();
+        documentLoaderService.loadDocuments(report,
+                document -> staging.addDocument(document, report).ifPresent(documentIds::add));
+        long segments = staging.getSegmentCount();
+
+        List<String> problems = validate(staging, store, segments);
+        if (!problems.isEmpty()) {
+            System.err.println("❌ Index generation " + generation + " failed validation; keeping the active index:");
+            problems.forEach(problem -> System.err.println("   - " + problem));
+            try {
+                discard(store, generation);
+            } catch (Exception e) {
+                System.err.println("⚠️  Could not delete index generation " + generation + ": " + e.getMessage());
+            }
+            return new Result(generation, false, documentIds, segments, problems);
+        }
+
+        EmbeddingStore<TextSegment> old = activeIndex.switchTo(generation, () -> vectorStoreService.promote(staging));
+        promoted = store;
+        watcher.retire(old);
+        System.out.println("🔀 Switched searches to index generation " + generation + " (" + segments + " segments)");
+        System.out.println("♻️  Previous index generation " + name(previous) + " is kept: other processes switch within "
+                + AppConfig.getIndexPointerPollSeconds() + "s, then delete it from the menu");
+        return new Result(generation, true, documentIds, segments, List.of());
+    }
+
+    /**
+     * Check a new generation before switching to it: it must hold every
+     * segment that was added, at least the configured share of the vectors
+     * the active store holds, and a result for each smoke query. The active
+     * store is counted rather than the segments added in this session, which
+     * are none after a restart; if it cannot be counted the switch is refused.
+     */
+    private List<String> validate(VectorStoreService staging, EmbeddingStore<TextSegment> store, long segments) {
+        List<String> problems = new ArrayList<>();
+        if (segments == 0) {
+            problems.add("no segments were added");
+            return problems;
+        }
+        if (store instanceof MappedVectorIndex index && index.size() != segments) {
+            problems.add("store holds " + index.size() + " vectors, but " + segments + " segments were added");
+        }
+
+        OptionalLong activeVectors = vectorStoreService.getStoredVectorCount();
+        double minRatio = DocumentConfig.getReindexMinSegmentRatio();
+        if (activeVectors.isEmpty()) {
+            problems.add("the size of the active index is unknown");
+        } else if (segments < activeVectors.getAsLong() * minRatio) {
+            problems.add(String.format("%d segments is below %.0f%% of the %d vectors in the active index",
+                    segments, minRatio * 100, activeVectors.getAsLong()));
+        }
+
+        for (String query : DocumentConfig.getReindexSmokeQueries()) {
+            if (!answersSmokeQuery(staging, query)) {
+                problems.add("no segment above the minimum score for smoke query \"" + query + "\"");
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Run a smoke query, retrying for a few seconds because Pinecone makes
+     * freshly upserted vectors searchable with a short delay.
+     */
+    private boolean answersSmokeQuery(VectorStoreService staging, String query) {
+        for (int attempt = 1; attempt <= SMOKE_QUERY_ATTEMPTS; attempt++) {
+            if (!staging.searchRelevantDocuments(query, 1, AppConfig.getRetrievalMinScore()).isEmpty()) {
+                return true;
+            }
+            if (attempt < SMOKE_QUERY_ATTEMPTS) {
+                try {
+                    Thread.sleep(SMOKE_QUERY_RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delete an index generation that no longer serves searches. Only call this
+     * once every process has followed the switch away from it.
+     *
+     * @param generation the generation to delete, or {@link IndexGeneration#LEGACY}
+     * @throws IllegalArgumentException if the generation is the active one, or
+     *         a local generation that does not exist
+     * @throws Exception if the generation's segments cannot be deleted
+     */
+    public synchronized void delete(String generation) throws Exception {
+        if (generation.equals(IndexGeneration.readActive(AppConfig.getIndexPointerFile()))) {
+            throw new IllegalArgumentException("Index generation " + name(generation) + " is serving searches");
+        }
+        if ("local".equalsIgnoreCase(AppConfig.getVectorStoreType())
+                && !Files.isDirectory(AppConfig.getLocalIndexDirectory(generation))) {
+            throw new IllegalArgumentException("No index generation " + name(generation));
+        }
+        discard(AppConfig.createEmbeddingStore(httpTransport, generation), generation);
+    }
+
+    /**
+     * Delete the segments of an index generation that no longer serves searches.
+     */
+    private void discard(EmbeddingStore<TextSegment> store, String generation) throws Exception {
+        store.removeAll();
+        if (store instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+        if ("local".equalsIgnoreCase(AppConfig.getVectorStoreType()) && !generation.isEmpty()) {
+            try (Stream<Path> files = Files.walk(AppConfig.getLocalIndexDirectory(generation))) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+        System.out.println("♻️  Deleted index generation " + name(generation));
+    }
+
+    private static String name(String generation) {
+        return generation.isEmpty() ? "default" : generation;
+    }
+
+    /**
+     * Close the store switched to by the last reindex. Previous generations
+     * are left in place.
+     *
+     * @throws Exception if the promoted store cannot be closed
+     */
+    @Override
+    public void close() throws Exception {
+        if (promoted instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
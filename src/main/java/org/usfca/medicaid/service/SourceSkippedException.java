@@ -0,0 +1,19 @@
+package org.usfca.medicaid.service;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a source is reachable but deliberately not ingested, for example
+ * because it served a bot protection page or contained no text.
+ */
+public class SourceSkippedException extends IOException {
+
+    /**
+     * Constructs a new SourceSkippedException.
+     *
+     * @param reason why the source was skipped
+     */
+    public SourceSkippedException(String reason) {
+        super(reason);
+    }
+}
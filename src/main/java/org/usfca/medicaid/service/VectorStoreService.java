@@ -2,18 +2,43 @@ package org.usfca.medicaid.service;
 
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.DocumentSplitter;
-import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
 import dev.langchain4j.store.embedding.EmbeddingSearchResult;
 import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import io.opentelemetry.api.trace.Tracer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.usfca.medicaid.config.AppConfig;
+import org.usfca.medicaid.chunking.NearDuplicateIndex;
+import org.usfca.medicaid.config.DocumentConfig;
+import org.usfca.medicaid.jfr.DocumentSplitEvent;
+import org.usfca.medicaid.jfr.EmbeddingBatchEvent;
+import org.usfca.medicaid.jfr.QueryEmbeddingEvent;
+import org.usfca.medicaid.jfr.UpsertEvent;
+import org.usfca.medicaid.jfr.VectorSearchEvent;
+import org.usfca.medicaid.metrics.TokenUsageTracker;
+import org.usfca.medicaid.store.CorpusSnapshot;
+import org.usfca.medicaid.store.ScannableEmbeddingStore;
+import org.usfca.medicaid.tracing.Traced;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -22,18 +47,69 @@ import java.util.stream.Collectors;
 @Service
 public class VectorStoreService {
     
-    private final EmbeddingStore<TextSegment> embeddingStore;
+    // Metadata set per segment by the splitters and addDocument, not by the document loader.
+    private static final List<String> SEGMENT_METADATA_KEYS = List.of("document_id", "segment_index", "index", "section", "page");
+    
     private final EmbeddingModel embeddingModel;
     private final DocumentSplitter documentSplitter;
+    private final TokenUsageTracker tokenUsage;
+    private final Tracer tracer;
+    private volatile Corpus active;
+    
+    /**
+     * The embedding store serving searches, together with the number of
+     * segments added to it in this session and the near-duplicate indexes over
+     * them, one per deduplication scope (see {@link #deduplicationScope}).
+     * Replaced as a whole when a reindexed store is promoted.
+     */
+    private record Corpus(EmbeddingStore<TextSegment> store, AtomicLong segments,
+                          Map<String, NearDuplicateIndex> duplicates) {
+        
+        Corpus(EmbeddingStore<TextSegment> store) {
+            this(store, new AtomicLong(), DocumentConfig.isDeduplicationEnabled() ? new ConcurrentHashMap<>() : null);
+        }
+        
+        /**
+         * Get the near-duplicate index of a document's scope, or null if deduplication is disabled.
+         */
+        NearDuplicateIndex duplicates(Metadata metadata) {
+            return duplicates == null ? null : duplicates.computeIfAbsent(deduplicationScope(metadata),
+                    scope -> new NearDuplicateIndex(DocumentConfig.getDeduplicationThreshold()));
+        }
+    }
     
     /**
-     * Constructs a new VectorStoreService with initialized embedding store,
-     * embedding model, and document splitter.
+     * Constructs a new VectorStoreService with the shared embedding store
+     * and embedding model, splitting documents with the configured chunker.
+     *
+     * @param embeddingStore the embedding store to read and write segments
+     * @param embeddingModel the embedding model for documents and queries
+     * @param tokenUsage the accounting for embedding tokens
+     * @param tracer the tracer recording search spans
      */
-    public VectorStoreService() {
-        this.embeddingStore = AppConfig.createPineconeEmbeddingStore();
-        this.embeddingModel = AppConfig.createEmbeddingModel();
-        this.documentSplitter = DocumentSplitters.recursive(300, 50);
+    @Autowired
+    public VectorStoreService(EmbeddingStore<TextSegment> embeddingStore, EmbeddingModel embeddingModel,
+                              TokenUsageTracker tokenUsage, Tracer tracer) {
+        this(embeddingStore, embeddingModel, tokenUsage, tracer, DocumentConfig.createDocumentSplitter());
+    }
+    
+    /**
+     * Constructs a new VectorStoreService with a specific document splitter,
+     * e.g. to compare chunking settings.
+     *
+     * @param embeddingStore the embedding store to read and write segments
+     * @param embeddingModel the embedding model for documents and queries
+     * @param tokenUsage the accounting for embedding tokens
+     * @param tracer the tracer recording search spans
+     * @param documentSplitter the splitter turning documents into segments
+     */
+    public VectorStoreService(EmbeddingStore<TextSegment> embeddingStore, EmbeddingModel embeddingModel,
+                              TokenUsageTracker tokenUsage, Tracer tracer, DocumentSplitter documentSplitter) {
+        this.active = new Corpus(embeddingStore);
+        this.embeddingModel = embeddingModel;
+        this.tokenUsage = tokenUsage;
+        this.tracer = tracer;
+        this.documentSplitter = documentSplitter;
     }
     
     /**
@@ -41,33 +117,186 @@ public class VectorStoreService {
      * Documents are split into segments, embedded, and stored with metadata.
      *
      * @param document the document to add to the vector store
+     * @return the ID assigned to the document
      */
-    public void addDocument(Document document) {
+    public String addDocument(Document document) {
+        return addDocument(document, new IngestionReport().source(String.valueOf(document.metadata().getString("source"))));
+    }
+    
+    /**
+     * Add a document to the vector store, recording split, embedding and
+     * upsert statistics in its ingestion report entry.
+     *
+     * @param document the document to add to the vector store
+     * @param report the report entry for the document's source
+     * @return the ID assigned to the document
+     */
+    public String addDocument(Document document, IngestionReport.SourceReport report) {
+        Corpus corpus = active;
         String documentId = generateDocumentId(document);
         
+        DocumentSplitEvent splitEvent = new DocumentSplitEvent();
+        splitEvent.begin();
+        long splitStart = System.nanoTime();
         List<TextSegment> segments = documentSplitter.split(document);
-        
-        List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+        report.addSplit(System.nanoTime() - splitStart, segments.size());
+        splitEvent.finish(report.getSource(), segments.size());
         
         for (int i = 0; i < segments.size(); i++) {
             TextSegment segment = segments.get(i);
             segment.metadata().put("document_id", documentId);
             segment.metadata().put("segment_index", String.valueOf(i));
         }
+        NearDuplicateIndex duplicates = corpus.duplicates(document.metadata());
+        NearDuplicateIndex pending = duplicates != null ? new NearDuplicateIndex(duplicates.threshold()) : null;
+        segments = dropNearDuplicates(duplicates, pending, documentId, segments, report);
+        if (segments.isEmpty()) {
+            report.setDocumentId(documentId);
+            System.out.println("ℹ️  No new segments in document: " + document.metadata().toMap().get("title"));
+            return documentId;
+        }
         
-        embeddingStore.addAll(embeddings, segments);
+        EmbeddingBatchEvent embeddingEvent = new EmbeddingBatchEvent();
+        embeddingEvent.begin();
+        long embedStart = System.nanoTime();
+        Response<List<Embedding>> response = embeddingModel.embedAll(segments);
+        embeddingEvent.finish(report.getSource(), segments.size(), response.tokenUsage());
+        tokenUsage.record(TokenUsageTracker.Stage.INGESTION_EMBEDDING, null, response.tokenUsage());
+        report.addEmbedding(System.nanoTime() - embedStart,
+                response.tokenUsage() != null && response.tokenUsage().inputTokenCount() != null
+                        ? response.tokenUsage().inputTokenCount() : 0);
+        List<Embedding> embeddings = response.content();
+        
+        UpsertEvent upsertEvent = new UpsertEvent();
+        upsertEvent.begin();
+        long upsertStart = System.nanoTime();
+        corpus.store().addAll(embeddings, segments);
+        report.addUpsert(System.nanoTime() - upsertStart);
+        upsertEvent.finish(report.getSource(), segments.size());
+        report.setDocumentId(documentId);
+        corpus.segments().addAndGet(segments.size());
+        if (pending != null) {
+            duplicates.addAll(pending);
+        }
         
         System.out.println("✅ Added " + segments.size() + " segments from document: " + document.metadata().toMap().get("title"));
+        
+        return documentId;
+    }
+    
+    /**
+     * Drop segments whose text nearly duplicates a segment already stored in
+     * this run from a document of the same deduplication scope, such as
+     * navigation and footer blocks shared by pages of one site, or an earlier
+     * segment of the same document, recording which
+     * segment each dropped one duplicates. The kept segments are only added to
+     * the pending index; they join the store's index once they are stored, so a
+     * failed embedding or upsert does not make later copies count as duplicates.
+     *
+     * @param duplicates the near-duplicate index of the document's scope, or null if disabled
+     * @param pending the index collecting the document's kept segments, or null if disabled
+     * @param documentId the ID of the document being added
+     * @param segments the document's segments
+     * @param report the report entry for the document's source
+     * @return the segments to embed and store
+     */
+    private List<TextSegment> dropNearDuplicates(NearDuplicateIndex duplicates, NearDuplicateIndex pending,
+                                                 String documentId, List<TextSegment> segments,
+                                                 IngestionReport.SourceReport report) {
+        if (duplicates == null) {
+            return segments;
+        }
+        List<TextSegment> unique = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            TextSegment segment = segments.get(i);
+            Optional<NearDuplicateIndex.Match> match = duplicates.find(segment.text());
+            if (match.isEmpty()) {
+                match = pending.findOrAdd(documentId + "#" + i, segment.text());
+            }
+            if (match.isPresent()) {
+                report.addDuplicate(i, match.get().id(), match.get().similarity());
+            } else {
+                unique.add(segment);
+            }
+        }
+        if (unique.size() < segments.size()) {
+            System.out.println("🧹 Dropped " + (segments.size() - unique.size()) + " near-duplicate segments from "
+                    + report.getSource());
+        }
+        return unique;
+    }
+    
+    /**
+     * Get the deduplication scope of a document: the query routes covering it.
+     * A routed search is filtered to its route's sources and the pages crawled
+     * from them (see {@link QueryRouter}), so a segment may only be dropped in
+     * favour of a copy from a document every such search also reaches; two
+     * documents share a scope exactly when the same routes cover them.
+     *
+     * @param metadata the document metadata
+     * @return the names of the routes covering the document, or "" if none or routing is off
+     */
+    private static String deduplicationScope(Metadata metadata) {
+        if (!DocumentConfig.isQueryRoutingEnabled()) {
+            return "";
+        }
+        String source = metadata.getString("source");
+        String seed = metadata.getString("seed");
+        return DocumentConfig.getSourceRoutes().stream()
+                .filter(route -> (source != null && route.sources().contains(source))
+                        || (seed != null && route.sources().contains(seed)))
+                .map(DocumentConfig.SourceRoute::name)
+                .collect(Collectors.joining(","));
     }
     
     /**
      * Add multiple documents to the vector store.
      *
      * @param documents the list of documents to add
+     * @return the IDs assigned to the documents, in order
+     */
+    public List<String> addDocuments(List<Document> documents) {
+        List<String> documentIds = new ArrayList<>();
+        for (Document document : documents) {
+            documentIds.add(addDocument(document));
+        }
+        return documentIds;
+    }
+    
+    /**
+     * Add multiple documents to the vector store, recording statistics per source.
+     * A document that fails to embed or store is marked as failed in the report
+     * and the remaining documents are still added.
+     *
+     * @param documents the list of documents to add
+     * @param report the report of the current ingestion run
+     * @return the IDs assigned to the documents that were added, in order
      */
-    public void addDocuments(List<Document> documents) {
+    public List<String> addDocuments(List<Document> documents, IngestionReport report) {
+        List<String> documentIds = new ArrayList<>();
         for (Document document : documents) {
-            addDocument(document);
+            addDocument(document, report).ifPresent(documentIds::add);
+        }
+        return documentIds;
+    }
+    
+    /**
+     * Add a document to the vector store, recording statistics in the entry
+     * for its source. A document that fails to embed or store is marked as
+     * failed in the report instead of throwing.
+     *
+     * @param document the document to add
+     * @param report the report of the current ingestion run
+     * @return the ID assigned to the document, or empty if it could not be added
+     */
+    public Optional<String> addDocument(Document document, IngestionReport report) {
+        IngestionReport.SourceReport sourceReport = report.source(String.valueOf(document.metadata().getString("source")));
+        try {
+            return Optional.of(addDocument(document, sourceReport));
+        } catch (Exception e) {
+            sourceReport.failed("embed/upsert", e);
+            System.err.println("❌ Error adding " + document.metadata().getString("title") + ": " + e.getMessage());
+            return Optional.empty();
         }
     }
     
@@ -75,7 +304,167 @@ public class VectorStoreService {
      * Clear all documents from the vector store.
      */
     public void clearAllDocuments() {
-        embeddingStore.removeAll();
+        Corpus corpus = active;
+        corpus.store().removeAll();
+        corpus.segments().set(0);
+        if (corpus.duplicates() != null) {
+            corpus.duplicates().clear();
+        }
+    }
+    
+    /**
+     * Create a service writing to a separate, empty embedding store with the
+     * same models and splitter, e.g. to build a new index generation while
+     * this service keeps serving searches.
+     *
+     * @param embeddingStore the empty store to write to
+     * @return the staging service
+     */
+    public VectorStoreService staging(EmbeddingStore<TextSegment> embeddingStore) {
+        return new VectorStoreService(embeddingStore, embeddingModel, tokenUsage, tracer, documentSplitter);
+    }
+    
+    /**
+     * Atomically switch searches and writes to the store of a staging
+     * service, together with the documents added to it. Searches already
+     * running finish against the previous store.
+     *
+     * @param staging the staging service whose store becomes active
+     * @return the previously active store, for the caller to discard
+     */
+    public EmbeddingStore<TextSegment> promote(VectorStoreService staging) {
+        Corpus previous = active;
+        active = staging.active;
+        return previous.store();
+    }
+    
+    /**
+     * Get the number of segments added to the active store in this session.
+     *
+     * @return the segment count
+     */
+    public long getSegmentCount() {
+        return active.segments().get();
+    }
+    
+    /**
+     * Get the number of vectors the active store holds, including the ones
+     * stored before this session started.
+     *
+     * @return the vector count, or empty if the store cannot report it
+     */
+    public OptionalLong getStoredVectorCount() {
+        try {
+            if (active.store() instanceof ScannableEmbeddingStore store) {
+                return OptionalLong.of(store.count());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("⚠️  Could not count the stored vectors: " + e.getMessage());
+        }
+        return OptionalLong.empty();
+    }
+    
+    /**
+     * Write every segment in the active store, with its embedding, to a corpus
+     * snapshot. The store is read back rather than a copy kept during
+     * ingestion, so the snapshot covers segments stored by earlier runs too.
+     * Segments are grouped into documents by their document_id; the documents'
+     * text is rebuilt from their stored segments, as the full text is not kept.
+     *
+     * @param path the snapshot file
+     * @return the number of documents written
+     * @throws IOException if the snapshot cannot be written
+     * @throws IllegalStateException if the store cannot be listed or holds no segments
+     */
+    public int exportSnapshot(Path path) throws IOException {
+        if (!(active.store() instanceof ScannableEmbeddingStore store)) {
+            throw new IllegalStateException("The " + AppConfig.getVectorStoreType() + " vector store cannot be listed");
+        }
+        Map<String, List<ScannableEmbeddingStore.StoredSegment>> documents = new LinkedHashMap<>();
+        store.scan(stored -> {
+            if (stored.segment() != null) {
+                String documentId = stored.segment().metadata().getString("document_id");
+                documents.computeIfAbsent(documentId != null ? documentId : stored.id(), id -> new ArrayList<>())
+                        .add(stored);
+            }
+        });
+        if (documents.isEmpty()) {
+            throw new IllegalStateException("The vector store holds no segments");
+        }
+        
+        List<CorpusSnapshot.Entry> entries = new ArrayList<>(documents.size());
+        documents.forEach((documentId, stored) -> entries.add(toEntry(documentId, stored)));
+        long bytes = CorpusSnapshot.write(path, AppConfig.getEmbeddingModelName(),
+                AppConfig.getEmbeddingDimensions(), entries);
+        System.out.printf("💾 Wrote %d documents to %s (%.1f MB)%n", entries.size(), path, bytes / 1e6);
+        return entries.size();
+    }
+    
+    /**
+     * Rebuild a snapshot entry from a document's stored segments, ordered by
+     * segment index. The document keeps the metadata its segments share.
+     */
+    private static CorpusSnapshot.Entry toEntry(String documentId, List<ScannableEmbeddingStore.StoredSegment> stored) {
+        List<ScannableEmbeddingStore.StoredSegment> ordered = stored.stream()
+                .sorted(Comparator.comparingInt(segment -> segmentIndex(segment.segment())))
+                .toList();
+        Metadata metadata = ordered.getFirst().segment().metadata().copy();
+        SEGMENT_METADATA_KEYS.forEach(metadata::remove);
+        String text = ordered.stream().map(segment -> segment.segment().text()).collect(Collectors.joining("\n\n"));
+        return new CorpusSnapshot.Entry(documentId, Document.from(text, metadata),
+                ordered.stream().map(ScannableEmbeddingStore.StoredSegment::segment).toList(),
+                ordered.stream().map(ScannableEmbeddingStore.StoredSegment::embedding).toList());
+    }
+    
+    private static int segmentIndex(TextSegment segment) {
+        try {
+            return Integer.parseInt(segment.metadata().getString("segment_index"));
+        } catch (RuntimeException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+    
+    /**
+     * Replace the contents of the vector store with a corpus snapshot.
+     * Segments are upserted with their stored embeddings, so no documents are
+     * fetched and nothing is embedded.
+     *
+     * @param path the snapshot file
+     * @return the IDs of the restored documents, in order
+     * @throws IOException if the snapshot cannot be read
+     * @throws IllegalStateException if the snapshot was made with a different embedding model
+     */
+    public List<String> restoreSnapshot(Path path) throws IOException {
+        try (CorpusSnapshot snapshot = CorpusSnapshot.open(path)) {
+            if (!snapshot.embeddingModel().equals(AppConfig.getEmbeddingModelName())
+                    || snapshot.dimensions() != AppConfig.getEmbeddingDimensions()) {
+                throw new IllegalStateException("Snapshot holds " + snapshot.embeddingModel() + " embeddings with "
+                        + snapshot.dimensions() + " dimensions, but " + AppConfig.getEmbeddingModelName() + " with "
+                        + AppConfig.getEmbeddingDimensions() + " is configured");
+            }
+            System.out.println("📦 Restoring " + snapshot.documents().size() + " documents ("
+                    + snapshot.segmentCount() + " segments) from snapshot of " + snapshot.createdAt());
+            
+            clearAllDocuments();
+            Corpus corpus = active;
+            List<String> documentIds = new ArrayList<>();
+            for (CorpusSnapshot.Entry entry : snapshot.documents()) {
+                UpsertEvent upsertEvent = new UpsertEvent();
+                upsertEvent.begin();
+                corpus.store().addAll(entry.embeddings(), entry.segments());
+                upsertEvent.finish(entry.document().metadata().getString("source"), entry.segments().size());
+                corpus.segments().addAndGet(entry.segments().size());
+                NearDuplicateIndex duplicates = corpus.duplicates(entry.document().metadata());
+                if (duplicates != null) {
+                    for (TextSegment segment : entry.segments()) {
+                        duplicates.findOrAdd(entry.documentId() + "#" + segment.metadata().getString("segment_index"),
+                                segment.text());
+                    }
+                }
+                documentIds.add(entry.documentId());
+            }
+            return documentIds;
+        }
     }
     
     /**
@@ -86,19 +475,7 @@ public class VectorStoreService {
      * @return a list of relevant text segments
      */
     public List<TextSegment> searchRelevantDocuments(String query, int maxResults) {
-        Embedding queryEmbedding = embeddingModel.embed(query).content();
-        
-        EmbeddingSearchRequest searchRequest = EmbeddingSearchRequest.builder()
-                .queryEmbedding(queryEmbedding)
-                .maxResults(maxResults)
-                .minScore(0.0)
-                .build();
-        
-        EmbeddingSearchResult<TextSegment> searchResult = embeddingStore.search(searchRequest);
-        
-        return searchResult.matches().stream()
-                .map(EmbeddingMatch::embedded)
-                .collect(Collectors.toList());
+        return searchRelevantDocuments(embedQuery(query), maxResults, 0.0);
     }
     
     /**
@@ -110,19 +487,106 @@ public class VectorStoreService {
      * @return a list of relevant text segments that meet the score threshold
      */
     public List<TextSegment> searchRelevantDocuments(String query, int maxResults, double minScore) {
-        Embedding queryEmbedding = embeddingModel.embed(query).content();
-        
-        EmbeddingSearchRequest searchRequest = EmbeddingSearchRequest.builder()
-                .queryEmbedding(queryEmbedding)
-                .maxResults(maxResults)
-                .minScore(minScore)
-                .build();
-        
-        EmbeddingSearchResult<TextSegment> searchResult = embeddingStore.search(searchRequest);
+        return searchRelevantDocuments(embedQuery(query), maxResults, minScore);
+    }
+    
+    /**
+     * Search for relevant documents using a precomputed query embedding.
+     *
+     * @param queryEmbedding the embedding of the search query
+     * @param maxResults the maximum number of results to return
+     * @param minScore the minimum similarity score threshold (0.0 to 1.0)
+     * @return a list of relevant text segments that meet the score threshold
+     */
+    public List<TextSegment> searchRelevantDocuments(Embedding queryEmbedding, int maxResults, double minScore) {
+        return searchRelevantDocuments(queryEmbedding, maxResults, minScore, null);
+    }
+    
+    /**
+     * Search for relevant documents among the segments matching a metadata filter.
+     * The filter is passed to the embedding store, so only matching segments are scored.
+     *
+     * @param queryEmbedding the embedding of the search query
+     * @param maxResults the maximum number of results to return
+     * @param minScore the minimum similarity score threshold (0.0 to 1.0)
+     * @param filter the metadata filter, e.g. on "source", or null to search all segments
+     * @return a list of relevant text segments that meet the score threshold
+     */
+    public List<TextSegment> searchRelevantDocuments(Embedding queryEmbedding, int maxResults, double minScore,
+                                                     Filter filter) {
+        return Traced.call(tracer, "VectorStoreService.searchRelevantDocuments", span -> {
+            span.setAttribute("medicaid.search.max_results", maxResults);
+            span.setAttribute("medicaid.search.min_score", minScore);
+            span.setAttribute("medicaid.search.filtered", filter != null);
+            VectorSearchEvent event = new VectorSearchEvent();
+            event.begin();
+            
+            EmbeddingSearchRequest searchRequest = EmbeddingSearchRequest.builder()
+                    .queryEmbedding(queryEmbedding)
+                    .maxResults(maxResults)
+                    .minScore(minScore)
+                    .filter(filter)
+                    .build();
+            
+            EmbeddingSearchResult<TextSegment> searchResult = active.store().search(searchRequest);
+            
+            span.setAttribute("medicaid.match.count", searchResult.matches().size());
+            event.finish(maxResults, minScore, searchResult.matches().size());
+            return searchResult.matches().stream()
+                    .map(EmbeddingMatch::embedded)
+                    .collect(Collectors.toList());
+        });
+    }
+    
+    /**
+     * Embed a single search query.
+     *
+     * @param query the search query
+     * @return the query embedding
+     */
+    public Embedding embedQuery(String query) {
+        QueryEmbeddingEvent event = new QueryEmbeddingEvent();
+        event.begin();
+        Response<Embedding> response = embeddingModel.embed(query);
+        event.finish(1, response.tokenUsage());
+        tokenUsage.record(TokenUsageTracker.Stage.QUERY_EMBEDDING, null, response.tokenUsage());
+        return response.content();
+    }
+    
+    /**
+     * Embed several search queries in one batched call.
+     *
+     * @param queries the search queries
+     * @return the embeddings keyed by query, in input order
+     */
+    public Map<String, Embedding> embedQueries(List<String> queries) {
+        return embedQueries(queries, null);
+    }
+    
+    /**
+     * Embed several search queries in one batched call, attributing the tokens to a session.
+     *
+     * @param queries the search queries
+     * @param sessionId the session the queries belong to, or null if none
+     * @return the embeddings keyed by query, in input order
+     */
+    public Map<String, Embedding> embedQueries(List<String> queries, String sessionId) {
+        Map<String, Embedding> embeddings = new LinkedHashMap<>();
+        if (queries.isEmpty()) {
+            return embeddings;
+        }
         
-        return searchResult.matches().stream()
-                .map(EmbeddingMatch::embedded)
-                .collect(Collectors.toList());
+        List<TextSegment> segments = queries.stream().map(TextSegment::from).toList();
+        QueryEmbeddingEvent event = new QueryEmbeddingEvent();
+        event.begin();
+        Response<List<Embedding>> response = embeddingModel.embedAll(segments);
+        event.finish(queries.size(), response.tokenUsage());
+        tokenUsage.record(TokenUsageTracker.Stage.QUERY_EMBEDDING, sessionId, response.tokenUsage());
+        List<Embedding> vectors = response.content();
+        for (int i = 0; i < queries.size(); i++) {
+            embeddings.put(queries.get(i), vectors.get(i));
+        }
+        return embeddings;
     }
     
     /**
@@ -0,0 +1,54 @@
+package org.usfca.medicaid.session;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Session store that keeps history in local memory.
+ * Suitable for a single instance; the least recently used sessions are
+ * evicted once the session limit is reached.
+ */
+public class InMemorySessionStore implements SessionStore {
+
+    private final int maxMessages;
+    private final Map<String, Deque<String>> sessions;
+
+    /**
+     * Constructs a new InMemorySessionStore.
+     *
+     * @param maxSessions the maximum number of sessions kept
+     * @param maxMessages the maximum number of messages kept per session
+     */
+    public InMemorySessionStore(int maxSessions, int maxMessages) {
+        this.maxMessages = maxMessages;
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Deque<String>> eldest) {
+                return size() > maxSessions;
+            }
+        };
+    }
+
+    @Override
+    public synchronized List<String> getHistory(String sessionId) {
+        Deque<String> history = sessions.get(sessionId);
+        return history != null ? List.copyOf(history) : List.of();
+    }
+
+    @Override
+    public synchronized void appendAll(String sessionId, List<String> messages) {
+        Deque<String> history = sessions.computeIfAbsent(sessionId, id -> new ArrayDeque<>());
+        history.addAll(messages);
+        while (history.size() > maxMessages) {
+            history.removeFirst();
+        }
+    }
+
+    @Override
+    public synchronized void clear(String sessionId) {
+        sessions.remove(sessionId);
+    }
+}
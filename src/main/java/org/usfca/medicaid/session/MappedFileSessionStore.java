@@ -0,0 +1,313 @@
+package org.usfca.medicaid.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session store backed by a fixed-size memory-mapped file.
+ * The file is a hash table of fixed-size slots, one per session, each holding
+ * the session ID and its recent messages as length-prefixed UTF-8. Writes take
+ * a file lock, so several instances on one host can share the same file.
+ * A new session whose probe window is full takes the slot of the least
+ * recently updated session there, but only if that session has been idle for
+ * the configured time; otherwise the store is full and the write fails.
+ *
+ * <pre>
+ * file:  [magic:int][version:int][slotCount:int][slotSize:int] slot*
+ * slot:  [idLength:int][id:64 bytes][updatedAt:long][dataLength:int] ([length:int][utf8])*
+ * </pre>
+ */
+public class MappedFileSessionStore implements SessionStore, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedFileSessionStore.class);
+
+    private static final int MAGIC = 0x4D534553;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 16;
+    private static final int MAX_SESSION_ID_BYTES = 64;
+    private static final int SLOT_HEADER_SIZE = 4 + MAX_SESSION_ID_BYTES + 8 + 4;
+    private static final int MAX_PROBES = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final int slotSize;
+    private final int maxMessages;
+    private final long minIdleMillis;
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Opens or creates a session file.
+     *
+     * @param path the session file
+     * @param slotCount the number of session slots
+     * @param slotSize the size of each slot in bytes
+     * @param maxMessages the maximum number of messages kept per session
+     * @param minIdle how long a session must be idle before its slot can be taken by a new session
+     * @throws IOException if the file cannot be opened or has an incompatible layout
+     */
+    public MappedFileSessionStore(Path path, int slotCount, int slotSize, int maxMessages, Duration minIdle)
+            throws IOException {
+        if (slotSize <= SLOT_HEADER_SIZE) {
+            throw new IllegalArgumentException("Slot size must be larger than " + SLOT_HEADER_SIZE + " bytes");
+        }
+        this.slotCount = slotCount;
+        this.slotSize = slotSize;
+        this.maxMessages = maxMessages;
+        this.minIdleMillis = minIdle.toMillis();
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        long fileSize = FILE_HEADER_SIZE + (long) slotCount * slotSize;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Session file must be smaller than 2 GB");
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try (FileLock ignored = channel.lock()) {
+            boolean fresh = channel.size() == 0;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            if (fresh) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, slotCount);
+                buffer.putInt(12, slotSize);
+            } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getInt(8) != slotCount || buffer.getInt(12) != slotSize) {
+                channel.close();
+                throw new IOException("Session file " + path + " has an incompatible layout");
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<String> getHistory(String sessionId) {
+        byte[] id = encodeId(sessionId);
+        try (FileLock ignored = channel.lock(0, Long.MAX_VALUE, true)) {
+            int slot = findSlot(id);
+            return slot >= 0 ? readMessages(slot) : List.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not lock session file", e);
+        }
+    }
+
+    @Override
+    public synchronized void appendAll(String sessionId, List<String> newMessages) {
+        byte[] id = encodeId(sessionId);
+        try (FileLock ignored = channel.lock()) {
+            int slot = findSlot(id);
+            List<String> messages;
+            if (slot >= 0) {
+                messages = readMessages(slot);
+            } else {
+                slot = claimSlot(id);
+                messages = new ArrayList<>();
+            }
+
+            messages.addAll(newMessages);
+            while (messages.size() > maxMessages) {
+                messages.removeFirst();
+            }
+            writeMessages(slot, id, messages);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not lock session file", e);
+        }
+    }
+
+    @Override
+    public synchronized void clear(String sessionId) {
+        try (FileLock ignored = channel.lock()) {
+            int slot = findSlot(encodeId(sessionId));
+            if (slot >= 0) {
+                buffer.putInt(slotOffset(slot), 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not lock session file", e);
+        }
+    }
+
+    /**
+     * Get the number of idle sessions this instance has evicted to make room for new ones.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Flush pending writes and close the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Find the slot holding a session.
+     *
+     * @param id the encoded session ID
+     * @return the slot index, or -1 if the session is not stored
+     */
+    private int findSlot(byte[] id) {
+        int home = homeSlot(id);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (home + probe) % slotCount;
+            if (idMatches(slot, id)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Claim a slot for a new session: the first free slot in its probe window,
+     * or else the least recently updated one, if that session is idle long enough.
+     *
+     * @param id the encoded session ID
+     * @return the claimed slot index
+     * @throws IllegalStateException if every slot in the window holds an active session
+     */
+    private int claimSlot(byte[] id) {
+        int home = homeSlot(id);
+        int oldest = home;
+        long oldestUpdate = Long.MAX_VALUE;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (home + probe) % slotCount;
+            int offset = slotOffset(slot);
+            if (buffer.getInt(offset) == 0) {
+                return slot;
+            }
+            long updatedAt = buffer.getLong(offset + 4 + MAX_SESSION_ID_BYTES);
+            if (updatedAt < oldestUpdate) {
+                oldest = slot;
+                oldestUpdate = updatedAt;
+            }
+        }
+        long idleMillis = System.currentTimeMillis() - oldestUpdate;
+        if (idleMillis < minIdleMillis) {
+            throw new IllegalStateException("Session store is full: all " + MAX_PROBES
+                    + " slots for a new session hold active sessions");
+        }
+        evictions.incrementAndGet();
+        logger.warn("Evicting session idle for {} s from slot {} to make room for a new session",
+                idleMillis / 1000, oldest);
+        return oldest;
+    }
+
+    private List<String> readMessages(int slot) {
+        int offset = slotOffset(slot);
+        int dataLength = buffer.getInt(offset + 4 + MAX_SESSION_ID_BYTES + 8);
+        int position = offset + SLOT_HEADER_SIZE;
+        int end = position + dataLength;
+
+        List<String> messages = new ArrayList<>();
+        while (position < end) {
+            int length = buffer.getInt(position);
+            byte[] bytes = new byte[length];
+            buffer.get(position + 4, bytes);
+            messages.add(new String(bytes, StandardCharsets.UTF_8));
+            position += 4 + length;
+        }
+        return messages;
+    }
+
+    /**
+     * Write a session into its slot, dropping the oldest messages (and finally
+     * truncating the newest one) until it fits.
+     */
+    private void writeMessages(int slot, byte[] id, List<String> messages) {
+        int capacity = slotSize - SLOT_HEADER_SIZE;
+        List<byte[]> encoded = new ArrayList<>();
+        int total = 0;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            byte[] bytes = messages.get(i).getBytes(StandardCharsets.UTF_8);
+            if (total + 4 + bytes.length > capacity) {
+                if (encoded.isEmpty()) {
+                    bytes = truncate(messages.get(i), capacity - 4);
+                } else {
+                    break;
+                }
+            }
+            encoded.addFirst(bytes);
+            total += 4 + bytes.length;
+        }
+
+        int offset = slotOffset(slot);
+        buffer.putInt(offset, id.length);
+        buffer.put(offset + 4, id);
+        buffer.putLong(offset + 4 + MAX_SESSION_ID_BYTES, System.currentTimeMillis());
+        buffer.putInt(offset + 4 + MAX_SESSION_ID_BYTES + 8, total);
+
+        int position = offset + SLOT_HEADER_SIZE;
+        for (byte[] bytes : encoded) {
+            buffer.putInt(position, bytes.length);
+            buffer.put(position + 4, bytes);
+            position += 4 + bytes.length;
+        }
+    }
+
+    private boolean idMatches(int slot, byte[] id) {
+        int offset = slotOffset(slot);
+        if (buffer.getInt(offset) != id.length) {
+            return false;
+        }
+        for (int i = 0; i < id.length; i++) {
+            if (buffer.get(offset + 4 + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int homeSlot(byte[] id) {
+        int hash = 1;
+        for (byte b : id) {
+            hash = 31 * hash + b;
+        }
+        return Math.floorMod(hash, slotCount);
+    }
+
+    private int slotOffset(int slot) {
+        return FILE_HEADER_SIZE + slot * slotSize;
+    }
+
+    private static byte[] encodeId(String sessionId) {
+        byte[] id = sessionId.getBytes(StandardCharsets.UTF_8);
+        if (id.length == 0 || id.length > MAX_SESSION_ID_BYTES) {
+            throw new IllegalArgumentException("Session ID must be 1 to " + MAX_SESSION_ID_BYTES + " bytes");
+        }
+        return id;
+    }
+
+    private static byte[] truncate(String message, int maxBytes) {
+        String text = message;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        while (bytes.length > maxBytes) {
+            text = text.substring(0, Math.min(text.length() - 1, maxBytes / 4));
+            bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+}
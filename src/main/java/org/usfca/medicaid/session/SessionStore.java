@@ -0,0 +1,57 @@
+package org.usfca.medicaid.session;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Storage for conversation history keyed by session ID.
+ * Keeping history outside the chat front ends lets any instance serve any
+ * turn of a conversation. Implementations must be safe for concurrent use;
+ * a networked backend only has to implement these operations.
+ */
+public interface SessionStore {
+
+    /**
+     * Get the recent messages of a session, oldest first.
+     *
+     * @param sessionId the session ID
+     * @return a copy of the stored messages, or an empty list for an unknown session
+     */
+    List<String> getHistory(String sessionId);
+
+    /**
+     * Append a message to a session, dropping the oldest messages beyond the store's limit.
+     *
+     * @param sessionId the session ID
+     * @param message the message to append, e.g. "User: ..." or "Assistant: ..."
+     */
+    default void append(String sessionId, String message) {
+        appendAll(sessionId, List.of(message));
+    }
+
+    /**
+     * Append several messages to a session at once, e.g. a question and its
+     * answer, so that no reader sees one without the other. The oldest
+     * messages beyond the store's limit are dropped.
+     *
+     * @param sessionId the session ID
+     * @param messages the messages to append, in order
+     */
+    void appendAll(String sessionId, List<String> messages);
+
+    /**
+     * Remove all messages of a session.
+     *
+     * @param sessionId the session ID
+     */
+    void clear(String sessionId);
+
+    /**
+     * Create a new random session ID.
+     *
+     * @return a new session ID
+     */
+    static String newSessionId() {
+        return UUID.randomUUID().toString();
+    }
+}
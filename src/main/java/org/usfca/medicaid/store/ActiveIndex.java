@@ -0,0 +1,78 @@
+package org.usfca.medicaid.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The index generation serving searches in this process, kept in step with
+ * the index pointer file that every process reads. The generation is read
+ * when the embedding store is opened, written by a blue/green switch, and read
+ * again to follow a switch made by another process. Switches are serialized,
+ * so an older generation is never promoted over a newer one.
+ */
+public final class ActiveIndex {
+
+    private final Path pointerFile;
+    private String generation;
+
+    /**
+     * Constructs a new ActiveIndex for a pointer file.
+     *
+     * @param pointerFile the index pointer file
+     */
+    public ActiveIndex(Path pointerFile) {
+        this.pointerFile = pointerFile;
+    }
+
+    /**
+     * Read the generation named in the pointer file, to open it when the
+     * embedding store is created.
+     *
+     * @return the generation to open
+     * @throws IOException if the pointer file exists but cannot be read
+     */
+    public synchronized String open() throws IOException {
+        generation = IndexGeneration.readActive(pointerFile);
+        return generation;
+    }
+
+    /**
+     * Switch every process to a generation: replace the pointer file, then
+     * promote the generation in this process.
+     *
+     * @param generation the generation to switch to
+     * @param promote promotes the generation's store and returns the previous one
+     * @param <T> the type of the previous store
+     * @return the previous store
+     * @throws IOException if the pointer file cannot be written
+     */
+    public synchronized <T> T switchTo(String generation, Supplier<T> promote) throws IOException {
+        IndexGeneration.writeActive(pointerFile, generation);
+        this.generation = generation;
+        return promote.get();
+    }
+
+    /**
+     * Follow a switch made by another process: if the pointer file names a
+     * different generation than the one serving searches, promote it. Does
+     * nothing before the embedding store has been opened.
+     *
+     * @param promote opens and promotes the named generation
+     * @return true if this process switched generation
+     * @throws IOException if the pointer file exists but cannot be read
+     */
+    public synchronized boolean follow(Consumer<String> promote) throws IOException {
+        if (generation == null) {
+            return false;
+        }
+        String named = IndexGeneration.readActive(pointerFile);
+        if (named.equals(generation)) {
+            return false;
+        }
+        promote.accept(named);
+        generation = named;
+        return true;
+    }
+}
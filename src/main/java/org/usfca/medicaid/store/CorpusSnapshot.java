@@ -0,0 +1,378 @@
+package org.usfca.medicaid.store;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Versioned binary snapshot of an ingested corpus: the extracted documents,
+ * their segments with metadata, and the segment embeddings. Restoring a
+ * snapshot needs no network fetches and no embedding calls.
+ *
+ * <p>All numbers are little-endian. The embeddings are one float32 matrix,
+ * aligned to 64 bytes, so an opened snapshot maps the file and copies rows
+ * straight out of the mapping.
+ *
+ * <pre>
+ * header:    [magic:int][version:int][dimensions:int][documents:int][segments:int][reserved:int]
+ *            [createdAt:long][recordsOffset:long][vectorsOffset:long][fileLength:long][reserved:8 bytes]
+ * records:   [embeddingModel:string] document*
+ * document:  [documentId:string][text:string][metadata][segmentCount:int] ([text:string][metadata])*
+ * metadata:  [count:int] ([key:string][type:byte][value:string])*
+ * string:    [length:int][utf8]
+ * vectors:   [value:float]{dimensions} per segment, in record order
+ * </pre>
+ */
+public final class CorpusSnapshot implements AutoCloseable {
+
+    /**
+     * An ingested document with its segments and their embeddings.
+     *
+     * @param documentId the stable document ID
+     * @param document the extracted document
+     * @param segments the document's segments, in order
+     * @param embeddings the segment embeddings, in segment order
+     */
+    public record Entry(String documentId, Document document, List<TextSegment> segments, List<Embedding> embeddings) {
+    }
+
+    private static final int MAGIC = 0x4D435350;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int VECTOR_ALIGNMENT = 64;
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private static final byte TYPE_STRING = 'S';
+    private static final byte TYPE_INTEGER = 'I';
+    private static final byte TYPE_LONG = 'L';
+    private static final byte TYPE_FLOAT = 'F';
+    private static final byte TYPE_DOUBLE = 'D';
+    private static final byte TYPE_UUID = 'U';
+
+    private final Arena arena;
+    private final MemorySegment file;
+    private final int dimensions;
+    private final int segmentCount;
+    private final Instant createdAt;
+    private final String embeddingModel;
+    private final List<Entry> documents;
+
+    private CorpusSnapshot(Arena arena, MemorySegment file, int dimensions, int segmentCount, Instant createdAt,
+                           String embeddingModel, List<Entry> documents) {
+        this.arena = arena;
+        this.file = file;
+        this.dimensions = dimensions;
+        this.segmentCount = segmentCount;
+        this.createdAt = createdAt;
+        this.embeddingModel = embeddingModel;
+        this.documents = documents;
+    }
+
+    /**
+     * Write a snapshot, replacing the target file only once it is complete.
+     *
+     * @param path the snapshot file
+     * @param embeddingModel the name of the model that produced the embeddings
+     * @param dimensions the embedding dimensions
+     * @param entries the documents to write
+     * @return the number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    public static long write(Path path, String embeddingModel, int dimensions, Collection<Entry> entries)
+            throws IOException {
+        Records records = new Records();
+        records.putString(embeddingModel);
+        int segmentCount = 0;
+        for (Entry entry : entries) {
+            records.putString(entry.documentId());
+            records.putString(entry.document().text());
+            records.putMetadata(entry.document().metadata());
+            records.putInt(entry.segments().size());
+            for (TextSegment segment : entry.segments()) {
+                records.putString(segment.text());
+                records.putMetadata(segment.metadata());
+            }
+            segmentCount += entry.segments().size();
+        }
+
+        long recordsOffset = HEADER_SIZE;
+        long vectorsOffset = align(recordsOffset + records.size());
+        long fileLength = vectorsOffset + (long) segmentCount * dimensions * Float.BYTES;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(dimensions).putInt(entries.size()).putInt(segmentCount).putInt(0);
+        header.putLong(System.currentTimeMillis()).putLong(recordsOffset).putLong(vectorsOffset).putLong(fileLength);
+        header.clear();
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, header);
+            writeFully(channel, ByteBuffer.wrap(records.bytes(), 0, records.size()));
+            writeFully(channel, ByteBuffer.allocate((int) (vectorsOffset - recordsOffset - records.size())));
+
+            ByteBuffer row = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (Entry entry : entries) {
+                for (Embedding embedding : entry.embeddings()) {
+                    float[] vector = embedding.vector();
+                    if (vector.length != dimensions) {
+                        throw new IOException("Expected " + dimensions + " dimensions but got " + vector.length
+                                + " in document " + entry.documentId());
+                    }
+                    row.clear();
+                    row.asFloatBuffer().put(vector);
+                    writeFully(channel, row);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return fileLength;
+    }
+
+    /**
+     * Open a snapshot, reading its documents and segments and mapping its embeddings.
+     *
+     * @param path the snapshot file
+     * @return the opened snapshot; close it to release the mapping
+     * @throws IOException if the file cannot be read, is truncated or has an unsupported version
+     */
+    public static CorpusSnapshot open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            if (file.get(INT, 0) != MAGIC) {
+                throw new IOException(path + " is not a corpus snapshot");
+            }
+            int version = file.get(INT, 4);
+            if (version != VERSION) {
+                throw new IOException("Snapshot " + path + " has version " + version
+                        + ", this build reads version " + VERSION);
+            }
+            int dimensions = file.get(INT, 8);
+            int documentCount = file.get(INT, 12);
+            int segmentCount = file.get(INT, 16);
+            Instant createdAt = Instant.ofEpochMilli(file.get(LONG, 24));
+            long recordsOffset = file.get(LONG, 32);
+            long vectorsOffset = file.get(LONG, 40);
+            if (file.get(LONG, 48) != file.byteSize()) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+
+            Cursor cursor = new Cursor(file, recordsOffset);
+            String embeddingModel = cursor.string();
+            List<Entry> documents = new ArrayList<>(documentCount);
+            long vectorOffset = vectorsOffset;
+            for (int d = 0; d < documentCount; d++) {
+                String documentId = cursor.string();
+                Document document = Document.from(cursor.string(), cursor.metadata());
+                int segments = cursor.integer();
+                List<TextSegment> textSegments = new ArrayList<>(segments);
+                List<Embedding> embeddings = new ArrayList<>(segments);
+                for (int s = 0; s < segments; s++) {
+                    textSegments.add(TextSegment.from(cursor.string(), cursor.metadata()));
+                    embeddings.add(new Embedding(file.asSlice(vectorOffset, (long) dimensions * Float.BYTES)
+                            .toArray(FLOAT)));
+                    vectorOffset += (long) dimensions * Float.BYTES;
+                }
+                documents.add(new Entry(documentId, document, textSegments, embeddings));
+            }
+            return new CorpusSnapshot(arena, file, dimensions, segmentCount, createdAt, embeddingModel,
+                    List.copyOf(documents));
+        } catch (IndexOutOfBoundsException e) {
+            arena.close();
+            throw new IOException("Snapshot " + path + " is corrupt", e);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the documents in the snapshot, in the order they were ingested.
+     *
+     * @return the snapshot documents with their segments and embeddings
+     */
+    public List<Entry> documents() {
+        return documents;
+    }
+
+    /**
+     * Get the embedding dimensions.
+     *
+     * @return the number of dimensions per embedding
+     */
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Get the total number of segments.
+     *
+     * @return the number of segments across all documents
+     */
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Get the time the snapshot was written.
+     *
+     * @return the creation time
+     */
+    public Instant createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * Get the name of the model that produced the embeddings.
+     *
+     * @return the embedding model name
+     */
+    public String embeddingModel() {
+        return embeddingModel;
+    }
+
+    /**
+     * Get the size of the snapshot file.
+     *
+     * @return the file size in bytes
+     */
+    public long byteSize() {
+        return file.byteSize();
+    }
+
+    /**
+     * Release the file mapping.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private static long align(long offset) {
+        return (offset + VECTOR_ALIGNMENT - 1) / VECTOR_ALIGNMENT * VECTOR_ALIGNMENT;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Little-endian writer for the records section.
+     */
+    private static final class Records extends ByteArrayOutputStream {
+
+        private final ByteBuffer scratch = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        void putInt(int value) {
+            write(scratch.putInt(0, value).array(), 0, Integer.BYTES);
+        }
+
+        void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void putMetadata(Metadata metadata) {
+            Map<String, Object> values = metadata.toMap();
+            putInt(values.size());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                putString(entry.getKey());
+                Object value = entry.getValue();
+                write(switch (value) {
+                    case Integer ignored -> TYPE_INTEGER;
+                    case Long ignored -> TYPE_LONG;
+                    case Float ignored -> TYPE_FLOAT;
+                    case Double ignored -> TYPE_DOUBLE;
+                    case UUID ignored -> TYPE_UUID;
+                    default -> TYPE_STRING;
+                });
+                putString(String.valueOf(value));
+            }
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+
+    /**
+     * Sequential reader over the records section of a mapped snapshot.
+     */
+    private static final class Cursor {
+
+        private final MemorySegment file;
+        private long position;
+
+        Cursor(MemorySegment file, long position) {
+            this.file = file;
+            this.position = position;
+        }
+
+        int integer() {
+            int value = file.get(INT, position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        String string() {
+            int length = integer();
+            byte[] bytes = file.asSlice(position, length).toArray(ValueLayout.JAVA_BYTE);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Metadata metadata() {
+            int count = integer();
+            Metadata metadata = new Metadata();
+            for (int i = 0; i < count; i++) {
+                String key = string();
+                byte type = file.get(ValueLayout.JAVA_BYTE, position++);
+                String value = string();
+                switch (type) {
+                    case TYPE_INTEGER -> metadata.put(key, Integer.parseInt(value));
+                    case TYPE_LONG -> metadata.put(key, Long.parseLong(value));
+                    case TYPE_FLOAT -> metadata.put(key, Float.parseFloat(value));
+                    case TYPE_DOUBLE -> metadata.put(key, Double.parseDouble(value));
+                    case TYPE_UUID -> metadata.put(key, UUID.fromString(value));
+                    default -> metadata.put(key, value);
+                }
+            }
+            return metadata;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.usfca.medicaid.store;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Names of vector index generations and the pointer file recording which one
+ * serves queries. Each reindex writes a new generation (a Pinecone namespace or
+ * a local index directory) next to the active one; the pointer is replaced
+ * atomically once the new generation has been validated, so a restart always
+ * opens the generation that was last switched to.
+ *
+ * <p>The empty name is the legacy generation: Pinecone's default namespace and
+ * the root of the local index directory.
+ */
+public final class IndexGeneration {
+
+    /**
+     * The generation used before any blue/green reindex.
+     */
+    public static final String LEGACY = "";
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private IndexGeneration() {
+    }
+
+    /**
+     * Create a name for a new generation.
+     *
+     * @return a name based on the current time, e.g. gen-20250301-141500
+     */
+    public static String newName() {
+        return "gen-" + LocalDateTime.now().format(NAME_FORMAT);
+    }
+
+    /**
+     * Read the active generation from a pointer file.
+     *
+     * @param pointerFile the pointer file
+     * @return the active generation, or {@link #LEGACY} if no reindex has been switched to
+     * @throws IOException if the pointer file exists but cannot be read
+     */
+    public static String readActive(Path pointerFile) throws IOException {
+        try {
+            return Files.readString(pointerFile, StandardCharsets.UTF_8).trim();
+        } catch (NoSuchFileException e) {
+            return LEGACY;
+        }
+    }
+
+    /**
+     * Replace the active generation in a pointer file atomically.
+     *
+     * @param pointerFile the pointer file
+     * @param generation the generation to make active
+     * @throws IOException if the pointer file cannot be written
+     */
+    public static void writeActive(Path pointerFile, String generation) throws IOException {
+        Path directory = pointerFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, pointerFile.getFileName().toString(), ".tmp");
+        Files.writeString(temp, generation + "\n", StandardCharsets.UTF_8);
+        Files.move(temp, pointerFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
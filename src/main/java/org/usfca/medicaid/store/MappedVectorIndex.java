@@ -0,0 +1,499 @@
+package org.usfca.medicaid.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Local embedding store doing exact (brute-force) cosine search over a
+ * memory-mapped matrix of normalized embeddings. Rows are stored as float32
+ * or as int8 with a per-row scale, which takes a quarter of the memory at a
+ * small loss of precision. Segment text and metadata are kept on the heap and
+ * in a JSON-lines file next to the matrix.
+ *
+ * <p>Scores and {@code minScore} filtering match the Pinecone stores: the
+ * relevance score is {@link RelevanceScore#fromCosineSimilarity(double)} and
+ * matches scoring below {@code minScore} are dropped.
+ *
+ * <pre>
+ * vectors.bin:    [magic:int][version:int][format:int][dimensions:int][count:int][reserved:12 bytes] row*
+ * float32 row:    [value:float]{dimensions}
+ * int8 row:       [scale:float][value:byte]{dimensions}
+ * segments.jsonl: {"id": ..., "text": ..., "metadata": {...}} per row, in row order
+ * </pre>
+ */
+public class MappedVectorIndex implements ScannableEmbeddingStore, AutoCloseable {
+
+    /**
+     * Storage format of the matrix rows.
+     */
+    public enum Format {
+        FLOAT32,
+        INT8
+    }
+
+    private static final int MAGIC = 0x4D564958;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int COUNT_OFFSET = 16;
+    private static final String VECTORS_FILE = "vectors.bin";
+    private static final String SEGMENTS_FILE = "segments.jsonl";
+
+    private final Path segmentsPath;
+    private final FileChannel channel;
+    private final Format format;
+    private final int dimensions;
+    private final int rowBytes;
+    private final SimilarityKernel kernel;
+    private final ObjectMapper objectMapper;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<String> ids = new ArrayList<>();
+    private final List<TextSegment> segments = new ArrayList<>();
+    private Arena arena;
+    private MemorySegment matrix;
+
+    /**
+     * Opens or creates an index directory.
+     *
+     * @param directory the directory holding the matrix and segment files
+     * @param dimensions the embedding dimensions
+     * @param format the row format used when the index is created
+     * @throws IOException if the files cannot be opened or have an incompatible layout
+     */
+    public MappedVectorIndex(Path directory, int dimensions, Format format) throws IOException {
+        Files.createDirectories(directory);
+        this.segmentsPath = directory.resolve(SEGMENTS_FILE);
+        this.dimensions = dimensions;
+        this.format = format;
+        this.rowBytes = format == Format.FLOAT32 ? dimensions * Float.BYTES : Float.BYTES + dimensions;
+        this.kernel = SimilarityKernel.create();
+        this.objectMapper = new ObjectMapper();
+        this.channel = FileChannel.open(directory.resolve(VECTORS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        int count;
+        if (channel.size() == 0) {
+            writeHeader(0);
+            Files.write(segmentsPath, new byte[0]);
+            count = 0;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getInt(8) != format.ordinal() || header.getInt(12) != dimensions) {
+                channel.close();
+                throw new IOException("Vector index " + directory + " has an incompatible layout");
+            }
+            count = header.getInt(COUNT_OFFSET);
+        }
+
+        int lines = loadSegments(count);
+        if (ids.size() < count) {
+            writeHeader(ids.size());
+        }
+        if (lines > ids.size()) {
+            rewriteSegments();
+        }
+        remap();
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), List.of(textSegment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> newIds = generateIds(embeddings.size());
+        addAll(newIds, embeddings, null);
+        return newIds;
+    }
+
+    /**
+     * Append rows to the matrix and segment file. Rows are written before the
+     * header count is raised, so a crash never exposes a partially written row.
+     */
+    @Override
+    public void addAll(List<String> newIds, List<Embedding> embeddings, List<TextSegment> newSegments) {
+        lock.writeLock().lock();
+        try {
+            ByteBuffer rows = ByteBuffer.allocate(newIds.size() * rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+            for (Embedding embedding : embeddings) {
+                writeRow(rows, normalize(embedding.vector()));
+            }
+            rows.flip();
+            long position = HEADER_SIZE + (long) ids.size() * rowBytes;
+            while (rows.hasRemaining()) {
+                position += channel.write(rows, position);
+            }
+
+            try (BufferedWriter writer = Files.newBufferedWriter(segmentsPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND)) {
+                for (int i = 0; i < newIds.size(); i++) {
+                    writer.write(toJson(newIds.get(i), newSegments != null ? newSegments.get(i) : null));
+                    writer.newLine();
+                }
+            }
+
+            ids.addAll(newIds);
+            for (int i = 0; i < newIds.size(); i++) {
+                segments.add(newSegments != null ? newSegments.get(i) : null);
+            }
+            writeHeader(ids.size());
+            remap();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to vector index", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> idsToRemove) {
+        Set<String> removed = new HashSet<>(idsToRemove);
+        retain(row -> !removed.contains(ids.get(row)));
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        retain(row -> !filter.test(metadataOf(row)));
+    }
+
+    @Override
+    public void removeAll() {
+        retain(row -> false);
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        float[] query = normalize(request.queryEmbedding().vector());
+        Filter filter = request.filter();
+        double minScore = request.minScore();
+
+        lock.readLock().lock();
+        try {
+            TopK top = new TopK(request.maxResults());
+            int count = ids.size();
+            for (int row = 0; row < count; row++) {
+                if (filter != null && !filter.test(metadataOf(row))) {
+                    continue;
+                }
+                float similarity = similarity(row, query);
+                if (RelevanceScore.fromCosineSimilarity(similarity) >= minScore) {
+                    top.offer(similarity, row);
+                }
+            }
+
+            float[] similarities = new float[top.size()];
+            int[] rows = new int[top.size()];
+            top.drainDescending(similarities, rows);
+
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(rows.length);
+            for (int i = 0; i < rows.length; i++) {
+                matches.add(new EmbeddingMatch<>(RelevanceScore.fromCosineSimilarity(similarities[i]),
+                        ids.get(rows[i]), null, segments.get(rows[i])));
+            }
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of stored vectors.
+     *
+     * @return the row count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        return size();
+    }
+
+    /**
+     * Read every row with a segment. Embeddings come back normalized and, for
+     * the int8 format, dequantized, so they match the stored ones only up to
+     * the quantization error.
+     *
+     * @param consumer receives each row, in row order
+     */
+    @Override
+    public void scan(Consumer<StoredSegment> consumer) {
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < ids.size(); row++) {
+                if (segments.get(row) != null) {
+                    consumer.accept(new StoredSegment(ids.get(row), Embedding.from(readRow(row)), segments.get(row)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Unmap the matrix and close the files. Closing twice has no effect.
+     *
+     * @throws IOException if the matrix file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (arena != null) {
+                arena.close();
+                arena = null;
+            }
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cosine similarity between a normalized query and a stored row.
+     */
+    private float similarity(int row, float[] query) {
+        long offset = HEADER_SIZE + (long) row * rowBytes;
+        if (format == Format.FLOAT32) {
+            return kernel.dotFloat32(matrix, offset, query);
+        }
+        return matrix.get(SimilarityKernel.FLOAT, offset) * kernel.dotInt8(matrix, offset + Float.BYTES, query);
+    }
+
+    /**
+     * Keep only the rows matching a predicate, compacting both files.
+     */
+    private void retain(IntPredicate keep) {
+        lock.writeLock().lock();
+        try {
+            List<byte[]> keptRows = new ArrayList<>();
+            List<String> keptIds = new ArrayList<>();
+            List<TextSegment> keptSegments = new ArrayList<>();
+            for (int row = 0; row < ids.size(); row++) {
+                if (keep.test(row)) {
+                    keptRows.add(matrix.asSlice(HEADER_SIZE + (long) row * rowBytes, rowBytes)
+                            .toArray(ValueLayout.JAVA_BYTE));
+                    keptIds.add(ids.get(row));
+                    keptSegments.add(segments.get(row));
+                }
+            }
+            if (keptIds.size() == ids.size()) {
+                return;
+            }
+
+            arena.close();
+            arena = null;
+            channel.truncate(HEADER_SIZE);
+            long position = HEADER_SIZE;
+            for (byte[] row : keptRows) {
+                ByteBuffer buffer = ByteBuffer.wrap(row);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+
+            ids.clear();
+            ids.addAll(keptIds);
+            segments.clear();
+            segments.addAll(keptSegments);
+            rewriteSegments();
+            writeHeader(ids.size());
+            remap();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact vector index", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void writeRow(ByteBuffer rows, float[] vector) {
+        if (format == Format.FLOAT32) {
+            for (float value : vector) {
+                rows.putFloat(value);
+            }
+            return;
+        }
+
+        float maxAbs = 0;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        float scale = maxAbs == 0 ? 1 : maxAbs / 127f;
+        rows.putFloat(scale);
+        for (float value : vector) {
+            rows.put((byte) Math.round(value / scale));
+        }
+    }
+
+    private float[] readRow(int row) {
+        long offset = HEADER_SIZE + (long) row * rowBytes;
+        float[] vector = new float[dimensions];
+        if (format == Format.FLOAT32) {
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = matrix.get(SimilarityKernel.FLOAT, offset + (long) i * Float.BYTES);
+            }
+            return vector;
+        }
+        float scale = matrix.get(SimilarityKernel.FLOAT, offset);
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = scale * matrix.get(ValueLayout.JAVA_BYTE, offset + Float.BYTES + i);
+        }
+        return vector;
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        float inverse = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * inverse;
+        }
+        return normalized;
+    }
+
+    private Metadata metadataOf(int row) {
+        TextSegment segment = segments.get(row);
+        return segment != null ? segment.metadata() : new Metadata();
+    }
+
+    private void writeHeader(int count) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, format.ordinal());
+        header.putInt(12, dimensions);
+        header.putInt(COUNT_OFFSET, count);
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Map the header and all committed rows, replacing any previous mapping.
+     */
+    private void remap() throws IOException {
+        if (arena != null) {
+            arena.close();
+        }
+        arena = Arena.ofShared();
+        matrix = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + (long) ids.size() * rowBytes, arena);
+    }
+
+    /**
+     * Read the segment file, stopping at the committed row count.
+     *
+     * @return the number of lines in the file, which exceeds the rows read if
+     *         an append was interrupted before the header was updated
+     */
+    private int loadSegments(int count) throws IOException {
+        if (!Files.exists(segmentsPath)) {
+            return 0;
+        }
+        List<String> lines = Files.readAllLines(segmentsPath, StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.isBlank())
+                .toList();
+        for (String line : lines) {
+            if (ids.size() == count) {
+                break;
+            }
+            JsonNode node = objectMapper.readTree(line);
+            ids.add(node.path("id").asText());
+            if (node.has("text")) {
+                Metadata metadata = new Metadata();
+                node.path("metadata").fields().forEachRemaining(field ->
+                        metadata.put(field.getKey(), field.getValue().asText()));
+                segments.add(TextSegment.from(node.path("text").asText(), metadata));
+            } else {
+                segments.add(null);
+            }
+        }
+        return lines.size();
+    }
+
+    private void rewriteSegments() throws IOException {
+        List<String> lines = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            lines.add(toJson(ids.get(i), segments.get(i)));
+        }
+        Files.write(segmentsPath, lines, StandardCharsets.UTF_8);
+    }
+
+    private String toJson(String id, TextSegment segment) throws IOException {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", id);
+        if (segment != null) {
+            node.put("text", segment.text());
+            ObjectNode metadata = node.putObject("metadata");
+            for (Map.Entry<String, Object> entry : segment.metadata().toMap().entrySet()) {
+                metadata.put(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+        }
+        return objectMapper.writeValueAsString(node);
+    }
+}
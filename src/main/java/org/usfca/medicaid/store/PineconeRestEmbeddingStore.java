@@ -0,0 +1,380 @@
+package org.usfca.medicaid.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import dev.langchain4j.store.embedding.filter.logical.Not;
+import dev.langchain4j.store.embedding.filter.logical.Or;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Embedding store speaking the Pinecone REST data-plane protocol
+ * ({@code /query}, {@code /vectors/upsert}, {@code /vectors/delete},
+ * {@code /vectors/list}, {@code /vectors/fetch}) over a
+ * caller-supplied HTTP client, so it can share the application's connection pool.
+ * Segments are stored the same way as the LangChain4j Pinecone store: text under
+ * the {@code text_segment} metadata key, scores mapped from cosine similarity.
+ * Equality, membership and logical metadata filters are sent with the query, so
+ * Pinecone only scores the matching vectors.
+ */
+public class PineconeRestEmbeddingStore implements ScannableEmbeddingStore {
+
+    private static final String TEXT_KEY = "text_segment";
+    private static final String API_VERSION = "2024-07";
+    private static final URI CONTROL_PLANE = URI.create("https://api.pinecone.io/");
+    private static final int UPSERT_BATCH_SIZE = 100;
+    private static final int LIST_PAGE_SIZE = 100;
+
+    private final HttpClient httpClient;
+    private final URI host;
+    private final String apiKey;
+    private final String namespace;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructs a new PineconeRestEmbeddingStore.
+     *
+     * @param httpClient the HTTP client to send requests with
+     * @param host the index host, e.g. https://medicaid-v1-abc123.svc.us-east-1-aws.pinecone.io
+     * @param apiKey the Pinecone API key
+     * @param namespace the namespace to read and write (empty for the default namespace)
+     * @param timeout the per-request timeout
+     */
+    public PineconeRestEmbeddingStore(HttpClient httpClient, String host, String apiKey,
+                                      String namespace, Duration timeout) {
+        this.httpClient = httpClient;
+        this.host = URI.create(host.endsWith("/") ? host : host + "/");
+        this.apiKey = apiKey;
+        this.namespace = namespace != null ? namespace : "";
+        this.timeout = timeout;
+        this.objectMapper = new ObjectMapper();
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), List.of(textSegment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> ids = generateIds(embeddings.size());
+        addAll(ids, embeddings, null);
+        return ids;
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> segments) {
+        for (int start = 0; start < ids.size(); start += UPSERT_BATCH_SIZE) {
+            int end = Math.min(start + UPSERT_BATCH_SIZE, ids.size());
+            ObjectNode body = objectMapper.createObjectNode();
+            body.put("namespace", namespace);
+            ArrayNode vectors = body.putArray("vectors");
+            for (int i = start; i < end; i++) {
+                ObjectNode vector = vectors.addObject();
+                vector.put("id", ids.get(i));
+                ArrayNode values = vector.putArray("values");
+                for (float value : embeddings.get(i).vector()) {
+                    values.add(value);
+                }
+                if (segments != null && segments.get(i) != null) {
+                    ObjectNode metadata = vector.putObject("metadata");
+                    for (Map.Entry<String, Object> entry : segments.get(i).metadata().toMap().entrySet()) {
+                        metadata.put(entry.getKey(), String.valueOf(entry.getValue()));
+                    }
+                    metadata.put(TEXT_KEY, segments.get(i).text());
+                }
+            }
+            post("vectors/upsert", body);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("namespace", namespace);
+        ArrayNode idArray = body.putArray("ids");
+        ids.forEach(idArray::add);
+        post("vectors/delete", body);
+    }
+
+    @Override
+    public void removeAll() {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("namespace", namespace);
+        body.put("deleteAll", true);
+        post("vectors/delete", body);
+    }
+
+    /**
+     * Get the number of vectors in the namespace from the index statistics.
+     * Pinecone updates the statistics shortly after writes, so the count can
+     * lag behind vectors that were just upserted or deleted.
+     *
+     * @return the namespace's vector count, 0 if the namespace does not exist
+     */
+    @Override
+    public long count() {
+        JsonNode namespaces = post("describe_index_stats", objectMapper.createObjectNode()).path("namespaces");
+        JsonNode stats = namespace.isEmpty() && !namespaces.has("")
+                ? namespaces.path("__default__")
+                : namespaces.path(namespace);
+        return stats.path("vectorCount").asLong(0);
+    }
+
+    /**
+     * Read every vector in the namespace: IDs are listed a page at a time
+     * and each page is fetched with its values and metadata. Listing is only
+     * supported by serverless indexes.
+     *
+     * @param consumer receives each vector, in ID order
+     */
+    @Override
+    public void scan(Consumer<StoredSegment> consumer) {
+        String paginationToken = null;
+        do {
+            StringBuilder list = new StringBuilder("vectors/list?limit=").append(LIST_PAGE_SIZE)
+                    .append("&namespace=").append(encode(namespace));
+            if (paginationToken != null) {
+                list.append("&paginationToken=").append(encode(paginationToken));
+            }
+            JsonNode page = get(list.toString());
+
+            StringBuilder fetch = new StringBuilder("vectors/fetch?namespace=").append(encode(namespace));
+            int ids = 0;
+            for (JsonNode vector : page.path("vectors")) {
+                fetch.append("&ids=").append(encode(vector.path("id").asText()));
+                ids++;
+            }
+            if (ids > 0) {
+                for (JsonNode vector : get(fetch.toString()).path("vectors")) {
+                    float[] values = new float[vector.path("values").size()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = (float) vector.path("values").get(i).asDouble();
+                    }
+                    consumer.accept(new StoredSegment(vector.path("id").asText(), Embedding.from(values),
+                            toSegment(vector.path("metadata"))));
+                }
+            }
+            paginationToken = page.path("pagination").path("next").asText(null);
+        } while (paginationToken != null && !paginationToken.isEmpty());
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("namespace", namespace);
+        body.put("topK", request.maxResults());
+        body.put("includeMetadata", true);
+        body.put("includeValues", false);
+        if (request.filter() != null) {
+            body.set("filter", toPineconeFilter(request.filter()));
+        }
+        ArrayNode vector = body.putArray("vector");
+        for (float value : request.queryEmbedding().vector()) {
+            vector.add(value);
+        }
+
+        JsonNode response = post("query", body);
+
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+        for (JsonNode match : response.path("matches")) {
+            double score = RelevanceScore.fromCosineSimilarity(match.path("score").asDouble());
+            if (score < request.minScore()) {
+                continue;
+            }
+            matches.add(new EmbeddingMatch<>(score, match.path("id").asText(), null, toSegment(match.path("metadata"))));
+        }
+        return new EmbeddingSearchResult<>(matches);
+    }
+
+    /**
+     * Translate a metadata filter into Pinecone's filter language. Values are
+     * compared as strings, the way metadata is written on upsert.
+     *
+     * @param filter the metadata filter
+     * @return the Pinecone filter object
+     * @throws UnsupportedOperationException if the filter has no Pinecone equivalent
+     */
+    private ObjectNode toPineconeFilter(Filter filter) {
+        ObjectNode node = objectMapper.createObjectNode();
+        switch (filter) {
+            case IsEqualTo isEqualTo ->
+                    node.putObject(isEqualTo.key()).put("$eq", String.valueOf(isEqualTo.comparisonValue()));
+            case IsNotEqualTo isNotEqualTo ->
+                    node.putObject(isNotEqualTo.key()).put("$ne", String.valueOf(isNotEqualTo.comparisonValue()));
+            case IsIn isIn -> {
+                ArrayNode values = node.putObject(isIn.key()).putArray("$in");
+                isIn.comparisonValues().forEach(value -> values.add(String.valueOf(value)));
+            }
+            case IsNotIn isNotIn -> {
+                ArrayNode values = node.putObject(isNotIn.key()).putArray("$nin");
+                isNotIn.comparisonValues().forEach(value -> values.add(String.valueOf(value)));
+            }
+            case And and -> node.putArray("$and").add(toPineconeFilter(and.left())).add(toPineconeFilter(and.right()));
+            case Or or -> node.putArray("$or").add(toPineconeFilter(or.left())).add(toPineconeFilter(or.right()));
+            case Not not when not.expression() instanceof IsEqualTo isEqualTo ->
+                    node.setAll(toPineconeFilter(new IsNotEqualTo(isEqualTo.key(), isEqualTo.comparisonValue())));
+            case Not not when not.expression() instanceof IsIn isIn ->
+                    node.setAll(toPineconeFilter(new IsNotIn(isIn.key(), isIn.comparisonValues())));
+            default -> throw new UnsupportedOperationException("Unsupported Pinecone filter: " + filter);
+        }
+        return node;
+    }
+
+    /**
+     * Rebuild a text segment from stored metadata.
+     */
+    private TextSegment toSegment(JsonNode metadataNode) {
+        if (metadataNode.isMissingNode() || !metadataNode.has(TEXT_KEY)) {
+            return null;
+        }
+        Metadata metadata = new Metadata();
+        Iterator<Map.Entry<String, JsonNode>> fields = metadataNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getKey().equals(TEXT_KEY)) {
+                metadata.put(field.getKey(), field.getValue().asText());
+            }
+        }
+        return TextSegment.from(metadataNode.path(TEXT_KEY).asText(), metadata);
+    }
+
+    /**
+     * Look up the host of an index by name through the Pinecone control plane,
+     * over the given HTTP client.
+     *
+     * @param httpClient the HTTP client to send the request with
+     * @param apiKey the Pinecone API key
+     * @param indexName the index name
+     * @param timeout the request timeout
+     * @return the index host URL
+     */
+    public static String resolveHost(HttpClient httpClient, String apiKey, String indexName, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder(CONTROL_PLANE.resolve("indexes/" + indexName))
+                .timeout(timeout)
+                .header("Api-Key", apiKey)
+                .header("X-Pinecone-API-Version", API_VERSION)
+                .GET()
+                .build();
+        JsonNode index = send(httpClient, new ObjectMapper(), "indexes/" + indexName, request);
+        String host = index.path("host").asText("");
+        if (host.isEmpty()) {
+            throw new IllegalStateException("Pinecone index " + indexName + " has no host");
+        }
+        return host.startsWith("http") ? host : "https://" + host;
+    }
+
+    /**
+     * POST a JSON body to the index host.
+     *
+     * @param path the request path relative to the host
+     * @param body the JSON body
+     * @return the parsed response body
+     */
+    private JsonNode post(String path, JsonNode body) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(host.resolve(path))
+                    .timeout(timeout)
+                    .header("Api-Key", apiKey)
+                    .header("X-Pinecone-API-Version", API_VERSION)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            return send(httpClient, objectMapper, path, request);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Pinecone " + path + " request failed", e);
+        }
+    }
+
+    /**
+     * GET a path, with its query string, from the index host.
+     *
+     * @param path the request path relative to the host
+     * @return the parsed response body
+     */
+    private JsonNode get(String path) {
+        HttpRequest request = HttpRequest.newBuilder(host.resolve(path))
+                .timeout(timeout)
+                .header("Api-Key", apiKey)
+                .header("X-Pinecone-API-Version", API_VERSION)
+                .GET()
+                .build();
+        return send(httpClient, objectMapper, path.substring(0, path.indexOf('?')), request);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Send a request and parse its JSON response.
+     *
+     * @param httpClient the HTTP client
+     * @param objectMapper the mapper parsing the response
+     * @param path the request path, for error messages
+     * @param request the request
+     * @return the parsed response body
+     */
+    private static JsonNode send(HttpClient httpClient, ObjectMapper objectMapper, String path, HttpRequest request) {
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Pinecone " + path + " failed with HTTP " + response.statusCode()
+                        + ": " + new String(response.body()));
+            }
+            return response.body().length == 0
+                    ? objectMapper.createObjectNode()
+                    : objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Pinecone " + path + " request failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pinecone " + path + " request interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.usfca.medicaid.store;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Plain loop kernel used when the Vector API module is not available.
+ */
+class ScalarSimilarityKernel implements SimilarityKernel {
+
+    @Override
+    public float dotFloat32(MemorySegment matrix, long offset, float[] query) {
+        float sum = 0;
+        for (int i = 0; i < query.length; i++) {
+            sum += matrix.get(FLOAT, offset + (long) i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dotInt8(MemorySegment matrix, long offset, float[] query) {
+        float sum = 0;
+        for (int i = 0; i < query.length; i++) {
+            sum += matrix.get(ValueLayout.JAVA_BYTE, offset + i) * query[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,39 @@
+package org.usfca.medicaid.store;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+import java.util.function.Consumer;
+
+/**
+ * Embedding store that can count and list the vectors it holds, including the
+ * ones written by earlier runs, e.g. to validate a reindex against the live
+ * index or to snapshot it.
+ */
+public interface ScannableEmbeddingStore extends EmbeddingStore<TextSegment> {
+
+    /**
+     * A vector read back from the store.
+     *
+     * @param id the vector ID
+     * @param embedding the stored embedding
+     * @param segment the stored segment, or null if the vector has none
+     */
+    record StoredSegment(String id, Embedding embedding, TextSegment segment) {
+    }
+
+    /**
+     * Get the number of vectors in the store.
+     *
+     * @return the vector count
+     */
+    long count();
+
+    /**
+     * Read every vector in the store.
+     *
+     * @param consumer receives each vector, in no particular order
+     */
+    void scan(Consumer<StoredSegment> consumer);
+}
@@ -0,0 +1,87 @@
+package org.usfca.medicaid.store;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Vector API kernel. Float32 rows use the preferred float species; int8 rows
+ * are loaded as bytes and widened to a float species with the same lane count.
+ * Four independent accumulators keep the FMA units busy instead of waiting on
+ * one dependency chain.
+ */
+class SimdSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(Math.max(64, FLOATS.length() * Byte.SIZE)));
+    private static final VectorSpecies<Float> WIDENED =
+            VectorSpecies.of(float.class, VectorShape.forBitSize(BYTES.length() * Float.SIZE));
+
+    @Override
+    public float dotFloat32(MemorySegment matrix, long offset, float[] query) {
+        int lanes = FLOATS.length();
+        FloatVector sum0 = FloatVector.zero(FLOATS);
+        FloatVector sum1 = FloatVector.zero(FLOATS);
+        FloatVector sum2 = FloatVector.zero(FLOATS);
+        FloatVector sum3 = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (int bound = query.length - 4 * lanes; i <= bound; i += 4 * lanes) {
+            sum0 = loadFloats(matrix, offset, i).fma(FloatVector.fromArray(FLOATS, query, i), sum0);
+            sum1 = loadFloats(matrix, offset, i + lanes).fma(FloatVector.fromArray(FLOATS, query, i + lanes), sum1);
+            sum2 = loadFloats(matrix, offset, i + 2 * lanes)
+                    .fma(FloatVector.fromArray(FLOATS, query, i + 2 * lanes), sum2);
+            sum3 = loadFloats(matrix, offset, i + 3 * lanes)
+                    .fma(FloatVector.fromArray(FLOATS, query, i + 3 * lanes), sum3);
+        }
+        for (int bound = FLOATS.loopBound(query.length); i < bound; i += lanes) {
+            sum0 = loadFloats(matrix, offset, i).fma(FloatVector.fromArray(FLOATS, query, i), sum0);
+        }
+        float sum = sum0.add(sum1).add(sum2.add(sum3)).reduceLanes(VectorOperators.ADD);
+        for (; i < query.length; i++) {
+            sum += matrix.get(FLOAT, offset + (long) i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dotInt8(MemorySegment matrix, long offset, float[] query) {
+        int lanes = BYTES.length();
+        FloatVector sum0 = FloatVector.zero(WIDENED);
+        FloatVector sum1 = FloatVector.zero(WIDENED);
+        FloatVector sum2 = FloatVector.zero(WIDENED);
+        FloatVector sum3 = FloatVector.zero(WIDENED);
+        int i = 0;
+        for (int bound = query.length - 4 * lanes; i <= bound; i += 4 * lanes) {
+            sum0 = loadBytes(matrix, offset, i).fma(FloatVector.fromArray(WIDENED, query, i), sum0);
+            sum1 = loadBytes(matrix, offset, i + lanes).fma(FloatVector.fromArray(WIDENED, query, i + lanes), sum1);
+            sum2 = loadBytes(matrix, offset, i + 2 * lanes)
+                    .fma(FloatVector.fromArray(WIDENED, query, i + 2 * lanes), sum2);
+            sum3 = loadBytes(matrix, offset, i + 3 * lanes)
+                    .fma(FloatVector.fromArray(WIDENED, query, i + 3 * lanes), sum3);
+        }
+        for (int bound = BYTES.loopBound(query.length); i < bound; i += lanes) {
+            sum0 = loadBytes(matrix, offset, i).fma(FloatVector.fromArray(WIDENED, query, i), sum0);
+        }
+        float sum = sum0.add(sum1).add(sum2.add(sum3)).reduceLanes(VectorOperators.ADD);
+        for (; i < query.length; i++) {
+            sum += matrix.get(ValueLayout.JAVA_BYTE, offset + i) * query[i];
+        }
+        return sum;
+    }
+
+    private static FloatVector loadFloats(MemorySegment matrix, long offset, int index) {
+        return FloatVector.fromMemorySegment(FLOATS, matrix, offset + (long) index * Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static FloatVector loadBytes(MemorySegment matrix, long offset, int index) {
+        return (FloatVector) ByteVector.fromMemorySegment(BYTES, matrix, offset + index, ByteOrder.LITTLE_ENDIAN)
+                .convertShape(VectorOperators.B2F, WIDENED, 0);
+    }
+}
@@ -0,0 +1,48 @@
+package org.usfca.medicaid.store;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Dot products between a query vector and rows of a memory-mapped matrix.
+ * The SIMD implementation needs {@code --add-modules jdk.incubator.vector};
+ * without it a scalar implementation is used, whose results are equivalent
+ * up to float rounding (the SIMD path sums in several lanes and accumulators).
+ */
+interface SimilarityKernel {
+
+    ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Dot product with a float32 row.
+     *
+     * @param matrix the mapped matrix
+     * @param offset the byte offset of the row
+     * @param query the query vector
+     * @return the dot product
+     */
+    float dotFloat32(MemorySegment matrix, long offset, float[] query);
+
+    /**
+     * Dot product with an int8 row, before applying the row's scale.
+     *
+     * @param matrix the mapped matrix
+     * @param offset the byte offset of the row's quantized values
+     * @param query the query vector
+     * @return the unscaled dot product
+     */
+    float dotInt8(MemorySegment matrix, long offset, float[] query);
+
+    /**
+     * Get the fastest kernel available in this JVM.
+     *
+     * @return the SIMD kernel if the Vector API module is present, otherwise the scalar kernel
+     */
+    static SimilarityKernel create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return new SimdSimilarityKernel();
+        }
+        return new ScalarSimilarityKernel();
+    }
+}
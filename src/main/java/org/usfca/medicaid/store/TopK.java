@@ -0,0 +1,96 @@
+package org.usfca.medicaid.store;
+
+/**
+ * Bounded min-heap of (score, row) pairs on primitive arrays, keeping the
+ * k highest scores seen without allocating per candidate.
+ */
+final class TopK {
+
+    private final float[] scores;
+    private final int[] rows;
+    private int size;
+
+    TopK(int k) {
+        this.scores = new float[k];
+        this.rows = new int[k];
+    }
+
+    /**
+     * Offer a candidate; it is kept if the heap is not full or it beats the lowest score.
+     *
+     * @param score the candidate score
+     * @param row the candidate row
+     */
+    void offer(float score, int row) {
+        if (size < scores.length) {
+            scores[size] = score;
+            rows[size] = row;
+            siftUp(size++);
+        } else if (size > 0 && score > scores[0]) {
+            scores[0] = score;
+            rows[0] = row;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Get the number of candidates kept.
+     *
+     * @return the heap size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Drain the heap into arrays ordered from the highest score to the lowest.
+     *
+     * @param sortedScores receives the scores, at least {@link #size()} long
+     * @param sortedRows receives the rows, at least {@link #size()} long
+     */
+    void drainDescending(float[] sortedScores, int[] sortedRows) {
+        for (int i = size - 1; i >= 0; i--) {
+            sortedScores[i] = scores[0];
+            sortedRows[i] = rows[0];
+            size--;
+            scores[0] = scores[size];
+            rows[0] = rows[size];
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+            if (scores[index] <= scores[smallest]) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        int row = rows[a];
+        rows[a] = rows[b];
+        rows[b] = row;
+    }
+}
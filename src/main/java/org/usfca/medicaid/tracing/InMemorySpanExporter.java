@@ -0,0 +1,81 @@
+package org.usfca.medicaid.tracing;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Span exporter that keeps the most recent finished spans in memory.
+ * Lets tests and the load-test harness inspect traces without a collector.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final Deque<SpanData> spans;
+
+    /**
+     * Constructs a new InMemorySpanExporter.
+     *
+     * @param capacity the maximum number of spans kept; older spans are dropped
+     */
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = capacity;
+        this.spans = new ArrayDeque<>(Math.min(capacity, 1024));
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> batch) {
+        for (SpanData span : batch) {
+            if (spans.size() == capacity) {
+                spans.removeFirst();
+            }
+            spans.addLast(span);
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Get the finished spans currently held, oldest first.
+     *
+     * @return a copy of the stored spans
+     */
+    public synchronized List<SpanData> getFinishedSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * Get the finished spans of one trace, oldest first.
+     *
+     * @param traceId the trace ID
+     * @return the spans belonging to the trace
+     */
+    public synchronized List<SpanData> getTrace(String traceId) {
+        return spans.stream()
+                .filter(span -> span.getTraceId().equals(traceId))
+                .toList();
+    }
+
+    /**
+     * Discard all stored spans.
+     */
+    public synchronized void reset() {
+        spans.clear();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        reset();
+        return CompletableResultCode.ofSuccess();
+    }
+}
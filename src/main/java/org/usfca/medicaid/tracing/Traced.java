@@ -0,0 +1,66 @@
+package org.usfca.medicaid.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+
+import java.util.function.Function;
+
+/**
+ * Helper for running a block of code inside a span.
+ */
+public final class Traced {
+
+    private Traced() {
+    }
+
+    /**
+     * Run a call inside a new internal span that is current for its duration.
+     * Exceptions are recorded on the span and rethrown.
+     *
+     * @param tracer the tracer to create the span with
+     * @param name the span name
+     * @param call the call, given the span so it can add attributes
+     * @param <T> the result type
+     * @return the result of the call
+     */
+    public static <T> T call(Tracer tracer, String name, Function<Span, T> call) {
+        return call(tracer, name, SpanKind.INTERNAL, call);
+    }
+
+    /**
+     * Run a call inside a new span that is current for its duration.
+     * Exceptions are recorded on the span and rethrown.
+     *
+     * @param tracer the tracer to create the span with
+     * @param name the span name
+     * @param kind the span kind
+     * @param call the call, given the span so it can add attributes
+     * @param <T> the result type
+     * @return the result of the call
+     */
+    public static <T> T call(Tracer tracer, String name, SpanKind kind, Function<Span, T> call) {
+        Span span = tracer.spanBuilder(name).setSpanKind(kind).startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return call.apply(span);
+        } catch (RuntimeException | Error e) {
+            recordFailure(span, e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Mark a span as failed.
+     *
+     * @param span the span
+     * @param error the failure
+     */
+    public static void recordFailure(Span span, Throwable error) {
+        span.recordException(error);
+        span.setStatus(StatusCode.ERROR, String.valueOf(error.getMessage()));
+    }
+}
@@ -0,0 +1,78 @@
+package org.usfca.medicaid.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.usfca.medicaid.config.AppConfig;
+
+/**
+ * Spring configuration for OpenTelemetry tracing.
+ * Finished spans go to the exporters listed in MEDICAID_TRACING_EXPORTERS
+ * (default none): "memory" keeps recent spans in an {@link InMemorySpanExporter},
+ * "otlp" sends them to the OTLP/HTTP endpoint in OTEL_EXPORTER_OTLP_ENDPOINT.
+ * Both are fed by a batch processor, so ending a span on the request thread
+ * only queues it.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Exporter holding the most recent finished spans.
+     *
+     * @return the in-memory exporter
+     */
+    @Bean
+    public InMemorySpanExporter inMemorySpanExporter() {
+        return new InMemorySpanExporter(AppConfig.getTracingMemorySpans());
+    }
+
+    /**
+     * OpenTelemetry SDK with the configured exporters.
+     *
+     * @param inMemorySpanExporter the in-memory exporter
+     * @return the SDK, flushed and shut down with the context
+     */
+    @Bean(destroyMethod = "close")
+    public OpenTelemetrySdk openTelemetry(InMemorySpanExporter inMemorySpanExporter) {
+        SdkTracerProviderBuilder tracerProvider = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(
+                        Attributes.builder().put("service.name", "medicaid-agent").build())));
+
+        for (String exporter : AppConfig.getTracingExporters()) {
+            switch (exporter) {
+                case "memory" -> tracerProvider.addSpanProcessor(BatchSpanProcessor.builder(inMemorySpanExporter).build());
+                case "otlp" -> tracerProvider.addSpanProcessor(BatchSpanProcessor.builder(
+                        OtlpHttpSpanExporter.builder()
+                                .setEndpoint(AppConfig.getOtlpEndpoint() + "/v1/traces")
+                                .build())
+                        .build());
+                case "none" -> {
+                }
+                default -> System.err.println("⚠️  Unknown tracing exporter: " + exporter);
+            }
+        }
+
+        return OpenTelemetrySdk.builder()
+                .setTracerProvider(tracerProvider.build())
+                .build();
+    }
+
+    /**
+     * Tracer used to instrument the application.
+     *
+     * @param openTelemetry the OpenTelemetry instance
+     * @return the application tracer
+     */
+    @Bean
+    public Tracer tracer(OpenTelemetry openTelemetry) {
+        return openTelemetry.getTracer("org.usfca.medicaid");
+    }
+}
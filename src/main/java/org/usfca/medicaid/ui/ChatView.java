@@ -3,37 +3,85 @@ package org.usfca.medicaid.ui;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
-import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.H2;
-import com.vaadin.flow.component.html.Paragraph;
-import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
-import com.vaadin.flow.component.orderedlayout.Scroller;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextArea;
+import com.vaadin.flow.component.virtuallist.VirtualList;
+import com.vaadin.flow.data.provider.ListDataProvider;
+import com.vaadin.flow.data.renderer.LitRenderer;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import org.usfca.medicaid.config.AppConfig;
 import org.usfca.medicaid.service.RagService;
+import org.usfca.medicaid.session.SessionStore;
+import org.usfca.medicaid.tracing.Traced;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.concurrent.CompletableFuture;
 
 @Route("")
 @PageTitle("Medicaid Assistant")
 public class ChatView extends VerticalLayout {
 
+    private static final String MESSAGE_TEMPLATE = """
+            <div class="chat-message" ?pending=${item.pending}>
+              <span class="speaker">${item.speaker}:</span>
+              <span class="text" ?hidden=${item.pending}>${item.text}</span>
+              <span class="loading-dots" ?hidden=${!item.pending}><span class="loading-dot">●</span><span class="loading-dot">●</span><span class="loading-dot">●</span></span>
+            </div>""";
+
+    /**
+     * A single transcript entry. A pending entry shows the loading animation.
+     * Entries use identity equality so repeated messages stay distinct rows.
+     */
+    private static final class ChatMessage implements Serializable {
+
+        private final String speaker;
+        private final String text;
+        private final boolean pending;
+
+        private ChatMessage(String speaker, String text, boolean pending) {
+            this.speaker = speaker;
+            this.text = text;
+            this.pending = pending;
+        }
+
+        private String speaker() {
+            return speaker;
+        }
+
+        private String text() {
+            return text;
+        }
+
+        private boolean pending() {
+            return pending;
+        }
+    }
+
     private final RagService ragService;
-    private final List<String> conversationHistory;
-    private final VerticalLayout messageContainer;
+    private final Tracer tracer;
+    private final String sessionId;
+    private final Deque<ChatMessage> transcript;
+    private final ListDataProvider<ChatMessage> transcriptProvider;
+    private final VirtualList<ChatMessage> messageList;
     private final TextArea inputField;
     private final Button sendButton;
-    private Div loadingIndicator;
+    private ChatMessage loadingIndicator;
 
-    public ChatView(RagService ragService) {
+    public ChatView(RagService ragService, Tracer tracer) {
         this.ragService = ragService;
-        this.conversationHistory = new ArrayList<>();
+        this.tracer = tracer;
+        this.sessionId = SessionStore.newSessionId();
+        this.transcript = new ArrayDeque<>();
+        this.transcriptProvider = new ListDataProvider<>(transcript);
 
         addClassName("chat-view");
         setSizeFull();
@@ -42,14 +90,14 @@ public class ChatView extends VerticalLayout {
 
         H2 title = new H2("Medicaid Chat Assistant");
 
-        messageContainer = new VerticalLayout();
-        messageContainer.addClassName("messages");
-        messageContainer.setSpacing(false);
-        messageContainer.setPadding(false);
-        messageContainer.setWidthFull();
-
-        Scroller scroller = new Scroller(messageContainer);
-        scroller.setSizeFull();
+        messageList = new VirtualList<>();
+        messageList.addClassName("messages");
+        messageList.setSizeFull();
+        messageList.setRenderer(LitRenderer.<ChatMessage>of(MESSAGE_TEMPLATE)
+                .withProperty("speaker", ChatMessage::speaker)
+                .withProperty("text", ChatMessage::text)
+                .withProperty("pending", ChatMessage::pending));
+        messageList.setDataProvider(transcriptProvider);
 
         inputField = new TextArea();
         inputField.setWidthFull();
@@ -65,8 +113,8 @@ public class ChatView extends VerticalLayout {
         inputBar.setSpacing(true);
         inputBar.setAlignItems(Alignment.END);
 
-        add(title, scroller, inputBar);
-        expand(scroller);
+        add(title, messageList, inputBar);
+        expand(messageList);
 
         inputField.focus();
     }
@@ -78,7 +126,6 @@ public class ChatView extends VerticalLayout {
         }
 
         appendMessage("You", userMessage);
-        conversationHistory.add("User: " + userMessage);
 
         String messageCopy = userMessage;
         inputField.clear();
@@ -87,20 +134,26 @@ public class ChatView extends VerticalLayout {
         showLoadingIndicator();
 
         UI currentUI = UI.getCurrent();
+        Span span = tracer.spanBuilder("ChatView.handleSend").startSpan();
+        span.setAttribute("medicaid.session.id", sessionId);
 
-        CompletableFuture.supplyAsync(() -> {
+        CompletableFuture.supplyAsync(Context.current().with(span).wrapSupplier(() -> {
             try {
-                String result = ragService.generateResponse(messageCopy, new ArrayList<>(conversationHistory));
+                String result = ragService.generateResponse(messageCopy, sessionId);
                 return result;
             } catch (Exception ex) {
                 System.err.println("Error in RAG service: " + ex.getMessage());
                 ex.printStackTrace();
                 throw new RuntimeException(ex);
             }
+        })).whenComplete((response, ex) -> {
+            if (ex != null) {
+                Traced.recordFailure(span, ex);
+            }
+            span.end();
         }).thenAccept(response -> {
             currentUI.access(() -> {
                 try {
-                    conversationHistory.add("Assistant: " + response);
                     hideLoadingIndicator();
                     appendMessage("Assistant", response);
                     setInputEnabled(true);
@@ -123,10 +176,21 @@ public class ChatView extends VerticalLayout {
     }
 
     private void appendMessage(String speaker, String text) {
-        Paragraph message = new Paragraph(speaker + ": " + text);
-        message.getElement().getThemeList().add("small");
-        message.setWidthFull();
-        messageContainer.add(message);
+        addToTranscript(new ChatMessage(speaker, text, false));
+    }
+
+    /**
+     * Add an entry to the transcript, dropping the oldest entries beyond the cap.
+     * Only the visible rows are rendered, so the server-side component count
+     * stays constant however long the conversation grows.
+     */
+    private void addToTranscript(ChatMessage message) {
+        transcript.addLast(message);
+        while (transcript.size() > AppConfig.getTranscriptLimit()) {
+            transcript.removeFirst();
+        }
+        transcriptProvider.refreshAll();
+        messageList.scrollToEnd();
     }
 
     private void setInputEnabled(boolean enabled) {
@@ -136,58 +200,15 @@ public class ChatView extends VerticalLayout {
     
     private void showLoadingIndicator() {
         if (loadingIndicator == null) {
-            loadingIndicator = new Div();
-            loadingIndicator.addClassName("loading-indicator");
-
-            Span assistantLabel = new Span("Assistant: ");
-            
-            Span dot1 = new Span("●");
-            Span dot2 = new Span("●");
-            Span dot3 = new Span("●");
-            
-            dot1.addClassName("loading-dot");
-            dot2.addClassName("loading-dot");
-            dot3.addClassName("loading-dot");
-
-            dot1.getStyle().set("animation-delay", "0s");
-            dot2.getStyle().set("animation-delay", "0.2s");
-            dot3.getStyle().set("animation-delay", "0.4s");
-            
-            Div dotsContainer = new Div(dot1, dot2, dot3);
-            dotsContainer.getStyle()
-                .set("display", "inline-block")
-                .set("margin-left", "5px");
-            
-            loadingIndicator.add(assistantLabel, dotsContainer);
-
-            loadingIndicator.getElement().getThemeList().add("small");
-            loadingIndicator.setWidthFull();
+            loadingIndicator = new ChatMessage("Assistant", "", true);
+            addToTranscript(loadingIndicator);
         }
-        
-        messageContainer.add(loadingIndicator);
-
-        getElement().executeJs(
-            "const style = document.createElement('style');" +
-            "style.textContent = `" +
-            ".loading-dot {" +
-            "  animation: blink 1.4s infinite both;" +
-            "  margin: 0 2px;" +
-            "}" +
-            "@keyframes blink {" +
-            "  0%, 80%, 100% { opacity: 0.3; }" +
-            "  40% { opacity: 1; }" +
-            "}" +
-            "`;" +
-            "if (!document.querySelector('style[data-loading-animation]')) {" +
-            "  style.setAttribute('data-loading-animation', 'true');" +
-            "  document.head.appendChild(style);" +
-            "}"
-        );
     }
     
     private void hideLoadingIndicator() {
         if (loadingIndicator != null) {
-            messageContainer.remove(loadingIndicator);
+            transcript.remove(loadingIndicator);
+            transcriptProvider.refreshAll();
             loadingIndicator = null;
         }
     }